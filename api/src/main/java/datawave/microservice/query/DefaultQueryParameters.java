@@ -1,9 +1,7 @@
 package datawave.microservice.query;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -236,24 +234,15 @@ public class DefaultQueryParameters implements QueryParameters {
         return result;
     }
     
-    public static synchronized String formatDate(Date d) throws ParseException {
-        String formatPattern = "yyyyMMdd HHmmss.SSS";
-        SimpleDateFormat formatter = new SimpleDateFormat(formatPattern);
-        formatter.setLenient(false);
-        return formatter.format(d);
+    public static String formatDate(Date d) throws ParseException {
+        return QueryDateCodec.format(d);
     }
     
     protected static final String defaultStartTime = "000000";
     protected static final String defaultStartMillisec = "000";
     protected static final String defaultEndTime = "235959";
     protected static final String defaultEndMillisec = "999";
-    protected static final String formatPattern = "yyyyMMdd HHmmss.SSS";
-    private static final SimpleDateFormat dateFormat;
-    
-    static {
-        dateFormat = new SimpleDateFormat(formatPattern);
-        dateFormat.setLenient(false);
-    }
+    protected static final String formatPattern = QueryDateCodec.FORMAT_PATTERN;
     
     public static Date parseStartDate(String s) throws ParseException {
         return parseDate(s, defaultStartTime, defaultStartMillisec);
@@ -263,35 +252,8 @@ public class DefaultQueryParameters implements QueryParameters {
         return parseDate(s, defaultEndTime, defaultEndMillisec);
     }
     
-    public static synchronized Date parseDate(String s, String defaultTime, String defaultMillisec) throws ParseException {
-        Date d;
-        ParseException e = null;
-        synchronized (DefaultQueryParameters.dateFormat) {
-            String str = s;
-            if (str.equals("+24Hours")) {
-                d = DateUtils.addDays(new Date(), 1);
-            } else {
-                if (StringUtils.isNotBlank(defaultTime) && !str.contains(" ")) {
-                    str = str + " " + defaultTime;
-                }
-                
-                if (StringUtils.isNotBlank(defaultMillisec) && !str.contains(".")) {
-                    str = str + "." + defaultMillisec;
-                }
-                
-                try {
-                    d = DefaultQueryParameters.dateFormat.parse(str);
-                    // if any time value in HHmmss was set either by default or by the user
-                    // then we want to include ALL of that second by setting the milliseconds to 999
-                    if (DateUtils.getFragmentInMilliseconds(d, Calendar.HOUR_OF_DAY) > 0) {
-                        DateUtils.setMilliseconds(d, 999);
-                    }
-                } catch (ParseException pe) {
-                    throw new RuntimeException("Unable to parse date " + str + " with format " + formatPattern, e);
-                }
-            }
-        }
-        return d;
+    public static Date parseDate(String s, String defaultTime, String defaultMillisec) throws ParseException {
+        return QueryDateCodec.parse(s, defaultTime, defaultMillisec);
     }
     
     /**
@@ -0,0 +1,120 @@
+package datawave.microservice.query;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A bounded cache of the query owners parsed out of user DNs.
+ * <p>
+ * The owner of a query is the last word of the common name in the user's DN (or of the whole DN, if it has no common name). Working this out requires
+ * parsing the DN, and the same relatively small set of DNs is parsed for every query that is created, read from storage, or checked for ownership, so the
+ * parsed owners are cached. The least recently used DNs are evicted once the cache is full.
+ * <p>
+ * The cache is shared by everything in the JVM, which is why it is static. The query service sizes it from its configuration, and periodically logs its hit
+ * and miss counts.
+ */
+public final class DnNameCache {
+    public static final long DEFAULT_MAXIMUM_SIZE = 10000L;
+    
+    private static volatile Cache<String,String> cache = createCache(DEFAULT_MAXIMUM_SIZE);
+    
+    private static final AtomicLong numHits = new AtomicLong();
+    private static final AtomicLong numMisses = new AtomicLong();
+    
+    private DnNameCache() {
+        // static utility
+    }
+    
+    /**
+     * @param dn
+     *            the user DN, may be null
+     * @return the owner (short name) for the DN, or null if the DN is null
+     */
+    public static String getOwner(String dn) {
+        return (dn != null) ? lookupOwner(dn) : null;
+    }
+    
+    private static String lookupOwner(String dn) {
+        String owner = cache.getIfPresent(dn);
+        if (owner != null) {
+            numHits.incrementAndGet();
+            return owner;
+        }
+        
+        numMisses.incrementAndGet();
+        try {
+            // concurrent misses for the same dn will only parse it once
+            return cache.get(dn, () -> parseOwner(dn));
+        } catch (ExecutionException e) {
+            // parsing doesn't throw checked exceptions
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    private static String parseOwner(String dn) {
+        String commonName = null;
+        try {
+            LdapName name = new LdapName(dn);
+            for (Rdn rdn : name.getRdns()) {
+                if ("CN".equalsIgnoreCase(rdn.getType())) {
+                    commonName = String.valueOf(rdn.getValue());
+                    break;
+                }
+            }
+        } catch (InvalidNameException e) {
+            // ignore -- invalid name, so can't find components
+        }
+        
+        String owner = (commonName != null) ? commonName : dn;
+        int idx = owner.lastIndexOf(' ');
+        if (idx >= 0) {
+            owner = owner.substring(idx + 1);
+        }
+        return owner;
+    }
+    
+    /**
+     * Replaces the cache with an empty one of the given size.
+     *
+     * @param maximumSize
+     *            the maximum number of DNs to cache
+     */
+    public static void setMaximumSize(long maximumSize) {
+        cache = createCache(maximumSize);
+    }
+    
+    public static void clear() {
+        cache.invalidateAll();
+        numHits.set(0L);
+        numMisses.set(0L);
+    }
+    
+    public static long size() {
+        return cache.size();
+    }
+    
+    public static long getHitCount() {
+        return numHits.get();
+    }
+    
+    public static long getMissCount() {
+        return numMisses.get();
+    }
+    
+    public static double getHitRate() {
+        long hits = numHits.get();
+        long requests = hits + numMisses.get();
+        return (requests > 0) ? (double) hits / requests : 1.0;
+    }
+    
+    private static Cache<String,String> createCache(long maximumSize) {
+        return CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+}
@@ -0,0 +1,88 @@
+package datawave.microservice.query;
+
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.DateUtils;
+
+/**
+ * Formats and parses query dates (e.g. begin, end, and expiration dates) using the "yyyyMMdd HHmmss.SSS" format, in the default time zone.
+ * <p>
+ * This is immutable and thread safe, so unlike a {@link java.text.SimpleDateFormat} it can be shared by every request thread without locking.
+ * <p>
+ * Parsing follows the rules of the non-lenient {@link java.text.SimpleDateFormat} which it replaces: if the date is missing a time or milliseconds, the given
+ * defaults are appended before parsing, only the leading date is parsed (any trailing text is ignored), and an out-of-range field (e.g. February 30th) is an
+ * error. Like the {@link java.text.SimpleDateFormat}, the milliseconds may be given as one to three digits, and are read as a number (i.e. ".5" is 5
+ * milliseconds, not 500). The special value "+24Hours" is parsed as one day from now.
+ */
+public final class QueryDateCodec {
+    
+    public static final String FORMAT_PATTERN = "yyyyMMdd HHmmss.SSS";
+    public static final String PLUS_24_HOURS = "+24Hours";
+    
+    // 'uuuu' is the proleptic year, which is required for strict resolution of 'yyyyMMdd'
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("uuuuMMdd HHmmss.SSS").withResolverStyle(ResolverStyle.STRICT);
+    // @formatter:off
+    private static final DateTimeFormatter PARSER = new DateTimeFormatterBuilder()
+            .appendPattern("uuuuMMdd HHmmss.")
+            .appendValue(ChronoField.MILLI_OF_SECOND, 1, 3, SignStyle.NOT_NEGATIVE)
+            .toFormatter()
+            .withResolverStyle(ResolverStyle.STRICT);
+    // @formatter:on
+    
+    private QueryDateCodec() {
+        // static utility
+    }
+    
+    /**
+     * @param date
+     *            the date to format, not null
+     * @return the formatted date
+     */
+    public static String format(Date date) {
+        return FORMATTER.format(Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()));
+    }
+    
+    /**
+     * @param value
+     *            the date to parse, not null
+     * @param defaultTime
+     *            the time ("HHmmss") to use if the date doesn't contain one, may be null
+     * @param defaultMillisec
+     *            the milliseconds ("SSS") to use if the date doesn't contain them, may be null
+     * @return the parsed date
+     * @throws IllegalArgumentException
+     *             if the date could not be parsed
+     */
+    public static Date parse(String value, String defaultTime, String defaultMillisec) {
+        if (value.equals(PLUS_24_HOURS)) {
+            return DateUtils.addDays(new Date(), 1);
+        }
+        
+        String str = value;
+        if (StringUtils.isNotBlank(defaultTime) && !str.contains(" ")) {
+            str = str + " " + defaultTime;
+        }
+        if (StringUtils.isNotBlank(defaultMillisec) && !str.contains(".")) {
+            str = str + "." + defaultMillisec;
+        }
+        
+        try {
+            TemporalAccessor parsed = PARSER.parse(str, new ParsePosition(0));
+            return Date.from(LocalDateTime.from(parsed).atZone(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Unable to parse date " + str + " with format " + FORMAT_PATTERN, e);
+        }
+    }
+}
@@ -17,9 +17,6 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 
-import javax.naming.InvalidNameException;
-import javax.naming.ldap.LdapName;
-import javax.naming.ldap.Rdn;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -35,6 +32,8 @@ import org.springframework.util.MultiValueMap;
 
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 import datawave.webservice.query.util.OptionallyEncodedStringAdapter;
 import datawave.webservice.query.util.QueryUncaughtExceptionHandler;
@@ -76,6 +75,9 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
         
         private static final long serialVersionUID = 2L;
         
+        // every query carries the same small set of parameter names, so they are interned rather than having a copy for every query that is read
+        private static final Interner<String> PARAMETER_NAMES = Interners.newWeakInterner();
+        
         @XmlElement(name = "name")
         private String parameterName;
         @XmlElement(name = "value")
@@ -84,7 +86,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
         public Parameter() {}
         
         public Parameter(String name, String value) {
-            this.parameterName = name;
+            this.parameterName = intern(name);
             this.parameterValue = value;
         }
         
@@ -93,7 +95,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
         }
         
         public void setParameterName(String parameterName) {
-            this.parameterName = parameterName;
+            this.parameterName = intern(parameterName);
         }
         
         public String getParameterValue() {
@@ -104,6 +106,10 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
             this.parameterValue = parameterValue;
         }
         
+        private static String intern(String parameterName) {
+            return (parameterName != null) ? PARAMETER_NAMES.intern(parameterName) : null;
+        }
+        
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder(256);
@@ -169,7 +175,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
                 while ((number = input.readFieldNumber(this)) != 0) {
                     switch (number) {
                         case 1:
-                            message.parameterName = input.readString();
+                            message.parameterName = intern(input.readString());
                             break;
                         case 2:
                             message.parameterValue = input.readString();
@@ -265,6 +271,9 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
     
     protected transient HashMap<String,Parameter> paramLookup = new HashMap<String,Parameter>();
     
+    // the map built by toMap, which is cleared whenever the query is modified
+    protected transient volatile Map<String,List<String>> mapCache;
+    
     public String getQueryLogicName() {
         return queryLogicName;
     }
@@ -316,6 +325,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
     }
     
     public void setMaxResultsOverridden(boolean maxResultsOverridden) {
+        this.mapCache = null;
         this.maxResultsOverridden = maxResultsOverridden;
     }
     
@@ -324,50 +334,62 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
     }
     
     public void setQueryLogicName(String name) {
+        this.mapCache = null;
         this.queryLogicName = name;
     }
     
     public void setId(UUID id) {
+        this.mapCache = null;
         this.id = id.toString();
     }
     
     public void setQueryName(String queryName) {
+        this.mapCache = null;
         this.queryName = queryName;
     }
     
     public void setUserDN(String userDN) {
+        this.mapCache = null;
         this.userDN = userDN;
     }
     
     public void setQuery(String query) {
+        this.mapCache = null;
         this.query = query;
     }
     
     public void setQueryAuthorizations(String queryAuthorizations) {
+        this.mapCache = null;
         this.queryAuthorizations = queryAuthorizations;
     }
     
     public void setExpirationDate(Date expirationDate) {
+        this.mapCache = null;
         this.expirationDate = expirationDate;
     }
     
     public void setMaxResultsOverride(long maxResults) {
+        this.mapCache = null;
         this.maxResultsOverride = maxResults;
     }
     
     public void setPagesize(int pagesize) {
+        this.mapCache = null;
         this.pagesize = pagesize;
     }
     
     public void setPageTimeout(int pageTimeout) {
+        this.mapCache = null;
         this.pageTimeout = pageTimeout;
     }
     
     public void setPool(String pool) {
+        this.mapCache = null;
         this.pool = pool;
     }
     
     public void setParameters(Set<Parameter> parameters) {
+        this.mapCache = null;
         this.parameters.clear();
         this.parameters.addAll(parameters);
         this.paramLookup.clear();
@@ -377,6 +399,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
     }
     
     public void addParameter(String key, String val) {
+        this.mapCache = null;
         Parameter p = new Parameter(key, val);
         this.parameters.add(p);
         this.paramLookup.put(p.getParameterName(), p);
@@ -402,6 +425,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
     }
     
     public void setDnList(List<String> dnList) {
+        this.mapCache = null;
         this.dnList = dnList;
     }
     
@@ -410,6 +434,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
     }
     
     public void setColumnVisibility(String columnVisibility) {
+        this.mapCache = null;
         this.columnVisibility = columnVisibility;
     }
     
@@ -418,6 +443,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
     }
     
     public void setBeginDate(Date beginDate) {
+        this.mapCache = null;
         this.beginDate = beginDate;
     }
     
@@ -426,6 +452,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
     }
     
     public void setEndDate(Date endDate) {
+        this.mapCache = null;
         this.endDate = endDate;
     }
     
@@ -436,6 +463,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
     
     @Override
     public void setSystemFrom(String systemFrom) {
+        this.mapCache = null;
         this.systemFrom = systemFrom;
     }
     
@@ -444,6 +472,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
     }
     
     public void setOptionalQueryParameters(Map<String,List<String>> optionalQueryParameters) {
+        this.mapCache = null;
         this.optionalQueryParameters = optionalQueryParameters;
     }
     
@@ -624,9 +653,14 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
             if (message.pool != null) {
                 output.writeString(17, message.pool, false);
             }
+            
+            if (message.maxResultsOverridden) {
+                output.writeInt64(18, message.maxResultsOverride, false);
+            }
         }
         
         public void mergeFrom(Input input, QueryImpl message) throws IOException {
+            message.mapCache = null;
             int number;
             while ((number = input.readFieldNumber(this)) != 0) {
                 switch (number) {
@@ -683,8 +717,14 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
                         break;
                     case 16:
                         message.systemFrom = input.readString();
+                        break;
                     case 17:
                         message.pool = input.readString();
+                        break;
+                    case 18:
+                        message.maxResultsOverridden = true;
+                        message.maxResultsOverride = input.readInt64();
+                        break;
                     default:
                         input.handleUnknownField(number, this);
                         break;
@@ -728,6 +768,8 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
                     return QUERY_SYSTEM_FROM;
                 case 17:
                     return POOL;
+                case 18:
+                    return MAX_RESULTS_OVERRIDE;
                 default:
                     return null;
             }
@@ -758,6 +800,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
             fieldMap.put(PAGE_TIMEOUT, 15);
             fieldMap.put(QUERY_SYSTEM_FROM, 16);
             fieldMap.put(POOL, 17);
+            fieldMap.put(MAX_RESULTS_OVERRIDE, 18);
         }
     };
     
@@ -785,6 +828,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
         this.endDate = qp.getEndDate();
         this.systemFrom = qp.getSystemFrom();
         this.pool = qp.getPool();
+        this.mapCache = null;
         if (optionalQueryParameters != null) {
             for (Entry<String,List<String>> entry : optionalQueryParameters.entrySet()) {
                 if (entry.getValue().get(0) != null) {
@@ -794,42 +838,12 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
         }
     }
     
-    private static String getCommonName(String dn) {
-        String[] comps = getComponents(dn, "CN");
-        return comps.length >= 1 ? comps[0] : null;
-    }
-    
-    private static String[] getComponents(String dn, String componentName) {
-        componentName = componentName.toUpperCase();
-        ArrayList<String> components = new ArrayList<String>();
-        try {
-            LdapName name = new LdapName(dn);
-            for (Rdn rdn : name.getRdns()) {
-                if (componentName.equals(rdn.getType().toUpperCase())) {
-                    components.add(String.valueOf(rdn.getValue()));
-                }
-            }
-        } catch (InvalidNameException e) {
-            // ignore -- invalid name, so can't find components
-        }
-        return components.toArray(new String[0]);
-    }
-    
     public static String getOwner(String dn) {
-        String sid = null;
-        if (dn != null) {
-            String cn = getCommonName(dn);
-            if (cn == null)
-                cn = dn;
-            sid = cn;
-            int idx = cn.lastIndexOf(' ');
-            if (idx >= 0)
-                sid = cn.substring(idx + 1);
-        }
-        return sid;
+        return DnNameCache.getOwner(dn);
     }
     
     public void setOwner(String owner) {
+        this.mapCache = null;
         this.owner = owner;
     }
     
@@ -837,7 +851,29 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
         return this.owner;
     }
     
+    /**
+     * Gets the query as a map of parameters.
+     * <p>
+     * The map is built once, and cached until the query is next modified through one of its setters. Collections and dates which are modified in place
+     * (e.g. through {@link #getDnList()}) are not seen until then. Each call returns a copy of the cached map, so callers are free to modify it.
+     *
+     * @return a map of the query's parameters
+     */
     public Map<String,List<String>> toMap() {
+        Map<String,List<String>> map = mapCache;
+        if (map == null) {
+            map = buildMap();
+            mapCache = map;
+        }
+        
+        MultiValueMap<String,String> p = new LinkedMultiValueMap<>(map.size());
+        for (Entry<String,List<String>> entry : map.entrySet()) {
+            p.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        return p;
+    }
+    
+    private Map<String,List<String>> buildMap() {
         MultiValueMap<String,String> p = new LinkedMultiValueMap<>();
         if (this.id != null) {
             p.set(QUERY_ID, this.id);
@@ -867,7 +903,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
             p.set(USER_DN, this.userDN);
         }
         if (this.dnList != null) {
-            p.put(DN_LIST, this.dnList);
+            p.put(DN_LIST, new ArrayList<>(this.dnList));
         }
         if (this.owner != null) {
             p.set(OWNER, this.owner);
@@ -907,7 +943,9 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
             }
         }
         if (this.optionalQueryParameters != null) {
-            p.putAll(this.optionalQueryParameters);
+            for (Entry<String,List<String>> entry : this.optionalQueryParameters.entrySet()) {
+                p.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
         }
         return p;
     }
@@ -990,6 +1028,7 @@ public class QueryImpl extends Query implements Serializable, Message<QueryImpl>
     
     @Override
     public void removeParameter(String key) {
+        this.mapCache = null;
         this.parameters.remove(paramLookup.get(key));
         this.paramLookup.remove(key);
     }
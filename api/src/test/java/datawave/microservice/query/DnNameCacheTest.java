@@ -0,0 +1,49 @@
+package datawave.microservice.query;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DnNameCacheTest {
+    
+    @AfterEach
+    public void cleanup() {
+        DnNameCache.setMaximumSize(DnNameCache.DEFAULT_MAXIMUM_SIZE);
+        DnNameCache.clear();
+    }
+    
+    @Test
+    public void testOwner() {
+        Assertions.assertEquals("testuser", DnNameCache.getOwner("CN=Test User testuser, OU=My Department, O=My Company, C=US"));
+        Assertions.assertEquals("testuser", DnNameCache.getOwner("cn=Test User testuser, ou=My Department, o=My Company, c=US"));
+        
+        // without a common name, the last word of the dn is used
+        Assertions.assertEquals("C=US", DnNameCache.getOwner("OU=My Department, O=My Company, C=US"));
+        
+        // invalid dns are used as-is
+        Assertions.assertEquals("dn", DnNameCache.getOwner("not a valid dn"));
+        
+        Assertions.assertNull(DnNameCache.getOwner(null));
+        Assertions.assertEquals(QueryImpl.getOwner("CN=Test User testuser, OU=My Department"), DnNameCache.getOwner("CN=Test User testuser, OU=My Department"));
+    }
+    
+    @Test
+    public void testHitRate() {
+        DnNameCache.clear();
+        for (int i = 0; i < 10; i++) {
+            DnNameCache.getOwner("CN=Test User testuser, OU=My Department, O=My Company, C=US");
+        }
+        Assertions.assertEquals(1, DnNameCache.getMissCount());
+        Assertions.assertEquals(9, DnNameCache.getHitCount());
+        Assertions.assertEquals(0.9, DnNameCache.getHitRate(), 0.0001);
+    }
+    
+    @Test
+    public void testBounded() {
+        DnNameCache.setMaximumSize(10);
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals("user" + i, DnNameCache.getOwner("CN=Test User user" + i + ", OU=My Department"));
+        }
+        Assertions.assertTrue(DnNameCache.size() <= 10);
+    }
+}
@@ -0,0 +1,87 @@
+package datawave.microservice.query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the contended throughput of {@link QueryDateCodec} with the synchronized SimpleDateFormat which it replaced.
+ * <p>
+ * The results depend on timing, so this only logs them and is not part of the unit test suite. Run it explicitly with
+ * {@code mvn test -Dtest=QueryDateCodecBenchmark}.
+ */
+public class QueryDateCodecBenchmark {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private static final int NUM_THREADS = 32;
+    private static final int OPS_PER_THREAD = 20000;
+    
+    @Test
+    public void benchmarkContendedThroughput() throws Exception {
+        // warm up both implementations before timing them
+        runContended(this::roundTripLegacy);
+        runContended(this::roundTrip);
+        
+        long legacyMillis = runContended(this::roundTripLegacy);
+        long codecMillis = runContended(this::roundTrip);
+        
+        long numOps = (long) NUM_THREADS * OPS_PER_THREAD;
+        log.info("Synchronized SimpleDateFormat: {} round trips across {} threads in {}ms ({} ops/s)", numOps, NUM_THREADS, legacyMillis,
+                        numOps * 1000L / Math.max(1L, legacyMillis));
+        log.info("QueryDateCodec: {} round trips across {} threads in {}ms ({} ops/s)", numOps, NUM_THREADS, codecMillis,
+                        numOps * 1000L / Math.max(1L, codecMillis));
+    }
+    
+    private long runContended(RoundTrip roundTrip) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < NUM_THREADS; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        // every round trip should come back unchanged, even under contention
+                        String date = QueryDateCodecTest.DATES.get((thread + i) % 6);
+                        Date parsed = DefaultQueryParameters.parseStartDate(date);
+                        Assertions.assertEquals(parsed, roundTrip.apply(parsed));
+                    }
+                    return null;
+                }));
+            }
+            
+            long startMillis = System.currentTimeMillis();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+            return System.currentTimeMillis() - startMillis;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private Date roundTrip(Date date) {
+        return QueryDateCodec.parse(QueryDateCodec.format(date), null, null);
+    }
+    
+    private Date roundTripLegacy(Date date) throws Exception {
+        return QueryDateCodecTest.legacyParse(QueryDateCodecTest.legacyFormat(date), null, null);
+    }
+    
+    @FunctionalInterface
+    private interface RoundTrip {
+        Date apply(Date date) throws Exception;
+    }
+}
@@ -0,0 +1,96 @@
+package datawave.microservice.query;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class QueryDateCodecTest {
+    
+    static final List<String> DATES = Arrays.asList("20200101", "20200229", "20201231 235959", "20200615 120000.000", "20200615 123456.789",
+                    "19700101 000000.001", "20200615 120000.5", "20200615 120000.05", "20200615 123456.789 trailing text");
+    
+    private static final SimpleDateFormat legacyDateFormat = newLegacyDateFormat();
+    
+    @Test
+    public void testFormatMatchesSimpleDateFormat() throws Exception {
+        long now = System.currentTimeMillis();
+        for (long millis : new long[] {0L, 1L, 999L, now, now + 12345L, 4102444799999L}) {
+            Date date = new Date(millis);
+            Assertions.assertEquals(legacyFormat(date), QueryDateCodec.format(date));
+            Assertions.assertEquals(legacyFormat(date), DefaultQueryParameters.formatDate(date));
+        }
+    }
+    
+    @Test
+    public void testParseMatchesSimpleDateFormat() throws Exception {
+        for (String date : DATES) {
+            Assertions.assertEquals(legacyParse(date, "000000", "000"), DefaultQueryParameters.parseStartDate(date), date);
+            Assertions.assertEquals(legacyParse(date, "235959", "999"), DefaultQueryParameters.parseEndDate(date), date);
+            if (date.contains(".")) {
+                Assertions.assertEquals(legacyParse(date, null, null), DefaultQueryParameters.parseDate(date, null, null), date);
+            }
+        }
+    }
+    
+    @Test
+    public void testDefaultTimes() throws Exception {
+        Assertions.assertEquals("20200101 000000.000", QueryDateCodec.format(DefaultQueryParameters.parseStartDate("20200101")));
+        Assertions.assertEquals("20200101 235959.999", QueryDateCodec.format(DefaultQueryParameters.parseEndDate("20200101")));
+        Assertions.assertEquals("20200101 120000.999", QueryDateCodec.format(DefaultQueryParameters.parseEndDate("20200101 120000")));
+        Assertions.assertEquals("20200101 120000.123", QueryDateCodec.format(DefaultQueryParameters.parseEndDate("20200101 120000.123")));
+    }
+    
+    @Test
+    public void testPlus24Hours() throws Exception {
+        long before = System.currentTimeMillis();
+        Date date = DefaultQueryParameters.parseEndDate(QueryDateCodec.PLUS_24_HOURS);
+        long after = System.currentTimeMillis();
+        
+        Assertions.assertTrue(date.getTime() >= before + TimeUnit.HOURS.toMillis(23));
+        Assertions.assertTrue(date.getTime() <= after + TimeUnit.HOURS.toMillis(25));
+    }
+    
+    @Test
+    public void testInvalidDates() {
+        for (String date : Arrays.asList("20200230", "20201301", "20200101 246060", "not a date", "")) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> DefaultQueryParameters.parseStartDate(date), date);
+        }
+    }
+    
+    @Test
+    public void testShortMilliseconds() throws Exception {
+        // like SimpleDateFormat, one or two digit milliseconds are read as a number, not as a fraction of a second
+        Assertions.assertEquals("20200101 120000.005", QueryDateCodec.format(DefaultQueryParameters.parseStartDate("20200101 120000.5")));
+        Assertions.assertEquals("20200101 120000.050", QueryDateCodec.format(DefaultQueryParameters.parseStartDate("20200101 120000.50")));
+    }
+    
+    // the formatting and parsing which was used before QueryDateCodec
+    static synchronized String legacyFormat(Date date) {
+        return newLegacyDateFormat().format(date);
+    }
+    
+    static synchronized Date legacyParse(String s, String defaultTime, String defaultMillisec) throws ParseException {
+        String str = s;
+        if (defaultTime != null && !str.contains(" ")) {
+            str = str + " " + defaultTime;
+        }
+        if (defaultMillisec != null && !str.contains(".")) {
+            str = str + "." + defaultMillisec;
+        }
+        synchronized (legacyDateFormat) {
+            return legacyDateFormat.parse(str);
+        }
+    }
+    
+    private static SimpleDateFormat newLegacyDateFormat() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat(DefaultQueryParameters.formatPattern);
+        dateFormat.setLenient(false);
+        return dateFormat;
+    }
+}
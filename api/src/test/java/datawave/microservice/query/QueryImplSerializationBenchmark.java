@@ -0,0 +1,91 @@
+package datawave.microservice.query;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares the size and round trip throughput of the protostuff, externalized, and JSON forms of a {@link QueryImpl}, and the cost of {@link QueryImpl#toMap()}
+ * with and without its cached map.
+ * <p>
+ * The results depend on timing, so this only logs them and is not part of the unit test suite. Run it explicitly with
+ * {@code mvn test -Dtest=QueryImplSerializationBenchmark}.
+ */
+public class QueryImplSerializationBenchmark {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private static final int NUM_OPS = 100000;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Test
+    public void benchmarkRoundTrip() throws Exception {
+        QueryImpl query = QueryImplTest.createQuery();
+        
+        // warm up each form before timing them
+        runRoundTrips(query, this::protostuffRoundTrip);
+        runRoundTrips(query, this::jsonRoundTrip);
+        
+        long protostuffMillis = runRoundTrips(query, this::protostuffRoundTrip);
+        long jsonMillis = runRoundTrips(query, this::jsonRoundTrip);
+        
+        log.info("Protostuff: {} bytes, {} round trips in {}ms ({} ops/s)", QueryImplTest.toProtostuff(query).length, NUM_OPS, protostuffMillis,
+                        NUM_OPS * 1000L / Math.max(1L, protostuffMillis));
+        log.info("JSON: {} bytes, {} round trips in {}ms ({} ops/s)", objectMapper.writeValueAsBytes(query).length, NUM_OPS, jsonMillis,
+                        NUM_OPS * 1000L / Math.max(1L, jsonMillis));
+        log.info("Externalized: {} bytes", QueryImplTest.toExternalized(query).length);
+    }
+    
+    @Test
+    public void benchmarkToMap() throws Exception {
+        QueryImpl query = QueryImplTest.createQuery();
+        
+        // warm up both paths before timing them
+        runRoundTrips(query, this::toMapUncached);
+        runRoundTrips(query, this::toMapCached);
+        
+        long uncachedMillis = runRoundTrips(query, this::toMapUncached);
+        long cachedMillis = runRoundTrips(query, this::toMapCached);
+        
+        log.info("Uncached toMap: {} calls in {}ms ({} ops/s)", NUM_OPS, uncachedMillis, NUM_OPS * 1000L / Math.max(1L, uncachedMillis));
+        log.info("Cached toMap: {} calls in {}ms ({} ops/s)", NUM_OPS, cachedMillis, NUM_OPS * 1000L / Math.max(1L, cachedMillis));
+    }
+    
+    private long runRoundTrips(QueryImpl query, RoundTrip roundTrip) throws Exception {
+        long startMillis = System.currentTimeMillis();
+        for (int i = 0; i < NUM_OPS; i++) {
+            roundTrip.apply(query);
+        }
+        return System.currentTimeMillis() - startMillis;
+    }
+    
+    private void protostuffRoundTrip(QueryImpl query) {
+        Assertions.assertEquals(query.getId(), QueryImplTest.fromProtostuff(QueryImplTest.toProtostuff(query)).getId());
+    }
+    
+    private void jsonRoundTrip(QueryImpl query) throws Exception {
+        Assertions.assertEquals(query.getId(), objectMapper.readValue(objectMapper.writeValueAsBytes(query), QueryImpl.class).getId());
+    }
+    
+    // modifying the query drops the cached map, so every call rebuilds it
+    private void toMapUncached(QueryImpl query) {
+        query.setPagesize(query.getPagesize());
+        Map<String,List<String>> map = query.toMap();
+        Assertions.assertFalse(map.isEmpty());
+    }
+    
+    private void toMapCached(QueryImpl query) {
+        Map<String,List<String>> map = query.toMap();
+        Assertions.assertFalse(map.isEmpty());
+    }
+    
+    private interface RoundTrip {
+        void apply(QueryImpl query) throws Exception;
+    }
+}
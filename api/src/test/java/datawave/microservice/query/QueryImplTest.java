@@ -0,0 +1,188 @@
+package datawave.microservice.query;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtostuffIOUtil;
+
+public class QueryImplTest {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private static final String USER_DN = "cn=testuser, ou=my department, o=my company, st=some-state, c=us";
+    private static final String ISSUER_DN = "cn=test authority, ou=my department, o=my company, st=some-state, c=us";
+    
+    @Test
+    public void testProtostuffRoundTrip() {
+        QueryImpl query = createQuery();
+        QueryImpl decoded = fromProtostuff(toProtostuff(query));
+        
+        Assertions.assertEquals(query, decoded);
+        Assertions.assertEquals(query.getSystemFrom(), decoded.getSystemFrom());
+        Assertions.assertEquals(query.getPool(), decoded.getPool());
+        Assertions.assertTrue(decoded.isMaxResultsOverridden());
+        Assertions.assertEquals(10000L, decoded.getMaxResultsOverride());
+        Assertions.assertEquals(query.findParameter(QueryParameters.QUERY_BEGIN), decoded.findParameter(QueryParameters.QUERY_BEGIN));
+    }
+    
+    @Test
+    public void testProtostuffRoundTripRequiredFieldsOnly() {
+        QueryImpl query = createQuery();
+        query.setQueryName(null);
+        query.setBeginDate(null);
+        query.setEndDate(null);
+        query.setDnList(null);
+        query.setColumnVisibility(null);
+        query.setSystemFrom(null);
+        query.setPool(null);
+        query.setMaxResultsOverridden(false);
+        query.setMaxResultsOverride(0L);
+        query.setParameters(new HashSet<>());
+        
+        QueryImpl decoded = fromProtostuff(toProtostuff(query));
+        
+        Assertions.assertEquals(query, decoded);
+        Assertions.assertNull(decoded.getBeginDate());
+        Assertions.assertNull(decoded.getPool());
+        Assertions.assertFalse(decoded.isMaxResultsOverridden());
+    }
+    
+    @Test
+    public void testDatesKeepMillisecondPrecision() {
+        QueryImpl query = createQuery();
+        query.setBeginDate(new Date(-1L));
+        query.setEndDate(new Date(Long.MAX_VALUE));
+        query.setExpirationDate(new Date(1600000000001L));
+        
+        // dates are written as epoch millis rather than formatted strings, so nothing is lost to the date format
+        QueryImpl decoded = fromProtostuff(toProtostuff(query));
+        Assertions.assertEquals(query.getBeginDate(), decoded.getBeginDate());
+        Assertions.assertEquals(query.getEndDate(), decoded.getEndDate());
+        Assertions.assertEquals(query.getExpirationDate(), decoded.getExpirationDate());
+    }
+    
+    @Test
+    public void testParameterNamesInterned() {
+        QueryImpl query = createQuery();
+        query.addParameter(new String("query.syntax"), "JEXL");
+        
+        QueryImpl first = fromProtostuff(toProtostuff(query));
+        QueryImpl second = fromProtostuff(toProtostuff(query));
+        
+        // every decoded query shares the same copy of each parameter name
+        for (QueryImpl.Parameter parameter : first.getParameters()) {
+            Assertions.assertSame(parameter.getParameterName(), second.findParameter(parameter.getParameterName()).getParameterName());
+        }
+        Assertions.assertSame(new QueryImpl.Parameter(new String("query.syntax"), "JEXL").getParameterName(),
+                        first.findParameter("query.syntax").getParameterName());
+    }
+    
+    @Test
+    public void testToMapCached() {
+        QueryImpl query = createQuery();
+        Map<String,List<String>> map = query.toMap();
+        Assertions.assertEquals(map, query.toMap());
+        
+        // callers are free to modify the map that they are given
+        map.remove(QueryImpl.QUERY_ID);
+        map.get(QueryImpl.DN_LIST).clear();
+        Assertions.assertEquals(query.getId().toString(), query.toMap().get(QueryImpl.QUERY_ID).get(0));
+        Assertions.assertEquals(query.getDnList(), query.toMap().get(QueryImpl.DN_LIST));
+        
+        // and modifying the query rebuilds the map
+        query.setPageTimeout(120);
+        query.addParameter("another.parameter", "value");
+        Assertions.assertEquals("120", query.toMap().get(QueryImpl.PAGE_TIMEOUT).get(0));
+        Assertions.assertEquals("value", query.toMap().get("another.parameter").get(0));
+        
+        query.removeParameter("another.parameter");
+        Assertions.assertNull(query.toMap().get("another.parameter"));
+        
+        QueryImpl decoded = new QueryImpl();
+        Assertions.assertNull(decoded.toMap().get(QueryParameters.QUERY_NAME));
+        ProtostuffIOUtil.mergeFrom(toProtostuff(query), decoded, decoded.cachedSchema());
+        Assertions.assertEquals(query.toMap(), decoded.toMap());
+    }
+    
+    @Test
+    public void testSerializedSize() throws Exception {
+        QueryImpl query = createQuery();
+        
+        int protostuffSize = toProtostuff(query).length;
+        int externalizedSize = toExternalized(query).length;
+        int jsonSize = new ObjectMapper().writeValueAsBytes(query).length;
+        log.info("Serialized query sizes: protostuff={} bytes, externalized={} bytes, json={} bytes", protostuffSize, externalizedSize, jsonSize);
+        
+        // the protostuff form stores dates as epoch millis and numbers as varints, rather than as formatted strings
+        Assertions.assertTrue(protostuffSize < externalizedSize);
+        Assertions.assertTrue(protostuffSize < jsonSize);
+    }
+    
+    static byte[] toProtostuff(QueryImpl query) {
+        return ProtostuffIOUtil.toByteArray(query, query.cachedSchema(), LinkedBuffer.allocate());
+    }
+    
+    static QueryImpl fromProtostuff(byte[] bytes) {
+        QueryImpl query = new QueryImpl();
+        ProtostuffIOUtil.mergeFrom(bytes, query, query.cachedSchema());
+        return query;
+    }
+    
+    static byte[] toExternalized(QueryImpl query) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(query);
+        }
+        return bytes.toByteArray();
+    }
+    
+    static QueryImpl createQuery() {
+        Date now = new Date(1600000000123L);
+        
+        QueryImpl query = new QueryImpl();
+        query.setQueryLogicName("EventQuery");
+        query.setId(UUID.randomUUID());
+        query.setQueryName("some query name");
+        query.setUserDN(USER_DN);
+        query.setOwner(QueryImpl.getOwner(USER_DN));
+        query.setQuery("FIELD1 == 'value1' && (FIELD2 == 'value2' || FIELD3 =~ 'value3.*')");
+        query.setBeginDate(new Date(now.getTime() - 86400000L));
+        query.setEndDate(now);
+        query.setExpirationDate(new Date(now.getTime() + 86400000L));
+        query.setQueryAuthorizations("AUTH1,AUTH2,AUTH3");
+        query.setPagesize(100);
+        query.setPageTimeout(60);
+        query.setMaxResultsOverridden(true);
+        query.setMaxResultsOverride(10000L);
+        query.setDnList(new ArrayList<>(Arrays.asList(USER_DN, ISSUER_DN)));
+        query.setColumnVisibility("PUBLIC");
+        query.setSystemFrom("test-system");
+        query.setPool("default");
+        
+        query.addParameter(QueryParameters.QUERY_STRING, query.getQuery());
+        query.addParameter(QueryParameters.QUERY_NAME, query.getQueryName());
+        query.addParameter(QueryParameters.QUERY_BEGIN, "20200912 000000.000");
+        query.addParameter(QueryParameters.QUERY_END, "20200913 235959.999");
+        query.addParameter(QueryParameters.QUERY_AUTHORIZATIONS, query.getQueryAuthorizations());
+        query.addParameter(QueryParameters.QUERY_VISIBILITY, query.getColumnVisibility());
+        query.addParameter(QueryParameters.QUERY_PAGESIZE, "100");
+        query.addParameter(QueryParameters.QUERY_PERSISTENCE, "TRANSIENT");
+        query.addParameter(QueryParameters.QUERY_POOL, query.getPool());
+        return query;
+    }
+}
@@ -0,0 +1,179 @@
+package datawave.microservice.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import datawave.microservice.query.config.BulkOperationProperties;
+
+/**
+ * Applies an admin operation (e.g. cancel, close, or remove) to a list of queries.
+ * <p>
+ * By default, the queries are handled one at a time on the calling thread. When configured with a parallelism greater than one, the queries are handled
+ * concurrently on a pool of threads which exists for the duration of the operation. In either case, the rate at which queries are handled can be limited so
+ * that a bulk operation doesn't flood the message bus or the executors. Progress is logged periodically, and is available via {@link #getNumCompleted()},
+ * {@link #getNumSucceeded()} and {@link #getNumFailed()} while the operation is running.
+ * <p>
+ * A failure for one query does not stop the operation. Once every query has been handled, the first failure (in query order) is rethrown.
+ */
+public class BulkQueryOperation {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    @FunctionalInterface
+    public interface QueryOperation {
+        /**
+         * @param queryId
+         *            the query id, not null
+         * @return true if the operation was applied to the query, false if it was skipped
+         * @throws Exception
+         *             if the operation failed
+         */
+        boolean apply(String queryId) throws Exception;
+    }
+    
+    private final String name;
+    private final BulkOperationProperties bulkOperationProperties;
+    private final List<String> queryIds;
+    
+    private final AtomicInteger numCompleted = new AtomicInteger();
+    private final AtomicInteger numSucceeded = new AtomicInteger();
+    private final AtomicInteger numFailed = new AtomicInteger();
+    
+    public BulkQueryOperation(String name, BulkOperationProperties bulkOperationProperties, List<String> queryIds) {
+        this.name = name;
+        this.bulkOperationProperties = bulkOperationProperties;
+        this.queryIds = queryIds;
+    }
+    
+    /**
+     * Applies the operation to each of the queries.
+     *
+     * @param operation
+     *            the operation to apply, not null
+     * @return the ids of the queries that the operation was applied to, in query order
+     * @throws Exception
+     *             the first exception thrown by the operation, if any
+     */
+    public List<String> run(QueryOperation operation) throws Exception {
+        log.info("{} started for {} queries", name, queryIds.size());
+        long startTimeMillis = System.currentTimeMillis();
+        
+        RateLimiter rateLimiter = (bulkOperationProperties.getMaxQueriesPerSecond() > 0) ? RateLimiter.create(bulkOperationProperties.getMaxQueriesPerSecond())
+                        : null;
+        int parallelism = Math.min(bulkOperationProperties.getParallelism(), queryIds.size());
+        
+        Outcome[] outcomes = new Outcome[queryIds.size()];
+        if (parallelism <= 1) {
+            for (int i = 0; i < queryIds.size(); i++) {
+                acquire(rateLimiter);
+                outcomes[i] = apply(operation, queryIds.get(i));
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                            new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build());
+            try {
+                List<Future<Outcome>> futures = new ArrayList<>(queryIds.size());
+                for (String queryId : queryIds) {
+                    acquire(rateLimiter);
+                    futures.add(executor.submit(() -> apply(operation, queryId)));
+                }
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        outcomes[i] = futures.get(i).get();
+                    } catch (ExecutionException e) {
+                        outcomes[i] = new Outcome(false, e.getCause());
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        
+        log.info("{} finished in {}ms: {}", name, System.currentTimeMillis() - startTimeMillis, getProgress());
+        
+        List<String> appliedQueryIds = new ArrayList<>();
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i].failure != null) {
+                if (outcomes[i].failure instanceof Exception) {
+                    throw (Exception) outcomes[i].failure;
+                }
+                throw new ExecutionException(outcomes[i].failure);
+            }
+            if (outcomes[i].applied) {
+                appliedQueryIds.add(queryIds.get(i));
+            }
+        }
+        return appliedQueryIds;
+    }
+    
+    private void acquire(RateLimiter rateLimiter) throws InterruptedException {
+        if (rateLimiter != null) {
+            rateLimiter.acquire();
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException(name + " was interrupted after " + getProgress());
+        }
+    }
+    
+    private Outcome apply(QueryOperation operation, String queryId) {
+        Outcome outcome;
+        try {
+            outcome = new Outcome(operation.apply(queryId), null);
+            numSucceeded.incrementAndGet();
+        } catch (Exception e) {
+            log.warn("{} failed for query {}", name, queryId, e);
+            outcome = new Outcome(false, e);
+            numFailed.incrementAndGet();
+        }
+        
+        int completed = numCompleted.incrementAndGet();
+        if (completed % bulkOperationProperties.getProgressInterval() == 0 && completed < queryIds.size()) {
+            log.info("{} in progress: {}", name, getProgress());
+        }
+        return outcome;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int getNumQueries() {
+        return queryIds.size();
+    }
+    
+    public int getNumCompleted() {
+        return numCompleted.get();
+    }
+    
+    public int getNumSucceeded() {
+        return numSucceeded.get();
+    }
+    
+    public int getNumFailed() {
+        return numFailed.get();
+    }
+    
+    public String getProgress() {
+        return numCompleted.get() + " of " + queryIds.size() + " queries completed (" + numSucceeded.get() + " succeeded, " + numFailed.get() + " failed)";
+    }
+    
+    private static class Outcome {
+        private final boolean applied;
+        private final Throwable failure;
+        
+        public Outcome(boolean applied, Throwable failure) {
+            this.applied = applied;
+            this.failure = failure;
+        }
+    }
+}
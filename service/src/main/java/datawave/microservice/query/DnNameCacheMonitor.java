@@ -0,0 +1,38 @@
+package datawave.microservice.query;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import datawave.microservice.query.config.DnNameCacheProperties;
+
+/**
+ * Sizes the JVM-wide {@link DnNameCache} from the configured properties, and reports its stats.
+ * <p>
+ * The number of hits and misses are logged at debug level periodically (every 5 minutes by default), whenever there have been lookups since the last time that
+ * they were logged.
+ */
+public class DnNameCacheMonitor {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private long lastLoggedNumLookups = 0L;
+    
+    public DnNameCacheMonitor(DnNameCacheProperties dnNameCacheProperties) {
+        DnNameCache.setMaximumSize(dnNameCacheProperties.getMaxSize());
+    }
+    
+    /**
+     * Logs the number of hits and misses, if there have been any lookups since the last time that they were logged.
+     */
+    @Scheduled(fixedDelayString = "${datawave.query.dn-name-cache.stats-log-interval-millis:300000}")
+    public synchronized void logStats() {
+        long hits = DnNameCache.getHitCount();
+        long misses = DnNameCache.getMissCount();
+        long numLookups = hits + misses;
+        if (numLookups > lastLoggedNumLookups) {
+            log.debug("DN name cache stats: {} hits, {} misses ({}% hit rate), {} DNs cached", hits, misses, Math.round(100.0 * DnNameCache.getHitRate()),
+                            DnNameCache.size());
+            lastLoggedNumLookups = numLookups;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package datawave.microservice.query;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import datawave.microservice.query.config.QueryStatusCacheProperties;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.storage.QueryStorageCache;
+
+/**
+ * A read-through cache of query statuses, in front of the {@link QueryStorageCache}.
+ * <p>
+ * Statuses are first looked up in a memo which lives for the duration of the current request, and then in a small, size-bounded cache of recently used
+ * statuses which is local to this query service. Statuses are only read from storage when neither has them. Both are updated with the status returned by
+ * every locked update made by this query service, and are invalidated whenever a query request event is received for the query. Since other services can
+ * update a query without notifying this one, statuses only live in the node-local cache for a short time.
+ * <p>
+ * The statuses returned by this cache are shared snapshots, and must not be modified. Anything which needs to make a decision using the latest status (e.g.
+ * while holding the query lock) should read the status from storage instead.
+ * <p>
+ * The number of memo hits, cache hits and misses are logged periodically (every 5 minutes by default), whenever there have been reads since the last time
+ * that they were logged.
+ */
+public class LocalQueryStatusCache {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private static final String MEMO_ATTRIBUTE = LocalQueryStatusCache.class.getName() + ".memo";
+    
+    private final QueryStorageCache queryStorageCache;
+    private final QueryStatusCacheProperties queryStatusCacheProperties;
+    private final Cache<String,QueryStatus> cache;
+    
+    private final AtomicLong numMemoHits = new AtomicLong();
+    private final AtomicLong numCacheHits = new AtomicLong();
+    private final AtomicLong numMisses = new AtomicLong();
+    
+    private long lastLoggedNumReads = 0L;
+    
+    public LocalQueryStatusCache(QueryStorageCache queryStorageCache, QueryStatusCacheProperties queryStatusCacheProperties) {
+        this(queryStorageCache, queryStatusCacheProperties, Ticker.systemTicker());
+    }
+    
+    // the ticker lets tests control when cached statuses expire
+    LocalQueryStatusCache(QueryStorageCache queryStorageCache, QueryStatusCacheProperties queryStatusCacheProperties, Ticker ticker) {
+        this.queryStorageCache = queryStorageCache;
+        this.queryStatusCacheProperties = queryStatusCacheProperties;
+        if (queryStatusCacheProperties.getMaxSize() > 0) {
+            // @formatter:off
+            this.cache = CacheBuilder.newBuilder()
+                    .maximumSize(queryStatusCacheProperties.getMaxSize())
+                    .expireAfterWrite(queryStatusCacheProperties.getTimeToLiveMillis(), TimeUnit.MILLISECONDS)
+                    .ticker(ticker)
+                    .build();
+            // @formatter:on
+        } else {
+            this.cache = null;
+        }
+    }
+    
+    /**
+     * Gets the status for the given query.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @return the query status, or null if the query does not exist
+     */
+    public QueryStatus getQueryStatus(String queryId) {
+        Map<String,QueryStatus> memo = getMemo(true);
+        QueryStatus queryStatus = (memo != null) ? memo.get(queryId) : null;
+        if (queryStatus != null) {
+            numMemoHits.incrementAndGet();
+            return queryStatus;
+        }
+        
+        if (cache != null) {
+            queryStatus = cache.getIfPresent(queryId);
+        }
+        
+        if (queryStatus != null) {
+            numCacheHits.incrementAndGet();
+        } else {
+            numMisses.incrementAndGet();
+            queryStatus = queryStorageCache.getQueryStatus(queryId);
+            if (queryStatus != null && cache != null) {
+                cache.put(queryId, queryStatus);
+            }
+        }
+        
+        if (queryStatus != null && memo != null) {
+            memo.put(queryId, queryStatus);
+        }
+        return queryStatus;
+    }
+    
+    /**
+     * Replaces the cached status for a query with one that was just read from, or written to storage.
+     *
+     * @param queryStatus
+     *            the latest query status, may be null
+     */
+    public void update(QueryStatus queryStatus) {
+        if (queryStatus != null) {
+            String queryId = queryStatus.getQueryKey().getQueryId();
+            Map<String,QueryStatus> memo = getMemo(false);
+            if (memo != null) {
+                memo.put(queryId, queryStatus);
+            }
+            if (cache != null) {
+                cache.put(queryId, queryStatus);
+            }
+        }
+    }
+    
+    /**
+     * Drops any cached status for a query, so that it will be read from storage the next time that it is needed.
+     *
+     * @param queryId
+     *            the query id, may be null
+     */
+    public void invalidate(String queryId) {
+        if (queryId != null) {
+            Map<String,QueryStatus> memo = getMemo(false);
+            if (memo != null) {
+                memo.remove(queryId);
+            }
+            if (cache != null) {
+                cache.invalidate(queryId);
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String,QueryStatus> getMemo(boolean create) {
+        Map<String,QueryStatus> memo = null;
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (queryStatusCacheProperties.isRequestMemoEnabled() && requestAttributes != null) {
+            try {
+                memo = (Map<String,QueryStatus>) requestAttributes.getAttribute(MEMO_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+                if (memo == null && create) {
+                    // the memo may be shared with async threads working on behalf of this request
+                    memo = new ConcurrentHashMap<>();
+                    requestAttributes.setAttribute(MEMO_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+                }
+            } catch (IllegalStateException e) {
+                // the request has already completed, so there is nothing to memoize against
+                memo = null;
+            }
+        }
+        return memo;
+    }
+    
+    /**
+     * Logs the number of memo hits, cache hits and misses, if there have been any reads since the last time that they were logged.
+     */
+    @Scheduled(fixedDelayString = "${datawave.query.status-cache.stats-log-interval-millis:300000}")
+    public synchronized void logStats() {
+        long memoHits = numMemoHits.get();
+        long cacheHits = numCacheHits.get();
+        long misses = numMisses.get();
+        long numReads = memoHits + cacheHits + misses;
+        if (numReads > lastLoggedNumReads) {
+            log.info("Query status cache stats: {} memo hits, {} cache hits, {} misses ({}% hit rate), {} statuses cached", memoHits, cacheHits, misses,
+                            (100L * (memoHits + cacheHits)) / numReads, getSize());
+            lastLoggedNumReads = numReads;
+        }
+    }
+    
+    public long getNumMemoHits() {
+        return numMemoHits.get();
+    }
+    
+    public long getNumCacheHits() {
+        return numCacheHits.get();
+    }
+    
+    public long getNumMisses() {
+        return numMisses.get();
+    }
+    
+    public long getSize() {
+        return (cache != null) ? cache.size() : 0L;
+    }
+}
@@ -22,6 +22,7 @@ import static datawave.microservice.query.translateid.TranslateIdService.TRANSLA
 import static datawave.query.QueryParameters.QUERY_SYNTAX;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -38,6 +39,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import com.codahale.metrics.annotation.Timed;
@@ -53,7 +55,10 @@ import datawave.microservice.query.web.annotation.EnrichQueryMetrics;
 import datawave.microservice.query.web.filter.BaseMethodStatsFilter;
 import datawave.microservice.query.web.filter.CountingResponseBodyEmitter;
 import datawave.microservice.query.web.filter.QueryMetricsEnrichmentFilterAdvice;
+import datawave.webservice.query.exception.BadRequestQueryException;
+import datawave.webservice.query.exception.DatawaveErrorCode;
 import datawave.webservice.query.exception.QueryException;
+import datawave.webservice.query.exception.TimeoutQueryException;
 import datawave.webservice.result.BaseQueryResponse;
 import datawave.webservice.result.GenericResponse;
 import datawave.webservice.result.QueryImplListResponse;
@@ -78,6 +83,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @RestController
 @RequestMapping(path = "/v1/query", produces = MediaType.APPLICATION_JSON_VALUE)
 public class QueryController {
+    private static final MediaType PROTOBUF_MEDIA_TYPE = MediaType.valueOf("application/x-protobuf");
+    private static final MediaType PROTOSTUFF_MEDIA_TYPE = MediaType.valueOf("application/x-protostuff");
+    
     private final QueryManagementService queryManagementService;
     private final LookupService lookupService;
     private final StreamingService streamingService;
@@ -1665,6 +1673,151 @@ public class QueryController {
         return queryManagementService.createAndNext(queryLogic, parameters, getPool(headers), currentUser);
     }
     
+    /**
+     * @see QueryManagementService#createAndNextAsync(String, MultiValueMap, String, DatawaveUserDetails)
+     */
+    // @formatter:off
+    @Operation(
+            summary = "Creates a query using the given query logic and parameters, and asynchronously returns the first page of results.",
+            description = "Behaves like <strong>createAndNext</strong>, but the request thread is released while the first page is being filled.<br>" +
+                    "Created queries will start running immediately.<br>" +
+                    "Auditing is performed before the query is started.<br>" +
+                    "Subsequent query results can be retrieved using <strong>next</strong>.<br>" +
+                    "Updates can be made to any parameter which doesn't affect the scope of the query using <strong>update</strong>.<br>" +
+                    "Stop a running query gracefully using <strong>close</strong> or forcefully using <strong>cancel</strong>.<br>" +
+                    "Stop, and restart a running query using <strong>reset</strong>.<br>" +
+                    "Create a copy of a running query using <strong>duplicate</strong>.<br>" +
+                    "Aside from a limited set of admin actions, only the query owner can act on a running query.")
+    @ApiResponses({
+            @ApiResponse(
+                    description = "if successful, returns a base query response containing the first page of results",
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = BaseQueryResponse.class)),
+                    headers = {
+                            @Header(
+                                    name = "Pool",
+                                    description = "the executor pool to target",
+                                    schema = @Schema(defaultValue = "default"))}),
+            @ApiResponse(
+                    description = "if no query results are found",
+                    responseCode = "204",
+                    content = @Content(schema = @Schema(hidden = true))),
+            @ApiResponse(
+                    description = "if parameter validation fails<br>" +
+                            "if query logic parameter validation fails<br>" +
+                            "if security marking validation fails<br>" +
+                            "if auditing fails",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if the user doesn't have access to the requested query logic",
+                    responseCode = "401",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if query storage fails<br>" +
+                            "if the next call times out<br>" +
+                            "if the next task is rejected by the executor<br>" +
+                            "if there is an unknown error",
+                    responseCode = "500",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class)))})
+    @Parameters({
+            @Parameter(
+                    name = QUERY_BEGIN,
+                    in = ParameterIn.QUERY,
+                    description = "The query begin date",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "\"19660908 000000.000\""),
+            @Parameter(
+                    name = QUERY_END,
+                    in = ParameterIn.QUERY,
+                    description = "The query end date",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "\"20161002 235959.999\""),
+            @Parameter(
+                    name = QUERY_NAME,
+                    in = ParameterIn.QUERY,
+                    description = "The query name",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "Developer Test Query"),
+            @Parameter(
+                    name = QUERY_STRING,
+                    in = ParameterIn.QUERY,
+                    description = "The query string",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "GENRES:[Action to Western]"),
+            @Parameter(
+                    name = QUERY_AUTHORIZATIONS,
+                    in = ParameterIn.QUERY,
+                    description = "The query auths",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "PUBLIC,PRIVATE,BAR,FOO"),
+            @Parameter(
+                    name = QUERY_VISIBILITY,
+                    in = ParameterIn.QUERY,
+                    description = "The visibility to use when storing metrics for this query",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "PUBLIC"),
+            @Parameter(
+                    name = QUERY_SYNTAX,
+                    in = ParameterIn.QUERY,
+                    description = "The syntax used in the query",
+                    schema = @Schema(implementation = String.class),
+                    example = "LUCENE"),
+            @Parameter(
+                    name = QUERY_MAX_CONCURRENT_TASKS,
+                    in = ParameterIn.QUERY,
+                    description = "The max number of concurrent tasks to run for this query",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "10"),
+            @Parameter(
+                    name = QUERY_POOL,
+                    in = ParameterIn.QUERY,
+                    description = "The executor pool to run against",
+                    schema = @Schema(implementation = String.class),
+                    example = "pool1"),
+            @Parameter(
+                    name = QUERY_PAGESIZE,
+                    in = ParameterIn.QUERY,
+                    description = "The requested page size",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "10"),
+            @Parameter(
+                    name = QUERY_PAGETIMEOUT,
+                    in = ParameterIn.QUERY,
+                    description = "The call timeout when requesting a page, in minutes",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "60"),
+            @Parameter(
+                    name = QUERY_MAX_RESULTS_OVERRIDE,
+                    in = ParameterIn.QUERY,
+                    description = "The max results override value",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "5000"),
+            @Parameter(
+                    name = QUERY_PARAMS,
+                    in = ParameterIn.QUERY,
+                    description = "Additional query parameters",
+                    schema = @Schema(implementation = String.class),
+                    example = "KEY_1:VALUE_1;KEY_2:VALUE_2")
+    })
+    // @formatter:on
+    @Timed(name = "dw.query.createAndNextAsync", absolute = true)
+    @EnrichQueryMetrics(methodType = EnrichQueryMetrics.MethodType.CREATE_AND_NEXT)
+    @RequestMapping(path = "{queryLogic}/createAndNextAsync", method = {RequestMethod.POST}, produces = {"application/xml", "text/xml", "application/json",
+            "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf", "application/x-protostuff"})
+    public DeferredResult<BaseQueryResponse> createAndNextAsync(
+                    @Parameter(description = "The query logic", example = "EventQuery") @PathVariable String queryLogic,
+                    @Parameter(hidden = true) @RequestParam MultiValueMap<String,String> parameters, @RequestHeader HttpHeaders headers,
+                    @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
+        return createDeferredResponse(queryManagementService.createAndNextAsync(queryLogic, parameters, getPool(headers), currentUser));
+    }
+    
     /**
      * @see QueryManagementService#next(String, DatawaveUserDetails)
      */
@@ -1715,6 +1868,57 @@ public class QueryController {
         return queryManagementService.next(queryId, currentUser);
     }
     
+    /**
+     * @see QueryManagementService#nextAsync(String, DatawaveUserDetails)
+     */
+    // @formatter:off
+    @Operation(
+            summary = "Asynchronously gets the next page of results for the specified query.",
+            description = "Behaves like <strong>next</strong>, but the request thread is released while the page is being filled.<br>" +
+                    "Next can only be called on a running query.<br>" +
+                    "If configuration allows, multiple next calls may be run concurrently for a query.<br>" +
+                    "Only the query owner can call next on the specified query.")
+    @ApiResponses({
+            @ApiResponse(
+                    description = "if successful, returns a base query response containing the next page of results",
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = BaseQueryResponse.class))),
+            @ApiResponse(
+                    description = "if no query results are found",
+                    responseCode = "204",
+                    content = @Content(schema = @Schema(hidden = true))),
+            @ApiResponse(
+                    description = "if the query is not running",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if the user doesn't own the query",
+                    responseCode = "401",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if the query cannot be found",
+                    responseCode = "404",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if query lock acquisition fails<br>" +
+                            "if the next call is interrupted<br>" +
+                            "if the query times out<br>" +
+                            "if the next task is rejected by the executor<br>" +
+                            "if next call execution fails<br>" +
+                            "if query logic creation fails<br>" +
+                            "if there is an unknown error",
+                    responseCode = "500",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class)))})
+    // @formatter:on
+    @Timed(name = "dw.query.nextAsync", absolute = true)
+    @EnrichQueryMetrics(methodType = EnrichQueryMetrics.MethodType.NEXT)
+    @RequestMapping(path = "{queryId}/nextAsync", method = {RequestMethod.GET}, produces = {"application/xml", "text/xml", "application/json", "text/yaml",
+            "text/x-yaml", "application/x-yaml", "application/x-protobuf", "application/x-protostuff"})
+    public DeferredResult<BaseQueryResponse> nextAsync(@Parameter(description = "The query ID") @PathVariable String queryId,
+                    @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
+        return createDeferredResponse(queryManagementService.nextAsync(queryId, currentUser));
+    }
+    
     /**
      * @see QueryManagementService#cancel(String, DatawaveUserDetails)
      */
@@ -2265,17 +2469,26 @@ public class QueryController {
     }
     
     /**
-     * @see QueryManagementService#list(String, String, DatawaveUserDetails)
+     * @see QueryManagementService#list(String, String, String, int, int, List, DatawaveUserDetails)
      */
     // @formatter:off
     @Operation(
             summary = "Gets a list of queries for the calling user.",
-            description = "Returns all matching queries owned by the calling user, filtering by query id and query name.")
+            description = "Returns all matching queries owned by the calling user, filtering by query id and query name.<br>" +
+                    "When a page size is given, queries are sorted by query id and only the requested page is returned.<br>" +
+                    "Pages can be requested by page number, or by passing the last query id of the previous page as afterQueryId.<br>" +
+                    "The returned queries can be limited to the given fields, or to a summary of each query.<br>" +
+                    "Fields cannot be selected for protobuf or protostuff responses, which require every mandatory query field.")
     @ApiResponses({
             @ApiResponse(
                     description = "if successful, returns a list response containing the matching queries",
                     responseCode = "200",
                     content = @Content(schema = @Schema(implementation = QueryImplListResponse.class))),
+            @ApiResponse(
+                    description = "if the paging parameters or fields are invalid<br>" +
+                            "if fields are selected for a protobuf or protostuff response",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
             @ApiResponse(
                     description = "if there is an unknown error",
                     responseCode = "500",
@@ -2286,23 +2499,37 @@ public class QueryController {
             "application/x-protobuf", "application/x-protostuff"})
     public QueryImplListResponse list(@Parameter(description = "The query ID") @RequestParam(required = false) String queryId,
                     @Parameter(description = "The query name") @RequestParam(required = false) String queryName,
-                    @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
-        return queryManagementService.list(queryId, queryName, currentUser);
+                    @Parameter(description = "Only return queries whose id sorts after this one") @RequestParam(required = false) String afterQueryId,
+                    @Parameter(description = "The page to return, starting at 1") @RequestParam(required = false, defaultValue = "1") int pageNumber,
+                    @Parameter(description = "The number of queries per page, or 0 for all") @RequestParam(required = false, defaultValue = "0") int pageSize,
+                    @Parameter(description = "The query fields to return, or 'summary'") @RequestParam(required = false) List<String> fields,
+                    @RequestHeader HttpHeaders headers, @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
+        checkProjectionContentType(fields, headers);
+        return queryManagementService.list(queryId, queryName, afterQueryId, pageNumber, pageSize, fields, currentUser);
     }
     
     /**
-     * @see QueryManagementService#adminList(String, String, String, DatawaveUserDetails)
+     * @see QueryManagementService#adminList(String, String, String, String, int, int, List, DatawaveUserDetails)
      */
     // @formatter:off
     @Operation(
             summary = "Gets a list of queries for the specified user using admin privileges.",
             description = "Returns all matching queries owned by any user, filtered by user ID, query ID, and query name.<br>" +
+                    "When a page size is given, queries are sorted by query id and only the requested page is returned.<br>" +
+                    "Pages can be requested by page number, or by passing the last query id of the previous page as afterQueryId.<br>" +
+                    "The returned queries can be limited to the given fields, or to a summary of each query.<br>" +
+                    "Fields cannot be selected for protobuf or protostuff responses, which require every mandatory query field.<br>" +
                     "Only admin users should be allowed to call this method.")
     @ApiResponses({
             @ApiResponse(
                     description = "if successful, returns a list response containing the matching queries",
                     responseCode = "200",
                     content = @Content(schema = @Schema(implementation = QueryImplListResponse.class))),
+            @ApiResponse(
+                    description = "if the paging parameters or fields are invalid<br>" +
+                            "if fields are selected for a protobuf or protostuff response",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
             @ApiResponse(
                     description = "if there is an unknown error",
                     responseCode = "500",
@@ -2315,8 +2542,13 @@ public class QueryController {
     public QueryImplListResponse adminList(@Parameter(description = "The query ID") @RequestParam(required = false) String queryId,
                     @Parameter(description = "The user id") @RequestParam(required = false) String user,
                     @Parameter(description = "The query name") @RequestParam(required = false) String queryName,
-                    @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
-        return queryManagementService.adminList(queryId, queryName, user, currentUser);
+                    @Parameter(description = "Only return queries whose id sorts after this one") @RequestParam(required = false) String afterQueryId,
+                    @Parameter(description = "The page to return, starting at 1") @RequestParam(required = false, defaultValue = "1") int pageNumber,
+                    @Parameter(description = "The number of queries per page, or 0 for all") @RequestParam(required = false, defaultValue = "0") int pageSize,
+                    @Parameter(description = "The query fields to return, or 'summary'") @RequestParam(required = false) List<String> fields,
+                    @RequestHeader HttpHeaders headers, @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
+        checkProjectionContentType(fields, headers);
+        return queryManagementService.adminList(queryId, queryName, user, afterQueryId, pageNumber, pageSize, fields, currentUser);
     }
     
     /**
@@ -2726,10 +2958,44 @@ public class QueryController {
         return mediaType;
     }
     
+    // the protobuf and protostuff schemas refuse to write a query which is missing any of its mandatory fields, which a projected query usually is
+    private void checkProjectionContentType(List<String> fields, HttpHeaders headers) throws BadRequestQueryException {
+        if (fields != null && !fields.isEmpty()) {
+            for (MediaType mediaType : headers.getAccept()) {
+                if (PROTOBUF_MEDIA_TYPE.equalsTypeAndSubtype(mediaType) || PROTOSTUFF_MEDIA_TYPE.equalsTypeAndSubtype(mediaType)) {
+                    throw new BadRequestQueryException("Query fields cannot be selected for " + mediaType.getType() + "/" + mediaType.getSubtype()
+                                    + " responses.", HttpStatus.BAD_REQUEST.value() + "-1");
+                }
+            }
+        }
+    }
+    
     private String getPool(HttpHeaders headers) {
         return headers.getFirst("Pool");
     }
     
+    private DeferredResult<BaseQueryResponse> createDeferredResponse(CompletableFuture<BaseQueryResponse> responseFuture) {
+        // the response stats (and query metrics) will be computed once the async dispatch completes
+        baseMethodStatsContext.setDeferredResponse(true);
+        
+        DeferredResult<BaseQueryResponse> deferredResult = new DeferredResult<>(queryManagementService.getAsyncNextResponseTimeoutMillis());
+        
+        // if we give up on the response, cancel the future so that the next call is abandoned and its results are returned to the queue
+        deferredResult.onTimeout(() -> {
+            deferredResult.setErrorResult(new TimeoutQueryException(DatawaveErrorCode.QUERY_TIMEOUT, "Timed out waiting for the async next response"));
+            responseFuture.cancel(false);
+        });
+        deferredResult.onError(throwable -> responseFuture.cancel(false));
+        responseFuture.whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                deferredResult.setErrorResult(throwable);
+            } else {
+                deferredResult.setResult(response);
+            }
+        });
+        return deferredResult;
+    }
+    
     private ResponseEntity<ResponseBodyEmitter> createStreamingResponse(ResponseBodyEmitter emitter, MediaType contentType) {
         HttpHeaders responseHeaders = new HttpHeaders();
         responseHeaders.setContentType(contentType);
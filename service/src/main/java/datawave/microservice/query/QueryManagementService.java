@@ -21,52 +21,75 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
+
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aop.scope.ScopedObject;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.bus.BusProperties;
 import org.springframework.cloud.bus.event.RemoteQueryRequestEvent;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.core.task.TaskRejectedException;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import datawave.core.common.audit.PrivateAuditConstants;
 import datawave.core.query.cache.ResultsPage;
 import datawave.core.query.logic.QueryLogic;
 import datawave.core.query.logic.QueryLogicFactory;
+import datawave.core.query.logic.QueryLogicTransformer;
 import datawave.core.query.util.QueryUtil;
 import datawave.marking.SecurityMarking;
 import datawave.microservice.audit.AuditClient;
 import datawave.microservice.authorization.federation.FederatedAuthorizationService;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.microservice.authorization.util.AuthorizationsUtil;
+import datawave.microservice.query.config.BulkOperationProperties;
+import datawave.microservice.query.config.QueryExpirationProperties;
 import datawave.microservice.query.config.QueryProperties;
+import datawave.microservice.query.listing.QueryListingIndex;
+import datawave.microservice.query.listing.QueryProjection;
 import datawave.microservice.query.messaging.QueryResultsManager;
+import datawave.microservice.query.monitor.QueryExpiryIndex;
 import datawave.microservice.query.remote.QueryRequest;
 import datawave.microservice.query.remote.QueryRequestHandler;
+import datawave.microservice.query.runner.ActiveCallRegistry;
 import datawave.microservice.query.runner.NextCall;
+import datawave.microservice.query.runner.NextCallResultListener;
+import datawave.microservice.query.runner.ParallelPageTransformer;
+import datawave.microservice.query.runner.UserConcurrencyLimiter;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
 import datawave.microservice.query.storage.QueryStatus;
 import datawave.microservice.query.storage.QueryStorageCache;
 import datawave.microservice.query.storage.TaskKey;
+import datawave.microservice.query.stream.listener.StreamingResultListener;
 import datawave.microservice.query.util.QueryStatusUpdateUtil;
 import datawave.microservice.querymetric.BaseQueryMetric;
 import datawave.microservice.querymetric.QueryMetricClient;
@@ -98,8 +121,10 @@ public class QueryManagementService implements QueryRequestHandler {
     private static final ObjectMapper mapper = new ObjectMapper();
     
     private final QueryProperties queryProperties;
+    private final NextCallRunnerProperties nextCallRunnerProperties;
+    private final BulkOperationProperties bulkOperationProperties;
     
-    private final ApplicationEventPublisher eventPublisher;
+    private final QueryRequestEventPublisher queryRequestEventPublisher;
     private final BusProperties busProperties;
     
     // Note: QueryParameters needs to be request scoped
@@ -113,12 +138,17 @@ public class QueryManagementService implements QueryRequestHandler {
     private final QueryMetricClient queryMetricClient;
     private final ResponseObjectFactory responseObjectFactory;
     private final QueryStorageCache queryStorageCache;
+    private final LocalQueryStatusCache queryStatusCache;
     private final QueryResultsManager queryResultsManager;
     private final AuditClient auditClient;
-    private final ThreadPoolTaskExecutor nextCallExecutor;
+    private final AsyncTaskExecutor nextCallExecutor;
+    private final UserConcurrencyLimiter nextCallLimiter;
+    private final ParallelPageTransformer pageTransformer;
+    private final QueryExpiryIndex queryExpiryIndex;
+    private final QueryListingIndex queryListingIndex;
     
     private final QueryStatusUpdateUtil queryStatusUpdateUtil;
-    private final MultiValueMap<String,NextCall> nextCallMap = new LinkedMultiValueMap<>();
+    private final ActiveCallRegistry<NextCall> nextCallRegistry = new ActiveCallRegistry<>();
     
     private final String selfDestination;
     
@@ -129,14 +159,23 @@ public class QueryManagementService implements QueryRequestHandler {
     // Note: for requests which don't originate with a rest call, provide ThreadLocal baseQueryMetric
     private final ThreadLocal<BaseQueryMetric> baseQueryMetricOverride;
     
-    private final Map<String,CountDownLatch> queryLatchMap = new ConcurrentHashMap<>();
-    
-    public QueryManagementService(QueryProperties queryProperties, ApplicationEventPublisher eventPublisher, BusProperties busProperties,
-                    QueryParameters queryParameters, SecurityMarking securityMarking, BaseQueryMetric baseQueryMetric, QueryLogicFactory queryLogicFactory,
-                    QueryMetricClient queryMetricClient, ResponseObjectFactory responseObjectFactory, QueryStorageCache queryStorageCache,
-                    QueryResultsManager queryResultsManager, AuditClient auditClient, ThreadPoolTaskExecutor nextCallExecutor) {
+    // create, plan, and predict requests which are waiting on a response from the executor, keyed by query id
+    private final Map<String,ExecutorResponse> executorResponseMap = new ConcurrentHashMap<>();
+    // periodically checks whether queries waiting on an executor response have failed or timed out. the checks are quick, so a single thread is enough.
+    private final ScheduledExecutorService executorResponseCheckExecutor;
+    
+    public QueryManagementService(QueryProperties queryProperties, NextCallRunnerProperties nextCallRunnerProperties,
+                    BulkOperationProperties bulkOperationProperties, QueryRequestEventPublisher queryRequestEventPublisher, BusProperties busProperties,
+                    QueryParameters queryParameters, SecurityMarking securityMarking, BaseQueryMetric baseQueryMetric,
+                    QueryLogicFactory queryLogicFactory, QueryMetricClient queryMetricClient, ResponseObjectFactory responseObjectFactory,
+                    QueryStorageCache queryStorageCache, LocalQueryStatusCache queryStatusCache, QueryResultsManager queryResultsManager,
+                    AuditClient auditClient, AsyncTaskExecutor nextCallExecutor, UserConcurrencyLimiter nextCallLimiter,
+                    ParallelPageTransformer pageTransformer, ObjectProvider<QueryExpiryIndex> queryExpiryIndexProvider,
+                    ObjectProvider<QueryListingIndex> queryListingIndexProvider) {
         this.queryProperties = queryProperties;
-        this.eventPublisher = eventPublisher;
+        this.nextCallRunnerProperties = nextCallRunnerProperties;
+        this.bulkOperationProperties = bulkOperationProperties;
+        this.queryRequestEventPublisher = queryRequestEventPublisher;
         this.busProperties = busProperties;
         this.queryParameters = queryParameters;
         this.securityMarking = securityMarking;
@@ -145,14 +184,26 @@ public class QueryManagementService implements QueryRequestHandler {
         this.queryMetricClient = queryMetricClient;
         this.responseObjectFactory = responseObjectFactory;
         this.queryStorageCache = queryStorageCache;
+        this.queryStatusCache = queryStatusCache;
         this.queryResultsManager = queryResultsManager;
         this.auditClient = auditClient;
         this.nextCallExecutor = nextCallExecutor;
+        this.nextCallLimiter = nextCallLimiter;
+        this.pageTransformer = pageTransformer;
+        this.queryExpiryIndex = queryExpiryIndexProvider.getIfAvailable();
+        this.queryListingIndex = queryListingIndexProvider.getIfAvailable();
         this.queryStatusUpdateUtil = new QueryStatusUpdateUtil(this.queryProperties, this.queryStorageCache);
         this.selfDestination = getSelfDestination();
         this.queryParametersOverride = new ThreadLocal<>();
         this.securityMarkingOverride = new ThreadLocal<>();
         this.baseQueryMetricOverride = new ThreadLocal<>();
+        this.executorResponseCheckExecutor = Executors
+                        .newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("executor-response-check-%d").setDaemon(true).build());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executorResponseCheckExecutor.shutdownNow();
     }
     
     /**
@@ -617,6 +668,11 @@ public class QueryManagementService implements QueryRequestHandler {
                 throw new QueryException(DatawaveErrorCode.RUNNING_QUERY_CACHE_ERROR);
             }
             
+            addToListingIndex(query);
+            if (queryType == DEFINE || queryType == CREATE) {
+                addToExpiryIndex(taskKey.getQueryId());
+            }
+            
             // update the query metric
             BaseQueryMetric baseQueryMetric = getBaseQueryMetric();
             if (queryType == DEFINE || queryType == CREATE) {
@@ -634,43 +690,111 @@ public class QueryManagementService implements QueryRequestHandler {
     }
     
     private void sendRequestAwaitResponse(QueryRequest request, String computedPool, boolean isAwaitResponse, long startTimeMillis) throws QueryException {
-        if (isAwaitResponse) {
-            // before publishing the message, create a latch based on the query ID
-            queryLatchMap.put(request.getQueryId(), new CountDownLatch(1));
-        }
+        // before publishing the message, register to receive the executor response based on the query ID
+        ExecutorResponse executorResponse = isAwaitResponse ? registerExecutorResponse(request, startTimeMillis) : null;
         
         // publish an event to the executor pool
-        publishExecutorEvent(request, computedPool);
+        try {
+            publishExecutorEvent(request, computedPool);
+        } catch (RuntimeException e) {
+            if (executorResponse != null) {
+                executorResponse.getFuture().cancel(false);
+            }
+            throw e;
+        }
         
         if (isAwaitResponse) {
             log.info("Waiting on query {} response from the executor.", request.getMethod().name());
             
             try {
-                boolean isFinished = false;
-                while (!isFinished && System.currentTimeMillis() < (startTimeMillis + queryProperties.getExpiration().getCallTimeoutMillis())) {
-                    try {
-                        // wait for the executor response
-                        if (queryLatchMap.get(request.getQueryId()).await(queryProperties.getExpiration().getCallTimeoutInterval(),
-                                        queryProperties.getExpiration().getCallTimeoutIntervalUnit())) {
-                            log.info("Received query {} response from the executor.", request.getMethod().name());
-                            isFinished = true;
-                        }
-                        
-                        // did the request fail?
-                        QueryStatus queryStatus = queryStorageCache.getQueryStatus(request.getQueryId());
-                        if (queryStatus.getQueryState() == FAIL) {
-                            log.error("Query {} failed for queryId {}: {}", request.getMethod().name(), request.getQueryId(), queryStatus.getFailureMessage());
-                            throw new QueryException(queryStatus.getErrorCode(), "Query " + request.getMethod().name() + " failed for queryId "
-                                            + request.getQueryId() + ": " + queryStatus.getFailureMessage());
-                        }
-                    } catch (InterruptedException e) {
-                        log.warn("Interrupted while waiting for query {} latch for queryId {}", request.getMethod().name(), request.getQueryId());
-                    }
+                // wait for the executor response, a failure, or the call timeout
+                executorResponse.getFuture().get();
+                log.info("Received query {} response from the executor.", request.getMethod().name());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof QueryException) {
+                    throw (QueryException) e.getCause();
+                } else if (e.getCause() instanceof TimeoutException) {
+                    log.warn("Timed out waiting on query {} response from the executor for queryId {}", request.getMethod().name(), request.getQueryId());
+                } else {
+                    throw new QueryException(DatawaveErrorCode.UNKNOWN_SERVER_ERROR, e.getCause(),
+                                    "Unknown error waiting on query " + request.getMethod().name() + " response for queryId " + request.getQueryId());
                 }
+            } catch (InterruptedException e) {
+                log.warn("Interrupted while waiting on query {} response for queryId {}", request.getMethod().name(), request.getQueryId());
+                Thread.currentThread().interrupt();
+                throw new QueryException(DatawaveErrorCode.UNKNOWN_SERVER_ERROR, e,
+                                "Interrupted while waiting on query " + request.getMethod().name() + " response for queryId " + request.getQueryId());
             } finally {
-                queryLatchMap.remove(request.getQueryId());
+                executorResponse.getFuture().cancel(false);
+            }
+        }
+    }
+    
+    /**
+     * Registers a future which will be completed when the executor responds to the given request.
+     * <p>
+     * The future is completed by {@link #handleRemoteRequest} as soon as the executor response arrives, or exceptionally if the query is found to have
+     * failed. Since an executor may fail without sending a response, the query status is also checked once per call timeout interval until the call times
+     * out. The checks are scheduled on a dedicated executor, so none of this requires a thread to be held while waiting.
+     *
+     * @param request
+     *            the request being sent to the executor, not null
+     * @param startTimeMillis
+     *            the time that the call started
+     * @return the executor response
+     */
+    private ExecutorResponse registerExecutorResponse(QueryRequest request, long startTimeMillis) {
+        final ExecutorResponse executorResponse = new ExecutorResponse(request, startTimeMillis);
+        executorResponseMap.put(request.getQueryId(), executorResponse);
+        executorResponse.getFuture().whenComplete((v, t) -> executorResponseMap.remove(request.getQueryId(), executorResponse));
+        scheduleFailureCheck(executorResponse);
+        return executorResponse;
+    }
+    
+    private void scheduleFailureCheck(ExecutorResponse executorResponse) {
+        QueryExpirationProperties expiration = queryProperties.getExpiration();
+        long timeoutMillis = executorResponse.getStartTimeMillis() + expiration.getCallTimeoutMillis();
+        long delayMillis = Math.min(expiration.getCallTimeoutIntervalMillis(), timeoutMillis - System.currentTimeMillis());
+        
+        try {
+            executorResponseCheckExecutor.schedule(() -> {
+                if (!executorResponse.getFuture().isDone() && !completeIfFailed(executorResponse)) {
+                    if (System.currentTimeMillis() >= timeoutMillis) {
+                        executorResponse.getFuture().completeExceptionally(new TimeoutException());
+                    } else {
+                        scheduleFailureCheck(executorResponse);
+                    }
+                }
+            }, Math.max(0L, delayMillis), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the service is shutting down, so stop waiting
+            executorResponse.getFuture().completeExceptionally(e);
+        }
+    }
+    
+    /**
+     * Completes the executor response exceptionally if the query has failed.
+     *
+     * @param executorResponse
+     *            the executor response, not null
+     * @return true if the query has failed
+     */
+    private boolean completeIfFailed(ExecutorResponse executorResponse) {
+        QueryRequest request = executorResponse.getRequest();
+        try {
+            QueryStatus queryStatus = queryStorageCache.getQueryStatus(request.getQueryId());
+            if (queryStatus != null && queryStatus.getQueryState() == FAIL) {
+                log.error("Query {} failed for queryId {}: {}", request.getMethod().name(), request.getQueryId(), queryStatus.getFailureMessage());
+                String message = "Query " + request.getMethod().name() + " failed for queryId " + request.getQueryId() + ": " + queryStatus.getFailureMessage();
+                // an executor which fails without recording an error code still fails the call
+                DatawaveErrorCode errorCode = (queryStatus.getErrorCode() != null) ? queryStatus.getErrorCode() : DatawaveErrorCode.UNKNOWN_SERVER_ERROR;
+                executorResponse.getFuture().completeExceptionally(new QueryException(errorCode, message));
+                return true;
             }
+        } catch (Exception e) {
+            log.warn("Unable to check the status of query {} for queryId {}", request.getMethod().name(), request.getQueryId(), e);
         }
+        return false;
     }
     
     /**
@@ -727,7 +851,7 @@ public class QueryManagementService implements QueryRequestHandler {
         String queryId = null;
         try {
             queryId = create(queryLogicName, parameters, pool, currentUser).getResult();
-            return executeNext(queryId, currentUser);
+            return executeNext(queryId, currentUser, null, 0);
         } catch (Exception e) {
             QueryException qe;
             if (!(e instanceof QueryException)) {
@@ -781,6 +905,30 @@ public class QueryManagementService implements QueryRequestHandler {
      *             if there is an unknown error
      */
     public BaseQueryResponse next(String queryId, DatawaveUserDetails currentUser) throws QueryException {
+        return next(queryId, currentUser, null, 0);
+    }
+    
+    /**
+     * Gets the next page of results for the specified query, handing the results to the given listener as they are collected.
+     * <p>
+     * Results are transformed and passed to the listener in chunks while the next call is running, so the caller can start writing them before the page is
+     * complete. Every result in the returned page will already have been passed to the listener, so the returned response only needs to be used for
+     * bookkeeping. Validation and errors are handled exactly as they are for {@link #next(String, DatawaveUserDetails)}.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @param resultListener
+     *            the listener to hand results to as they are collected, may be null
+     * @param resultChunkSize
+     *            the number of results to collect before handing them to the listener
+     * @return a base query response containing the next page of results
+     * @throws QueryException
+     *             if the next call fails for any of the reasons listed in {@link #next(String, DatawaveUserDetails)}
+     */
+    public BaseQueryResponse next(String queryId, DatawaveUserDetails currentUser, StreamingResultListener resultListener, int resultChunkSize)
+                    throws QueryException {
         log.info("Request: next from {} for {}", ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), queryId);
         
         try {
@@ -789,7 +937,7 @@ public class QueryManagementService implements QueryRequestHandler {
             
             // make sure the state is created
             if (queryStatus.getQueryState() == CREATE) {
-                return executeNext(queryId, currentUser);
+                return executeNext(queryId, currentUser, resultListener, resultChunkSize);
             } else {
                 throw new BadRequestQueryException("Cannot call next on a query that is not running", HttpStatus.SC_BAD_REQUEST + "-1");
             }
@@ -802,131 +950,745 @@ public class QueryManagementService implements QueryRequestHandler {
                 qe = (QueryException) e;
             }
             
-            if (!(qe instanceof NoResultsQueryException)) {
-                getBaseQueryMetric().setError(qe);
+            if (!(qe instanceof NoResultsQueryException)) {
+                getBaseQueryMetric().setError(qe);
+            }
+            
+            throw qe;
+        }
+    }
+    
+    /**
+     * Gets the next page of results for the given query, and publishes a next event to the executor service.
+     * <p>
+     * If configuration allows, multiple next calls may be run concurrently for a query.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @param resultListener
+     *            the listener to hand results to as they are collected, may be null
+     * @param resultChunkSize
+     *            the number of results to collect before handing them to the listener
+     * @return a base query response containing the next page of results
+     * @throws NotFoundQueryException
+     *             if the query cannot be found
+     * @throws QueryException
+     *             if query lock acquisition fails
+     * @throws InterruptedException
+     *             if the next call is interrupted
+     * @throws TimeoutQueryException
+     *             if the query times out
+     * @throws NoResultsQueryException
+     *             if no query results are found
+     * @throws QueryException
+     *             if this next task is rejected by the executor
+     * @throws QueryException
+     *             if next call execution fails
+     * @throws QueryException
+     *             if query logic creation fails
+     */
+    private BaseQueryResponse executeNext(String queryId, DatawaveUserDetails currentUser, StreamingResultListener resultListener, int resultChunkSize)
+                    throws InterruptedException, QueryException {
+        // before we spin up a separate thread, make sure we are allowed to call next
+        boolean success = false;
+        QueryStatus queryStatus = queryStatusUpdateUtil.lockedUpdate(queryId, queryStatusUpdateUtil::claimNextCall);
+        onQueryStatusUpdate(queryStatus);
+        try {
+            final QueryLogic<?> queryLogic = prepareNextCall(queryId, queryStatus, currentUser);
+            final StreamingChunkListener chunkListener = createResultListener(queryId, queryStatus, queryLogic, resultListener);
+            final NextCall nextCall = createNextCall(queryId, queryStatus, queryLogic, chunkListener, resultChunkSize);
+            
+            nextCallRegistry.register(queryId, nextCall);
+            try {
+                // submit the next call to the executor
+                nextCall.setFuture(nextCallLimiter.submit(nextCallExecutor, getUserId(currentUser), nextCall));
+                
+                // wait for the results to be ready
+                ResultsPage<Object> resultsPage = nextCall.getFuture().get();
+                
+                BaseQueryResponse response = createNextResponse(queryId, queryStatus, queryLogic, nextCall, resultsPage, chunkListener);
+                success = true;
+                return response;
+            } catch (TaskRejectedException e) {
+                throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, "Next task rejected by the executor for query " + queryId);
+            } catch (ExecutionException e) {
+                // try to unwrap the execution exception and throw a query exception
+                throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e.getCause(), "Next call execution failed");
+            } finally {
+                // remove this next call from the registry, and decrement the next count for this query
+                nextCallRegistry.unregister(queryId, nextCall);
+            }
+        } finally {
+            // update query status if we failed
+            if (!success) {
+                releaseNextCall(queryId);
+            }
+        }
+    }
+    
+    /**
+     * Creates a query and asynchronously gets the first page of results.
+     * <p>
+     * This behaves like {@link #createAndNext}, but the calling thread is released as soon as the next call has been submitted to the executor. The returned
+     * future is completed by the next call thread once the page of results has been transformed.
+     *
+     * @param queryLogicName
+     *            the requested query logic, not null
+     * @param parameters
+     *            the query parameters, not null
+     * @param pool
+     *            the pool to target, may be null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a future which will complete with a base query response containing the first page of results
+     * @throws QueryException
+     *             if the query cannot be created, or the next call cannot be submitted
+     * @see #createAndNext(String, MultiValueMap, String, DatawaveUserDetails)
+     */
+    public CompletableFuture<BaseQueryResponse> createAndNextAsync(String queryLogicName, MultiValueMap<String,String> parameters, String pool,
+                    DatawaveUserDetails currentUser) throws QueryException {
+        String user = ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName());
+        if (log.isDebugEnabled()) {
+            log.info("Request: {}/createAndNextAsync from {} with params: {}", queryLogicName, user, parameters);
+        } else {
+            log.info("Request: {}/createAndNextAsync from {}", queryLogicName, user);
+        }
+        
+        String queryId = null;
+        try {
+            queryId = create(queryLogicName, parameters, pool, currentUser).getResult();
+            return executeNextAsync(queryId, currentUser, "Unknown error calling create and next. " + queryId);
+        } catch (Exception e) {
+            QueryException qe;
+            if (!(e instanceof QueryException)) {
+                log.error("Unknown error calling create and next. {}", queryId, e);
+                qe = new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, "Unknown error calling create and next. " + queryId);
+            } else {
+                qe = (QueryException) e;
+            }
+            
+            if (queryId != null) {
+                getBaseQueryMetric().setError(qe);
+            }
+            
+            throw qe;
+        }
+    }
+    
+    /**
+     * Asynchronously gets the next page of results for the specified query.
+     * <p>
+     * This behaves like {@link #next}, but the calling thread is released as soon as the next call has been submitted to the executor. The returned future is
+     * completed by the next call thread once the page of results has been transformed. Cancelling the returned future (e.g. because the request timed out)
+     * abandons the next call, and any results that it collected are returned to the results queue.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a future which will complete with a base query response containing the next page of results
+     * @throws NotFoundQueryException
+     *             if the query cannot be found
+     * @throws UnauthorizedQueryException
+     *             if the user doesn't own the query
+     * @throws BadRequestQueryException
+     *             if the query is not running
+     * @throws QueryException
+     *             if the next call cannot be submitted
+     * @see #next(String, DatawaveUserDetails)
+     */
+    public CompletableFuture<BaseQueryResponse> nextAsync(String queryId, DatawaveUserDetails currentUser) throws QueryException {
+        log.info("Request: nextAsync from {} for {}", ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), queryId);
+        
+        try {
+            // make sure the query is valid, and the user can act on it
+            QueryStatus queryStatus = validateRequest(queryId, currentUser);
+            
+            // make sure the state is created
+            if (queryStatus.getQueryState() == CREATE) {
+                return executeNextAsync(queryId, currentUser, "Unknown error getting next page for query " + queryId);
+            } else {
+                throw new BadRequestQueryException("Cannot call next on a query that is not running", HttpStatus.SC_BAD_REQUEST + "-1");
+            }
+        } catch (Exception e) {
+            QueryException qe;
+            if (!(e instanceof QueryException)) {
+                log.error("Unknown error getting next page for query {}", queryId, e);
+                qe = new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, "Unknown error getting next page for query " + queryId);
+            } else {
+                qe = (QueryException) e;
+            }
+            
+            getBaseQueryMetric().setError(qe);
+            
+            throw qe;
+        }
+    }
+    
+    /**
+     * Submits a next call for the given query without waiting for the results, and publishes a next event to the executor service.
+     * <p>
+     * The returned future is completed on the next call thread. The request may already have been completed by then, so the response is created using the
+     * caller's query metric itself, rather than anything which is scoped to the request. Cancelling the returned future abandons the next call, and any
+     * results that it collected are returned to the results queue.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @param errorMessage
+     *            the message to use when wrapping unexpected errors, not null
+     * @return a future which will complete with a base query response containing the next page of results
+     * @throws NotFoundQueryException
+     *             if the query cannot be found
+     * @throws QueryException
+     *             if query lock acquisition fails
+     * @throws InterruptedException
+     *             if query lock acquisition is interrupted
+     * @throws QueryException
+     *             if this next task is rejected by the executor
+     * @throws QueryException
+     *             if query logic creation fails
+     */
+    private CompletableFuture<BaseQueryResponse> executeNextAsync(String queryId, DatawaveUserDetails currentUser, String errorMessage)
+                    throws InterruptedException, QueryException {
+        // before we spin up a separate thread, make sure we are allowed to call next
+        boolean submitted = false;
+        QueryStatus queryStatus = queryStatusUpdateUtil.lockedUpdate(queryId, queryStatusUpdateUtil::claimNextCall);
+        onQueryStatusUpdate(queryStatus);
+        try {
+            final QueryLogic<?> queryLogic = prepareNextCall(queryId, queryStatus, currentUser);
+            final NextCall nextCall = createNextCall(queryId, queryStatus, queryLogic, null, 0);
+            // the request may be completed (and recycled) before the next call is, so hold on to the caller's query metric itself
+            final BaseQueryMetric baseQueryMetric = getBaseQueryMetricTarget();
+            final CompletableFuture<ResultsPage<Object>> pageFuture = new CompletableFuture<>();
+            final CompletableFuture<BaseQueryResponse> responseFuture = new CompletableFuture<>();
+            
+            // if the caller stops waiting for the response (e.g. the request times out, or the client disconnects), abandon the next call
+            responseFuture.whenComplete((response, throwable) -> {
+                if (throwable instanceof CancellationException) {
+                    nextCall.abandon();
+                }
+            });
+            
+            // once the page is ready, create the response on the next call thread
+            pageFuture.whenComplete((resultsPage, throwable) -> runWithQueryMetric(baseQueryMetric, () -> {
+                boolean success = false;
+                try {
+                    if (throwable != null) {
+                        throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, throwable, "Next call execution failed");
+                    }
+                    
+                    if (nextCall.commit()) {
+                        responseFuture.complete(createNextResponse(queryId, queryStatus, queryLogic, nextCall, resultsPage));
+                    } else {
+                        // nobody is waiting for this page, so put the results back on the queue rather than losing them
+                        returnAbandonedPage(queryId, nextCall, resultsPage);
+                    }
+                    success = true;
+                } catch (Exception e) {
+                    QueryException qe;
+                    if (!(e instanceof QueryException)) {
+                        log.error("Unknown error getting next page for query {}", queryId, e);
+                        qe = new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, errorMessage);
+                    } else {
+                        qe = (QueryException) e;
+                    }
+                    
+                    if (!(qe instanceof NoResultsQueryException)) {
+                        getBaseQueryMetric().setError(qe);
+                    }
+                    
+                    responseFuture.completeExceptionally(qe);
+                } finally {
+                    // remove this next call from the registry, and decrement the next count for this query
+                    nextCallRegistry.unregister(queryId, nextCall);
+                    
+                    // update query status if we failed
+                    if (!success) {
+                        try {
+                            releaseNextCall(queryId);
+                        } catch (InterruptedException e) {
+                            log.error("Interrupted while releasing next call for query {}", queryId, e);
+                            Thread.currentThread().interrupt();
+                        } catch (QueryException e) {
+                            log.error("Unable to release next call for query {}", queryId, e);
+                        }
+                    }
+                }
+            }));
+            
+            nextCallRegistry.register(queryId, nextCall);
+            try {
+                // submit the next call to the executor
+                nextCall.setFuture(pageFuture);
+                nextCallLimiter.execute(nextCallExecutor, getUserId(currentUser), () -> {
+                    try {
+                        pageFuture.complete(nextCall.call());
+                    } catch (Throwable t) {
+                        pageFuture.completeExceptionally(t);
+                    }
+                });
+                submitted = true;
+            } catch (TaskRejectedException e) {
+                nextCallRegistry.unregister(queryId, nextCall);
+                throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, "Next task rejected by the executor for query " + queryId);
+            }
+            
+            return responseFuture;
+        } finally {
+            // update query status if we failed to submit the next call
+            if (!submitted) {
+                releaseNextCall(queryId);
+            }
+        }
+    }
+    
+    /**
+     * Returns the results collected by an abandoned async next call to the results queue, and releases the next call.
+     * <p>
+     * The page was never handed to the client, so it doesn't count towards the pages or results returned, and its results are backed out of the number of
+     * results consumed.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param nextCall
+     *            the abandoned next call, not null
+     * @param resultsPage
+     *            the page collected by the next call, not null
+     * @throws Exception
+     *             if the results could not be returned to the queue, or the query status could not be updated
+     */
+    private void returnAbandonedPage(String queryId, NextCall nextCall, ResultsPage<Object> resultsPage) throws Exception {
+        List<Object> results = resultsPage.getResults();
+        log.info("Query [{}]: async next response was abandoned, returning {} results to the queue", queryId, results.size());
+        
+        nextCall.returnResults(results);
+        onQueryStatusUpdate(queryStatusUpdateUtil.lockedUpdate(queryId, status -> {
+            queryStatusUpdateUtil.releaseNextCall(status, queryResultsManager);
+            status.incrementNumResultsConsumed(-results.size());
+        }));
+    }
+    
+    /**
+     * Publishes a next event to the executor service, and prepares the query logic and query metric for a next call.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param queryStatus
+     *            the query status, not null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return the query logic to use for the next call
+     * @throws QueryException
+     *             if query logic creation fails
+     */
+    private QueryLogic<?> prepareNextCall(String queryId, QueryStatus queryStatus, DatawaveUserDetails currentUser) throws QueryException {
+        // publish a next event to the executor pool
+        publishNextEvent(queryId, queryStatus.getQueryKey().getQueryPool());
+        
+        // get the query logic
+        String queryLogicName = queryStatus.getQuery().getQueryLogicName();
+        QueryLogic<?> queryLogic;
+        try {
+            queryLogic = queryLogicFactory.getQueryLogic(queryLogicName, currentUser);
+        } catch (CloneNotSupportedException e) {
+            throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, "Unable to create instance of the requested query logic " + queryLogicName);
+        }
+        
+        // update query metrics
+        BaseQueryMetric baseQueryMetric = getBaseQueryMetric();
+        baseQueryMetric.setQueryId(queryId);
+        baseQueryMetric.setQueryLogic(queryLogicName);
+        
+        return queryLogic;
+    }
+    
+    private NextCall createNextCall(String queryId, QueryStatus queryStatus, QueryLogic<?> queryLogic, NextCallResultListener resultListener,
+                    int resultChunkSize) {
+        // @formatter:off
+        return new NextCall.Builder()
+                .setQueryProperties(queryProperties)
+                .setRunnerProperties(nextCallRunnerProperties)
+                .setResultsQueueManager(queryResultsManager)
+                .setQueryStorageCache(queryStorageCache)
+                .setQueryStatusUpdateUtil(queryStatusUpdateUtil)
+                .setQueryId(queryId)
+                .setQueryStatus(queryStatus)
+                .setQueryLogic(queryLogic)
+                .setResultListener(resultListener)
+                .setResultChunkSize(resultChunkSize)
+                .build();
+        // @formatter:on
+    }
+    
+    /**
+     * Adapts a streaming result listener so that it can receive the raw results collected by a next call.
+     * <p>
+     * Each chunk of results is transformed into its own response on the next call thread, so once every chunk has been written the page doesn't need to be
+     * transformed again.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param queryStatus
+     *            the query status, not null
+     * @param queryLogic
+     *            the query logic, not null
+     * @param resultListener
+     *            the streaming result listener, may be null
+     * @return a next call result listener, or null if there is no streaming result listener
+     */
+    private StreamingChunkListener createResultListener(String queryId, QueryStatus queryStatus, QueryLogic<?> queryLogic,
+                    StreamingResultListener resultListener) {
+        StreamingChunkListener chunkListener = null;
+        if (resultListener != null) {
+            chunkListener = new StreamingChunkListener(queryId, queryStatus, queryLogic.getTransformer(queryStatus.getQuery()), resultListener);
+        }
+        return chunkListener;
+    }
+    
+    /**
+     * Hands the chunks of results collected by a next call to a streaming result listener.
+     * <p>
+     * Chunks are written before the page is complete, so the page number is reserved when the first chunk is written rather than when the page is returned.
+     * Since the page number is claimed with a locked update, concurrent next calls can't be given the same page number.
+     * <p>
+     * By the time the next call returns its page, every result in the page has been written, so the response for the last chunk stands in for the page
+     * response rather than transforming the page a second time.
+     */
+    private class StreamingChunkListener implements NextCallResultListener {
+        private final String queryId;
+        private final QueryStatus queryStatus;
+        private final QueryLogicTransformer<?,?> transformer;
+        private final StreamingResultListener resultListener;
+        private long pageNumber = 0L;
+        private BaseQueryResponse lastResponse = null;
+        
+        private StreamingChunkListener(String queryId, QueryStatus queryStatus, QueryLogicTransformer<?,?> transformer,
+                        StreamingResultListener resultListener) {
+            this.queryId = queryId;
+            this.queryStatus = queryStatus;
+            this.transformer = transformer;
+            this.resultListener = resultListener;
+        }
+        
+        @Override
+        public void onResults(List<Object> results) throws Exception {
+            if (pageNumber == 0L) {
+                QueryStatus updatedStatus = queryStatusUpdateUtil.lockedUpdate(queryId, status -> status.setLastPageNumber(status.getLastPageNumber() + 1));
+                onQueryStatusUpdate(updatedStatus);
+                pageNumber = updatedStatus.getLastPageNumber();
+            }
+            
+            BaseQueryResponse response = transformer.createResponse(new ResultsPage<>(results, ResultsPage.Status.PARTIAL));
+            response.setHasResults(true);
+            response.setPageNumber(pageNumber);
+            response.setLogicName(queryStatus.getQuery().getQueryLogicName());
+            response.setQueryId(queryId);
+            resultListener.onResults(response);
+            lastResponse = response;
+        }
+        
+        /**
+         * @return the page number reserved for the page being written, or 0 if no chunks have been written
+         */
+        public long getPageNumber() {
+            return pageNumber;
+        }
+        
+        /**
+         * @return the response for the last chunk written, or null if no chunks have been written
+         */
+        public BaseQueryResponse getLastResponse() {
+            return lastResponse;
+        }
+    }
+    
+    /**
+     * Transforms the page of results returned by the next call into a response, and updates the query metric.
+     * <p>
+     * The time spent transforming the page is included in the page time recorded for the next call.
+     * <p>
+     * If the page contains results, the next call will be released and the query status will be updated to reflect the page returned.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param queryStatus
+     *            the query status, not null
+     * @param queryLogic
+     *            the query logic, not null
+     * @param nextCall
+     *            the completed next call, not null
+     * @param resultsPage
+     *            the page of results, not null
+     * @return a base query response containing the next page of results
+     * @throws QueryCanceledQueryException
+     *             if the query was canceled
+     * @throws TimeoutQueryException
+     *             if the query times out
+     * @throws NoResultsQueryException
+     *             if no query results are found
+     * @throws QueryException
+     *             if query lock acquisition fails
+     * @throws InterruptedException
+     *             if query lock acquisition is interrupted
+     */
+    private BaseQueryResponse createNextResponse(String queryId, QueryStatus queryStatus, QueryLogic<?> queryLogic, NextCall nextCall,
+                    ResultsPage<Object> resultsPage) throws QueryException, InterruptedException {
+        return createNextResponse(queryId, queryStatus, queryLogic, nextCall, resultsPage, null);
+    }
+    
+    /**
+     * Transforms the page of results returned by the next call into a response, and updates the query metric.
+     * <p>
+     * If the page was streamed in chunks, every result in the page has already been transformed and written to the streaming result listener. In that case the
+     * page isn't transformed again, the page number reserved by the first chunk is used rather than claiming a new one, and the response for the last chunk is
+     * returned, since it is only needed for bookkeeping.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param queryStatus
+     *            the query status, not null
+     * @param queryLogic
+     *            the query logic, not null
+     * @param nextCall
+     *            the completed next call, not null
+     * @param resultsPage
+     *            the page of results, not null
+     * @param chunkListener
+     *            the listener which streamed the page in chunks, may be null
+     * @return a base query response containing the next page of results
+     * @throws QueryException
+     *             if the response could not be created, for any of the reasons listed in {@link #createNextResponse(String, QueryStatus, QueryLogic, NextCall,
+     *             ResultsPage)}
+     * @throws InterruptedException
+     *             if query lock acquisition is interrupted
+     */
+    private BaseQueryResponse createNextResponse(String queryId, QueryStatus queryStatus, QueryLogic<?> queryLogic, NextCall nextCall,
+                    ResultsPage<Object> resultsPage, StreamingChunkListener chunkListener) throws QueryException, InterruptedException {
+        final long reservedPageNumber = (chunkListener != null) ? chunkListener.getPageNumber() : 0L;
+        
+        // format the response
+        BaseQueryResponse response = null;
+        BaseQueryMetric baseQueryMetric = getBaseQueryMetric();
+        long startTimeMillis = System.currentTimeMillis();
+        try {
+            if (!resultsPage.getResults().isEmpty()) {
+                if (reservedPageNumber != 0L) {
+                    // the results have already been transformed and written, chunk by chunk
+                    response = chunkListener.getLastResponse();
+                } else {
+                    response = pageTransformer.createResponse(queryLogic, queryStatus.getQuery(), resultsPage);
+                    log.debug("Query [{}]: transformed {} results in {}ms", queryId, resultsPage.getResults().size(),
+                                    System.currentTimeMillis() - startTimeMillis);
+                }
+            }
+        } finally {
+            // update the query metric, even if the transform failed. the transform time only counts toward the page time when parallel transformation is
+            // enabled, so that the page time is unchanged for deployments which don't use it.
+            long transformTimeMillis = pageTransformer.isParallel() ? System.currentTimeMillis() - startTimeMillis : 0L;
+            // Note: a pipelined streaming call may read the metric while this next call is completing
+            synchronized (baseQueryMetric) {
+                nextCall.updateQueryMetric(baseQueryMetric, transformTimeMillis);
+            }
+        }
+        
+        if (response != null) {
+            // after all of our work is done, perform our final query status update for this next call
+            QueryStatus updatedStatus = queryStatusUpdateUtil.lockedUpdate(queryId, status -> {
+                queryStatusUpdateUtil.releaseNextCall(status, queryResultsManager);
+                if (reservedPageNumber == 0L) {
+                    status.setLastPageNumber(status.getLastPageNumber() + 1);
+                }
+                status.setNumResultsReturned(status.getNumResultsReturned() + resultsPage.getResults().size());
+            });
+            onQueryStatusUpdate(updatedStatus);
+            
+            // a chunk response was filled in when it was written, and it may still be buffered for writing by the listener, so leave it alone
+            if (reservedPageNumber == 0L) {
+                response.setHasResults(true);
+                response.setPageNumber(updatedStatus.getLastPageNumber());
+                response.setLogicName(queryStatus.getQuery().getQueryLogicName());
+                response.setQueryId(queryId);
+            }
+            return response;
+        } else {
+            if (nextCall.isCanceled()) {
+                log.debug("Query [{}]: Canceled while handling next call", queryId);
+                throw new QueryCanceledQueryException(DatawaveErrorCode.QUERY_CANCELED, MessageFormat.format("{0} canceled;", queryId));
+            } else if (baseQueryMetric.getLifecycle() == BaseQueryMetric.Lifecycle.NEXTTIMEOUT) {
+                log.debug("Query [{}]: Timed out during next call", queryId);
+                throw new TimeoutQueryException(DatawaveErrorCode.QUERY_TIMEOUT, MessageFormat.format("{0} timed out.", queryId));
+            } else {
+                log.debug("Query [{}]: No results found for next call - closing query", queryId);
+                // if there are no results, and we didn't timeout, close the query
+                close(queryId);
+                throw new NoResultsQueryException(DatawaveErrorCode.NO_QUERY_RESULTS_FOUND, MessageFormat.format("{0}", queryId));
             }
-            
-            throw qe;
         }
     }
     
     /**
-     * Gets the next page of results for the given query, and publishes a next event to the executor service.
+     * Gets the maximum amount of time that an async next request should wait for its response.
      * <p>
-     * If configuration allows, multiple next calls may be run concurrently for a query.
+     * Next calls time themselves out after the page timeout (or call timeout), so this is the longest possible next call plus some padding for the
+     * transformation of the results.
+     *
+     * @return the async next response timeout, in milliseconds
+     */
+    public long getAsyncNextResponseTimeoutMillis() {
+        QueryExpirationProperties expiration = queryProperties.getExpiration();
+        long maxCallTimeoutMillis = Math.max(expiration.getPageMaxTimeoutMillis(), expiration.getCallTimeoutMillis());
+        return maxCallTimeoutMillis + nextCallRunnerProperties.getAsyncResponseTimeoutPaddingMillis();
+    }
+    
+    /**
+     * Gets the maximum number of next calls which may be running concurrently for a single query.
+     *
+     * @return the next call concurrency
+     */
+    public int getMaxConcurrentNextCalls() {
+        return queryProperties.getNextCall().getConcurrency();
+    }
+    
+    /**
+     * Records the status returned by a locked update in the local status cache, and lets the query monitor know that the query has seen activity, so that it
+     * doesn't need to look at the query until its next deadline.
+     *
+     * @param queryStatus
+     *            the updated query status, may be null
+     */
+    private void onQueryStatusUpdate(QueryStatus queryStatus) {
+        queryStatusCache.update(queryStatus);
+        if (queryExpiryIndex != null && queryStatus != null) {
+            queryExpiryIndex.update(queryStatus);
+        }
+    }
+    
+    /**
+     * Adds the query to the query listing index, if enabled. Failures are logged rather than thrown, since a query which is missing from the index will be
+     * picked up the next time that the index is rebuilt.
+     *
+     * @param query
+     *            the query, not null
+     */
+    private void addToListingIndex(Query query) {
+        if (queryListingIndex != null) {
+            try {
+                queryListingIndex.add(query);
+            } catch (Exception e) {
+                log.warn("Unable to add query {} to the listing index", query.getId(), e);
+            }
+        }
+    }
+    
+    /**
+     * Adds a newly stored query to the query monitor's expiry index, if enabled, so that the query is monitored without waiting for the index to be rebuilt.
+     * Failures are logged rather than thrown, since the query will be picked up the next time that the index is rebuilt.
      *
      * @param queryId
      *            the query id, not null
-     * @param currentUser
-     *            the user who called this method, not null
-     * @return a base query response containing the next page of results
-     * @throws NotFoundQueryException
-     *             if the query cannot be found
-     * @throws QueryException
-     *             if query lock acquisition fails
-     * @throws InterruptedException
-     *             if the next call is interrupted
-     * @throws TimeoutQueryException
-     *             if the query times out
-     * @throws NoResultsQueryException
-     *             if no query results are found
-     * @throws QueryException
-     *             if this next task is rejected by the executor
-     * @throws QueryException
-     *             if next call execution fails
-     * @throws QueryException
-     *             if query logic creation fails
      */
-    private BaseQueryResponse executeNext(String queryId, DatawaveUserDetails currentUser) throws InterruptedException, QueryException {
-        // before we spin up a separate thread, make sure we are allowed to call next
-        boolean success = false;
-        QueryStatus queryStatus = queryStatusUpdateUtil.lockedUpdate(queryId, queryStatusUpdateUtil::claimNextCall);
-        try {
-            // publish a next event to the executor pool
-            publishNextEvent(queryId, queryStatus.getQueryKey().getQueryPool());
-            
-            // get the query logic
-            String queryLogicName = queryStatus.getQuery().getQueryLogicName();
-            QueryLogic<?> queryLogic = queryLogicFactory.getQueryLogic(queryStatus.getQuery().getQueryLogicName(), currentUser);
-            
-            // update query metrics
-            BaseQueryMetric baseQueryMetric = getBaseQueryMetric();
-            baseQueryMetric.setQueryId(queryId);
-            baseQueryMetric.setQueryLogic(queryLogicName);
-            
-            // @formatter:off
-            final NextCall nextCall = new NextCall.Builder()
-                    .setQueryProperties(queryProperties)
-                    .setResultsQueueManager(queryResultsManager)
-                    .setQueryStorageCache(queryStorageCache)
-                    .setQueryStatusUpdateUtil(queryStatusUpdateUtil)
-                    .setQueryId(queryId)
-                    .setQueryLogic(queryLogic)
-                    .build();
-            // @formatter:on
-            
-            nextCallMap.add(queryId, nextCall);
+    private void addToExpiryIndex(String queryId) {
+        if (queryExpiryIndex != null) {
             try {
-                // submit the next call to the executor
-                nextCall.setFuture(nextCallExecutor.submit(nextCall));
-                
-                // wait for the results to be ready
-                ResultsPage<Object> resultsPage = nextCall.getFuture().get();
-                
-                // update the query metric
-                nextCall.updateQueryMetric(baseQueryMetric);
-                
-                // format the response
-                if (!resultsPage.getResults().isEmpty()) {
-                    BaseQueryResponse response = queryLogic.getTransformer(queryStatus.getQuery()).createResponse(resultsPage);
-                    
-                    // after all of our work is done, perform our final query status update for this next call
-                    queryStatus = queryStatusUpdateUtil.lockedUpdate(queryId, status -> {
-                        queryStatusUpdateUtil.releaseNextCall(status, queryResultsManager);
-                        status.setLastPageNumber(status.getLastPageNumber() + 1);
-                        status.setNumResultsReturned(status.getNumResultsReturned() + resultsPage.getResults().size());
-                    });
-                    success = true;
-                    
-                    response.setHasResults(true);
-                    response.setPageNumber(queryStatus.getLastPageNumber());
-                    response.setLogicName(queryLogicName);
-                    response.setQueryId(queryId);
-                    return response;
-                } else {
-                    if (nextCall.isCanceled()) {
-                        log.debug("Query [{}]: Canceled while handling next call", queryId);
-                        throw new QueryCanceledQueryException(DatawaveErrorCode.QUERY_CANCELED, MessageFormat.format("{0} canceled;", queryId));
-                    } else if (baseQueryMetric.getLifecycle() == BaseQueryMetric.Lifecycle.NEXTTIMEOUT) {
-                        log.debug("Query [{}]: Timed out during next call", queryId);
-                        throw new TimeoutQueryException(DatawaveErrorCode.QUERY_TIMEOUT, MessageFormat.format("{0} timed out.", queryId));
-                    } else {
-                        log.debug("Query [{}]: No results found for next call - closing query", queryId);
-                        // if there are no results, and we didn't timeout, close the query
-                        close(queryId);
-                        throw new NoResultsQueryException(DatawaveErrorCode.NO_QUERY_RESULTS_FOUND, MessageFormat.format("{0}", queryId));
-                    }
+                QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+                if (queryStatus != null) {
+                    queryExpiryIndex.update(queryStatus);
                 }
-            } catch (TaskRejectedException e) {
-                throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, "Next task rejected by the executor for query " + queryId);
-            } catch (ExecutionException e) {
-                // try to unwrap the execution exception and throw a query exception
-                throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e.getCause(), "Next call execution failed");
-            } finally {
-                // remove this next call from the map, and decrement the next count for this query
-                nextCallMap.get(queryId).remove(nextCall);
+            } catch (Exception e) {
+                log.warn("Unable to add query {} to the expiry index", queryId, e);
             }
-        } catch (CloneNotSupportedException e) {
-            throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e,
-                            "Unable to create instance of the requested query logic " + queryStatus.getQuery().getQueryLogicName());
-        } finally {
-            // update query status if we failed
-            if (!success) {
-                queryStatusUpdateUtil.lockedUpdate(queryId, status -> queryStatusUpdateUtil.releaseNextCall(status, queryResultsManager));
+        }
+    }
+    
+    private void removeFromListingIndex(Query query) {
+        if (queryListingIndex != null) {
+            try {
+                queryListingIndex.remove(query);
+            } catch (Exception e) {
+                log.warn("Unable to remove query {} from the listing index", query.getId(), e);
             }
         }
     }
     
+    private String getUserId(DatawaveUserDetails currentUser) {
+        return DnNameCache.getOwner(currentUser.getPrimaryUser().getDn().subjectDN());
+    }
+    
+    private void releaseNextCall(String queryId) throws QueryException, InterruptedException {
+        onQueryStatusUpdate(queryStatusUpdateUtil.lockedUpdate(queryId, status -> queryStatusUpdateUtil.releaseNextCall(status, queryResultsManager)));
+    }
+    
+    /**
+     * Gets the query metric for the current caller, unwrapped from its request scoped proxy (if any), so that it can still be used once the request has been
+     * completed.
+     *
+     * @return the query metric
+     */
+    private BaseQueryMetric getBaseQueryMetricTarget() {
+        BaseQueryMetric metric = getBaseQueryMetric();
+        if (metric instanceof ScopedObject) {
+            metric = (BaseQueryMetric) ((ScopedObject) metric).getTargetObject();
+        }
+        return metric;
+    }
+    
+    /**
+     * Runs the given task with the given query metric bound to the current thread as the query metric override.
+     *
+     * @param baseQueryMetric
+     *            the query metric, not null
+     * @param task
+     *            the task to run, not null
+     */
+    private void runWithQueryMetric(BaseQueryMetric baseQueryMetric, Runnable task) {
+        BaseQueryMetric previousBaseQueryMetric = bindQueryMetric(baseQueryMetric);
+        try {
+            task.run();
+        } finally {
+            restoreQueryMetric(previousBaseQueryMetric);
+        }
+    }
+    
+    /**
+     * Calls the given task with the given query metric bound to the current thread as the query metric override.
+     *
+     * @param baseQueryMetric
+     *            the query metric, not null
+     * @param task
+     *            the task to call, not null
+     * @param <T>
+     *            the type of the task's result
+     * @return the task's result
+     * @throws Exception
+     *             if the task throws an exception
+     */
+    private <T> T runWithQueryMetric(BaseQueryMetric baseQueryMetric, Callable<T> task) throws Exception {
+        BaseQueryMetric previousBaseQueryMetric = bindQueryMetric(baseQueryMetric);
+        try {
+            return task.call();
+        } finally {
+            restoreQueryMetric(previousBaseQueryMetric);
+        }
+    }
+    
+    private BaseQueryMetric bindQueryMetric(BaseQueryMetric baseQueryMetric) {
+        BaseQueryMetric previousBaseQueryMetric = baseQueryMetricOverride.get();
+        baseQueryMetricOverride.set(baseQueryMetric);
+        return previousBaseQueryMetric;
+    }
+    
+    private void restoreQueryMetric(BaseQueryMetric previousBaseQueryMetric) {
+        if (previousBaseQueryMetric != null) {
+            baseQueryMetricOverride.set(previousBaseQueryMetric);
+        } else {
+            baseQueryMetricOverride.remove();
+        }
+    }
+    
     /**
      * Cancels the specified query.
      * <p>
@@ -1014,11 +1776,13 @@ public class QueryManagementService implements QueryRequestHandler {
             List<QueryStatus> queryStatuses = queryStorageCache.getQueryStatus();
             queryStatuses.removeIf(s -> s.getQueryState() != CREATE);
             
-            VoidResponse response = new VoidResponse();
-            for (QueryStatus queryStatus : queryStatuses) {
+            List<String> canceledQueryIds = runBulkOperation("adminCancelAll", queryStatuses, queryStatus -> {
                 cancel(queryStatus.getQueryKey().getQueryId(), true);
-                response.addMessage(queryStatus.getQueryKey().getQueryId() + " canceled.");
-            }
+                return true;
+            });
+            
+            VoidResponse response = new VoidResponse();
+            canceledQueryIds.forEach(queryId -> response.addMessage(queryId + " canceled."));
             return response;
         } catch (QueryException e) {
             throw e;
@@ -1029,6 +1793,76 @@ public class QueryManagementService implements QueryRequestHandler {
         }
     }
     
+    /**
+     * Applies an admin operation to each of the given queries as a {@link BulkQueryOperation}.
+     * <p>
+     * Operations like cancel and close update the query metric for every query that they act on. When the bulk operation runs in parallel, the worker
+     * threads have no request bound to them, so each query is given its own copy of the caller's query metric as the query metric override, and the
+     * result is folded back into the caller's query metric once the query has been handled.
+     *
+     * @param name
+     *            the name of the operation, used for logging
+     * @param queryStatuses
+     *            the queries to act on, not null
+     * @param operation
+     *            the operation to apply to each query, returning true if the query was acted on
+     * @return the ids of the queries that were acted on, in the order that they were given
+     * @throws Exception
+     *             the first exception thrown by the operation, if any
+     */
+    private List<String> runBulkOperation(String name, List<QueryStatus> queryStatuses, BulkQueryStatusOperation operation) throws Exception {
+        final Map<String,QueryStatus> queryStatusMap = new LinkedHashMap<>();
+        queryStatuses.forEach(queryStatus -> queryStatusMap.put(queryStatus.getQueryKey().getQueryId(), queryStatus));
+        
+        final Thread callerThread = Thread.currentThread();
+        final BaseQueryMetric baseQueryMetric = getBaseQueryMetricTarget();
+        
+        return new BulkQueryOperation(name, bulkOperationProperties, new ArrayList<>(queryStatusMap.keySet())).run(queryId -> {
+            final QueryStatus queryStatus = queryStatusMap.get(queryId);
+            if (Thread.currentThread() == callerThread) {
+                return operation.apply(queryStatus);
+            }
+            
+            final BaseQueryMetric workerQueryMetric;
+            synchronized (baseQueryMetric) {
+                workerQueryMetric = baseQueryMetric.duplicate();
+            }
+            try {
+                return runWithQueryMetric(workerQueryMetric, () -> operation.apply(queryStatus));
+            } finally {
+                foldQueryMetric(workerQueryMetric, baseQueryMetric);
+            }
+        });
+    }
+    
+    /**
+     * Folds the changes that an operation made to a worker's copy of the query metric back into the caller's query metric. Workers finish in no particular
+     * order, so a worker's changes are only kept if they are at least as recent as the caller's query metric.
+     * <p>
+     * This is used by bulk operations and content lookups, which run their queries on worker threads with a duplicate of the caller's query metric.
+     *
+     * @param workerQueryMetric
+     *            the worker's copy of the query metric, not null
+     * @param baseQueryMetric
+     *            the caller's query metric, not null
+     */
+    public void foldQueryMetric(BaseQueryMetric workerQueryMetric, BaseQueryMetric baseQueryMetric) {
+        synchronized (baseQueryMetric) {
+            Date workerLastUpdated = workerQueryMetric.getLastUpdated();
+            Date lastUpdated = baseQueryMetric.getLastUpdated();
+            if (workerLastUpdated != null && (lastUpdated == null || !workerLastUpdated.before(lastUpdated))) {
+                baseQueryMetric.setQueryId(workerQueryMetric.getQueryId());
+                baseQueryMetric.setLifecycle(workerQueryMetric.getLifecycle());
+                baseQueryMetric.setLastUpdated(workerLastUpdated);
+            }
+        }
+    }
+    
+    @FunctionalInterface
+    private interface BulkQueryStatusOperation {
+        boolean apply(QueryStatus queryStatus) throws Exception;
+    }
+    
     /**
      * Cancels the specified query.
      * <p>
@@ -1102,10 +1936,7 @@ public class QueryManagementService implements QueryRequestHandler {
      */
     public void cancel(String queryId, boolean publishEvent) throws InterruptedException, QueryException {
         // if we have an active next call for this query locally, cancel it
-        List<NextCall> nextCalls = nextCallMap.get(queryId);
-        if (nextCalls != null) {
-            nextCalls.forEach(NextCall::cancel);
-        }
+        nextCallRegistry.forEach(queryId, NextCall::cancel);
         
         if (publishEvent) {
             // only the initial event publisher should update the status
@@ -1113,6 +1944,7 @@ public class QueryManagementService implements QueryRequestHandler {
                 // update query state to CANCELED
                 status.setQueryState(CANCEL);
             });
+            onQueryStatusUpdate(queryStatus);
             
             // delete the results queue
             queryResultsManager.deleteQuery(queryId);
@@ -1239,11 +2071,13 @@ public class QueryManagementService implements QueryRequestHandler {
             List<QueryStatus> queryStatuses = queryStorageCache.getQueryStatus();
             queryStatuses.removeIf(s -> s.getQueryState() != CREATE);
             
-            VoidResponse response = new VoidResponse();
-            for (QueryStatus queryStatus : queryStatuses) {
+            List<String> closedQueryIds = runBulkOperation("adminCloseAll", queryStatuses, queryStatus -> {
                 close(queryStatus.getQueryKey().getQueryId());
-                response.addMessage(queryStatus.getQueryKey().getQueryId() + " closed.");
-            }
+                return true;
+            });
+            
+            VoidResponse response = new VoidResponse();
+            closedQueryIds.forEach(queryId -> response.addMessage(queryId + " closed."));
             return response;
         } catch (QueryException e) {
             throw e;
@@ -1323,6 +2157,10 @@ public class QueryManagementService implements QueryRequestHandler {
             // update query state to CLOSED
             status.setQueryState(CLOSE);
         });
+        onQueryStatusUpdate(queryStatus);
+        
+        // let any local next calls know that the query state has changed
+        notifyNextCalls(queryId);
         
         // if the query has no active next calls, delete the results queue
         if (queryStatus.getActiveNextCalls() == 0) {
@@ -1495,12 +2333,10 @@ public class QueryManagementService implements QueryRequestHandler {
             List<QueryStatus> queryStatuses = queryStorageCache.getQueryStatus();
             queryStatuses.removeIf(QueryStatus::isRunning);
             
+            List<String> removedQueryIds = runBulkOperation("adminRemoveAll", queryStatuses, this::remove);
+            
             VoidResponse response = new VoidResponse();
-            for (QueryStatus queryStatus : queryStatuses) {
-                if (remove(queryStatus)) {
-                    response.addMessage(queryStatus.getQueryKey().getQueryId() + " removed.");
-                }
-            }
+            removedQueryIds.forEach(queryId -> response.addMessage(queryId + " removed."));
             return response;
         } catch (Exception e) {
             QueryException queryException = new QueryException(DatawaveErrorCode.QUERY_REMOVAL_ERROR, e, "Error encountered while removing all queries.");
@@ -1557,6 +2393,11 @@ public class QueryManagementService implements QueryRequestHandler {
     }
     
     private boolean remove(QueryStatus queryStatus) throws IOException {
+        queryStatusCache.invalidate(queryStatus.getQueryKey().getQueryId());
+        removeFromListingIndex(queryStatus.getQuery());
+        if (queryExpiryIndex != null) {
+            queryExpiryIndex.remove(queryStatus.getQueryKey().getQueryId());
+        }
         return queryStorageCache.deleteQuery(queryStatus.getQueryKey().getQueryId());
     }
     
@@ -1657,7 +2498,8 @@ public class QueryManagementService implements QueryRequestHandler {
                             Query query = createQuery(queryLogicName, currentParams, currentUser, queryId);
                             
                             // save the new query object in the cache
-                            queryStatusUpdateUtil.lockedUpdate(queryId, status -> status.setQuery(query));
+                            onQueryStatusUpdate(queryStatusUpdateUtil.lockedUpdate(queryId, status -> status.setQuery(query)));
+                            addToListingIndex(query);
                         }
                     } else {
                         throw new BadRequestQueryException("Cannot update the following parameters for a running query: " + String.join(", ", unsafeParams),
@@ -1852,10 +2694,43 @@ public class QueryManagementService implements QueryRequestHandler {
      *             if there is an unknown error
      */
     public QueryImplListResponse list(String queryId, String queryName, DatawaveUserDetails currentUser) throws QueryException {
-        log.info("Request: list from {} for queryId: {}, queryName: {}", ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), queryId,
-                        queryName);
+        return list(queryId, queryName, null, 1, 0, null, currentUser);
+    }
+    
+    /**
+     * Gets a page of queries for the calling user.
+     * <p>
+     * Returns the requested page of matching queries owned by the calling user, filtering by query id and query name. Queries are sorted by query id when
+     * paging, so that pages are stable from one call to the next. Pages can be requested either by page number, or by passing the last query id of the
+     * previous page as a cursor. The returned queries can be limited to a subset of their fields.
+     *
+     * @param queryId
+     *            the query id, may be null
+     * @param queryName
+     *            the query name, may be null
+     * @param afterQueryId
+     *            only return queries whose id sorts after this one, may be null
+     * @param pageNumber
+     *            the page to return, starting at 1
+     * @param pageSize
+     *            the number of queries per page, or 0 to return every matching query
+     * @param fields
+     *            the query fields to return, or null to return every field
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a list response containing the matching queries
+     * @throws BadRequestQueryException
+     *             if the paging parameters or fields are invalid
+     * @throws QueryException
+     *             if there is an unknown error
+     */
+    public QueryImplListResponse list(String queryId, String queryName, String afterQueryId, int pageNumber, int pageSize, List<String> fields,
+                    DatawaveUserDetails currentUser) throws QueryException {
+        log.info("Request: list from {} for queryId: {}, queryName: {}, afterQueryId: {}, pageNumber: {}, pageSize: {}, fields: {}",
+                        ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), queryId, queryName, afterQueryId, pageNumber, pageSize,
+                        fields);
         
-        return list(queryId, queryName, ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getDn().subjectDN()));
+        return list(queryId, queryName, getUserId(currentUser), afterQueryId, pageNumber, pageSize, fields);
     }
     
     /**
@@ -1877,14 +2752,53 @@ public class QueryManagementService implements QueryRequestHandler {
      *             if there is an unknown error
      */
     public QueryImplListResponse adminList(String queryId, String queryName, String userId, DatawaveUserDetails currentUser) throws QueryException {
-        log.info("Request: adminList from {} for queryId: {}, queryName: {}, userId: {}",
-                        ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), queryId, queryName, userId);
+        return adminList(queryId, queryName, userId, null, 1, 0, null, currentUser);
+    }
+    
+    /**
+     * Gets a page of queries for the specified user using admin privileges.
+     * <p>
+     * Returns the requested page of matching queries owned by any user, filtered by user ID, query ID, and query name. Queries are sorted by query id when
+     * paging, so that pages are stable from one call to the next. Pages can be requested either by page number, or by passing the last query id of the
+     * previous page as a cursor. The returned queries can be limited to a subset of their fields. <br>
+     * Only admin users should be allowed to call this method.
+     *
+     * @param queryId
+     *            the query id, may be null
+     * @param queryName
+     *            the query name, may be null
+     * @param userId
+     *            the user whose queries we want to list, may be null
+     * @param afterQueryId
+     *            only return queries whose id sorts after this one, may be null
+     * @param pageNumber
+     *            the page to return, starting at 1
+     * @param pageSize
+     *            the number of queries per page, or 0 to return every matching query
+     * @param fields
+     *            the query fields to return, or null to return every field
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a list response containing the matching queries
+     * @throws BadRequestQueryException
+     *             if the paging parameters or fields are invalid
+     * @throws QueryException
+     *             if there is an unknown error
+     */
+    public QueryImplListResponse adminList(String queryId, String queryName, String userId, String afterQueryId, int pageNumber, int pageSize,
+                    List<String> fields, DatawaveUserDetails currentUser) throws QueryException {
+        log.info("Request: adminList from {} for queryId: {}, queryName: {}, userId: {}, afterQueryId: {}, pageNumber: {}, pageSize: {}, fields: {}",
+                        ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), queryId, queryName, userId, afterQueryId, pageNumber,
+                        pageSize, fields);
         
-        return list(queryId, queryName, userId);
+        return list(queryId, queryName, userId, afterQueryId, pageNumber, pageSize, fields);
     }
     
     /**
-     * Gets a list of all matching queries, filtered by user ID, query ID, and query name.
+     * Gets a page of all matching queries, filtered by user ID, query ID, and query name.
+     * <p>
+     * When the query listing index is enabled, and a user ID or query name is given, only the indexed queries for that user or query name are read from
+     * storage. Otherwise, every query in storage is read and filtered.
      *
      * @param queryId
      *            the query id, may be null
@@ -1892,11 +2806,38 @@ public class QueryManagementService implements QueryRequestHandler {
      *            the query name, may be null
      * @param userId
      *            the user whose queries we want to list, may be null
+     * @param afterQueryId
+     *            only return queries whose id sorts after this one, may be null
+     * @param pageNumber
+     *            the page to return, starting at 1
+     * @param pageSize
+     *            the number of queries per page, or 0 to return every matching query
+     * @param fields
+     *            the query fields to return, or null to return every field
      * @return a list response containing the matching queries
+     * @throws BadRequestQueryException
+     *             if the paging parameters or fields are invalid
      * @throws QueryException
      *             if there is an unknown error
      */
-    private QueryImplListResponse list(String queryId, String queryName, String userId) throws QueryException {
+    private QueryImplListResponse list(String queryId, String queryName, String userId, String afterQueryId, int pageNumber, int pageSize,
+                    List<String> fields) throws QueryException {
+        if (pageNumber < 1 || pageSize < 0) {
+            throw new BadRequestQueryException("Page number must be at least 1, and page size must not be negative.", HttpStatus.SC_BAD_REQUEST + "-1");
+        }
+        if (afterQueryId != null && pageNumber != 1) {
+            throw new BadRequestQueryException("Page number cannot be combined with afterQueryId.", HttpStatus.SC_BAD_REQUEST + "-1");
+        }
+        
+        QueryProjection projection = null;
+        if (fields != null && !fields.isEmpty()) {
+            try {
+                projection = QueryProjection.of(fields);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestQueryException(e.getMessage(), HttpStatus.SC_BAD_REQUEST + "-1");
+            }
+        }
+        
         try {
             List<Query> queries;
             if (StringUtils.isNotBlank(queryId)) {
@@ -1908,13 +2849,35 @@ public class QueryManagementService implements QueryRequestHandler {
                     queries.add(queryStatus.getQuery());
                 }
             } else {
-                // get all of the queries
-                queries = queryStorageCache.getQueryStatus().stream().map(QueryStatus::getQuery).collect(Collectors.toList());
+                // use the index to get the queries for the given userId or query name, if we can
+                queries = (queryListingIndex != null) ? queryListingIndex.find(userId, queryName) : null;
+                
+                if (queries == null) {
+                    // get all of the queries
+                    queries = queryStorageCache.getQueryStatus().stream().map(QueryStatus::getQuery).collect(Collectors.toList());
+                }
             }
             
             // only keep queries with the given userId and query name
             queries.removeIf(q -> (userId != null && !q.getOwner().equals(userId)) || (queryName != null && !q.getQueryName().equals(queryName)));
             
+            if (afterQueryId != null) {
+                queries.removeIf(q -> q.getId().toString().compareTo(afterQueryId) <= 0);
+            }
+            
+            if (pageSize > 0 || afterQueryId != null) {
+                queries.sort(Comparator.comparing(q -> q.getId().toString()));
+            }
+            
+            if (pageSize > 0) {
+                int fromIndex = (int) Math.min((long) (pageNumber - 1) * pageSize, queries.size());
+                queries = new ArrayList<>(queries.subList(fromIndex, Math.min(fromIndex + pageSize, queries.size())));
+            }
+            
+            if (projection != null) {
+                queries = projection.project(queries, responseObjectFactory::getQueryImpl);
+            }
+            
             QueryImplListResponse response = new QueryImplListResponse();
             response.setQuery(queries);
             return response;
@@ -2026,7 +2989,7 @@ public class QueryManagementService implements QueryRequestHandler {
     public QueryStatus validateRequest(String queryId, DatawaveUserDetails currentUser, boolean adminOverride)
                     throws NotFoundQueryException, UnauthorizedQueryException {
         // does the query exist?
-        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        QueryStatus queryStatus = queryStatusCache.getQueryStatus(queryId);
         if (queryStatus == null) {
             throw new NotFoundQueryException(DatawaveErrorCode.NO_QUERY_OBJECT_MATCH, MessageFormat.format("{0}", queryId));
         }
@@ -2034,7 +2997,7 @@ public class QueryManagementService implements QueryRequestHandler {
         // admin requests can operate on any query, regardless of ownership
         if (!adminOverride) {
             // does the current user own this query?
-            String userId = ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getDn().subjectDN());
+            String userId = getUserId(currentUser);
             Query query = queryStatus.getQuery();
             if (!query.getOwner().equals(userId)) {
                 throw new UnauthorizedQueryException(DatawaveErrorCode.QUERY_OWNER_MISMATCH, MessageFormat.format("{0} != {1}", userId, query.getOwner()));
@@ -2060,18 +3023,30 @@ public class QueryManagementService implements QueryRequestHandler {
     @Override
     public void handleRemoteRequest(QueryRequest queryRequest, String originService, String destinationService) {
         try {
+            // any request for a query may signal a state change, so make sure the next read comes from storage
+            queryStatusCache.invalidate(queryRequest.getQueryId());
+            
             if (queryRequest.getMethod() == QueryRequest.Method.CANCEL) {
                 log.trace("Received remote cancel request from {} for {}.", originService, destinationService);
                 cancel(queryRequest.getQueryId(), false);
             } else if (queryRequest.getMethod() == QueryRequest.Method.CREATE || queryRequest.getMethod() == QueryRequest.Method.PLAN
                             || queryRequest.getMethod() == QueryRequest.Method.PREDICT) {
                 log.trace("Received remote {} request from {} for {}.", queryRequest.getMethod().name(), originService, destinationService);
-                if (queryLatchMap.containsKey(queryRequest.getQueryId())) {
-                    queryLatchMap.get(queryRequest.getQueryId()).countDown();
+                ExecutorResponse executorResponse = executorResponseMap.get(queryRequest.getQueryId());
+                if (executorResponse != null) {
+                    if (!completeIfFailed(executorResponse)) {
+                        executorResponse.getFuture().complete(null);
+                    }
                 } else {
-                    log.warn("Unable to decrement {} latch for query {}", queryRequest.getMethod().name(), queryRequest.getQueryId());
+                    log.warn("Unable to complete {} response for query {}", queryRequest.getMethod().name(), queryRequest.getQueryId());
                 }
             } else {
+                // any other request for a query may signal a state change, so let local next calls and executor responses know
+                notifyNextCalls(queryRequest.getQueryId());
+                ExecutorResponse executorResponse = executorResponseMap.get(queryRequest.getQueryId());
+                if (executorResponse != null) {
+                    completeIfFailed(executorResponse);
+                }
                 log.debug("No handling specified for remote query request method: {} from {} for {}", queryRequest.getMethod(), originService,
                                 destinationService);
             }
@@ -2080,6 +3055,18 @@ public class QueryManagementService implements QueryRequestHandler {
         }
     }
     
+    /**
+     * Notifies any locally-running next calls for the given query that the query status may have changed.
+     *
+     * @param queryId
+     *            the query id, may be null
+     */
+    private void notifyNextCalls(String queryId) {
+        if (queryId != null) {
+            nextCallRegistry.forEach(queryId, NextCall::onQueryStatusChange);
+        }
+    }
+    
     /**
      * Creates and submits an audit record to the audit service.
      * <p>
@@ -2239,7 +3226,7 @@ public class QueryManagementService implements QueryRequestHandler {
     
     private void publishExecutorEvent(QueryRequest queryRequest, String queryPool) {
         // @formatter:off
-        eventPublisher.publishEvent(
+        queryRequestEventPublisher.publish(
                 new RemoteQueryRequestEvent(
                         this,
                         busProperties.getId(),
@@ -2250,7 +3237,7 @@ public class QueryManagementService implements QueryRequestHandler {
     
     private void publishSelfEvent(QueryRequest queryRequest) {
         // @formatter:off
-        eventPublisher.publishEvent(
+        queryRequestEventPublisher.publish(
                 new RemoteQueryRequestEvent(
                         this,
                         busProperties.getId(),
@@ -2611,4 +3598,30 @@ public class QueryManagementService implements QueryRequestHandler {
     public List<String> getDNs(DatawaveUserDetails user) {
         return user.getProxiedUsers().stream().map(u -> u.getDn().subjectDN()).collect(Collectors.toList());
     }
+    
+    /**
+     * A create, plan, or predict request which is waiting on a response from the executor.
+     */
+    private static class ExecutorResponse {
+        private final QueryRequest request;
+        private final long startTimeMillis;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        
+        public ExecutorResponse(QueryRequest request, long startTimeMillis) {
+            this.request = request;
+            this.startTimeMillis = startTimeMillis;
+        }
+        
+        public QueryRequest getRequest() {
+            return request;
+        }
+        
+        public long getStartTimeMillis() {
+            return startTimeMillis;
+        }
+        
+        public CompletableFuture<Void> getFuture() {
+            return future;
+        }
+    }
 }
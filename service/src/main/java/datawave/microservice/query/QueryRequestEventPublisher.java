@@ -0,0 +1,158 @@
+package datawave.microservice.query;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.bus.event.RemoteQueryRequestEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import datawave.microservice.query.config.BusEventProperties;
+import datawave.microservice.query.remote.QueryRequest;
+
+/**
+ * Publishes query request events to the bus, optionally coalescing duplicate requests.
+ * <p>
+ * When a coalesce window is configured, next and close requests are held for up to that long before being published. Any identical request (same
+ * destination, method, and query id) made while one is already being held is dropped, since these requests only tell the receiver to act on the current
+ * state of the query, and acting on it once is enough. This keeps paths like the query monitor's next call defibrillation and bulk admin operations from
+ * flooding the bus. Held requests are published in the order that they were first made. Cancel requests are always published immediately, so that running
+ * queries are stopped as soon as possible, and so are create, plan, and predict requests, since callers wait on their responses.
+ */
+public class QueryRequestEventPublisher {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private static final Set<QueryRequest.Method> COALESCED_METHODS = EnumSet.of(QueryRequest.Method.NEXT, QueryRequest.Method.CLOSE);
+    
+    private final ApplicationEventPublisher eventPublisher;
+    private final BusEventProperties busEventProperties;
+    private final ScheduledExecutorService flushExecutor;
+    
+    private final Map<EventKey,RemoteQueryRequestEvent> pendingEvents = new LinkedHashMap<>();
+    
+    private final AtomicLong numRequests = new AtomicLong();
+    private final AtomicLong numEventsPublished = new AtomicLong();
+    private final AtomicLong numEventsCoalesced = new AtomicLong();
+    
+    public QueryRequestEventPublisher(ApplicationEventPublisher eventPublisher, BusEventProperties busEventProperties) {
+        this.eventPublisher = eventPublisher;
+        this.busEventProperties = busEventProperties;
+        if (busEventProperties.getCoalesceWindowMillis() > 0) {
+            this.flushExecutor = Executors
+                            .newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("bus-event-flush-%d").setDaemon(true).build());
+        } else {
+            this.flushExecutor = null;
+        }
+    }
+    
+    /**
+     * Publishes the query request event, or holds it to be coalesced with identical requests.
+     *
+     * @param event
+     *            the query request event, not null
+     */
+    public void publish(RemoteQueryRequestEvent event) {
+        numRequests.incrementAndGet();
+        if (flushExecutor == null || !COALESCED_METHODS.contains(event.getRequest().getMethod())) {
+            publishEvent(event);
+            return;
+        }
+        
+        synchronized (pendingEvents) {
+            if (pendingEvents.putIfAbsent(new EventKey(event), event) != null) {
+                numEventsCoalesced.incrementAndGet();
+            } else if (pendingEvents.size() == 1) {
+                flushExecutor.schedule(this::flush, busEventProperties.getCoalesceWindowMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+    
+    /**
+     * Publishes any events which are being held.
+     */
+    public void flush() {
+        RemoteQueryRequestEvent[] events;
+        synchronized (pendingEvents) {
+            events = pendingEvents.values().toArray(new RemoteQueryRequestEvent[0]);
+            pendingEvents.clear();
+        }
+        
+        for (RemoteQueryRequestEvent event : events) {
+            try {
+                publishEvent(event);
+            } catch (Exception e) {
+                log.error("Unable to publish {} request for query {} to {}", event.getRequest().getMethod(), event.getRequest().getQueryId(),
+                                event.getDestinationService(), e);
+            }
+        }
+        
+        if (events.length > 0) {
+            log.debug("Published {} held query request events. {} of {} requests have been coalesced.", events.length, numEventsCoalesced.get(),
+                            numRequests.get());
+        }
+    }
+    
+    private void publishEvent(RemoteQueryRequestEvent event) {
+        eventPublisher.publishEvent(event);
+        numEventsPublished.incrementAndGet();
+    }
+    
+    public void shutdown() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+            flush();
+        }
+        log.info("Published {} query request events for {} requests, saving {} events", numEventsPublished.get(), numRequests.get(), numEventsCoalesced.get());
+    }
+    
+    public long getNumRequests() {
+        return numRequests.get();
+    }
+    
+    public long getNumEventsPublished() {
+        return numEventsPublished.get();
+    }
+    
+    public long getNumEventsCoalesced() {
+        return numEventsCoalesced.get();
+    }
+    
+    private static class EventKey {
+        private final String destination;
+        private final QueryRequest.Method method;
+        private final String queryId;
+        
+        public EventKey(RemoteQueryRequestEvent event) {
+            this.destination = event.getDestinationService();
+            this.method = event.getRequest().getMethod();
+            this.queryId = event.getRequest().getQueryId();
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof EventKey)) {
+                return false;
+            }
+            EventKey eventKey = (EventKey) o;
+            return Objects.equals(destination, eventKey.destination) && method == eventKey.method && Objects.equals(queryId, eventKey.queryId);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(destination, method, queryId);
+        }
+    }
+}
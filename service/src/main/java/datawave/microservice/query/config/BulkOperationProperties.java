@@ -0,0 +1,47 @@
+package datawave.microservice.query.config;
+
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.bulk-operation")
+public class BulkOperationProperties {
+    // The number of queries that a bulk admin operation (e.g. adminCancelAll) will act on concurrently. A value of 1 runs the operation serially on the
+    // request thread.
+    @Positive
+    private int parallelism = 1;
+    // The maximum number of queries per second that a bulk admin operation will act on, to avoid flooding the message bus and the metric service. A value
+    // of 0 means that there is no limit.
+    @PositiveOrZero
+    private double maxQueriesPerSecond = 0;
+    // How often, in number of queries, a bulk admin operation logs its progress
+    @Positive
+    private int progressInterval = 100;
+    
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+    
+    public double getMaxQueriesPerSecond() {
+        return maxQueriesPerSecond;
+    }
+    
+    public void setMaxQueriesPerSecond(double maxQueriesPerSecond) {
+        this.maxQueriesPerSecond = maxQueriesPerSecond;
+    }
+    
+    public int getProgressInterval() {
+        return progressInterval;
+    }
+    
+    public void setProgressInterval(int progressInterval) {
+        this.progressInterval = progressInterval;
+    }
+}
@@ -0,0 +1,40 @@
+package datawave.microservice.query.config;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.bus-event")
+public class BusEventProperties {
+    // How long next and close requests are held before being published, so that duplicate requests for the same query and destination can be coalesced
+    // into a single bus event. Cancel requests are never held. A value of 0 publishes every request immediately.
+    @PositiveOrZero
+    private long coalesceWindow = 0;
+    @NotNull
+    private TimeUnit coalesceWindowUnit = TimeUnit.MILLISECONDS;
+    
+    public long getCoalesceWindow() {
+        return coalesceWindow;
+    }
+    
+    public long getCoalesceWindowMillis() {
+        return coalesceWindowUnit.toMillis(coalesceWindow);
+    }
+    
+    public void setCoalesceWindow(long coalesceWindow) {
+        this.coalesceWindow = coalesceWindow;
+    }
+    
+    public TimeUnit getCoalesceWindowUnit() {
+        return coalesceWindowUnit;
+    }
+    
+    public void setCoalesceWindowUnit(TimeUnit coalesceWindowUnit) {
+        this.coalesceWindowUnit = coalesceWindowUnit;
+    }
+}
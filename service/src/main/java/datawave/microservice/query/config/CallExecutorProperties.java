@@ -0,0 +1,79 @@
+package datawave.microservice.query.config;
+
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.call-executor")
+public class CallExecutorProperties {
+    // The executor mode used to run next calls
+    @Valid
+    @NotNull
+    private ExecutorMode nextCall = new ExecutorMode();
+    // The executor mode used to run streaming calls
+    @Valid
+    @NotNull
+    private ExecutorMode streamingCall = new ExecutorMode();
+    
+    public ExecutorMode getNextCall() {
+        return nextCall;
+    }
+    
+    public void setNextCall(ExecutorMode nextCall) {
+        this.nextCall = nextCall;
+    }
+    
+    public ExecutorMode getStreamingCall() {
+        return streamingCall;
+    }
+    
+    public void setStreamingCall(ExecutorMode streamingCall) {
+        this.streamingCall = streamingCall;
+    }
+    
+    public static class ExecutorMode {
+        // When enabled, each call is run on its own thread rather than on the bounded thread pool, and concurrency is limited per user instead of by pool size
+        private boolean threadPerTask = false;
+        // When running a thread per task, use virtual threads if they are supported by the JVM. Otherwise, platform threads are used.
+        private boolean virtualThreads = true;
+        // The maximum number of concurrent calls allowed for a single user. A value of 0 means that there is no per-user limit, which is only allowed when the
+        // calls are run on the bounded thread pool.
+        @PositiveOrZero
+        private int maxConcurrentCallsPerUser = 0;
+        
+        public boolean isThreadPerTask() {
+            return threadPerTask;
+        }
+        
+        public void setThreadPerTask(boolean threadPerTask) {
+            this.threadPerTask = threadPerTask;
+        }
+        
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+        
+        public void setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+        
+        public int getMaxConcurrentCallsPerUser() {
+            return maxConcurrentCallsPerUser;
+        }
+        
+        public void setMaxConcurrentCallsPerUser(int maxConcurrentCallsPerUser) {
+            this.maxConcurrentCallsPerUser = maxConcurrentCallsPerUser;
+        }
+        
+        // a thread per task executor has no pool size to bound it, so it must be bounded by the per-user limit instead
+        @AssertTrue(message = "max-concurrent-calls-per-user must be positive when thread-per-task is enabled")
+        public boolean isConcurrencyBounded() {
+            return !threadPerTask || maxConcurrentCallsPerUser > 0;
+        }
+    }
+}
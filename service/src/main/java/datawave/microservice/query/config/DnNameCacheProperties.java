@@ -0,0 +1,24 @@
+package datawave.microservice.query.config;
+
+import javax.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import datawave.microservice.query.DnNameCache;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.dn-name-cache")
+public class DnNameCacheProperties {
+    // The maximum number of user DNs whose parsed query owner is cached. The least recently used DNs are evicted once the cache is full.
+    @Positive
+    private long maxSize = DnNameCache.DEFAULT_MAXIMUM_SIZE;
+    
+    public long getMaxSize() {
+        return maxSize;
+    }
+    
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+}
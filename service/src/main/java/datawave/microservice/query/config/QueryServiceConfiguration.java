@@ -1,23 +1,45 @@
 package datawave.microservice.query.config;
 
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.context.annotation.RequestScope;
 
 import datawave.marking.ColumnVisibilitySecurityMarking;
 import datawave.marking.SecurityMarking;
 import datawave.microservice.query.DefaultQueryParameters;
+import datawave.microservice.query.DnNameCacheMonitor;
+import datawave.microservice.query.LocalQueryStatusCache;
 import datawave.microservice.query.QueryParameters;
+import datawave.microservice.query.QueryRequestEventPublisher;
+import datawave.microservice.query.lookup.config.ContentLookupProperties;
+import datawave.microservice.query.runner.ParallelPageTransformer;
+import datawave.microservice.query.runner.UserConcurrencyLimiter;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.microservice.query.storage.QueryStorageCache;
 import datawave.microservice.query.stream.StreamingProperties;
+import datawave.microservice.query.stream.config.StreamingPipelineProperties;
 import datawave.microservice.querymetric.BaseQueryMetric;
 import datawave.microservice.querymetric.QueryMetricFactory;
 import datawave.microservice.querymetric.QueryMetricFactoryImpl;
 
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties({NextCallRunnerProperties.class, CallExecutorProperties.class, StreamingPipelineProperties.class, BulkOperationProperties.class,
+                BusEventProperties.class, QueryStatusCacheProperties.class, ContentLookupProperties.class, DnNameCacheProperties.class})
 public class QueryServiceConfiguration {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
     
     @Bean
     @ConditionalOnMissingBean
@@ -52,21 +74,77 @@ public class QueryServiceConfiguration {
     
     @RefreshScope
     @Bean
-    public ThreadPoolTaskExecutor nextCallExecutor(QueryProperties queryProperties) {
+    public AsyncTaskExecutor nextCallExecutor(QueryProperties queryProperties, CallExecutorProperties callExecutorProperties) {
         ThreadPoolTaskExecutorProperties executorProperties = queryProperties.getNextCall().getExecutor();
+        if (callExecutorProperties.getNextCall().isThreadPerTask()) {
+            return createThreadPerTaskExecutor(executorProperties.getThreadNamePrefix(), callExecutorProperties.getNextCall().isVirtualThreads());
+        } else {
+            return createThreadPoolTaskExecutor(executorProperties);
+        }
+    }
+    
+    @RefreshScope
+    @Bean
+    public AsyncTaskExecutor streamingCallExecutor(StreamingProperties streamingProperties, CallExecutorProperties callExecutorProperties) {
+        ThreadPoolTaskExecutorProperties executorProperties = streamingProperties.getExecutor();
+        if (callExecutorProperties.getStreamingCall().isThreadPerTask()) {
+            return createThreadPerTaskExecutor(executorProperties.getThreadNamePrefix(), callExecutorProperties.getStreamingCall().isVirtualThreads());
+        } else {
+            return createThreadPoolTaskExecutor(executorProperties);
+        }
+    }
+    
+    // Note: content lookups bound the number of batches that each request runs concurrently, and this pool bounds the number of batches running across
+    // all requests. Batches queue for a free thread rather than being rejected, so that a busy query service slows content lookups down instead of failing
+    // them.
+    @Bean
+    public AsyncTaskExecutor contentLookupExecutor(ContentLookupProperties contentLookupProperties) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(executorProperties.getCorePoolSize());
-        executor.setMaxPoolSize(executorProperties.getMaxPoolSize());
-        executor.setQueueCapacity(executorProperties.getQueueCapacity());
-        executor.setThreadNamePrefix(executorProperties.getThreadNamePrefix());
+        executor.setCorePoolSize(contentLookupProperties.getExecutorPoolSize());
+        executor.setMaxPoolSize(contentLookupProperties.getExecutorPoolSize());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("content-lookup-");
         executor.initialize();
         return executor;
     }
     
+    // Note: these limiters track the calls which are currently running, so they are intentionally not refresh scoped
+    @Bean
+    public UserConcurrencyLimiter nextCallLimiter(CallExecutorProperties callExecutorProperties) {
+        return new UserConcurrencyLimiter(callExecutorProperties.getNextCall().getMaxConcurrentCallsPerUser());
+    }
+    
+    @Bean
+    public UserConcurrencyLimiter streamingCallLimiter(CallExecutorProperties callExecutorProperties) {
+        return new UserConcurrencyLimiter(callExecutorProperties.getStreamingCall().getMaxConcurrentCallsPerUser());
+    }
+    
     @RefreshScope
+    @Bean(destroyMethod = "shutdown")
+    public ParallelPageTransformer pageTransformer(NextCallRunnerProperties nextCallRunnerProperties) {
+        return new ParallelPageTransformer(nextCallRunnerProperties);
+    }
+    
+    // Note: the publisher holds events which have yet to be published, so it is intentionally not refresh scoped
+    @Bean(destroyMethod = "shutdown")
+    public QueryRequestEventPublisher queryRequestEventPublisher(ApplicationEventPublisher eventPublisher, BusEventProperties busEventProperties) {
+        return new QueryRequestEventPublisher(eventPublisher, busEventProperties);
+    }
+    
+    // Note: the cache is kept in sync with updates made by this query service, so it is intentionally not refresh scoped. Its stats are logged on a
+    // schedule.
     @Bean
-    public ThreadPoolTaskExecutor streamingCallExecutor(StreamingProperties streamingProperties) {
-        ThreadPoolTaskExecutorProperties executorProperties = streamingProperties.getExecutor();
+    public LocalQueryStatusCache queryStatusCache(QueryStorageCache queryStorageCache, QueryStatusCacheProperties queryStatusCacheProperties) {
+        return new LocalQueryStatusCache(queryStorageCache, queryStatusCacheProperties);
+    }
+    
+    // Note: the dn name cache is shared by the whole JVM, so its monitor is intentionally not refresh scoped. The cache's stats are logged on a schedule.
+    @Bean
+    public DnNameCacheMonitor dnNameCacheMonitor(DnNameCacheProperties dnNameCacheProperties) {
+        return new DnNameCacheMonitor(dnNameCacheProperties);
+    }
+    
+    private ThreadPoolTaskExecutor createThreadPoolTaskExecutor(ThreadPoolTaskExecutorProperties executorProperties) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(executorProperties.getCorePoolSize());
         executor.setMaxPoolSize(executorProperties.getMaxPoolSize());
@@ -75,4 +153,29 @@ public class QueryServiceConfiguration {
         executor.initialize();
         return executor;
     }
+    
+    private SimpleAsyncTaskExecutor createThreadPerTaskExecutor(String threadNamePrefix, boolean virtualThreads) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        if (virtualThreads) {
+            ThreadFactory virtualThreadFactory = createVirtualThreadFactory(threadNamePrefix);
+            if (virtualThreadFactory != null) {
+                executor.setThreadFactory(virtualThreadFactory);
+            } else {
+                log.warn("Virtual threads are not supported by this JVM. Using platform threads for the {} executor.", threadNamePrefix);
+            }
+        }
+        return executor;
+    }
+    
+    private ThreadFactory createVirtualThreadFactory(String threadNamePrefix) {
+        // virtual threads require java 21+, so they are looked up reflectively
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,63 @@
+package datawave.microservice.query.config;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.status-cache")
+public class QueryStatusCacheProperties {
+    // When enabled, query statuses are remembered for the duration of a request, so that a single request doesn't read the same status from storage
+    // multiple times
+    private boolean requestMemoEnabled = true;
+    // The maximum number of recently used query statuses to keep on this query service. A value of 0 disables the node-local cache.
+    @PositiveOrZero
+    private int maxSize = 0;
+    // How long a query status can be served from the node-local cache before it is read from storage again. This bounds how stale a status can be with
+    // respect to updates made by other services which don't publish a query request event.
+    @Positive
+    private long timeToLive = 1;
+    @NotNull
+    private TimeUnit timeToLiveUnit = TimeUnit.SECONDS;
+    
+    public boolean isRequestMemoEnabled() {
+        return requestMemoEnabled;
+    }
+    
+    public void setRequestMemoEnabled(boolean requestMemoEnabled) {
+        this.requestMemoEnabled = requestMemoEnabled;
+    }
+    
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+    
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+    
+    public long getTimeToLiveMillis() {
+        return timeToLiveUnit.toMillis(timeToLive);
+    }
+    
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+    
+    public TimeUnit getTimeToLiveUnit() {
+        return timeToLiveUnit;
+    }
+    
+    public void setTimeToLiveUnit(TimeUnit timeToLiveUnit) {
+        this.timeToLiveUnit = timeToLiveUnit;
+    }
+}
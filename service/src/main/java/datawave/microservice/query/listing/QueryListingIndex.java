@@ -0,0 +1,298 @@
+package datawave.microservice.query.listing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import datawave.microservice.cached.LockableCacheInspector;
+import datawave.microservice.query.Query;
+import datawave.microservice.query.listing.config.QueryListingProperties;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.storage.QueryStorageCache;
+
+/**
+ * Secondary indexes of query ids by owner and by query name, kept in a shared cache alongside query storage.
+ * <p>
+ * Queries are added to the index when they are stored, and removed when they are removed by this query service. Queries which are removed by other means
+ * (e.g. by the query monitor) are pruned from the index lazily, when a listing finds that they no longer exist. Since an index entry can outlive a change to
+ * the query (e.g. a renamed query), every query found via the index is checked against the listing criteria again.
+ * <p>
+ * The query ids for each owner and query name are stored in chunks of at most {@link QueryListingProperties#getIndexChunkSize()} ids, so that adding a
+ * query only reads and rewrites the last chunk, and removing a query only rewrites the chunks which hold it, no matter how many queries the owner has.
+ * <p>
+ * The index is rebuilt from storage on a schedule, rather than by a listing, so that queries which were stored before the index existed will eventually be
+ * found without a user's request paying for a full scan of storage. Until the index has been built for the first time, {@link #find(String, String)}
+ * returns null, and listings fall back to reading every query in storage.
+ */
+public class QueryListingIndex {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    public static final String CACHE_NAME = "QueryListingIndexCache";
+    private static final String OWNER_KEY_PREFIX = "owner:";
+    private static final String QUERY_NAME_KEY_PREFIX = "queryName:";
+    private static final String CHUNK_KEY_PREFIX = "chunk:";
+    private static final String LAST_REBUILD_KEY = "lastRebuild";
+    
+    private final Cache cache;
+    private final LockableCacheInspector cacheInspector;
+    private final QueryStorageCache queryStorageCache;
+    private final QueryListingProperties queryListingProperties;
+    
+    public QueryListingIndex(Cache cache, LockableCacheInspector cacheInspector, QueryStorageCache queryStorageCache,
+                    QueryListingProperties queryListingProperties) {
+        this.cache = cache;
+        this.cacheInspector = cacheInspector;
+        this.queryStorageCache = queryStorageCache;
+        this.queryListingProperties = queryListingProperties;
+    }
+    
+    /**
+     * Adds a query to the owner and query name indexes.
+     *
+     * @param query
+     *            the query, not null
+     */
+    public void add(Query query) {
+        Set<String> queryIds = Collections.singleton(query.getId().toString());
+        add(getOwnerKey(query.getOwner()), queryIds, false);
+        if (query.getQueryName() != null) {
+            add(getQueryNameKey(query.getQueryName()), queryIds, false);
+        }
+    }
+    
+    /**
+     * Removes a query from the owner and query name indexes.
+     *
+     * @param query
+     *            the query, not null
+     */
+    public void remove(Query query) {
+        Set<String> queryIds = Collections.singleton(query.getId().toString());
+        remove(getOwnerKey(query.getOwner()), queryIds);
+        if (query.getQueryName() != null) {
+            remove(getQueryNameKey(query.getQueryName()), queryIds);
+        }
+    }
+    
+    /**
+     * Finds the queries for the given owner and query name.
+     *
+     * @param owner
+     *            the owner, may be null
+     * @param queryName
+     *            the query name, may be null
+     * @return the matching queries, or null if neither an owner nor a query name was given, or the index hasn't been built yet, and the index can't be used
+     */
+    public List<Query> find(String owner, String queryName) {
+        String key;
+        if (owner != null) {
+            key = getOwnerKey(owner);
+        } else if (queryName != null) {
+            key = getQueryNameKey(queryName);
+        } else {
+            return null;
+        }
+        
+        if (!isBuilt()) {
+            return null;
+        }
+        
+        List<Query> queries = new ArrayList<>();
+        Set<String> missingQueryIds = new HashSet<>();
+        for (String queryId : getQueryIds(key)) {
+            QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+            if (queryStatus == null) {
+                missingQueryIds.add(queryId);
+            } else {
+                Query query = queryStatus.getQuery();
+                if ((owner == null || owner.equals(query.getOwner())) && (queryName == null || queryName.equals(query.getQueryName()))) {
+                    queries.add(query);
+                }
+            }
+        }
+        
+        // prune any queries which were removed without going through the index
+        if (!missingQueryIds.isEmpty()) {
+            remove(key, missingQueryIds);
+        }
+        return queries;
+    }
+    
+    /**
+     * Rebuilds the index from storage if the rebuild interval has passed since it was last rebuilt by any query service.
+     * <p>
+     * This runs on a schedule (every minute by default), and only one query service will rebuild the index at a time.
+     */
+    @Scheduled(fixedDelayString = "${datawave.query.listing.index-rebuild-check-interval-millis:60000}")
+    public void rebuildIfDue() {
+        if (isRebuildDue() && cacheInspector.tryLock(CACHE_NAME, LAST_REBUILD_KEY)) {
+            try {
+                if (isRebuildDue()) {
+                    rebuild(queryStorageCache.getQueryStatus());
+                    cache.put(LAST_REBUILD_KEY, System.currentTimeMillis());
+                }
+            } catch (Exception e) {
+                log.error("Unable to rebuild the query listing index", e);
+            } finally {
+                cacheInspector.unlock(CACHE_NAME, LAST_REBUILD_KEY);
+            }
+        }
+    }
+    
+    /**
+     * Whether the index has been built from storage at least once, by any query service. Until then, it may be missing queries.
+     *
+     * @return true if the index has been built
+     */
+    public boolean isBuilt() {
+        return getLastRebuildMillis() != null;
+    }
+    
+    private boolean isRebuildDue() {
+        Long lastRebuildMillis = getLastRebuildMillis();
+        return lastRebuildMillis == null || (System.currentTimeMillis() - lastRebuildMillis) >= queryListingProperties.getIndexRebuildIntervalMillis();
+    }
+    
+    private Long getLastRebuildMillis() {
+        return cache.get(LAST_REBUILD_KEY, Long.class);
+    }
+    
+    private void rebuild(Collection<QueryStatus> queryStatuses) {
+        long startTimeMillis = System.currentTimeMillis();
+        Map<String,Set<String>> index = new HashMap<>();
+        for (QueryStatus queryStatus : queryStatuses) {
+            Query query = queryStatus.getQuery();
+            String queryId = query.getId().toString();
+            index.computeIfAbsent(getOwnerKey(query.getOwner()), k -> new HashSet<>()).add(queryId);
+            if (query.getQueryName() != null) {
+                index.computeIfAbsent(getQueryNameKey(query.getQueryName()), k -> new HashSet<>()).add(queryId);
+            }
+        }
+        
+        // merge rather than replace, so that queries stored while we were rebuilding aren't lost. stale entries are pruned when they are found.
+        index.forEach((key, queryIds) -> add(key, queryIds, true));
+        log.info("Rebuilt the query listing index for {} queries in {}ms", queryStatuses.size(), System.currentTimeMillis() - startTimeMillis);
+    }
+    
+    private Set<String> getQueryIds(String key) {
+        Set<String> queryIds = new LinkedHashSet<>();
+        int numChunks = getNumChunks(key);
+        for (int chunk = 0; chunk < numChunks; chunk++) {
+            queryIds.addAll(getChunk(key, chunk));
+        }
+        return queryIds;
+    }
+    
+    // appends the query ids which aren't indexed yet to the last chunk, starting new chunks as the last one fills up. only the last chunk is checked for
+    // duplicates unless all chunks are checked, so a query which is added again (e.g. when it is updated) may be indexed in more than one chunk. that is
+    // harmless, since a listing collects the ids from every chunk into a set, and a removal removes the id from every chunk.
+    private void add(String key, Set<String> queryIds, boolean checkAllChunks) {
+        cacheInspector.lock(CACHE_NAME, key);
+        try {
+            int numChunks = getNumChunks(key);
+            Set<String> newQueryIds = new HashSet<>(queryIds);
+            if (checkAllChunks) {
+                newQueryIds.removeAll(getQueryIds(key));
+            }
+            
+            int chunk = Math.max(0, numChunks - 1);
+            HashSet<String> chunkQueryIds = new HashSet<>(getChunk(key, chunk));
+            newQueryIds.removeAll(chunkQueryIds);
+            if (newQueryIds.isEmpty()) {
+                return;
+            }
+            
+            int chunkSize = queryListingProperties.getIndexChunkSize();
+            if (chunkQueryIds.size() >= chunkSize) {
+                chunk++;
+                chunkQueryIds = new HashSet<>();
+            }
+            for (String queryId : newQueryIds) {
+                if (chunkQueryIds.size() >= chunkSize) {
+                    cache.put(getChunkKey(key, chunk), chunkQueryIds);
+                    chunk++;
+                    chunkQueryIds = new HashSet<>();
+                }
+                chunkQueryIds.add(queryId);
+            }
+            cache.put(getChunkKey(key, chunk), chunkQueryIds);
+            
+            // the chunks are written before the chunk count, so that a concurrent listing never sees a chunk count with a missing chunk
+            if (chunk + 1 != numChunks) {
+                cache.put(key, chunk + 1);
+            }
+        } finally {
+            cacheInspector.unlock(CACHE_NAME, key);
+        }
+    }
+    
+    // removes the query ids from whichever chunks hold them. a chunk which is emptied is replaced by the last chunk, so that there are never empty chunks.
+    private void remove(String key, Set<String> queryIds) {
+        cacheInspector.lock(CACHE_NAME, key);
+        try {
+            int numChunks = getNumChunks(key);
+            int chunk = 0;
+            while (chunk < numChunks) {
+                HashSet<String> chunkQueryIds = getChunk(key, chunk);
+                if (!Collections.disjoint(chunkQueryIds, queryIds)) {
+                    chunkQueryIds = new HashSet<>(chunkQueryIds);
+                    chunkQueryIds.removeAll(queryIds);
+                    if (chunkQueryIds.isEmpty()) {
+                        numChunks--;
+                        if (chunk < numChunks) {
+                            cache.put(getChunkKey(key, chunk), getChunk(key, numChunks));
+                        }
+                        cache.evict(getChunkKey(key, numChunks));
+                        // look at the chunk which was moved into this slot
+                        continue;
+                    }
+                    cache.put(getChunkKey(key, chunk), chunkQueryIds);
+                }
+                chunk++;
+            }
+            
+            if (numChunks == 0) {
+                cache.evict(key);
+            } else if (numChunks != getNumChunks(key)) {
+                cache.put(key, numChunks);
+            }
+        } finally {
+            cacheInspector.unlock(CACHE_NAME, key);
+        }
+    }
+    
+    private int getNumChunks(String key) {
+        Integer numChunks = cache.get(key, Integer.class);
+        return (numChunks != null) ? numChunks : 0;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private HashSet<String> getChunk(String key, int chunk) {
+        HashSet<String> queryIds = cache.get(getChunkKey(key, chunk), HashSet.class);
+        return (queryIds != null) ? queryIds : new HashSet<>();
+    }
+    
+    // the chunk keys can't collide with the chunk count keys, which all start with one of the owner or query name prefixes
+    private static String getChunkKey(String key, int chunk) {
+        return CHUNK_KEY_PREFIX + chunk + ":" + key;
+    }
+    
+    private static String getOwnerKey(String owner) {
+        return OWNER_KEY_PREFIX + owner;
+    }
+    
+    private static String getQueryNameKey(String queryName) {
+        return QUERY_NAME_KEY_PREFIX + queryName;
+    }
+}
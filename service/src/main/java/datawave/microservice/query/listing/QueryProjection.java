@@ -0,0 +1,111 @@
+package datawave.microservice.query.listing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import datawave.microservice.query.Query;
+
+/**
+ * A projection of a query onto a subset of its fields, used to trim list responses down to what the caller needs.
+ * <p>
+ * The query id is always included, since it identifies the query and is used as the paging cursor. The {@value #SUMMARY} alias selects the fields needed
+ * to identify and describe a query, without its parameters.
+ * <p>
+ * A projected query is usually missing fields which the protobuf and protostuff schemas require, so projections can only be returned as xml, json or yaml.
+ */
+public class QueryProjection {
+    public static final String SUMMARY = "summary";
+    
+    private static final Map<String,BiConsumer<Query,Query>> FIELDS = new LinkedHashMap<>();
+    private static final List<String> SUMMARY_FIELDS = Arrays.asList("queryLogicName", "queryName", "owner", "beginDate", "endDate", "expirationDate");
+    
+    static {
+        FIELDS.put("queryLogicName", (from, to) -> to.setQueryLogicName(from.getQueryLogicName()));
+        FIELDS.put("queryName", (from, to) -> to.setQueryName(from.getQueryName()));
+        FIELDS.put("userDN", (from, to) -> to.setUserDN(from.getUserDN()));
+        FIELDS.put("query", (from, to) -> to.setQuery(from.getQuery()));
+        FIELDS.put("beginDate", (from, to) -> to.setBeginDate(from.getBeginDate()));
+        FIELDS.put("endDate", (from, to) -> to.setEndDate(from.getEndDate()));
+        FIELDS.put("queryAuthorizations", (from, to) -> to.setQueryAuthorizations(from.getQueryAuthorizations()));
+        FIELDS.put("expirationDate", (from, to) -> to.setExpirationDate(from.getExpirationDate()));
+        FIELDS.put("pagesize", (from, to) -> to.setPagesize(from.getPagesize()));
+        FIELDS.put("pageTimeout", (from, to) -> to.setPageTimeout(from.getPageTimeout()));
+        FIELDS.put("maxResultsOverride", (from, to) -> {
+            to.setMaxResultsOverridden(from.isMaxResultsOverridden());
+            to.setMaxResultsOverride(from.getMaxResultsOverride());
+        });
+        FIELDS.put("parameters", (from, to) -> to.setParameters(from.getParameters()));
+        FIELDS.put("dnList", (from, to) -> to.setDnList(from.getDnList()));
+        FIELDS.put("owner", (from, to) -> to.setOwner(from.getOwner()));
+        FIELDS.put("columnVisibility", (from, to) -> to.setColumnVisibility(from.getColumnVisibility()));
+        FIELDS.put("systemFrom", (from, to) -> to.setSystemFrom(from.getSystemFrom()));
+        FIELDS.put("optionalQueryParameters", (from, to) -> to.setOptionalQueryParameters(from.getOptionalQueryParameters()));
+    }
+    
+    private final List<BiConsumer<Query,Query>> fieldCopiers;
+    
+    private QueryProjection(List<BiConsumer<Query,Query>> fieldCopiers) {
+        this.fieldCopiers = fieldCopiers;
+    }
+    
+    /**
+     * Creates a projection onto the given fields.
+     *
+     * @param fields
+     *            the field names, or {@value #SUMMARY}, not null
+     * @return the projection
+     * @throws IllegalArgumentException
+     *             if any of the fields are unknown
+     */
+    public static QueryProjection of(Collection<String> fields) {
+        Set<String> fieldNames = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (SUMMARY.equals(field)) {
+                fieldNames.addAll(SUMMARY_FIELDS);
+            } else if (FIELDS.containsKey(field) || "id".equals(field)) {
+                fieldNames.add(field);
+            } else {
+                throw new IllegalArgumentException("Unknown query field: " + field + ". Valid fields are id, " + String.join(", ", FIELDS.keySet()) + " and "
+                                + SUMMARY);
+            }
+        }
+        
+        List<BiConsumer<Query,Query>> fieldCopiers = new ArrayList<>();
+        for (String fieldName : fieldNames) {
+            if (FIELDS.containsKey(fieldName)) {
+                fieldCopiers.add(FIELDS.get(fieldName));
+            }
+        }
+        return new QueryProjection(fieldCopiers);
+    }
+    
+    /**
+     * Projects the queries onto the selected fields.
+     *
+     * @param queries
+     *            the queries, not null
+     * @param queryFactory
+     *            creates the empty queries which the selected fields are copied into, not null
+     * @return the projected queries, in the same order
+     */
+    public List<Query> project(List<Query> queries, Supplier<Query> queryFactory) {
+        List<Query> projectedQueries = new ArrayList<>(queries.size());
+        for (Query query : queries) {
+            Query projectedQuery = queryFactory.get();
+            projectedQuery.setId(query.getId());
+            for (BiConsumer<Query,Query> fieldCopier : fieldCopiers) {
+                fieldCopier.accept(query, projectedQuery);
+            }
+            projectedQueries.add(projectedQuery);
+        }
+        return projectedQueries;
+    }
+}
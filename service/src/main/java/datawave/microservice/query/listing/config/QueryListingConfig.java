@@ -0,0 +1,41 @@
+package datawave.microservice.query.listing.config;
+
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.hazelcast.spring.cache.HazelcastCacheManager;
+
+import datawave.microservice.cached.CacheInspector;
+import datawave.microservice.cached.LockableCacheInspector;
+import datawave.microservice.cached.LockableHazelcastCacheInspector;
+import datawave.microservice.cached.UniversalLockableCacheInspector;
+import datawave.microservice.query.listing.QueryListingIndex;
+import datawave.microservice.query.storage.QueryStorageCache;
+
+@EnableCaching
+@EnableScheduling
+@Configuration
+@ConditionalOnProperty(name = "datawave.query.listing.index-enabled", havingValue = "true")
+@EnableConfigurationProperties(QueryListingProperties.class)
+public class QueryListingConfig {
+    
+    @Bean
+    public QueryListingIndex queryListingIndex(@Qualifier("cacheInspectorFactory") Function<CacheManager,CacheInspector> cacheInspectorFactory,
+                    CacheManager cacheManager, QueryStorageCache queryStorageCache, QueryListingProperties queryListingProperties) {
+        LockableCacheInspector lockableCacheInspector;
+        if (cacheManager instanceof HazelcastCacheManager)
+            lockableCacheInspector = new LockableHazelcastCacheInspector(cacheManager);
+        else
+            lockableCacheInspector = new UniversalLockableCacheInspector(cacheInspectorFactory.apply(cacheManager));
+        return new QueryListingIndex(cacheManager.getCache(QueryListingIndex.CACHE_NAME), lockableCacheInspector, queryStorageCache,
+                        queryListingProperties);
+    }
+}
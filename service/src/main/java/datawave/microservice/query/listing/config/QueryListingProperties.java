@@ -0,0 +1,64 @@
+package datawave.microservice.query.listing.config;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.listing")
+public class QueryListingProperties {
+    // When enabled, owner and query name indexes are maintained alongside query storage, so that listing a user's queries doesn't require reading every
+    // query in storage. Every query service sharing the storage cache needs to have this enabled for the index to be complete.
+    private boolean indexEnabled = false;
+    // How often the index is rebuilt from storage. This bounds how long a query which is missing from the index (e.g. because its index entry was evicted)
+    // will be left out of listings. Whether a rebuild is due is checked in the background every datawave.query.listing.index-rebuild-check-interval-millis
+    // (1 minute by default).
+    @Positive
+    private long indexRebuildInterval = TimeUnit.HOURS.toMillis(1);
+    @NotNull
+    private TimeUnit indexRebuildIntervalUnit = TimeUnit.MILLISECONDS;
+    // The maximum number of query ids stored under a single cache entry. An owner or query name with more queries than this is spread across multiple
+    // entries, so that adding a query doesn't rewrite every query id for the owner.
+    @Positive
+    private int indexChunkSize = 1000;
+    
+    public boolean isIndexEnabled() {
+        return indexEnabled;
+    }
+    
+    public void setIndexEnabled(boolean indexEnabled) {
+        this.indexEnabled = indexEnabled;
+    }
+    
+    public long getIndexRebuildInterval() {
+        return indexRebuildInterval;
+    }
+    
+    public long getIndexRebuildIntervalMillis() {
+        return indexRebuildIntervalUnit.toMillis(indexRebuildInterval);
+    }
+    
+    public void setIndexRebuildInterval(long indexRebuildInterval) {
+        this.indexRebuildInterval = indexRebuildInterval;
+    }
+    
+    public TimeUnit getIndexRebuildIntervalUnit() {
+        return indexRebuildIntervalUnit;
+    }
+    
+    public void setIndexRebuildIntervalUnit(TimeUnit indexRebuildIntervalUnit) {
+        this.indexRebuildIntervalUnit = indexRebuildIntervalUnit;
+    }
+    
+    public int getIndexChunkSize() {
+        return indexChunkSize;
+    }
+    
+    public void setIndexChunkSize(int indexChunkSize) {
+        this.indexChunkSize = indexChunkSize;
+    }
+}
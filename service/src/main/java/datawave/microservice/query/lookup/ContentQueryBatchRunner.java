@@ -0,0 +1,122 @@
+package datawave.microservice.query.lookup;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BinaryOperator;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs content query batches concurrently, and merges their responses as each batch completes.
+ * <p>
+ * At most {@code parallelism} batches are run at a time, and the next batch is started as soon as a running batch completes. Since the batches are merged in
+ * the order that they complete, the order of the merged results is not deterministic.
+ * <p>
+ * If a batch fails, or the calling thread is interrupted while waiting on the batches, the batches which haven't started yet are cancelled, and the batches
+ * which are still running are asked to stop. Running batches are not interrupted, since they may be in the middle of a next call which would be left in an
+ * unknown state. Instead, a running batch is expected to check the stop signal between pages, and to stop early. Its response is discarded.
+ *
+ * @param <T>
+ *            the type of response returned by each batch
+ */
+public class ContentQueryBatchRunner<T> {
+    
+    public interface Batch<T> {
+        /**
+         * Runs the batch. This is called on one of the executor's threads.
+         *
+         * @param stopped
+         *            returns true once the batch should stop early, not null
+         * @return the response, may be null
+         * @throws Exception
+         *             if the batch fails
+         */
+        T run(BooleanSupplier stopped) throws Exception;
+        
+        /**
+         * Called on the calling thread once the batch has completed, successfully or not, and before the next batch is merged. This is not called for a batch
+         * which is still running when the batches are stopped.
+         */
+        default void completed() {}
+    }
+    
+    private final Executor executor;
+    private final int parallelism;
+    private final BinaryOperator<T> merger;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    
+    /**
+     * @param executor
+     *            the executor to run the batches on, not null
+     * @param parallelism
+     *            the maximum number of batches to run at a time, at least 1
+     * @param merger
+     *            merges a batch response into the merged response so far, either of which may be null
+     */
+    public ContentQueryBatchRunner(Executor executor, int parallelism, BinaryOperator<T> merger) {
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.merger = merger;
+    }
+    
+    /**
+     * Runs the batches, and merges their responses.
+     *
+     * @param batches
+     *            the batches to run, not null
+     * @return the merged response, or null if there were no batches
+     * @throws ExecutionException
+     *             if a batch fails
+     * @throws InterruptedException
+     *             if the calling thread is interrupted while waiting on the batches
+     */
+    public T run(List<? extends Batch<T>> batches) throws ExecutionException, InterruptedException {
+        final CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        final Iterator<? extends Batch<T>> remainingBatches = batches.iterator();
+        final Map<Future<T>,Batch<T>> runningBatches = new LinkedHashMap<>();
+        
+        T mergedResponse = null;
+        try {
+            while (runningBatches.size() < parallelism && remainingBatches.hasNext()) {
+                submit(completionService, remainingBatches.next(), runningBatches);
+            }
+            
+            while (!runningBatches.isEmpty()) {
+                Future<T> future = completionService.take();
+                Batch<T> batch = runningBatches.remove(future);
+                try {
+                    // start the next batch before merging this one
+                    if (remainingBatches.hasNext()) {
+                        submit(completionService, remainingBatches.next(), runningBatches);
+                    }
+                    
+                    mergedResponse = merger.apply(mergedResponse, future.get());
+                } finally {
+                    batch.completed();
+                }
+            }
+        } finally {
+            // if we failed, don't start any batches which haven't started yet, and ask the running batches to stop
+            if (!runningBatches.isEmpty()) {
+                stopped.set(true);
+                runningBatches.keySet().forEach(future -> future.cancel(false));
+            }
+        }
+        return mergedResponse;
+    }
+    
+    public boolean isStopped() {
+        return stopped.get();
+    }
+    
+    private void submit(CompletionService<T> completionService, Batch<T> batch, Map<Future<T>,Batch<T>> runningBatches) {
+        runningBatches.put(completionService.submit(() -> batch.run(stopped::get)), batch);
+    }
+}
@@ -16,16 +16,20 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang.time.DateUtils;
 import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -36,6 +40,8 @@ import datawave.core.query.logic.QueryLogic;
 import datawave.core.query.logic.QueryLogicFactory;
 import datawave.core.query.logic.lookup.LookupQueryLogic;
 import datawave.core.query.util.QueryUtil;
+import datawave.marking.ColumnVisibilitySecurityMarking;
+import datawave.marking.SecurityMarking;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.microservice.authorization.util.AuthorizationsUtil;
 import datawave.microservice.query.DefaultQueryParameters;
@@ -43,8 +49,12 @@ import datawave.microservice.query.Query;
 import datawave.microservice.query.QueryImpl;
 import datawave.microservice.query.QueryManagementService;
 import datawave.microservice.query.QueryParameters;
+import datawave.microservice.query.lookup.config.ContentLookupProperties;
 import datawave.microservice.query.stream.StreamingService;
+import datawave.microservice.query.stream.listener.MultiplexingStreamingResponseListener;
 import datawave.microservice.query.stream.listener.StreamingResponseListener;
+import datawave.microservice.query.util.EventQueryResponseUtil;
+import datawave.microservice.querymetric.BaseQueryMetric;
 import datawave.query.data.UUIDType;
 import datawave.security.authorization.AuthorizationException;
 import datawave.security.authorization.ProxiedUserDetails;
@@ -82,17 +92,21 @@ public class LookupService {
     private static final String DOCUMENT_FIELD_PREFIX = "DOCUMENT" + CONTENT_QUERY_TERM_DELIMITER;
     
     private final LookupProperties lookupProperties;
+    private final ContentLookupProperties contentLookupProperties;
     
     private final QueryLogicFactory queryLogicFactory;
     private final QueryManagementService queryManagementService;
     private final StreamingService streamingService;
+    private final AsyncTaskExecutor contentLookupExecutor;
     
-    public LookupService(LookupProperties lookupProperties, QueryLogicFactory queryLogicFactory, QueryManagementService queryManagementService,
-                    StreamingService streamingService) {
+    public LookupService(LookupProperties lookupProperties, ContentLookupProperties contentLookupProperties, QueryLogicFactory queryLogicFactory,
+                    QueryManagementService queryManagementService, StreamingService streamingService, AsyncTaskExecutor contentLookupExecutor) {
         this.lookupProperties = lookupProperties;
+        this.contentLookupProperties = contentLookupProperties;
         this.queryLogicFactory = queryLogicFactory;
         this.queryManagementService = queryManagementService;
         this.streamingService = streamingService;
+        this.contentLookupExecutor = contentLookupExecutor;
     }
     
     /**
@@ -622,7 +636,7 @@ public class LookupService {
         String params = parameters.getFirst(QUERY_PARAMS) != null ? parameters.getFirst(QUERY_PARAMS) : "";
         params += ";" + PARAM_HIT_LIST + ":true";
         
-        EventQueryResponseBase mergedResponse = null;
+        List<MultiValueMap<String,String>> contentQueryParameters = new ArrayList<>();
         for (String contentQuery : contentQueries) {
             MultiValueMap<String,String> queryParameters = new LinkedMultiValueMap<>(parameters);
             
@@ -633,20 +647,18 @@ public class LookupService {
             // update parameters for the query
             setContentQueryParameters(queryParameters, currentUser);
             
-            if (listener != null) {
-                streamingService.createAndExecute(queryParameters.getFirst(QUERY_LOGIC_NAME), queryParameters, pool, currentUser, serverUser, listener);
-            } else {
-                // run the query
-                EventQueryResponseBase contentQueryResponse = runContentQuery(queryParameters, pool, currentUser);
-                
-                // merge the response
-                if (contentQueryResponse != null) {
-                    if (mergedResponse == null) {
-                        mergedResponse = contentQueryResponse;
-                    } else {
-                        mergedResponse.merge(contentQueryResponse);
-                    }
-                }
+            contentQueryParameters.add(queryParameters);
+        }
+        
+        EventQueryResponseBase mergedResponse = null;
+        if (listener != null) {
+            streamContentQueries(contentQueryParameters, pool, currentUser, serverUser, listener);
+        } else if (contentLookupProperties.getBatchParallelism() > 1 && contentQueryParameters.size() > 1) {
+            mergedResponse = runContentQueries(contentQueryParameters, pool, currentUser);
+        } else {
+            for (MultiValueMap<String,String> queryParameters : contentQueryParameters) {
+                // run the query, and merge the response
+                mergedResponse = EventQueryResponseUtil.merge(mergedResponse, runContentQuery(queryParameters, pool, currentUser));
             }
         }
         
@@ -654,6 +666,223 @@ public class LookupService {
         return (T) mergedResponse;
     }
     
+    /**
+     * Streams the results of each of the content query batches to the listener.
+     * <p>
+     * Each batch is streamed by its own streaming call, so when there are multiple batches they are fanned in to the listener using a
+     * {@link MultiplexingStreamingResponseListener}. This ensures that the listener is only closed once every batch has been streamed, and that an error in
+     * any one batch stops the others. At most {@link ContentLookupProperties#getBatchParallelism()} batches are streamed at a time. See
+     * {@link ContentQueryStreams} for how the rest are started.
+     *
+     * @param contentQueryParameters
+     *            the query parameters for each of the batches, not null
+     * @param pool
+     *            the pool to target, may be null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @param serverUser
+     *            the server user, not null
+     * @param listener
+     *            the listener which will handle the result pages, not null
+     * @throws QueryException
+     *             if one of the first content queries could not be created
+     */
+    private void streamContentQueries(List<MultiValueMap<String,String>> contentQueryParameters, String pool, DatawaveUserDetails currentUser,
+                    DatawaveUserDetails serverUser, StreamingResponseListener listener) throws QueryException {
+        if (contentQueryParameters.isEmpty()) {
+            // there is nothing to stream, so there won't be a streaming call to close the listener
+            listener.close();
+        } else if (contentQueryParameters.size() == 1) {
+            MultiValueMap<String,String> queryParameters = contentQueryParameters.get(0);
+            streamingService.createAndExecute(queryParameters.getFirst(QUERY_LOGIC_NAME), queryParameters, pool, currentUser, serverUser, listener);
+        } else {
+            MultiplexingStreamingResponseListener multiplexer = new MultiplexingStreamingResponseListener(listener, contentQueryParameters.size(),
+                            contentLookupProperties.getStreamingBufferSize());
+            new ContentQueryStreams(contentQueryParameters, pool, currentUser, serverUser, multiplexer).start(contentLookupProperties.getBatchParallelism());
+        }
+    }
+    
+    /**
+     * Streams content query batches to a multiplexer, a limited number at a time.
+     * <p>
+     * The first batches are started on the request thread. Each of the rest is started on the streaming call thread of a batch which has finished, once that
+     * call no longer counts against the user's limit of concurrent streaming calls, so the number of batches being streamed never grows. Once the multiplexer
+     * has been closed with an error, no more batches are started.
+     * <p>
+     * The batches which are started off of the request thread are given their own query parameters, security marking, and copy of the caller's query metric,
+     * since the request scoped ones are no longer available.
+     */
+    private class ContentQueryStreams {
+        private final Iterator<MultiValueMap<String,String>> remainingBatches;
+        private final String pool;
+        private final DatawaveUserDetails currentUser;
+        private final DatawaveUserDetails serverUser;
+        private final MultiplexingStreamingResponseListener multiplexer;
+        private final BaseQueryMetric baseQueryMetric;
+        
+        private ContentQueryStreams(List<MultiValueMap<String,String>> contentQueryParameters, String pool, DatawaveUserDetails currentUser,
+                        DatawaveUserDetails serverUser, MultiplexingStreamingResponseListener multiplexer) {
+            this.remainingBatches = contentQueryParameters.iterator();
+            this.pool = pool;
+            this.currentUser = currentUser;
+            this.serverUser = serverUser;
+            this.multiplexer = multiplexer;
+            
+            // the query metric needs to be copied on the calling thread, since the request scoped metric is not available to the streaming call threads
+            this.baseQueryMetric = queryManagementService.getBaseQueryMetric().duplicate();
+        }
+        
+        /**
+         * Starts streaming the first batches on the calling thread.
+         *
+         * @param parallelism
+         *            the maximum number of batches to stream at a time, at least 1
+         * @throws QueryException
+         *             if one of the content queries could not be created, in which case the queries which were created are canceled
+         */
+        private void start(int parallelism) throws QueryException {
+            List<String> queryIds = new ArrayList<>();
+            try {
+                MultiValueMap<String,String> queryParameters;
+                while (queryIds.size() < parallelism && (queryParameters = nextBatch()) != null) {
+                    queryIds.add(stream(queryParameters));
+                }
+            } catch (QueryException | RuntimeException e) {
+                // the remaining batches will never be streamed, so stop the streams which have already started, and cancel their queries
+                multiplexer.closeWithError(e);
+                queryIds.forEach(queryId -> streamingService.cancel(queryId, currentUser));
+                throw e;
+            }
+        }
+        
+        // called on the streaming call thread of a batch which has finished
+        private void streamNext() {
+            MultiValueMap<String,String> queryParameters;
+            if (multiplexer.isClosed() || (queryParameters = nextBatch()) == null) {
+                return;
+            }
+            
+            DefaultQueryParameters defaultQueryParameters = new DefaultQueryParameters();
+            defaultQueryParameters.clear();
+            SecurityMarking securityMarking = new ColumnVisibilitySecurityMarking();
+            securityMarking.clear();
+            
+            queryManagementService.getQueryParametersOverride().set(defaultQueryParameters);
+            queryManagementService.getSecurityMarkingOverride().set(securityMarking);
+            synchronized (baseQueryMetric) {
+                queryManagementService.getBaseQueryMetricOverride().set(baseQueryMetric.duplicate());
+            }
+            try {
+                stream(queryParameters);
+            } catch (QueryException | RuntimeException e) {
+                log.error("Unable to stream content query batch", e);
+                multiplexer.closeWithError(e);
+            } finally {
+                queryManagementService.getQueryParametersOverride().remove();
+                queryManagementService.getSecurityMarkingOverride().remove();
+                queryManagementService.getBaseQueryMetricOverride().remove();
+            }
+        }
+        
+        private String stream(MultiValueMap<String,String> queryParameters) throws QueryException {
+            return streamingService.createAndExecute(queryParameters.getFirst(QUERY_LOGIC_NAME), queryParameters, pool, currentUser, serverUser,
+                            multiplexer.newStream(), this::streamNext);
+        }
+        
+        private MultiValueMap<String,String> nextBatch() {
+            synchronized (remainingBatches) {
+                return remainingBatches.hasNext() ? remainingBatches.next() : null;
+            }
+        }
+    }
+    
+    /**
+     * Runs the content query batches concurrently, and merges the responses as each batch completes.
+     * <p>
+     * At most {@link ContentLookupProperties#getBatchParallelism()} batches are run at a time. See {@link ContentQueryBatchRunner} for how the batches are
+     * scheduled, merged, and stopped when one of them fails.
+     * <p>
+     * Each batch is run on its own thread, so it is given its own query parameters, security marking, and copy of the caller's query metric rather than the
+     * request scoped ones, which cannot be shared by concurrent queries. Each batch's copy of the query metric is folded back into the caller's query metric
+     * once the batch completes.
+     *
+     * @param contentQueryParameters
+     *            the query parameters for each of the batches, not null
+     * @param pool
+     *            the pool to target, may be null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return the merged response, or null if there were no results
+     * @throws QueryException
+     *             if a batch fails unexpectedly, or the lookup is interrupted
+     */
+    private EventQueryResponseBase runContentQueries(List<MultiValueMap<String,String>> contentQueryParameters, String pool, DatawaveUserDetails currentUser)
+                    throws QueryException {
+        final int parallelism = Math.min(contentLookupProperties.getBatchParallelism(), contentQueryParameters.size());
+        final List<ContentQueryBatch> batches = new ArrayList<>();
+        for (MultiValueMap<String,String> queryParameters : contentQueryParameters) {
+            batches.add(new ContentQueryBatch(queryParameters, pool, currentUser));
+        }
+        
+        EventQueryResponseBase mergedResponse;
+        try {
+            mergedResponse = new ContentQueryBatchRunner<>(contentLookupExecutor, parallelism, EventQueryResponseUtil::merge).run(batches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryException(DatawaveErrorCode.QUERY_SETUP_ERROR, e, "Interrupted while looking up content.");
+        } catch (ExecutionException e) {
+            log.error("Unknown error running content query batch", e.getCause());
+            throw new QueryException(DatawaveErrorCode.QUERY_SETUP_ERROR, e.getCause(), "Unknown error looking up content.");
+        }
+        
+        log.debug("Ran {} content query batches with a parallelism of {}", contentQueryParameters.size(), parallelism);
+        return mergedResponse;
+    }
+    
+    /**
+     * A content query batch which is run on one of the content lookup executor's threads.
+     */
+    private class ContentQueryBatch implements ContentQueryBatchRunner.Batch<EventQueryResponseBase> {
+        private final MultiValueMap<String,String> parameters;
+        private final String pool;
+        private final DatawaveUserDetails currentUser;
+        private final BaseQueryMetric baseQueryMetric;
+        
+        private ContentQueryBatch(MultiValueMap<String,String> parameters, String pool, DatawaveUserDetails currentUser) {
+            this.parameters = parameters;
+            this.pool = pool;
+            this.currentUser = currentUser;
+            
+            // the query metric needs to be copied on the calling thread, since the request scoped metric is not available to the batch thread
+            this.baseQueryMetric = queryManagementService.getBaseQueryMetric().duplicate();
+        }
+        
+        @Override
+        public EventQueryResponseBase run(BooleanSupplier stopped) {
+            DefaultQueryParameters queryParameters = new DefaultQueryParameters();
+            queryParameters.clear();
+            SecurityMarking securityMarking = new ColumnVisibilitySecurityMarking();
+            securityMarking.clear();
+            
+            queryManagementService.getQueryParametersOverride().set(queryParameters);
+            queryManagementService.getSecurityMarkingOverride().set(securityMarking);
+            queryManagementService.getBaseQueryMetricOverride().set(baseQueryMetric);
+            try {
+                return runContentQuery(parameters, pool, currentUser, stopped);
+            } finally {
+                queryManagementService.getQueryParametersOverride().remove();
+                queryManagementService.getSecurityMarkingOverride().remove();
+                queryManagementService.getBaseQueryMetricOverride().remove();
+            }
+        }
+        
+        @Override
+        public void completed() {
+            // this runs on the calling thread, where the request scoped metric is available
+            queryManagementService.foldQueryMetric(baseQueryMetric, queryManagementService.getBaseQueryMetric());
+        }
+    }
+    
     private List<String> createContentQueries(Set<String> contentLookupTerms) {
         List<String> contentQueries = new ArrayList<>();
         
@@ -687,6 +916,24 @@ public class LookupService {
     }
     
     protected EventQueryResponseBase runContentQuery(MultiValueMap<String,String> parameters, String pool, DatawaveUserDetails currentUser) {
+        return runContentQuery(parameters, pool, currentUser, () -> false);
+    }
+    
+    /**
+     * Runs a content query, and merges all of its pages into a single response.
+     *
+     * @param parameters
+     *            the query parameters, not null
+     * @param pool
+     *            the pool to target, may be null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @param stopped
+     *            returns true if the query should be closed rather than asking for another page, not null
+     * @return the merged response, or null if there were no results
+     */
+    protected EventQueryResponseBase runContentQuery(MultiValueMap<String,String> parameters, String pool, DatawaveUserDetails currentUser,
+                    BooleanSupplier stopped) {
         EventQueryResponseBase mergedResponse = null;
         String queryId = null;
         boolean isQueryFinished = false;
@@ -707,19 +954,13 @@ public class LookupService {
             }
             
             if (nextResponse instanceof EventQueryResponseBase) {
-                EventQueryResponseBase nextEventQueryResponse = (EventQueryResponseBase) nextResponse;
-                
-                // Prevent NPE due to attempted merge when total events is null
-                if (nextEventQueryResponse.getTotalEvents() == null) {
-                    final Long totalEvents = nextEventQueryResponse.getReturnedEvents();
-                    nextEventQueryResponse.setTotalEvents((totalEvents != null) ? totalEvents : 0L);
-                }
-                
                 // save or update the merged response
-                if (mergedResponse == null) {
-                    mergedResponse = nextEventQueryResponse;
-                } else {
-                    mergedResponse.merge(nextEventQueryResponse);
+                mergedResponse = EventQueryResponseUtil.merge(mergedResponse, (EventQueryResponseBase) nextResponse);
+                
+                // the lookup has given up on this query, so don't ask for any more pages
+                if (stopped.getAsBoolean()) {
+                    closeContentQuery(queryId, currentUser);
+                    isQueryFinished = true;
                 }
             } else {
                 isQueryFinished = true;
@@ -728,4 +969,13 @@ public class LookupService {
         
         return mergedResponse;
     }
+    
+    private void closeContentQuery(String queryId, DatawaveUserDetails currentUser) {
+        log.debug("Closing content query {} early", queryId);
+        try {
+            queryManagementService.close(queryId, currentUser);
+        } catch (QueryException e) {
+            log.warn("Unable to close content query {}", queryId, e);
+        }
+    }
 }
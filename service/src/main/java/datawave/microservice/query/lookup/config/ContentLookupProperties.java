@@ -0,0 +1,47 @@
+package datawave.microservice.query.lookup.config;
+
+import javax.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.content-lookup")
+public class ContentLookupProperties {
+    // The number of content query batches that a single content lookup request will run concurrently. A value of 1 runs the batches serially on the
+    // request thread.
+    @Positive
+    private int batchParallelism = 1;
+    // The number of threads shared by every content lookup request to run its batches. Once they are all busy, batches wait for a free thread, so this
+    // bounds the number of content queries that this query service runs concurrently, regardless of the number of requests.
+    @Positive
+    private int executorPoolSize = 32;
+    // The maximum number of pages which may be buffered when a streaming content lookup fans in the results of several batches. Once the buffer is full,
+    // the batches are held off until the buffered pages have been written to the client.
+    @Positive
+    private int streamingBufferSize = 10;
+    
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+    
+    public void setBatchParallelism(int batchParallelism) {
+        this.batchParallelism = batchParallelism;
+    }
+    
+    public int getExecutorPoolSize() {
+        return executorPoolSize;
+    }
+    
+    public void setExecutorPoolSize(int executorPoolSize) {
+        this.executorPoolSize = executorPoolSize;
+    }
+    
+    public int getStreamingBufferSize() {
+        return streamingBufferSize;
+    }
+    
+    public void setStreamingBufferSize(int streamingBufferSize) {
+        this.streamingBufferSize = streamingBufferSize;
+    }
+}
@@ -9,22 +9,23 @@ import static datawave.microservice.query.mapreduce.config.MapReduceQueryPropert
 import static datawave.microservice.query.mapreduce.config.MapReduceQueryProperties.QUERY_ID;
 import static datawave.microservice.query.mapreduce.jobs.OozieJob.WORKFLOW;
 
-import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -381,12 +382,20 @@ public class MapReduceQueryController {
     // @formatter:off
     @Operation(
             summary = "Gets a result file for the specified query for the calling user.",
-            description = "Returns a result file for the specified query owned by the calling user.")
+            description = "Returns a result file for the specified query owned by the calling user.<br>" +
+                    "A single byte range may be requested using the Range header, e.g. to download a large file in segments, or to resume a download.")
     @ApiResponses({
             @ApiResponse(
                     description = "if successful, a map reduce query result file",
                     responseCode = "200",
                     content = @Content(schema = @Schema(implementation = StreamingResponseBody.class))),
+            @ApiResponse(
+                    description = "if successful, the requested range of a map reduce query result file",
+                    responseCode = "206",
+                    content = @Content(schema = @Schema(implementation = StreamingResponseBody.class))),
+            @ApiResponse(
+                    description = "if the requested range is outside of the file",
+                    responseCode = "416"),
             @ApiResponse(
                     description = "if there is an unknown error",
                     responseCode = "500",
@@ -394,33 +403,93 @@ public class MapReduceQueryController {
     // @formatter:on
     @RequestMapping(path = "{id}/getFile/{fileName}", method = RequestMethod.GET, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
     public ResponseEntity<StreamingResponseBody> getFile(@Parameter(description = "The map reduce query id") @PathVariable String id,
-                    @Parameter(description = "The file name") @PathVariable String fileName, @AuthenticationPrincipal DatawaveUserDetails currentUser)
-                    throws QueryException {
+                    @Parameter(description = "The file name") @PathVariable String fileName,
+                    @Parameter(description = "The byte range to return") @RequestHeader(name = HttpHeaders.RANGE, required = false) String range,
+                    @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
         final Map.Entry<FileStatus,FSDataInputStream> resultFile = mapReduceQueryManagementService.getFile(id, fileName, currentUser);
+        final long fileLength = resultFile.getKey().getLen();
+        
+        final HttpRange httpRange = parseRange(range);
+        if (httpRange == null) {
+            // @formatter:off
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .contentLength(fileLength)
+                    .lastModified(resultFile.getKey().getModificationTime())
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"").body(outputStream -> {
+                        try (FSDataInputStream inputStream = resultFile.getValue()) {
+                            mapReduceQueryManagementService.copyFile(inputStream, outputStream, 0, -1);
+                        }
+                    });
+            // @formatter:on
+        }
+        
+        final long start = (fileLength > 0) ? httpRange.getRangeStart(fileLength) : 0;
+        final long end = (fileLength > 0) ? httpRange.getRangeEnd(fileLength) : -1;
+        if (start >= fileLength || end < start) {
+            IOUtils.closeQuietly(resultFile.getValue());
+            // @formatter:off
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength)
+                    .build();
+            // @formatter:on
+        }
         
         // @formatter:off
-        return ResponseEntity.ok()
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(end - start + 1)
+                .lastModified(resultFile.getKey().getModificationTime())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileLength)
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"").body(outputStream -> {
                     try (FSDataInputStream inputStream = resultFile.getValue()) {
-                        IOUtils.copy(inputStream, outputStream);
+                        mapReduceQueryManagementService.copyFile(inputStream, outputStream, start, end - start + 1);
                     }
                 });
         // @formatter:on
     }
     
     /**
-     * @see MapReduceQueryManagementService#getAllFiles(String, DatawaveUserDetails)
+     * Parses the Range header for a result file download. Only a single byte range is supported, so as allowed by RFC 7233, a header which is invalid or
+     * requests multiple ranges is ignored, and the whole file is returned.
+     *
+     * @param range
+     *            the Range header, may be null
+     * @return the requested range, or null if the whole file should be returned
+     */
+    static HttpRange parseRange(String range) {
+        if (range != null) {
+            try {
+                List<HttpRange> httpRanges = HttpRange.parseRanges(range);
+                if (httpRanges.size() == 1) {
+                    return httpRanges.get(0);
+                }
+            } catch (IllegalArgumentException e) {
+                // ignore the invalid range
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * @see MapReduceQueryManagementService#getAllFiles(String, String, Integer, DatawaveUserDetails)
      */
     // @formatter:off
     @Operation(
             summary = "Gets all result files for the specified query for the calling user.",
-            description = "Returns all result files for the specified query owned by the calling user.")
+            description = "Returns all result files for the specified query owned by the calling user.<br>" +
+                    "The files are streamed as a tar archive, in name order, which may optionally be compressed with gzip or zstd.")
     @ApiResponses({
             @ApiResponse(
                     description = "if successful, a tarball containing map reduce query result files",
                     responseCode = "200",
                     content = @Content(schema = @Schema(implementation = StreamingResponseBody.class))),
+            @ApiResponse(
+                    description = "if the compression or compression level is invalid",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
             @ApiResponse(
                     description = "if there is an unknown error",
                     responseCode = "500",
@@ -428,38 +497,16 @@ public class MapReduceQueryController {
     // @formatter:on
     @RequestMapping(path = "{id}/getAllFiles", method = RequestMethod.GET, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
     public ResponseEntity<StreamingResponseBody> getAllFiles(@Parameter(description = "The map reduce query id") @PathVariable String id,
+                    @Parameter(description = "The tarball compression (none, gzip, or zstd)") @RequestParam(required = false) String compression,
+                    @Parameter(description = "The compression level (1-9 for gzip, or 1-22 for zstd)") @RequestParam(required = false) Integer compressionLevel,
                     @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
-        final Map<FileStatus,FSDataInputStream> resultFiles = mapReduceQueryManagementService.getAllFiles(id, currentUser);
+        final MapReduceResultArchive resultArchive = mapReduceQueryManagementService.getAllFiles(id, compression, compressionLevel, currentUser);
         
         // @formatter:off
         return ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + id + ".tar\"")
-                .body(outputStream -> {
-                    TarArchiveOutputStream tarArchiveOutputStream = new TarArchiveOutputStream(outputStream);
-                    tarArchiveOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
-                    try {
-                        for (Map.Entry<FileStatus, FSDataInputStream> resultFile : resultFiles.entrySet()) {
-                            String fileName = resultFile.getKey().getPath().toString();
-                            TarArchiveEntry entry = new TarArchiveEntry(id + "/" + fileName, false);
-                            entry.setSize(resultFile.getKey().getLen());
-                            tarArchiveOutputStream.putArchiveEntry(entry);
-                            try {
-                                IOUtils.copy(resultFile.getValue(), tarArchiveOutputStream);
-                            } finally {
-                                resultFile.getValue().close();
-                            }
-                            tarArchiveOutputStream.closeArchiveEntry();
-                        }
-                        tarArchiveOutputStream.finish();
-                    } finally {
-                        try {
-                            tarArchiveOutputStream.close();
-                        } catch (IOException ioe) {
-                            // do nothing
-                        }
-                    }
-                });
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resultArchive.getFileName() + "\"")
+                .body(resultArchive::writeTo);
         // @formatter:on
     }
     
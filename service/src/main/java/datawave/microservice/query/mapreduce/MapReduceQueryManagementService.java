@@ -11,13 +11,13 @@ import static datawave.microservice.query.mapreduce.status.MapReduceQueryStatus.
 import static datawave.microservice.query.storage.QueryStatus.QUERY_STATE.DEFINE;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.text.MessageFormat;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +26,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.function.Supplier;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
@@ -52,10 +53,12 @@ import org.springframework.util.MultiValueMap;
 import datawave.core.query.logic.QueryLogic;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.microservice.authorization.util.AuthorizationsUtil;
+import datawave.microservice.query.DnNameCache;
 import datawave.microservice.query.Query;
 import datawave.microservice.query.QueryManagementService;
 import datawave.microservice.query.QueryParameters;
 import datawave.microservice.query.config.QueryProperties;
+import datawave.microservice.query.mapreduce.config.MapReduceFileProperties;
 import datawave.microservice.query.mapreduce.config.MapReduceJobProperties;
 import datawave.microservice.query.mapreduce.config.MapReduceQueryProperties;
 import datawave.microservice.query.mapreduce.jobs.MapReduceJob;
@@ -92,6 +95,8 @@ public class MapReduceQueryManagementService implements MapReduceQueryRequestHan
     
     private final MapReduceQueryProperties mapReduceQueryProperties;
     
+    private final MapReduceFileProperties mapReduceFileProperties;
+    
     private final ApplicationEventPublisher eventPublisher;
     
     private final BusProperties busProperties;
@@ -107,10 +112,11 @@ public class MapReduceQueryManagementService implements MapReduceQueryRequestHan
     private final Map<String,CountDownLatch> queryLatchMap = new ConcurrentHashMap<>();
     
     public MapReduceQueryManagementService(QueryProperties queryProperties, MapReduceQueryProperties mapReduceQueryProperties,
-                    ApplicationEventPublisher eventPublisher, BusProperties busProperties, QueryManagementService queryManagementService,
-                    MapReduceQueryCache mapReduceQueryCache, Map<String,Supplier<MapReduceJob>> mapReduceJobs) {
+                    MapReduceFileProperties mapReduceFileProperties, ApplicationEventPublisher eventPublisher, BusProperties busProperties,
+                    QueryManagementService queryManagementService, MapReduceQueryCache mapReduceQueryCache, Map<String,Supplier<MapReduceJob>> mapReduceJobs) {
         this.queryProperties = queryProperties;
         this.mapReduceQueryProperties = mapReduceQueryProperties;
+        this.mapReduceFileProperties = mapReduceFileProperties;
         this.eventPublisher = eventPublisher;
         this.busProperties = busProperties;
         this.queryManagementService = queryManagementService;
@@ -578,7 +584,7 @@ public class MapReduceQueryManagementService implements MapReduceQueryRequestHan
         // admin requests can operate on any job, regardless of ownership
         if (!adminOverride) {
             // does the current user own this job?
-            String userId = ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getDn().subjectDN());
+            String userId = DnNameCache.getOwner(currentUser.getPrimaryUser().getDn().subjectDN());
             Query query = mapReduceQueryStatus.getQuery();
             if (!query.getOwner().equals(userId)) {
                 throw new UnauthorizedQueryException(DatawaveErrorCode.QUERY_OWNER_MISMATCH, MessageFormat.format("{0} != {1}", userId, query.getOwner()));
@@ -619,6 +625,45 @@ public class MapReduceQueryManagementService implements MapReduceQueryRequestHan
         }
     }
     
+    /**
+     * Copies part or all of a result file to the output stream.
+     * <p>
+     * The copy seeks directly to the start of the range, asks the filesystem to read ahead of the copy (where supported), and uses a large buffer, so that
+     * large result files can be downloaded in segments, and interrupted downloads can be resumed.
+     *
+     * @param inputStream
+     *            the result file input stream, which is left open
+     * @param outputStream
+     *            the output stream
+     * @param offset
+     *            the offset of the first byte to copy
+     * @param length
+     *            the number of bytes to copy, or -1 to copy to the end of the file
+     * @return the number of bytes copied
+     * @throws IOException
+     *             if the file could not be read, or the output stream could not be written to
+     */
+    public long copyFile(FSDataInputStream inputStream, OutputStream outputStream, long offset, long length) throws IOException {
+        return copyFile(inputStream, outputStream, offset, length, new byte[mapReduceFileProperties.getCopyBufferSize()],
+                        mapReduceFileProperties.getReadAheadSize());
+    }
+    
+    static long copyFile(FSDataInputStream inputStream, OutputStream outputStream, long offset, long length, byte[] buffer, long readAheadSize)
+                    throws IOException {
+        if (readAheadSize > 0) {
+            try {
+                inputStream.setReadahead(readAheadSize);
+            } catch (UnsupportedOperationException e) {
+                // not every filesystem supports read-ahead
+            }
+        }
+        
+        if (offset > 0) {
+            inputStream.seek(offset);
+        }
+        return IOUtils.copyLarge(inputStream, outputStream, 0, length, buffer);
+    }
+    
     private FSDataInputStream getFileInputStream(FileSystem filesystem, Path filePath) throws QueryException {
         try {
             return filesystem.open(filePath);
@@ -631,50 +676,59 @@ public class MapReduceQueryManagementService implements MapReduceQueryRequestHan
         return getFileInputStream(FileSystem.get(configuration), filePath);
     }
     
-    public Map<FileStatus,FSDataInputStream> getAllFiles(String id, DatawaveUserDetails currentUser) throws QueryException {
-        log.info("Request: getAllFiles from {} for {}", ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), id);
+    /**
+     * Gets a tar archive of all of the result files for the query, which may optionally be compressed.
+     * <p>
+     * The request is validated, and the results directory is checked, up front. The result files themselves aren't listed or opened until the archive is
+     * written, and then they are opened one at a time.
+     *
+     * @param id
+     *            the map reduce query id
+     * @param compression
+     *            the compression to apply to the archive (none, gzip, or zstd), may be null for none
+     * @param compressionLevel
+     *            the compression level, may be null for the default level
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return the archive of result files, ready to be written
+     * @throws BadRequestQueryException
+     *             if the compression or compression level is invalid
+     * @throws QueryException
+     *             if the query is invalid, or the results directory can't be read
+     */
+    public MapReduceResultArchive getAllFiles(String id, String compression, Integer compressionLevel, DatawaveUserDetails currentUser)
+                    throws QueryException {
+        log.info("Request: getAllFiles from {} for {}, {}", ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), id, compression);
+        
+        MapReduceResultArchive.Compression archiveCompression;
+        try {
+            archiveCompression = MapReduceResultArchive.Compression.fromString(compression);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestQueryException("Unknown compression: " + compression, HttpStatus.SC_BAD_REQUEST + "-1");
+        }
+        if (!archiveCompression.isAvailable()) {
+            throw new BadRequestQueryException("Compression is not available: " + compression, HttpStatus.SC_BAD_REQUEST + "-1");
+        }
+        if (compressionLevel != null && (archiveCompression == MapReduceResultArchive.Compression.NONE
+                        || compressionLevel < archiveCompression.getMinLevel() || compressionLevel > archiveCompression.getMaxLevel())) {
+            throw new BadRequestQueryException("Invalid compression level for " + archiveCompression + ": " + compressionLevel,
+                            HttpStatus.SC_BAD_REQUEST + "-1");
+        }
         
-        Map<FileStatus,FSDataInputStream> resultFiles = new HashMap<>();
         try {
             // make sure the query is valid, and the user can act on it
             MapReduceQueryStatus mapReduceQueryStatus = validateRequest(id, currentUser);
             
             FileSystem fs = FileSystem.get(configuration);
             
-            FileStatus basePathStatus = fs.getFileStatus(new Path(mapReduceQueryStatus.getResultsDirectory()));
+            // make sure that the results directory can be read before the response is started
+            Path resultsPath = new Path(new URI(mapReduceQueryStatus.getResultsDirectory()));
+            fs.getFileStatus(resultsPath);
             
-            if (mapReduceQueryStatus.getResultsDirectory() != null && !mapReduceQueryStatus.getResultsDirectory().isEmpty()) {
-                for (LocatedFileStatus fileStatus : listFiles(mapReduceQueryStatus.getResultsDirectory())) {
-                    if (fileStatus.isFile()) {
-                        FSDataInputStream inputStream = getFileInputStream(fs, fileStatus.getPath());
-                        
-                        // update the file status to reflect a relative file path
-                        fileStatus.setPath(getRelativeFilePath(basePathStatus, fileStatus));
-                        
-                        resultFiles.put(fileStatus, inputStream);
-                    }
-                }
-            }
-            return resultFiles;
+            return new MapReduceResultArchive(fs, resultsPath, id, archiveCompression, compressionLevel, mapReduceFileProperties);
         } catch (QueryException e) {
-            for (Map.Entry<FileStatus,FSDataInputStream> resultFile : resultFiles.entrySet()) {
-                try {
-                    resultFile.getValue().close();
-                } catch (Exception ex) {
-                    log.error("Unknown error closing input stream", e);
-                }
-            }
-            
             throw e;
         } catch (Exception e) {
-            for (Map.Entry<FileStatus,FSDataInputStream> resultFile : resultFiles.entrySet()) {
-                try {
-                    resultFile.getValue().close();
-                } catch (Exception ex) {
-                    log.error("Unknown error closing input stream", e);
-                }
-            }
-            
             log.error("Unknown error retrieving result file", e);
             throw new QueryException(DatawaveErrorCode.QUERY_LISTING_ERROR, e, "Unknown error retrieving result file.");
         }
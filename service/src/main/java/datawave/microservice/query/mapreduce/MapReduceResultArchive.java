@@ -0,0 +1,177 @@
+package datawave.microservice.query.mapreduce;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+
+import datawave.microservice.query.mapreduce.config.MapReduceFileProperties;
+
+/**
+ * A tar archive of the result files for a map reduce query, which is written lazily.
+ * <p>
+ * Nothing is listed or opened until the archive is written. The results directory is then walked one directory at a time, and each result file is opened
+ * only while its entry is being written, so at most one result file is open at a time, regardless of how many files the job produced. The entries of each
+ * directory are written in name order, so the same results always produce the same archive.
+ * <p>
+ * The archive may optionally be compressed as it is written.
+ */
+public class MapReduceResultArchive {
+    
+    public enum Compression {
+        NONE(".tar", 0, 0),
+        GZIP(".tar.gz", 1, 9),
+        ZSTD(".tar.zst", 1, 22);
+        
+        private final String extension;
+        private final int minLevel;
+        private final int maxLevel;
+        
+        Compression(String extension, int minLevel, int maxLevel) {
+            this.extension = extension;
+            this.minLevel = minLevel;
+            this.maxLevel = maxLevel;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+        
+        public int getMinLevel() {
+            return minLevel;
+        }
+        
+        public int getMaxLevel() {
+            return maxLevel;
+        }
+        
+        public boolean isAvailable() {
+            return this != ZSTD || ZstdUtils.isZstdCompressionAvailable();
+        }
+        
+        /**
+         * @param value
+         *            the compression name (case insensitive), may be null
+         * @return the compression, or {@link #NONE} if the value is null or empty
+         * @throws IllegalArgumentException
+         *             if the value is not a known compression
+         */
+        public static Compression fromString(String value) {
+            return (value == null || value.isEmpty()) ? NONE : valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+    
+    private static final Comparator<FileStatus> BY_NAME = Comparator.comparing(fileStatus -> fileStatus.getPath().getName());
+    
+    private final FileSystem fileSystem;
+    private final Path resultsPath;
+    private final String id;
+    private final Compression compression;
+    private final Integer compressionLevel;
+    private final MapReduceFileProperties mapReduceFileProperties;
+    
+    public MapReduceResultArchive(FileSystem fileSystem, Path resultsPath, String id, Compression compression, Integer compressionLevel,
+                    MapReduceFileProperties mapReduceFileProperties) {
+        this.fileSystem = fileSystem;
+        this.resultsPath = resultsPath;
+        this.id = id;
+        this.compression = compression;
+        this.compressionLevel = compressionLevel;
+        this.mapReduceFileProperties = mapReduceFileProperties;
+    }
+    
+    public String getFileName() {
+        return id + compression.getExtension();
+    }
+    
+    public Compression getCompression() {
+        return compression;
+    }
+    
+    /**
+     * Writes the archive to the output stream, and closes it.
+     *
+     * @param outputStream
+     *            the output stream
+     * @throws IOException
+     *             if the result files could not be read, or the output stream could not be written to
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        TarArchiveOutputStream tarArchiveOutputStream = new TarArchiveOutputStream(compress(outputStream));
+        tarArchiveOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        try {
+            byte[] buffer = new byte[mapReduceFileProperties.getCopyBufferSize()];
+            writeDirectory(resultsPath, id, tarArchiveOutputStream, buffer);
+            tarArchiveOutputStream.finish();
+        } finally {
+            try {
+                tarArchiveOutputStream.close();
+            } catch (IOException ioe) {
+                // do nothing
+            }
+        }
+    }
+    
+    private void writeDirectory(Path directory, String entryPrefix, TarArchiveOutputStream tarArchiveOutputStream, byte[] buffer) throws IOException {
+        // only the file statuses for this directory are held, and they are sorted so that the entries are written in a deterministic order
+        List<FileStatus> fileStatuses = new ArrayList<>();
+        RemoteIterator<FileStatus> fileStatusIter = fileSystem.listStatusIterator(directory);
+        while (fileStatusIter.hasNext()) {
+            fileStatuses.add(fileStatusIter.next());
+        }
+        fileStatuses.sort(BY_NAME);
+        
+        for (FileStatus fileStatus : fileStatuses) {
+            String entryName = entryPrefix + "/" + fileStatus.getPath().getName();
+            if (fileStatus.isDirectory()) {
+                writeDirectory(fileStatus.getPath(), entryName, tarArchiveOutputStream, buffer);
+            } else if (fileStatus.isFile()) {
+                writeFile(fileStatus, entryName, tarArchiveOutputStream, buffer);
+            }
+        }
+    }
+    
+    private void writeFile(FileStatus fileStatus, String entryName, TarArchiveOutputStream tarArchiveOutputStream, byte[] buffer) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(entryName, false);
+        entry.setSize(fileStatus.getLen());
+        entry.setModTime(fileStatus.getModificationTime());
+        tarArchiveOutputStream.putArchiveEntry(entry);
+        try (FSDataInputStream inputStream = fileSystem.open(fileStatus.getPath())) {
+            MapReduceQueryManagementService.copyFile(inputStream, tarArchiveOutputStream, 0, fileStatus.getLen(), buffer,
+                            mapReduceFileProperties.getReadAheadSize());
+        }
+        tarArchiveOutputStream.closeArchiveEntry();
+    }
+    
+    private OutputStream compress(OutputStream outputStream) throws IOException {
+        switch (compression) {
+            case GZIP:
+                GzipParameters gzipParameters = new GzipParameters();
+                if (compressionLevel != null) {
+                    gzipParameters.setCompressionLevel(compressionLevel);
+                }
+                return new GzipCompressorOutputStream(outputStream, gzipParameters);
+            case ZSTD:
+                if (compressionLevel != null) {
+                    return new ZstdCompressorOutputStream(outputStream, compressionLevel);
+                }
+                return new ZstdCompressorOutputStream(outputStream);
+            default:
+                return outputStream;
+        }
+    }
+}
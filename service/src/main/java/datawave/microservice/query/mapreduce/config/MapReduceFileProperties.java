@@ -0,0 +1,35 @@
+package datawave.microservice.query.mapreduce.config;
+
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = MapReduceQueryProperties.PREFIX + ".files")
+public class MapReduceFileProperties {
+    // The size of the buffer used to copy a result file to the client, in bytes.
+    @Positive
+    private int copyBufferSize = 1024 * 1024;
+    // The number of bytes that the filesystem should read ahead of the copy when downloading a result file. This is a hint, and is ignored by filesystems
+    // which don't support it. A value of 0 disables read-ahead.
+    @PositiveOrZero
+    private long readAheadSize = 4L * 1024 * 1024;
+    
+    public int getCopyBufferSize() {
+        return copyBufferSize;
+    }
+    
+    public void setCopyBufferSize(int copyBufferSize) {
+        this.copyBufferSize = copyBufferSize;
+    }
+    
+    public long getReadAheadSize() {
+        return readAheadSize;
+    }
+    
+    public void setReadAheadSize(long readAheadSize) {
+        this.readAheadSize = readAheadSize;
+    }
+}
@@ -1,7 +1,17 @@
 package datawave.microservice.query.monitor;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,54 +35,167 @@ public class MonitorTask implements Callable<Void> {
     private final QueryStorageCache queryStorageCache;
     private final QueryResultsManager queryQueueManager;
     private final QueryManagementService queryManagementService;
+    private final ExecutorService sweepExecutor;
+    private final QueryExpiryIndex expiryIndex;
     
     public MonitorTask(MonitorProperties monitorProperties, QueryExpirationProperties expirationProperties, MonitorStatusCache monitorStatusCache,
-                    QueryStorageCache queryStorageCache, QueryResultsManager queryQueueManager, QueryManagementService queryManagementService) {
+                    QueryStorageCache queryStorageCache, QueryResultsManager queryQueueManager, QueryManagementService queryManagementService,
+                    ExecutorService sweepExecutor, QueryExpiryIndex expiryIndex) {
         this.monitorProperties = monitorProperties;
         this.expirationProperties = expirationProperties;
         this.monitorStatusCache = monitorStatusCache;
         this.queryStorageCache = queryStorageCache;
         this.queryQueueManager = queryQueueManager;
         this.queryManagementService = queryManagementService;
+        this.sweepExecutor = sweepExecutor;
+        this.expiryIndex = expiryIndex;
     }
     
     @Override
     public Void call() throws Exception {
-        if (tryLock()) {
-            boolean success = false;
-            MonitorStatus monitorStatus = null;
-            try {
-                long currentTimeMillis = System.currentTimeMillis();
-                monitorStatus = monitorStatusCache.getStatus();
-                if (monitorStatus.isExpired(currentTimeMillis, monitorProperties.getMonitorIntervalMillis())) {
-                    monitor(currentTimeMillis);
-                    success = true;
-                }
-            } finally {
-                if (success) {
-                    monitorStatus.setLastChecked(System.currentTimeMillis());
-                    monitorStatusCache.setStatus(monitorStatus);
+        final int numShards = monitorProperties.getNumShards();
+        final Map<Integer,MonitorStatus> leasedShards = new LinkedHashMap<>();
+        final Set<Integer> monitoredShards = new HashSet<>();
+        try {
+            long currentTimeMillis = System.currentTimeMillis();
+            leaseShards(currentTimeMillis, leasedShards);
+            if (!leasedShards.isEmpty()) {
+                monitor(currentTimeMillis, leasedShards.keySet(), monitoredShards);
+            }
+        } finally {
+            for (Map.Entry<Integer,MonitorStatus> entry : leasedShards.entrySet()) {
+                try {
+                    if (monitoredShards.contains(entry.getKey())) {
+                        entry.getValue().setLastChecked(System.currentTimeMillis());
+                        monitorStatusCache.setStatus(entry.getKey(), numShards, entry.getValue());
+                    }
+                } finally {
+                    unlock(entry.getKey());
                 }
-                unlock();
             }
         }
         return null;
     }
     
+    /**
+     * Locks each shard which is due to be monitored, up to the configured maximum number of shards per sweep.
+     * <p>
+     * Shards are tried starting from a random offset, so that query services which sweep at the same time tend to lease different shards rather than
+     * contending for the same ones.
+     *
+     * @param currentTimeMillis
+     *            the current time
+     * @param leasedShards
+     *            the map to add the leased shards, and their monitor statuses, to
+     * @throws InterruptedException
+     *             if interrupted while acquiring a lock
+     */
+    private void leaseShards(long currentTimeMillis, Map<Integer,MonitorStatus> leasedShards) throws InterruptedException {
+        final int numShards = monitorProperties.getNumShards();
+        final int maxShards = (monitorProperties.getMaxShardsPerSweep() > 0) ? monitorProperties.getMaxShardsPerSweep() : numShards;
+        
+        final int firstShard = ThreadLocalRandom.current().nextInt(numShards);
+        for (int i = 0; i < numShards && leasedShards.size() < maxShards; i++) {
+            int shard = (firstShard + i) % numShards;
+            if (tryLock(shard)) {
+                boolean leased = false;
+                try {
+                    MonitorStatus monitorStatus = monitorStatusCache.getStatus(shard, numShards);
+                    if (monitorStatus.isExpired(currentTimeMillis, monitorProperties.getMonitorIntervalMillis())) {
+                        leasedShards.put(shard, monitorStatus);
+                        leased = true;
+                    }
+                } finally {
+                    if (!leased) {
+                        unlock(shard);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Partitions the query statuses by shard, and monitors each of the leased shards in parallel.
+     * <p>
+     * If the expiry index is enabled, only the queries in the leased shards whose deadline has passed are read from storage. Otherwise, every query status
+     * is read.
+     *
+     * @param currentTimeMillis
+     *            the current time
+     * @param leasedShards
+     *            the shards to monitor
+     * @param monitoredShards
+     *            the set to add each successfully monitored shard to
+     * @throws InterruptedException
+     *             if interrupted while waiting for the shards to be monitored
+     */
+    private void monitor(long currentTimeMillis, Set<Integer> leasedShards, Set<Integer> monitoredShards) throws InterruptedException {
+        final int numShards = monitorProperties.getNumShards();
+        
+        // only hold on to the query statuses for the shards that we leased
+        Map<Integer,List<QueryStatus>> shardStatuses = new LinkedHashMap<>();
+        leasedShards.forEach(shard -> shardStatuses.put(shard, new ArrayList<>()));
+        if (expiryIndex != null) {
+            if (expiryIndex.isRebuildDue(currentTimeMillis)) {
+                expiryIndex.rebuild(queryStorageCache.getQueryStatus(), currentTimeMillis);
+            }
+            
+            List<String> expiredQueryIds = expiryIndex.pollExpired(currentTimeMillis, queryId -> leasedShards.contains(getShard(queryId, numShards)));
+            log.debug("{} of {} indexed queries are due to be monitored", expiredQueryIds.size(), expiryIndex.size());
+            for (String queryId : expiredQueryIds) {
+                // re-read the status, since the query may have been used on another query service since it was indexed
+                QueryStatus status = queryStorageCache.getQueryStatus(queryId);
+                if (status != null) {
+                    shardStatuses.get(getShard(queryId, numShards)).add(status);
+                } else {
+                    expiryIndex.remove(queryId);
+                }
+            }
+        } else {
+            for (QueryStatus status : queryStorageCache.getQueryStatus()) {
+                List<QueryStatus> statuses = shardStatuses.get(getShard(status.getQueryKey().getQueryId(), numShards));
+                if (statuses != null) {
+                    statuses.add(status);
+                }
+            }
+        }
+        
+        Map<Integer,Future<?>> futures = new LinkedHashMap<>();
+        try {
+            shardStatuses.forEach((shard, statuses) -> futures.put(shard, sweepExecutor.submit(() -> monitor(currentTimeMillis, statuses))));
+            for (Map.Entry<Integer,Future<?>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get();
+                    monitoredShards.add(entry.getKey());
+                } catch (ExecutionException e) {
+                    log.error("Failed to monitor shard " + entry.getKey() + " of " + numShards, e.getCause());
+                }
+            }
+        } finally {
+            // if we were interrupted, don't leave the remaining shards running after their locks are released
+            futures.values().forEach(future -> future.cancel(true));
+        }
+    }
+    
     // Check for the following conditions
     // 1) Is query progress idle? If so, poke the query
     // 2) Is the user idle? If so, close the query
     // 3) Are there any other conditions that we should check for?
-    private void monitor(long currentTimeMillis) {
-        for (QueryStatus status : queryStorageCache.getQueryStatus()) {
+    private void monitor(long currentTimeMillis, List<QueryStatus> statuses) {
+        for (QueryStatus status : statuses) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            
             String queryId = status.getQueryKey().getQueryId();
+            boolean deleted = false;
             
             // if the query is not running
             if (!status.isRunning()) {
                 
                 // if the query has been inactive too long (i.e. no interaction from the user or software)
                 if (status.isInactive(currentTimeMillis, monitorProperties.getInactiveQueryTimeToLiveMillis())) {
-                    deleteQuery(queryId);
+                    deleted = deleteQuery(queryId);
                 }
                 // delete the results queue if it exists
                 else {
@@ -90,9 +213,31 @@ public class MonitorTask implements Callable<Void> {
                     cancelQuery(queryId);
                 }
             }
+            
+            // schedule the next time that we need to look at this query
+            if (expiryIndex != null) {
+                if (deleted) {
+                    expiryIndex.remove(queryId);
+                } else {
+                    expiryIndex.update(status, currentTimeMillis);
+                }
+            }
         }
     }
     
+    /**
+     * Gets the monitor shard that a query belongs to.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param numShards
+     *            the total number of shards
+     * @return the shard
+     */
+    public static int getShard(String queryId, int numShards) {
+        return Math.floorMod(queryId.hashCode(), numShards);
+    }
+    
     private void cancelQuery(String queryId) {
         try {
             queryManagementService.cancel(queryId, true);
@@ -108,22 +253,24 @@ public class MonitorTask implements Callable<Void> {
         queryManagementService.publishNextEvent(queryId, queryPool);
     }
     
-    private void deleteQuery(String queryId) {
+    private boolean deleteQuery(String queryId) {
         try {
             // deletes everything for a query
             // the result queue, the query status, the tasks, the task states
             queryStorageCache.deleteQuery(queryId);
+            return true;
         } catch (IOException e) {
             log.error("Encountered error while trying to evict inactive query: " + queryId, e);
+            return false;
         }
     }
     
-    private boolean tryLock() throws InterruptedException {
-        return monitorStatusCache.tryLock(monitorProperties.getLockWaitTime(), monitorProperties.getLockWaitTimeUnit(), monitorProperties.getLockLeaseTime(),
-                        monitorProperties.getLockLeaseTimeUnit());
+    private boolean tryLock(int shard) throws InterruptedException {
+        return monitorStatusCache.tryLock(shard, monitorProperties.getNumShards(), monitorProperties.getLockWaitTime(), monitorProperties.getLockWaitTimeUnit(),
+                        monitorProperties.getLockLeaseTime(), monitorProperties.getLockLeaseTimeUnit());
     }
     
-    private void unlock() {
-        monitorStatusCache.unlock();
+    private void unlock(int shard) {
+        monitorStatusCache.unlock(shard, monitorProperties.getNumShards());
     }
 }
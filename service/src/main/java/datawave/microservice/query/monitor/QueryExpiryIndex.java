@@ -0,0 +1,208 @@
+package datawave.microservice.query.monitor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+import datawave.microservice.query.config.QueryExpirationProperties;
+import datawave.microservice.query.monitor.config.MonitorProperties;
+import datawave.microservice.query.storage.QueryStatus;
+
+/**
+ * A time-ordered index of the next point in time at which the query monitor needs to look at each query.
+ * <p>
+ * For running queries, the deadline is the earlier of when the query's progress will go idle and when its user will go idle. For queries which are no
+ * longer running, the deadline is immediate the first time that the query is seen in that state (so that its results queue can be deleted), and after that
+ * it is when the query will become inactive. This allows the monitor to only touch the queries which are due, rather than every query in storage.
+ * <p>
+ * The index is local to this query service, and may be stale with respect to activity on other query services. Since activity only ever pushes a
+ * deadline back, a stale deadline can only cause the monitor to look at a query early, at which point the query is re-read and re-indexed. Queries which
+ * were created on other query services are picked up when the index is periodically rebuilt from storage. To avoid repeatedly re-checking a query which
+ * is due but hasn't been acted upon, a deadline is never less than one monitor interval from the time that it was computed.
+ */
+public class QueryExpiryIndex {
+    private final MonitorProperties monitorProperties;
+    private final QueryExpirationProperties expirationProperties;
+    
+    private final ConcurrentMap<String,Deadline> deadlines = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Deadline> deadlineQueue = new ConcurrentSkipListSet<>();
+    private volatile long lastRebuildMillis = 0L;
+    
+    public QueryExpiryIndex(MonitorProperties monitorProperties, QueryExpirationProperties expirationProperties) {
+        this.monitorProperties = monitorProperties;
+        this.expirationProperties = expirationProperties;
+    }
+    
+    /**
+     * Updates the deadline for a query using its latest status.
+     *
+     * @param queryStatus
+     *            the query status, not null
+     */
+    public void update(QueryStatus queryStatus) {
+        update(queryStatus, System.currentTimeMillis());
+    }
+    
+    /**
+     * Updates the deadline for a query using its latest status.
+     *
+     * @param queryStatus
+     *            the query status, not null
+     * @param currentTimeMillis
+     *            the current time
+     */
+    public void update(QueryStatus queryStatus, long currentTimeMillis) {
+        final String queryId = queryStatus.getQueryKey().getQueryId();
+        deadlines.compute(queryId, (id, previous) -> {
+            Deadline deadline = new Deadline(queryId, getDeadlineMillis(queryStatus, previous, currentTimeMillis), queryStatus.isRunning());
+            if (previous != null) {
+                deadlineQueue.remove(previous);
+            }
+            deadlineQueue.add(deadline);
+            return deadline;
+        });
+    }
+    
+    private long getDeadlineMillis(QueryStatus queryStatus, Deadline previous, long currentTimeMillis) {
+        long deadlineMillis;
+        if (queryStatus.isRunning()) {
+            deadlineMillis = Math.min(queryStatus.getLastUpdatedMillis() + expirationProperties.getProgressTimeoutMillis(),
+                            queryStatus.getLastUsedMillis() + expirationProperties.getIdleTimeoutMillis());
+        } else if (previous == null || previous.isRunning()) {
+            // the query has stopped running since we last saw it, so its results queue is due to be deleted
+            return currentTimeMillis;
+        } else {
+            deadlineMillis = Math.max(queryStatus.getLastUsedMillis(), queryStatus.getLastUpdatedMillis())
+                            + monitorProperties.getInactiveQueryTimeToLiveMillis();
+        }
+        return Math.max(deadlineMillis, currentTimeMillis + monitorProperties.getMonitorIntervalMillis());
+    }
+    
+    /**
+     * Removes a query from the index.
+     *
+     * @param queryId
+     *            the query id, not null
+     */
+    public void remove(String queryId) {
+        Deadline deadline = deadlines.remove(queryId);
+        if (deadline != null) {
+            deadlineQueue.remove(deadline);
+        }
+    }
+    
+    /**
+     * Removes and returns the queries whose deadline has passed.
+     * <p>
+     * The queries are taken out of the deadline queue, but their last known state is retained until they are either updated or removed.
+     *
+     * @param currentTimeMillis
+     *            the current time
+     * @param filter
+     *            a filter on the query ids to return, not null
+     * @return the query ids whose deadline has passed, in deadline order
+     */
+    public List<String> pollExpired(long currentTimeMillis, Predicate<String> filter) {
+        List<String> queryIds = new ArrayList<>();
+        Iterator<Deadline> iterator = deadlineQueue.iterator();
+        while (iterator.hasNext()) {
+            Deadline deadline = iterator.next();
+            if (deadline.getDeadlineMillis() > currentTimeMillis) {
+                break;
+            }
+            if (filter.test(deadline.getQueryId()) && deadline.equals(deadlines.get(deadline.getQueryId())) && deadlineQueue.remove(deadline)) {
+                queryIds.add(deadline.getQueryId());
+            }
+        }
+        return queryIds;
+    }
+    
+    /**
+     * Rebuilds the index from the full set of query statuses in storage, dropping any queries which no longer exist.
+     * <p>
+     * Queries which are already queued keep their deadline, since it is at least as up-to-date as anything we learn from a full scan.
+     *
+     * @param queryStatuses
+     *            all of the query statuses, not null
+     * @param currentTimeMillis
+     *            the current time
+     */
+    public void rebuild(Collection<QueryStatus> queryStatuses, long currentTimeMillis) {
+        Set<String> queryIds = new HashSet<>();
+        for (QueryStatus queryStatus : queryStatuses) {
+            queryIds.add(queryStatus.getQueryKey().getQueryId());
+            Deadline deadline = deadlines.get(queryStatus.getQueryKey().getQueryId());
+            if (deadline == null || !deadlineQueue.contains(deadline)) {
+                update(queryStatus, currentTimeMillis);
+            }
+        }
+        for (String queryId : new ArrayList<>(deadlines.keySet())) {
+            if (!queryIds.contains(queryId)) {
+                remove(queryId);
+            }
+        }
+        lastRebuildMillis = currentTimeMillis;
+    }
+    
+    public boolean isRebuildDue(long currentTimeMillis) {
+        return (currentTimeMillis - lastRebuildMillis) >= monitorProperties.getExpiryIndexRebuildIntervalMillis();
+    }
+    
+    public int size() {
+        return deadlines.size();
+    }
+    
+    private static class Deadline implements Comparable<Deadline> {
+        private final String queryId;
+        private final long deadlineMillis;
+        private final boolean running;
+        
+        public Deadline(String queryId, long deadlineMillis, boolean running) {
+            this.queryId = queryId;
+            this.deadlineMillis = deadlineMillis;
+            this.running = running;
+        }
+        
+        public String getQueryId() {
+            return queryId;
+        }
+        
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+        
+        public boolean isRunning() {
+            return running;
+        }
+        
+        @Override
+        public int compareTo(Deadline o) {
+            int result = Long.compare(deadlineMillis, o.deadlineMillis);
+            return (result != 0) ? result : queryId.compareTo(o.queryId);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Deadline)) {
+                return false;
+            }
+            Deadline deadline = (Deadline) o;
+            return deadlineMillis == deadline.deadlineMillis && queryId.equals(deadline.queryId);
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * queryId.hashCode() + Long.hashCode(deadlineMillis);
+        }
+    }
+}
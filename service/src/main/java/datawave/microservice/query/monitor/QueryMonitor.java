@@ -7,6 +7,7 @@ import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -31,18 +32,23 @@ public class QueryMonitor {
     private final QueryResultsManager queryResultsManager;
     private final QueryManagementService queryManagementService;
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ExecutorService sweepExecutor;
+    private final QueryExpiryIndex expiryIndex;
     
     private long taskStartTime;
     private Future<Void> taskFuture;
     
     public QueryMonitor(MonitorProperties monitorProperties, QueryProperties queryProperties, MonitorStatusCache monitorStatusCache,
-                    QueryStorageCache queryStorageCache, QueryResultsManager queryResultsManager, QueryManagementService queryManagementService) {
+                    QueryStorageCache queryStorageCache, QueryResultsManager queryResultsManager, QueryManagementService queryManagementService,
+                    ObjectProvider<QueryExpiryIndex> expiryIndexProvider) {
         this.monitorProperties = monitorProperties;
         this.expirationProperties = queryProperties.getExpiration();
         this.monitorStatusCache = monitorStatusCache;
         this.queryStorageCache = queryStorageCache;
         this.queryResultsManager = queryResultsManager;
         this.queryManagementService = queryManagementService;
+        this.sweepExecutor = Executors.newFixedThreadPool(monitorProperties.getSweepParallelism());
+        this.expiryIndex = expiryIndexProvider.getIfAvailable();
     }
     
     // this runs in a separate thread every 30 seconds (by default)
@@ -76,7 +82,9 @@ public class QueryMonitor {
                             monitorStatusCache,
                             queryStorageCache,
                             queryResultsManager,
-                            queryManagementService));
+                            queryManagementService,
+                            sweepExecutor,
+                            expiryIndex));
             // @formatter:on
         }
     }
@@ -86,6 +94,14 @@ public class QueryMonitor {
     }
     
     private boolean isMonitorIntervalExpired() {
-        return (System.currentTimeMillis() - monitorStatusCache.getStatus().getLastCheckedMillis()) > monitorProperties.getMonitorIntervalMillis();
+        // we only need to run a monitor task if at least one of the shards is due
+        int numShards = monitorProperties.getNumShards();
+        for (int shard = 0; shard < numShards; shard++) {
+            long lastCheckedMillis = monitorStatusCache.getStatus(shard, numShards).getLastCheckedMillis();
+            if ((System.currentTimeMillis() - lastCheckedMillis) > monitorProperties.getMonitorIntervalMillis()) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -60,6 +60,70 @@ public class MonitorStatusCache {
         
     }
     
+    /**
+     * Get the query monitor status for a shard
+     *
+     * @param shard
+     *            the shard
+     * @param numShards
+     *            the total number of shards
+     * @return the stored monitor status for the shard
+     */
+    public MonitorStatus getStatus(int shard, int numShards) {
+        String key = getShardKey(shard, numShards);
+        MonitorStatus status = cacheInspector.list(CACHE_NAME, MonitorStatus.class, key);
+        if (status == null) {
+            cacheInspector.lock(CACHE_NAME, key);
+            try {
+                status = cacheInspector.list(CACHE_NAME, MonitorStatus.class, key);
+                if (status == null) {
+                    status = setStatus(shard, numShards, new MonitorStatus());
+                }
+            } finally {
+                cacheInspector.unlock(CACHE_NAME, key);
+            }
+        }
+        return status;
+    }
+    
+    /**
+     * Store the query monitor status for a shard
+     *
+     * @param shard
+     *            the shard
+     * @param numShards
+     *            the total number of shards
+     * @param monitorStatus
+     *            The monitor status to store
+     * @return the stored monitor status
+     */
+    @CachePut(key = "T(datawave.microservice.query.monitor.cache.MonitorStatusCache).getShardKey(#a0, #a1)")
+    public MonitorStatus setStatus(int shard, int numShards, MonitorStatus monitorStatus) {
+        return monitorStatus;
+    }
+    
+    public boolean tryLock(int shard, int numShards, long waitTime, TimeUnit waitTimeUnit, long leaseTime, TimeUnit leaseTimeUnit)
+                    throws InterruptedException {
+        return cacheInspector.tryLock(CACHE_NAME, getShardKey(shard, numShards), waitTime, waitTimeUnit, leaseTime, leaseTimeUnit);
+    }
+    
+    public void unlock(int shard, int numShards) {
+        cacheInspector.unlock(CACHE_NAME, getShardKey(shard, numShards));
+    }
+    
+    /**
+     * Gets the cache key used for the status and lock of a shard. With a single shard, this is the same key used for the unsharded status and lock.
+     *
+     * @param shard
+     *            the shard
+     * @param numShards
+     *            the total number of shards
+     * @return the cache key for the shard
+     */
+    public static String getShardKey(int shard, int numShards) {
+        return (numShards == 1) ? CACHE_KEY : CACHE_KEY + "-" + shard + "-of-" + numShards;
+    }
+    
     public void lock() {
         cacheInspector.lock(CACHE_NAME, CACHE_KEY);
     }
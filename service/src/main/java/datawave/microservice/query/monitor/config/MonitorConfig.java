@@ -19,6 +19,8 @@ import datawave.microservice.cached.CacheInspector;
 import datawave.microservice.cached.LockableCacheInspector;
 import datawave.microservice.cached.LockableHazelcastCacheInspector;
 import datawave.microservice.cached.UniversalLockableCacheInspector;
+import datawave.microservice.query.config.QueryProperties;
+import datawave.microservice.query.monitor.QueryExpiryIndex;
 import datawave.microservice.query.monitor.cache.MonitorStatusCache;
 
 @EnableCaching
@@ -40,4 +42,10 @@ public class MonitorConfig {
             lockableCacheInspector = new UniversalLockableCacheInspector(cacheInspectorFactory.apply(cacheManager));
         return new MonitorStatusCache(lockableCacheInspector);
     }
+    
+    @Bean
+    @ConditionalOnProperty(name = "datawave.query.monitor.expiry-index-enabled", havingValue = "true")
+    public QueryExpiryIndex queryExpiryIndex(MonitorProperties monitorProperties, QueryProperties queryProperties) {
+        return new QueryExpiryIndex(monitorProperties, queryProperties.getExpiration());
+    }
 }
@@ -32,6 +32,24 @@ public class MonitorProperties {
     private long inactiveQueryTimeToLive = 1;
     @NotNull
     private TimeUnit inactiveQueryTimeToLiveUnit = TimeUnit.DAYS;
+    // The number of shards that queries are partitioned into for monitoring. Each shard is locked and tracked independently, so that multiple query
+    // services can share the monitoring work.
+    @Positive
+    private int numShards = 1;
+    // The maximum number of shards that a single query service will monitor per sweep. A value of 0 means that there is no limit.
+    @PositiveOrZero
+    private int maxShardsPerSweep = 0;
+    // The number of threads used to monitor the shards leased by a sweep
+    @Positive
+    private int sweepParallelism = 1;
+    // When enabled, the monitor keeps a node-local index of the next deadline for each query, and only looks at the queries which are due rather than
+    // scanning every query in storage
+    private boolean expiryIndexEnabled = false;
+    // How often the expiry index is rebuilt from storage, which is how queries created or removed by other query services are discovered
+    @Positive
+    private long expiryIndexRebuildInterval = TimeUnit.MINUTES.toMillis(10);
+    @NotNull
+    private TimeUnit expiryIndexRebuildIntervalUnit = TimeUnit.MILLISECONDS;
     
     public String getSchedulerCrontab() {
         return schedulerCrontab;
@@ -120,4 +138,56 @@ public class MonitorProperties {
     public void setInactiveQueryTimeToLiveUnit(TimeUnit inactiveQueryTimeToLiveUnit) {
         this.inactiveQueryTimeToLiveUnit = inactiveQueryTimeToLiveUnit;
     }
+    
+    public int getNumShards() {
+        return numShards;
+    }
+    
+    public void setNumShards(int numShards) {
+        this.numShards = numShards;
+    }
+    
+    public int getMaxShardsPerSweep() {
+        return maxShardsPerSweep;
+    }
+    
+    public void setMaxShardsPerSweep(int maxShardsPerSweep) {
+        this.maxShardsPerSweep = maxShardsPerSweep;
+    }
+    
+    public int getSweepParallelism() {
+        return sweepParallelism;
+    }
+    
+    public void setSweepParallelism(int sweepParallelism) {
+        this.sweepParallelism = sweepParallelism;
+    }
+    
+    public boolean isExpiryIndexEnabled() {
+        return expiryIndexEnabled;
+    }
+    
+    public void setExpiryIndexEnabled(boolean expiryIndexEnabled) {
+        this.expiryIndexEnabled = expiryIndexEnabled;
+    }
+    
+    public long getExpiryIndexRebuildInterval() {
+        return expiryIndexRebuildInterval;
+    }
+    
+    public long getExpiryIndexRebuildIntervalMillis() {
+        return expiryIndexRebuildIntervalUnit.toMillis(expiryIndexRebuildInterval);
+    }
+    
+    public void setExpiryIndexRebuildInterval(long expiryIndexRebuildInterval) {
+        this.expiryIndexRebuildInterval = expiryIndexRebuildInterval;
+    }
+    
+    public TimeUnit getExpiryIndexRebuildIntervalUnit() {
+        return expiryIndexRebuildIntervalUnit;
+    }
+    
+    public void setExpiryIndexRebuildIntervalUnit(TimeUnit expiryIndexRebuildIntervalUnit) {
+        this.expiryIndexRebuildIntervalUnit = expiryIndexRebuildIntervalUnit;
+    }
 }
@@ -0,0 +1,96 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe registry of the calls (e.g. {@link NextCall}s) which are actively running for each query.
+ * <p>
+ * Registration and removal for a given query id are performed atomically against the underlying {@link ConcurrentHashMap}, which only holds the bin lock for
+ * that query id long enough to update its set of calls. Broadcasts don't take any locks. They act on a snapshot of the calls that are registered for the query,
+ * so a slow action never holds up registration for other queries, and a broadcast for a query will reach every call which was registered before it. Queries
+ * are removed from the registry once their last call is unregistered.
+ *
+ * @param <T>
+ *            the call type
+ */
+public class ActiveCallRegistry<T> {
+    private final ConcurrentMap<String,Set<T>> activeCalls = new ConcurrentHashMap<>();
+    
+    /**
+     * Registers a call for the given query.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param call
+     *            the call, not null
+     */
+    public void register(String queryId, T call) {
+        activeCalls.compute(queryId, (id, calls) -> {
+            if (calls == null) {
+                calls = ConcurrentHashMap.newKeySet();
+            }
+            calls.add(call);
+            return calls;
+        });
+    }
+    
+    /**
+     * Unregisters a call for the given query.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param call
+     *            the call, not null
+     */
+    public void unregister(String queryId, T call) {
+        activeCalls.computeIfPresent(queryId, (id, calls) -> {
+            calls.remove(call);
+            return calls.isEmpty() ? null : calls;
+        });
+    }
+    
+    /**
+     * Applies the given action to every call which is currently registered for the given query.
+     * <p>
+     * The action is applied to a snapshot of the registered calls, outside of any lock, so it may be slow, and it may call back into this registry. A call
+     * which is unregistered while the broadcast is running may still see the action.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param action
+     *            the action to apply, not null
+     * @return the number of calls that the action was applied to
+     */
+    public int forEach(String queryId, Consumer<T> action) {
+        Set<T> calls = activeCalls.get(queryId);
+        if (calls == null) {
+            return 0;
+        }
+        
+        List<T> snapshot = new ArrayList<>(calls);
+        snapshot.forEach(action);
+        return snapshot.size();
+    }
+    
+    /**
+     * @param queryId
+     *            the query id, not null
+     * @return the number of calls currently registered for the given query
+     */
+    public int getNumActiveCalls(String queryId) {
+        Set<T> calls = activeCalls.get(queryId);
+        return (calls != null) ? calls.size() : 0;
+    }
+    
+    /**
+     * @return the number of queries which have at least one active call
+     */
+    public int getNumActiveQueries() {
+        return activeCalls.size();
+    }
+}
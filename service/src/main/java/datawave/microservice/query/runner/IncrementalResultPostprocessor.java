@@ -0,0 +1,35 @@
+package datawave.microservice.query.runner;
+
+import java.util.List;
+
+import datawave.core.query.logic.ResultPostprocessor;
+
+/**
+ * A {@link ResultPostprocessor} which is able to process a page of results incrementally.
+ * <p>
+ * When incremental postprocessing is enabled, {@link NextCall} will hand each new result to {@link #apply(List, int)} as it is added to the page, rather than
+ * re-applying {@link #apply(List)} to the entire page. Implementations are expected to maintain whatever state they need between calls. Once the page is
+ * complete, {@link #finish(List)} is called exactly once.
+ */
+public interface IncrementalResultPostprocessor extends ResultPostprocessor {
+    
+    /**
+     * Processes the results which have been added to the page since the last call.
+     *
+     * @param results
+     *            the page of results, which may be modified in place
+     * @param fromIndex
+     *            the index of the first result which has not yet been processed
+     */
+    void apply(List<Object> results, int fromIndex);
+    
+    /**
+     * Called once the page is complete, before it is returned.
+     *
+     * @param results
+     *            the page of results, which may be modified in place
+     */
+    default void finish(List<Object> results) {
+        // do nothing
+    }
+}
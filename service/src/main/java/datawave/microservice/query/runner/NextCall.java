@@ -1,8 +1,5 @@
 package datawave.microservice.query.runner;
 
-import static datawave.microservice.query.messaging.AcknowledgementCallback.Status.ACK;
-
-import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Callable;
@@ -14,7 +11,6 @@ import org.slf4j.LoggerFactory;
 
 import datawave.core.query.cache.ResultsPage;
 import datawave.core.query.logic.QueryLogic;
-import datawave.core.query.logic.ResultPostprocessor;
 import datawave.microservice.query.config.NextCallProperties;
 import datawave.microservice.query.config.QueryExpirationProperties;
 import datawave.microservice.query.config.QueryProperties;
@@ -22,26 +18,31 @@ import datawave.microservice.query.messaging.QueryResultsListener;
 import datawave.microservice.query.messaging.QueryResultsManager;
 import datawave.microservice.query.messaging.QueryResultsPublisher;
 import datawave.microservice.query.messaging.Result;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
 import datawave.microservice.query.storage.QueryStatus;
 import datawave.microservice.query.storage.QueryStorageCache;
 import datawave.microservice.query.storage.TaskStates;
 import datawave.microservice.query.util.QueryStatusUpdateUtil;
 import datawave.microservice.querymetric.BaseQueryMetric;
 import datawave.microservice.querymetric.QueryMetric;
-import datawave.webservice.query.data.ObjectSizeOf;
 import datawave.webservice.query.exception.QueryException;
 
 public class NextCall implements Callable<ResultsPage<Object>> {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
     
     private final NextCallProperties nextCallProperties;
+    private final NextCallRunnerProperties runnerProperties;
     private final QueryResultsManager queryResultsManager;
     private final QueryStorageCache queryStorageCache;
     private final String queryId;
     private final QueryStatusUpdateUtil queryStatusUpdateUtil;
     
     private volatile boolean canceled = false;
+    private boolean abandoned = false;
+    private boolean committed = false;
     private volatile Future<ResultsPage<Object>> future = null;
+    private volatile boolean queryStatusChanged = false;
+    private volatile boolean taskStatesChanged = false;
     
     private final long callTimeoutMillis;
     private final long shortCircuitCheckTimeMillis;
@@ -58,10 +59,11 @@ public class NextCall implements Callable<ResultsPage<Object>> {
     private final long logicBytesPerPage;
     private final long logicMaxWork;
     private final long maxResultsPerPage;
-    private final ResultPostprocessor resultPostprocessor;
+    private final PagePostprocessor pagePostprocessor;
+    private final ResultChunkEmitter resultChunkEmitter;
     
-    private final List<Object> results = new LinkedList<>();
-    private long pageSizeBytes;
+    private final ResultsPageAccumulator page;
+    private final List<Object> results;
     private long startTimeMillis;
     private long stopTimeMillis;
     private ResultsPage.Status status = ResultsPage.Status.COMPLETE;
@@ -72,6 +74,7 @@ public class NextCall implements Callable<ResultsPage<Object>> {
     private TaskStates taskStates;
     private long numResultsConsumed = 0L;
     private boolean returnIntermediateResult = false;
+    private boolean resultsIdle = false;
     
     private long hitMaxResultsTimeMillis = 0L;
     
@@ -79,11 +82,18 @@ public class NextCall implements Callable<ResultsPage<Object>> {
     
     private NextCall(Builder builder) {
         this.nextCallProperties = builder.nextCallProperties;
+        this.runnerProperties = (builder.runnerProperties != null) ? builder.runnerProperties : new NextCallRunnerProperties();
         this.queryResultsManager = builder.queryResultsManager;
         this.queryStorageCache = builder.queryStorageCache;
         this.queryId = builder.queryId;
         this.queryStatusUpdateUtil = builder.queryStatusUpdateUtil;
         
+        // seed the status with the one that the caller just read, rather than fetching it from storage again
+        if (builder.queryStatus != null) {
+            this.queryStatus = builder.queryStatus;
+            this.lastQueryStatusUpdateTime = System.currentTimeMillis();
+        }
+        
         QueryStatus status = getQueryStatus();
         long pageTimeoutMillis = TimeUnit.MINUTES.toMillis(status.getQuery().getPageTimeout());
         if (pageTimeoutMillis >= builder.expirationProperties.getPageMinTimeoutMillis()
@@ -110,13 +120,22 @@ public class NextCall implements Callable<ResultsPage<Object>> {
         
         this.maxResultsPerPage = Math.min(userResultsPerPage, logicResultsPerPage);
         
+        this.page = new ResultsPageAccumulator((logicResultsPerPage > 0) ? maxResultsPerPage : userResultsPerPage, logicBytesPerPage > 0,
+                        runnerProperties.isSizeSampling());
+        this.results = page.getResults();
+        
         this.maxResults = builder.queryLogic.getResultLimit(status.getQuery());
         if (this.maxResults != builder.queryLogic.getMaxResults()) {
             log.info("Maximum results set to " + this.maxResults + " instead of default " + builder.queryLogic.getMaxResults() + ", user "
                             + status.getQuery().getUserDN() + " has a DN configured with a different limit");
         }
         
-        this.resultPostprocessor = builder.queryLogic.getResultPostprocessor(getQueryStatus().getConfig());
+        this.pagePostprocessor = new PagePostprocessor(builder.queryLogic.getResultPostprocessor(getQueryStatus().getConfig()),
+                        runnerProperties.isIncrementalPostprocessing());
+        
+        // results can only be emitted early if nothing will change them once the page is complete
+        boolean chunked = !getQueryStatus().getConfig().isReduceResults() && pagePostprocessor.isIncremental();
+        this.resultChunkEmitter = new ResultChunkEmitter(builder.resultListener, builder.resultChunkSize, chunked);
     }
     
     @Override
@@ -124,46 +143,68 @@ public class NextCall implements Callable<ResultsPage<Object>> {
         startTimeMillis = System.currentTimeMillis();
         
         try (QueryResultsListener resultListener = queryResultsManager.createListener(UUID.randomUUID().toString(), queryId)) {
+            QueryResultsBatchReceiver batchReceiver = new QueryResultsBatchReceiver(QueryResultsBatchListener.of(resultListener));
+            
             // keep waiting for results until we're finished
             // Note: isFinished should be checked once per result
-            while (!isFinished(queryId)) {
-                Result result = resultListener.receive(nextCallProperties.getResultPollInterval(), nextCallProperties.getResultPollIntervalUnit());
-                if (result != null) {
-                    result.acknowledge(ACK);
+            boolean finished = isFinished(queryId);
+            boolean noMoreResults = false;
+            while (!finished && !noMoreResults) {
+                int maxBatchSize = getMaxBatchSize();
+                int batchSize;
+                
+                // closing the batch acknowledges everything we consumed, and returns anything we didn't get to back to the queue,
+                // even if we bail out part way through because the query failed or the postprocessor threw
+                try (QueryResultsBatchReceiver.Batch batch = receive(batchReceiver, maxBatchSize)) {
+                    batchSize = batch.size();
+                    resultsIdle = batch.isEmpty();
                     
-                    Object payload = result.getPayload();
-                    if (payload != null) {
-                        results.add(payload);
-                        
-                        resultPostprocessor.apply(results);
-                        
-                        numResultsConsumed++;
+                    while (batch.hasNext() && !noMoreResults) {
+                        if (batch.getNumConsumed() > 0 && isFinished(queryId)) {
+                            finished = true;
+                            break;
+                        }
                         
-                        if (logicBytesPerPage > 0) {
-                            pageSizeBytes += ObjectSizeOf.Sizer.getObjectSize(payload);
+                        Object payload = batch.next().getPayload();
+                        if (payload != null) {
+                            int fromIndex = results.size();
+                            page.add(payload);
+                            
+                            pagePostprocessor.apply(results, fromIndex);
+                            
+                            numResultsConsumed++;
+                        } else {
+                            log.debug("Null result encountered, no more results");
+                            noMoreResults = true;
                         }
-                    } else {
-                        log.debug("Null result encountered, no more results");
-                        break;
                     }
                 }
+                
+                // if the queue has been drained, there is no sense holding on to a partial chunk
+                resultChunkEmitter.emit(results, batchSize < maxBatchSize);
+                
+                if (!finished && !noMoreResults) {
+                    finished = isFinished(queryId);
+                }
             }
         } catch (Exception e) {
             log.error("Encountered an error while fetching results from the listener", e);
             throw e;
         }
         
+        // now that the page is complete, give the postprocessor a chance to finalize it
+        pagePostprocessor.finish(results);
+        
         // if we are aggregating results and we short-circuit,
         // return the intermediate result(s) to the queue
         if (returnIntermediateResult) {
-            try (QueryResultsPublisher publisher = queryResultsManager.createPublisher(queryId)) {
-                for (Object result : results) {
-                    publisher.publish(new Result(UUID.randomUUID().toString(), result));
-                }
-            }
+            returnResults(results);
             results.clear();
         }
         
+        // whatever is left of the page goes out with the final chunk
+        resultChunkEmitter.finish(results);
+        
         // update some values for metrics
         stopTimeMillis = System.currentTimeMillis();
         if (lifecycle == null && !results.isEmpty()) {
@@ -173,11 +214,26 @@ public class NextCall implements Callable<ResultsPage<Object>> {
         // update num results consumed for query status
         updateNumResultsConsumed();
         
+        if (log.isDebugEnabled()) {
+            long callTimeMillis = Math.max(1L, stopTimeMillis - startTimeMillis);
+            log.debug("Query [{}]: next call collected {} results in {}ms ({} results/sec)", queryId, results.size(), callTimeMillis,
+                            (results.size() * 1000L) / callTimeMillis);
+        }
+        
         return new ResultsPage<>(results, status);
     }
     
-    public void updateQueryMetric(BaseQueryMetric baseQueryMetric) {
-        baseQueryMetric.addPageTime(results.size(), stopTimeMillis - startTimeMillis, startTimeMillis, stopTimeMillis);
+    /**
+     * Adds the page time for this next call to the query metric.
+     *
+     * @param baseQueryMetric
+     *            the query metric, not null
+     * @param transformTimeMillis
+     *            the time spent transforming the page after this call completed which should be counted as part of the page time, or 0 if it shouldn't be
+     */
+    public void updateQueryMetric(BaseQueryMetric baseQueryMetric, long transformTimeMillis) {
+        long returnTimeMillis = stopTimeMillis + transformTimeMillis;
+        baseQueryMetric.addPageTime(results.size(), returnTimeMillis - startTimeMillis, startTimeMillis, returnTimeMillis);
         baseQueryMetric.setLifecycle(lifecycle);
     }
     
@@ -219,7 +275,7 @@ public class NextCall implements Callable<ResultsPage<Object>> {
         }
         
         // 4) have we hit the query logic's bytes-per-page limit?
-        if (!finished && logicBytesPerPage > 0 && pageSizeBytes >= logicBytesPerPage) {
+        if (!finished && logicBytesPerPage > 0 && page.getSizeBytes() >= logicBytesPerPage) {
             log.info("Query [{}]: query logic max page byte size has been reached, aborting next call", queryId);
             
             status = ResultsPage.Status.PARTIAL;
@@ -340,6 +396,70 @@ public class NextCall implements Callable<ResultsPage<Object>> {
         return finished;
     }
     
+    private QueryResultsBatchReceiver.Batch receive(QueryResultsBatchReceiver batchReceiver, int maxResults) {
+        if (runnerProperties.isEventDriven()) {
+            // wait in short slices, so that a cancel or a state change notification wakes us up without waiting out the full result wait
+            long waitDeadlineMillis = System.currentTimeMillis() + getResultWaitMillis();
+            QueryResultsBatchReceiver.Batch batch;
+            do {
+                long sliceMillis = Math.min(runnerProperties.getSignalCheckIntervalMillis(), waitDeadlineMillis - System.currentTimeMillis());
+                batch = batchReceiver.receive(maxResults, Math.max(1L, sliceMillis), TimeUnit.MILLISECONDS);
+            } while (batch.isEmpty() && !isSignaled() && System.currentTimeMillis() < waitDeadlineMillis);
+            return batch;
+        } else {
+            return batchReceiver.receive(maxResults, nextCallProperties.getResultPollInterval(), nextCallProperties.getResultPollIntervalUnit());
+        }
+    }
+    
+    private boolean isSignaled() {
+        return canceled || queryStatusChanged;
+    }
+    
+    /**
+     * Gets the maximum number of results to receive in the next batch.
+     * <p>
+     * Batches are never larger than the space remaining in the page, so that we don't pull results off of the queue that we already know we can't use.
+     *
+     * @return the maximum batch size, at least 1
+     */
+    private int getMaxBatchSize() {
+        long remaining = userResultsPerPage - results.size();
+        if (logicResultsPerPage > 0) {
+            remaining = Math.min(remaining, logicResultsPerPage - results.size());
+        }
+        return (int) Math.max(1L, Math.min(runnerProperties.getBatchReceiveSize(), remaining));
+    }
+    
+    /**
+     * Determines how long an event-driven next call can block waiting for the next result.
+     * <p>
+     * Rather than waking up at a fixed poll interval, we wait until the next point in time where the outcome of {@link #isFinished} could change on its own
+     * (e.g. a short circuit check, or the call timeout). Result arrival, cancellation, and state change notifications (close, or a remote request for the
+     * query) end the wait early. Nothing notifies us when the executor fails the query or finishes its tasks, so once the results queue has gone idle we
+     * never wait longer than the status update interval, which is when the query status and task states are re-read.
+     *
+     * @return the number of milliseconds to wait for a result
+     */
+    private long getResultWaitMillis() {
+        long currentTimeMillis = System.currentTimeMillis();
+        long callTimeMillis = currentTimeMillis - startTimeMillis;
+        
+        long waitMillis = Math.min(runnerProperties.getMaxResultWaitMillis(), callTimeoutMillis - callTimeMillis);
+        if (resultsIdle) {
+            waitMillis = Math.min(waitMillis, nextCallProperties.getStatusUpdateIntervalMillis());
+        }
+        if (callTimeMillis < shortCircuitTimeoutMillis) {
+            waitMillis = Math.min(waitMillis, shortCircuitTimeoutMillis - callTimeMillis);
+        }
+        if (!results.isEmpty() && callTimeMillis < shortCircuitCheckTimeMillis) {
+            waitMillis = Math.min(waitMillis, shortCircuitCheckTimeMillis - callTimeMillis);
+        }
+        if (hitMaxResultsTimeMillis > 0) {
+            waitMillis = Math.min(waitMillis, (hitMaxResultsTimeMillis + nextCallProperties.getMaxResultsTimeoutMillis()) - currentTimeMillis);
+        }
+        return Math.max(1L, waitMillis);
+    }
+    
     private QueryStatus updateNumResultsConsumed() {
         if (numResultsConsumed > 0) {
             try {
@@ -398,6 +518,7 @@ public class NextCall implements Callable<ResultsPage<Object>> {
     private QueryStatus getQueryStatus() {
         if (queryStatus == null || isQueryStatusExpired()) {
             lastQueryStatusUpdateTime = System.currentTimeMillis();
+            queryStatusChanged = false;
             queryStatus = queryStorageCache.getQueryStatus(queryId);
         }
         return queryStatus;
@@ -406,17 +527,44 @@ public class NextCall implements Callable<ResultsPage<Object>> {
     private TaskStates getTaskStates() {
         if (taskStates == null || isTaskStatesExpired()) {
             lastTaskStatesUpdateTime = System.currentTimeMillis();
+            taskStatesChanged = false;
             taskStates = queryStorageCache.getTaskStates(queryId);
         }
         return taskStates;
     }
     
     private boolean isQueryStatusExpired() {
-        return (System.currentTimeMillis() - lastQueryStatusUpdateTime) > nextCallProperties.getStatusUpdateIntervalMillis();
+        if (runnerProperties.isEventDriven()) {
+            return queryStatusChanged || isRefreshDue(lastQueryStatusUpdateTime);
+        } else {
+            return (System.currentTimeMillis() - lastQueryStatusUpdateTime) > nextCallProperties.getStatusUpdateIntervalMillis();
+        }
     }
     
     private boolean isTaskStatesExpired() {
-        return (System.currentTimeMillis() - lastTaskStatesUpdateTime) > nextCallProperties.getStatusUpdateIntervalMillis();
+        if (runnerProperties.isEventDriven()) {
+            return taskStatesChanged || isRefreshDue(lastTaskStatesUpdateTime);
+        } else {
+            return (System.currentTimeMillis() - lastTaskStatesUpdateTime) > nextCallProperties.getStatusUpdateIntervalMillis();
+        }
+    }
+    
+    private boolean isRefreshDue(long lastUpdateTimeMillis) {
+        long elapsedMillis = System.currentTimeMillis() - lastUpdateTimeMillis;
+        // while results are flowing, there is no need to go back to the cache until something changes.
+        // once the results queue goes idle, fall back to the status update interval so that we notice completed tasks.
+        return (resultsIdle && elapsedMillis > nextCallProperties.getStatusUpdateIntervalMillis())
+                        || elapsedMillis > runnerProperties.getStatusRefreshIntervalMillis();
+    }
+    
+    /**
+     * Notifies this next call that the state of the query has changed (e.g. it was canceled, closed, or failed), or that its tasks have progressed.
+     * <p>
+     * When running in event-driven mode, the query status and task states will be re-read the next time this call evaluates whether it is finished.
+     */
+    public void onQueryStatusChange() {
+        this.queryStatusChanged = true;
+        this.taskStatesChanged = true;
     }
     
     public boolean isCanceled() {
@@ -427,6 +575,52 @@ public class NextCall implements Callable<ResultsPage<Object>> {
         this.canceled = true;
     }
     
+    /**
+     * Gives up on the page that this call is collecting, e.g. because the client stopped waiting for it.
+     * <p>
+     * An abandoned call stops collecting results as soon as possible. Rather than handing its page to the client, the caller is expected to put the results
+     * back on the queue with {@link #returnResults}, so that they aren't lost.
+     *
+     * @return true if the call was abandoned, or false if its page has already been committed to a response
+     */
+    public synchronized boolean abandon() {
+        if (!committed) {
+            abandoned = true;
+            canceled = true;
+        }
+        return abandoned;
+    }
+    
+    /**
+     * Commits the page collected by this call to a response, so that it can no longer be abandoned.
+     *
+     * @return true if the page can be handed to the client, or false if the call was abandoned first
+     */
+    public synchronized boolean commit() {
+        if (!abandoned) {
+            committed = true;
+        }
+        return committed;
+    }
+    
+    /**
+     * Publishes the given results back to the results queue, so that a later next call can pick them up.
+     *
+     * @param pageResults
+     *            the results to return, not null
+     * @throws Exception
+     *             if the results could not be published
+     */
+    public void returnResults(List<Object> pageResults) throws Exception {
+        if (!pageResults.isEmpty()) {
+            try (QueryResultsPublisher publisher = queryResultsManager.createPublisher(queryId)) {
+                for (Object result : pageResults) {
+                    publisher.publish(new Result(UUID.randomUUID().toString(), result));
+                }
+            }
+        }
+    }
+    
     public Future<ResultsPage<Object>> getFuture() {
         return future;
     }
@@ -441,12 +635,16 @@ public class NextCall implements Callable<ResultsPage<Object>> {
     
     public static class Builder {
         private NextCallProperties nextCallProperties;
+        private NextCallRunnerProperties runnerProperties;
         private QueryExpirationProperties expirationProperties;
         private QueryResultsManager queryResultsManager;
         private QueryStorageCache queryStorageCache;
         private String queryId;
+        private QueryStatus queryStatus;
         private QueryStatusUpdateUtil queryStatusUpdateUtil;
         private QueryLogic<?> queryLogic;
+        private NextCallResultListener resultListener;
+        private int resultChunkSize = 1;
         
         public Builder setQueryProperties(QueryProperties queryProperties) {
             this.nextCallProperties = queryProperties.getNextCall();
@@ -459,6 +657,11 @@ public class NextCall implements Callable<ResultsPage<Object>> {
             return this;
         }
         
+        public Builder setRunnerProperties(NextCallRunnerProperties runnerProperties) {
+            this.runnerProperties = runnerProperties;
+            return this;
+        }
+        
         public Builder setExpirationProperties(QueryExpirationProperties expirationProperties) {
             this.expirationProperties = expirationProperties;
             return this;
@@ -479,6 +682,11 @@ public class NextCall implements Callable<ResultsPage<Object>> {
             return this;
         }
         
+        public Builder setQueryStatus(QueryStatus queryStatus) {
+            this.queryStatus = queryStatus;
+            return this;
+        }
+        
         public Builder setQueryStatusUpdateUtil(QueryStatusUpdateUtil queryStatusUpdateUtil) {
             this.queryStatusUpdateUtil = queryStatusUpdateUtil;
             return this;
@@ -489,6 +697,16 @@ public class NextCall implements Callable<ResultsPage<Object>> {
             return this;
         }
         
+        public Builder setResultListener(NextCallResultListener resultListener) {
+            this.resultListener = resultListener;
+            return this;
+        }
+        
+        public Builder setResultChunkSize(int resultChunkSize) {
+            this.resultChunkSize = resultChunkSize;
+            return this;
+        }
+        
         public NextCall build() {
             return new NextCall(this);
         }
@@ -0,0 +1,24 @@
+package datawave.microservice.query.runner;
+
+import java.util.List;
+
+/**
+ * Receives results from a {@link NextCall} as they are added to the page, rather than waiting for the page to be completed.
+ * <p>
+ * Results are delivered in order, in chunks, on the thread running the next call. Every result in the page returned by the next call will have been delivered
+ * to the listener exactly once by the time the call completes. If the listener throws an exception, the next call is aborted.
+ * <p>
+ * Results are only delivered before the page is complete when nothing can change them afterwards (see {@link ResultChunkEmitter}). Otherwise, the entire page
+ * is delivered as a single chunk once it is complete.
+ */
+@FunctionalInterface
+public interface NextCallResultListener {
+    
+    /**
+     * @param results
+     *            the next chunk of postprocessed results, never empty
+     * @throws Exception
+     *             if the results could not be handled
+     */
+    void onResults(List<Object> results) throws Exception;
+}
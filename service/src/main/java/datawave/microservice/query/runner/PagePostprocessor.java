@@ -0,0 +1,67 @@
+package datawave.microservice.query.runner;
+
+import java.util.List;
+
+import datawave.core.query.logic.ResultPostprocessor;
+
+/**
+ * Applies a query logic's {@link ResultPostprocessor} to a page of results while the page is being filled.
+ * <p>
+ * By default, the postprocessor is re-applied to the entire page for every result. When incremental postprocessing is enabled, an
+ * {@link IncrementalResultPostprocessor} only sees each new result as it is added, and is finished once the page is complete. Any other postprocessor is
+ * deferred, and applied to the entire page exactly once when the page is complete.
+ */
+public class PagePostprocessor {
+    private final ResultPostprocessor resultPostprocessor;
+    private final IncrementalResultPostprocessor incrementalResultPostprocessor;
+    private final boolean incrementalPostprocessing;
+    
+    public PagePostprocessor(ResultPostprocessor resultPostprocessor, boolean incrementalPostprocessing) {
+        this.resultPostprocessor = resultPostprocessor;
+        this.incrementalPostprocessing = incrementalPostprocessing;
+        if (incrementalPostprocessing && resultPostprocessor instanceof IncrementalResultPostprocessor) {
+            this.incrementalResultPostprocessor = (IncrementalResultPostprocessor) resultPostprocessor;
+        } else {
+            this.incrementalResultPostprocessor = null;
+        }
+    }
+    
+    /**
+     * Called after a new result has been added to the page.
+     *
+     * @param results
+     *            the page of results, which may be modified in place
+     * @param fromIndex
+     *            the index of the newly added result
+     */
+    public void apply(List<Object> results, int fromIndex) {
+        if (incrementalResultPostprocessor != null) {
+            incrementalResultPostprocessor.apply(results, fromIndex);
+        } else if (!incrementalPostprocessing) {
+            resultPostprocessor.apply(results);
+        }
+    }
+    
+    /**
+     * Called once the page is complete, before it is returned.
+     *
+     * @param results
+     *            the page of results, which may be modified in place
+     */
+    public void finish(List<Object> results) {
+        if (incrementalResultPostprocessor != null) {
+            incrementalResultPostprocessor.finish(results);
+        } else if (incrementalPostprocessing) {
+            resultPostprocessor.apply(results);
+        }
+    }
+    
+    /**
+     * Whether the postprocessor is being applied incrementally, i.e. each result is processed once, as it is added to the page.
+     *
+     * @return true if the postprocessor is being applied incrementally
+     */
+    public boolean isIncremental() {
+        return incrementalResultPostprocessor != null;
+    }
+}
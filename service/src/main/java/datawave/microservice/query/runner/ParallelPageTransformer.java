@@ -0,0 +1,117 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.core.query.cache.ResultsPage;
+import datawave.core.query.logic.QueryLogic;
+import datawave.core.query.logic.QueryLogicTransformer;
+import datawave.microservice.query.Query;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.microservice.query.util.EventQueryResponseUtil;
+import datawave.webservice.result.BaseQueryResponse;
+import datawave.webservice.result.EventQueryResponseBase;
+
+/**
+ * Transforms a page of results into a response.
+ * <p>
+ * By default, the page is transformed on the calling thread using a single transformer. When parallel transformation is enabled, large pages are split into
+ * contiguous sub-pages which are transformed on a fork-join pool, each with its own transformer, and the resulting responses are merged back together in
+ * order. Splitting is only correct for transformers which map each result to its own event, so only the query logics which opt in are transformed in
+ * parallel. Only event query responses can be merged, so the first page of each of those logics is transformed on the calling thread to find out which type
+ * of response it produces, and the logic is only transformed in parallel from then on if that response can be merged.
+ */
+public class ParallelPageTransformer {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final NextCallRunnerProperties runnerProperties;
+    private final ForkJoinPool transformPool;
+    // whether each opted in query logic produces responses which can be merged, keyed by query logic name
+    private final Map<String,Boolean> mergeableLogics = new ConcurrentHashMap<>();
+    
+    public ParallelPageTransformer(NextCallRunnerProperties runnerProperties) {
+        this.runnerProperties = runnerProperties;
+        if (runnerProperties.isParallelTransform()) {
+            int parallelism = runnerProperties.getParallelTransformParallelism();
+            this.transformPool = new ForkJoinPool((parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors());
+        } else {
+            this.transformPool = null;
+        }
+    }
+    
+    /**
+     * Transforms the page of results into a response.
+     *
+     * @param queryLogic
+     *            the query logic, not null
+     * @param query
+     *            the query, not null
+     * @param resultsPage
+     *            the page of results, not null
+     * @return a base query response containing the transformed page
+     */
+    public BaseQueryResponse createResponse(QueryLogic<?> queryLogic, Query query, ResultsPage<Object> resultsPage) {
+        String logicName = queryLogic.getLogicName();
+        if (transformPool != null && runnerProperties.getParallelTransformQueryLogics().contains(logicName)) {
+            Boolean mergeable = mergeableLogics.get(logicName);
+            if (mergeable == null) {
+                BaseQueryResponse response = queryLogic.getTransformer(query).createResponse(resultsPage);
+                mergeable = response instanceof EventQueryResponseBase;
+                if (mergeableLogics.putIfAbsent(logicName, mergeable) == null && !mergeable) {
+                    log.debug("Unable to merge responses of type {} for query logic {}, transforming its pages serially", response.getClass().getSimpleName(),
+                                    logicName);
+                }
+                return response;
+            }
+            
+            if (mergeable && resultsPage.getResults().size() >= runnerProperties.getParallelTransformMinPageSize()) {
+                return createResponseInParallel(queryLogic, query, resultsPage);
+            }
+        }
+        return queryLogic.getTransformer(query).createResponse(resultsPage);
+    }
+    
+    private BaseQueryResponse createResponseInParallel(QueryLogic<?> queryLogic, Query query, ResultsPage<Object> resultsPage) {
+        List<Object> results = resultsPage.getResults();
+        int numSplits = Math.min(transformPool.getParallelism(), results.size());
+        int splitSize = (results.size() + numSplits - 1) / numSplits;
+        
+        // transformers are not guaranteed to be thread safe, so each split gets its own
+        List<ForkJoinTask<BaseQueryResponse>> tasks = new ArrayList<>(numSplits);
+        for (int fromIndex = 0; fromIndex < results.size(); fromIndex += splitSize) {
+            final QueryLogicTransformer<?,?> transformer = queryLogic.getTransformer(query);
+            final ResultsPage<Object> split = new ResultsPage<>(results.subList(fromIndex, Math.min(fromIndex + splitSize, results.size())),
+                            resultsPage.getStatus());
+            tasks.add(transformPool.submit(() -> transformer.createResponse(split)));
+        }
+        
+        // merge the responses in order, so that the results are returned in the order that they were collected
+        EventQueryResponseBase mergedResponse = null;
+        for (ForkJoinTask<BaseQueryResponse> task : tasks) {
+            mergedResponse = EventQueryResponseUtil.merge(mergedResponse, (EventQueryResponseBase) task.join());
+        }
+        return mergedResponse;
+    }
+    
+    /**
+     * Whether parallel transformation is enabled.
+     *
+     * @return true if large pages may be transformed in parallel
+     */
+    public boolean isParallel() {
+        return transformPool != null;
+    }
+    
+    public void shutdown() {
+        if (transformPool != null) {
+            transformPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import datawave.microservice.query.messaging.AcknowledgementCallback;
+import datawave.microservice.query.messaging.QueryResultsListener;
+import datawave.microservice.query.messaging.Result;
+
+/**
+ * A results listener which is able to receive and acknowledge results in bulk.
+ * <p>
+ * A {@link QueryResultsListener} created by the {@link datawave.microservice.query.messaging.QueryResultsManager} can implement this interface to let
+ * {@link NextCall} drain a batch of results with a single receive, and settle the batch with a single cumulative acknowledgement, rather than making a round
+ * trip to the broker for every result. Listeners which don't implement it are adapted by {@link #of(QueryResultsListener)}, which falls back to receiving and
+ * acknowledging one result at a time.
+ */
+public interface QueryResultsBatchListener {
+    
+    /**
+     * Receives up to {@code maxResults} results.
+     * <p>
+     * This blocks for up to the requested wait time for the first result, but it must not block waiting for the rest of the batch. The batch only contains
+     * results which are available once the first result has arrived.
+     *
+     * @param maxResults
+     *            the maximum number of results to receive, must be positive
+     * @param waitTime
+     *            the maximum amount of time to wait for the first result
+     * @param waitTimeUnit
+     *            the wait time unit, not null
+     * @return the results received, in order, which will be empty if no results were available in time
+     */
+    List<Result> receive(int maxResults, long waitTime, TimeUnit waitTimeUnit);
+    
+    /**
+     * Acknowledges all of the given results with a single acknowledgement.
+     *
+     * @param results
+     *            the results to acknowledge, in the order that they were received, not null
+     * @param status
+     *            the acknowledgement status, not null
+     */
+    void acknowledge(List<Result> results, AcknowledgementCallback.Status status);
+    
+    /**
+     * Gets a batch listener for the given results listener.
+     *
+     * @param resultListener
+     *            the results listener, not null
+     * @return the results listener itself if it receives results in bulk, otherwise a batch listener which receives and acknowledges one result at a time
+     */
+    static QueryResultsBatchListener of(QueryResultsListener resultListener) {
+        if (resultListener instanceof QueryResultsBatchListener) {
+            return (QueryResultsBatchListener) resultListener;
+        }
+        
+        return new QueryResultsBatchListener() {
+            @Override
+            public List<Result> receive(int maxResults, long waitTime, TimeUnit waitTimeUnit) {
+                Result result = resultListener.receive(waitTime, waitTimeUnit);
+                if (result == null) {
+                    return Collections.emptyList();
+                } else if (maxResults <= 1) {
+                    return Collections.singletonList(result);
+                }
+                
+                List<Result> results = new ArrayList<>(maxResults);
+                results.add(result);
+                while (results.size() < maxResults && (result = resultListener.receive(0L, TimeUnit.MILLISECONDS)) != null) {
+                    results.add(result);
+                }
+                return results;
+            }
+            
+            @Override
+            public void acknowledge(List<Result> results, AcknowledgementCallback.Status status) {
+                for (Result result : results) {
+                    result.acknowledge(status);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package datawave.microservice.query.runner;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import datawave.microservice.query.messaging.AcknowledgementCallback;
+import datawave.microservice.query.messaging.Result;
+
+/**
+ * Drains results from a {@link QueryResultsBatchListener} in batches.
+ * <p>
+ * Each batch is received with a single bulk receive. Once the caller is done with a batch, closing it acknowledges everything that was consumed with a single
+ * cumulative acknowledgement, and returns everything else to the queue with another.
+ */
+public class QueryResultsBatchReceiver {
+    private final QueryResultsBatchListener resultListener;
+    
+    public QueryResultsBatchReceiver(QueryResultsBatchListener resultListener) {
+        this.resultListener = resultListener;
+    }
+    
+    /**
+     * Receives up to {@code maxResults} results from the listener.
+     *
+     * @param maxResults
+     *            the maximum number of results to receive, must be positive
+     * @param waitTime
+     *            the maximum amount of time to wait for the first result
+     * @param waitTimeUnit
+     *            the wait time unit, not null
+     * @return the results received, which will be empty if no results were available in time
+     */
+    public Batch receive(int maxResults, long waitTime, TimeUnit waitTimeUnit) {
+        return new Batch(resultListener, resultListener.receive(maxResults, waitTime, waitTimeUnit));
+    }
+    
+    /**
+     * A batch of received results, which are consumed in order.
+     * <p>
+     * Closing the batch acknowledges the results which were consumed, and returns the rest to the queue. Use it with try-with-resources, so that the batch is
+     * settled even if processing a result fails part way through.
+     */
+    public static class Batch implements AutoCloseable {
+        private final QueryResultsBatchListener resultListener;
+        private final List<Result> results;
+        private int numConsumed = 0;
+        private boolean closed = false;
+        
+        private Batch(QueryResultsBatchListener resultListener, List<Result> results) {
+            this.resultListener = resultListener;
+            this.results = results;
+        }
+        
+        public boolean hasNext() {
+            return numConsumed < results.size();
+        }
+        
+        /**
+         * Consumes the next result in the batch.
+         *
+         * @return the next result
+         * @throws NoSuchElementException
+         *             if the batch has been fully consumed
+         */
+        public Result next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return results.get(numConsumed++);
+        }
+        
+        public int size() {
+            return results.size();
+        }
+        
+        public boolean isEmpty() {
+            return results.isEmpty();
+        }
+        
+        public int getNumConsumed() {
+            return numConsumed;
+        }
+        
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                if (numConsumed > 0) {
+                    resultListener.acknowledge(results.subList(0, numConsumed), AcknowledgementCallback.Status.ACK);
+                }
+                if (numConsumed < results.size()) {
+                    resultListener.acknowledge(results.subList(numConsumed, results.size()), AcknowledgementCallback.Status.NACK);
+                }
+            }
+        }
+    }
+}
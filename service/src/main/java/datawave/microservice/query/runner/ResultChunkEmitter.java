@@ -0,0 +1,87 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands the results of a page to a {@link NextCallResultListener} in chunks while the page is being filled.
+ * <p>
+ * Results can only be emitted before the page is complete if nothing will change them afterwards. That is only the case when the results are not being
+ * reduced, and the query logic's postprocessor is applied incrementally. Otherwise, nothing is emitted until the page is finished, and the whole page is
+ * emitted at once.
+ */
+public class ResultChunkEmitter {
+    private final NextCallResultListener resultListener;
+    private final int resultChunkSize;
+    private final boolean chunked;
+    
+    private int numResultsEmitted = 0;
+    
+    /**
+     * @param resultListener
+     *            the result listener, may be null
+     * @param resultChunkSize
+     *            the number of results to collect before handing them to the listener
+     * @param chunked
+     *            whether results may be emitted before the page is complete
+     */
+    public ResultChunkEmitter(NextCallResultListener resultListener, int resultChunkSize, boolean chunked) {
+        this.resultListener = resultListener;
+        this.resultChunkSize = Math.max(1, resultChunkSize);
+        this.chunked = chunked;
+    }
+    
+    /**
+     * Hands any results which haven't been emitted yet to the result listener, once there is at least a full chunk of them.
+     *
+     * @param results
+     *            the page of postprocessed results
+     * @param flush
+     *            if true, emit the pending results even if there isn't a full chunk
+     * @throws Exception
+     *             if the result listener fails
+     */
+    public void emit(List<Object> results, boolean flush) throws Exception {
+        if (resultListener != null && chunked) {
+            int numPending = results.size() - numResultsEmitted;
+            if (numPending >= resultChunkSize || (flush && numPending > 0)) {
+                emitPending(results);
+            }
+        }
+    }
+    
+    /**
+     * Hands whatever is left of the completed page to the result listener.
+     *
+     * @param results
+     *            the completed page of results
+     * @throws Exception
+     *             if the result listener fails
+     */
+    public void finish(List<Object> results) throws Exception {
+        if (resultListener != null && numResultsEmitted < results.size()) {
+            emitPending(results);
+        }
+    }
+    
+    private void emitPending(List<Object> results) throws Exception {
+        resultListener.onResults(new ArrayList<>(results.subList(numResultsEmitted, results.size())));
+        numResultsEmitted = results.size();
+    }
+    
+    /**
+     * Whether results may be emitted before the page is complete.
+     *
+     * @return true if results are emitted in chunks
+     */
+    public boolean isChunked() {
+        return chunked;
+    }
+    
+    /**
+     * @return the number of results handed to the result listener so far
+     */
+    public int getNumResultsEmitted() {
+        return numResultsEmitted;
+    }
+}
@@ -0,0 +1,80 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import datawave.webservice.query.data.ObjectSizeOf;
+
+/**
+ * Collects the results for a single page, and keeps track of the approximate size of the page in bytes.
+ * <p>
+ * The backing list is presized from the page limits, so that we aren't growing (or linking) our way up to a full page. By default, every result is sized
+ * with {@link ObjectSizeOf.Sizer}. When size sampling is enabled, the {@link ObjectSizeOf} size hint is used when the result provides one. Otherwise, the
+ * first few results are sized reflectively, and their average size is used for the remainder of the page. Sampling is cheaper, but it is only an estimate,
+ * so it changes when a page byte limit is reached if the result sizes vary.
+ */
+public class ResultsPageAccumulator {
+    // don't let a huge page size allocate a huge empty list up front
+    static final int MAX_INITIAL_CAPACITY = 10000;
+    // the number of results which will be sized reflectively before we switch to using the average size
+    static final int NUM_SIZE_SAMPLES = 16;
+    
+    private final ArrayList<Object> results;
+    private final boolean trackSizeBytes;
+    private final boolean sampleSizes;
+    
+    private long sizeBytes = 0L;
+    private long sampledSizeBytes = 0L;
+    private int numSampled = 0;
+    
+    /**
+     * @param maxResultsPerPage
+     *            the maximum number of results that this page will hold
+     * @param trackSizeBytes
+     *            whether or not we need to keep track of the page size in bytes
+     * @param sampleSizes
+     *            whether or not the page size in bytes can be estimated from a sample of the results
+     */
+    public ResultsPageAccumulator(long maxResultsPerPage, boolean trackSizeBytes, boolean sampleSizes) {
+        this.results = new ArrayList<>((int) Math.max(1L, Math.min(maxResultsPerPage, MAX_INITIAL_CAPACITY)));
+        this.trackSizeBytes = trackSizeBytes;
+        this.sampleSizes = sampleSizes;
+    }
+    
+    public void add(Object result) {
+        results.add(result);
+        if (trackSizeBytes) {
+            sizeBytes += sizeOf(result);
+        }
+    }
+    
+    private long sizeOf(Object result) {
+        if (!sampleSizes) {
+            return ObjectSizeOf.Sizer.getObjectSize(result);
+        } else if (result instanceof ObjectSizeOf) {
+            return ((ObjectSizeOf) result).sizeInBytes();
+        } else if (numSampled < NUM_SIZE_SAMPLES) {
+            long resultSizeBytes = ObjectSizeOf.Sizer.getObjectSize(result);
+            sampledSizeBytes += resultSizeBytes;
+            numSampled++;
+            return resultSizeBytes;
+        } else {
+            return sampledSizeBytes / numSampled;
+        }
+    }
+    
+    /**
+     * Gets the results in this page.
+     * <p>
+     * The returned list is live, and may be modified by result postprocessors.
+     *
+     * @return the results
+     */
+    public List<Object> getResults() {
+        return results;
+    }
+    
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+}
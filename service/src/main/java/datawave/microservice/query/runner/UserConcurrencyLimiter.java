@@ -0,0 +1,162 @@
+package datawave.microservice.query.runner;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * Limits the number of calls that a single user can have running concurrently on an executor.
+ * <p>
+ * When calls are run on a thread per task executor, the size of the executor no longer bounds the number of calls that can be run at once. Instead, each user
+ * may only have a fixed number of calls running at once. A user's count is incremented when a call is submitted, and decremented when the call completes. If
+ * the user is already at the limit, the call is rejected with a {@link TaskRejectedException}, just as it would be by a saturated thread pool.
+ * <p>
+ * Only users with calls running are tracked, so a user's entry is removed as soon as their last call completes.
+ */
+public class UserConcurrencyLimiter {
+    private final int maxConcurrentCallsPerUser;
+    private final ConcurrentMap<String,Integer> userActiveCalls = new ConcurrentHashMap<>();
+    
+    /**
+     * @param maxConcurrentCallsPerUser
+     *            the maximum number of concurrent calls per user, or 0 for no limit
+     */
+    public UserConcurrencyLimiter(int maxConcurrentCallsPerUser) {
+        this.maxConcurrentCallsPerUser = maxConcurrentCallsPerUser;
+    }
+    
+    /**
+     * Submits a call to the executor on behalf of the given user.
+     *
+     * @param executor
+     *            the executor, not null
+     * @param user
+     *            the user, not null
+     * @param task
+     *            the call to run, not null
+     * @param <T>
+     *            the result type
+     * @return a future representing the pending result of the call
+     * @throws TaskRejectedException
+     *             if the user has too many concurrent calls, or if the executor rejects the call
+     */
+    public <T> Future<T> submit(AsyncTaskExecutor executor, String user, Callable<T> task) throws TaskRejectedException {
+        return submit(executor, user, task, null);
+    }
+    
+    /**
+     * Submits a call to the executor on behalf of the given user, and runs the given callback once the call has completed and the user's count has been
+     * decremented.
+     * <p>
+     * The callback runs on the call's thread, whether or not the call succeeded, so it may submit a follow-on call for the same user without being rejected
+     * by the call that it follows. It is not run if the call is rejected.
+     *
+     * @param executor
+     *            the executor, not null
+     * @param user
+     *            the user, not null
+     * @param task
+     *            the call to run, not null
+     * @param onRelease
+     *            the callback to run once the call has completed, may be null
+     * @param <T>
+     *            the result type
+     * @return a future representing the pending result of the call
+     * @throws TaskRejectedException
+     *             if the user has too many concurrent calls, or if the executor rejects the call
+     */
+    public <T> Future<T> submit(AsyncTaskExecutor executor, String user, Callable<T> task, Runnable onRelease) throws TaskRejectedException {
+        acquire(user);
+        try {
+            return executor.submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    release(user);
+                    if (onRelease != null) {
+                        onRelease.run();
+                    }
+                }
+            });
+        } catch (TaskRejectedException e) {
+            release(user);
+            throw e;
+        }
+    }
+    
+    /**
+     * Executes a task on behalf of the given user.
+     *
+     * @param executor
+     *            the executor, not null
+     * @param user
+     *            the user, not null
+     * @param task
+     *            the task to run, not null
+     * @throws TaskRejectedException
+     *             if the user has too many concurrent calls, or if the executor rejects the task
+     */
+    public void execute(AsyncTaskExecutor executor, String user, Runnable task) throws TaskRejectedException {
+        acquire(user);
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    release(user);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            release(user);
+            throw e;
+        }
+    }
+    
+    private void acquire(String user) throws TaskRejectedException {
+        if (isLimited()) {
+            // the count is checked and incremented atomically, and left untouched if the call is rejected
+            userActiveCalls.compute(user, (u, activeCalls) -> {
+                int numActiveCalls = (activeCalls != null) ? activeCalls : 0;
+                if (numActiveCalls >= maxConcurrentCallsPerUser) {
+                    throw new TaskRejectedException("User " + user + " has reached the limit of " + maxConcurrentCallsPerUser + " concurrent calls");
+                }
+                return numActiveCalls + 1;
+            });
+        }
+    }
+    
+    private void release(String user) {
+        if (isLimited()) {
+            // remove the user's entry once their last call completes
+            userActiveCalls.computeIfPresent(user, (u, activeCalls) -> (activeCalls > 1) ? activeCalls - 1 : null);
+        }
+    }
+    
+    private boolean isLimited() {
+        return maxConcurrentCallsPerUser > 0;
+    }
+    
+    /**
+     * @param user
+     *            the user, not null
+     * @return the number of calls currently running for the given user, or 0 if there is no per-user limit
+     */
+    public int getNumActiveCalls(String user) {
+        return userActiveCalls.getOrDefault(user, 0);
+    }
+    
+    /**
+     * @return the number of users which currently have calls running, or 0 if there is no per-user limit
+     */
+    public int getNumActiveUsers() {
+        return userActiveCalls.size();
+    }
+    
+    public int getMaxConcurrentCallsPerUser() {
+        return maxConcurrentCallsPerUser;
+    }
+}
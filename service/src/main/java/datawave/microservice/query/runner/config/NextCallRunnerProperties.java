@@ -0,0 +1,207 @@
+package datawave.microservice.query.runner.config;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.next-call.runner")
+public class NextCallRunnerProperties {
+    // When enabled, next calls only re-read the query status and task states when notified of a change, when the results queue goes idle, or when the
+    // status refresh interval lapses
+    private boolean eventDriven = false;
+    // The maximum amount of time that an event-driven next call will go without re-reading the query status and task states
+    @Positive
+    private long statusRefreshInterval = TimeUnit.MINUTES.toMillis(1);
+    @NotNull
+    private TimeUnit statusRefreshIntervalUnit = TimeUnit.MILLISECONDS;
+    // The maximum amount of time that an event-driven next call will block waiting for a result before re-evaluating its state
+    @Positive
+    private long maxResultWait = TimeUnit.SECONDS.toMillis(5);
+    @NotNull
+    private TimeUnit maxResultWaitUnit = TimeUnit.MILLISECONDS;
+    // How often an event-driven next call which is blocked waiting for a result checks whether it has been canceled or notified of a state change
+    @Positive
+    private long signalCheckInterval = 100L;
+    @NotNull
+    private TimeUnit signalCheckIntervalUnit = TimeUnit.MILLISECONDS;
+    // The maximum number of results that a next call will drain from the results queue, and acknowledge, at once. Results listeners which implement
+    // QueryResultsBatchListener receive and acknowledge each batch in a single round trip, and the rest fall back to one result at a time.
+    @Positive
+    private int batchReceiveSize = 100;
+    // When enabled, and the query logic has a page byte trigger, results which don't provide a size hint are sized from a small sample, and the rest of the
+    // page is assumed to have the average size. This is cheaper than sizing every result, but it changes when the page byte trigger fires.
+    private boolean sizeSampling = false;
+    // When enabled, incremental result postprocessors see each result as it is added to the page, and all other result postprocessors are applied once
+    // to the completed page. Only enable this if the configured postprocessors don't need to reduce the page while it is being filled.
+    private boolean incrementalPostprocessing = false;
+    // The amount of time, beyond the longest possible next call, that an async next request will wait for its response before timing out
+    @Positive
+    private long asyncResponseTimeoutPadding = TimeUnit.MINUTES.toMillis(1);
+    @NotNull
+    private TimeUnit asyncResponseTimeoutPaddingUnit = TimeUnit.MILLISECONDS;
+    // When enabled, large pages are split up and transformed on a fork-join pool rather than on the request thread. This only applies to the query logics
+    // listed in parallelTransformQueryLogics, and only if they produce event query responses, since those are the only responses that can be merged.
+    private boolean parallelTransform = false;
+    // The names of the query logics which may be transformed in parallel. Only list logics whose transformers map each result to its own event, and never
+    // logics which reduce a whole page to a single result, like count or aggregation logics.
+    @NotNull
+    private Set<String> parallelTransformQueryLogics = new HashSet<>();
+    // The smallest page that will be transformed in parallel. Smaller pages aren't worth the overhead of splitting and merging.
+    @Positive
+    private int parallelTransformMinPageSize = 1000;
+    // The number of threads used to transform pages in parallel. A value of 0 means one thread per available processor.
+    @PositiveOrZero
+    private int parallelTransformParallelism = 0;
+    
+    public boolean isEventDriven() {
+        return eventDriven;
+    }
+    
+    public void setEventDriven(boolean eventDriven) {
+        this.eventDriven = eventDriven;
+    }
+    
+    public long getStatusRefreshInterval() {
+        return statusRefreshInterval;
+    }
+    
+    public long getStatusRefreshIntervalMillis() {
+        return statusRefreshIntervalUnit.toMillis(statusRefreshInterval);
+    }
+    
+    public void setStatusRefreshInterval(long statusRefreshInterval) {
+        this.statusRefreshInterval = statusRefreshInterval;
+    }
+    
+    public TimeUnit getStatusRefreshIntervalUnit() {
+        return statusRefreshIntervalUnit;
+    }
+    
+    public void setStatusRefreshIntervalUnit(TimeUnit statusRefreshIntervalUnit) {
+        this.statusRefreshIntervalUnit = statusRefreshIntervalUnit;
+    }
+    
+    public long getMaxResultWait() {
+        return maxResultWait;
+    }
+    
+    public long getMaxResultWaitMillis() {
+        return maxResultWaitUnit.toMillis(maxResultWait);
+    }
+    
+    public void setMaxResultWait(long maxResultWait) {
+        this.maxResultWait = maxResultWait;
+    }
+    
+    public TimeUnit getMaxResultWaitUnit() {
+        return maxResultWaitUnit;
+    }
+    
+    public void setMaxResultWaitUnit(TimeUnit maxResultWaitUnit) {
+        this.maxResultWaitUnit = maxResultWaitUnit;
+    }
+    
+    public long getSignalCheckInterval() {
+        return signalCheckInterval;
+    }
+    
+    public long getSignalCheckIntervalMillis() {
+        return signalCheckIntervalUnit.toMillis(signalCheckInterval);
+    }
+    
+    public void setSignalCheckInterval(long signalCheckInterval) {
+        this.signalCheckInterval = signalCheckInterval;
+    }
+    
+    public TimeUnit getSignalCheckIntervalUnit() {
+        return signalCheckIntervalUnit;
+    }
+    
+    public void setSignalCheckIntervalUnit(TimeUnit signalCheckIntervalUnit) {
+        this.signalCheckIntervalUnit = signalCheckIntervalUnit;
+    }
+    
+    public int getBatchReceiveSize() {
+        return batchReceiveSize;
+    }
+    
+    public void setBatchReceiveSize(int batchReceiveSize) {
+        this.batchReceiveSize = batchReceiveSize;
+    }
+    
+    public boolean isSizeSampling() {
+        return sizeSampling;
+    }
+    
+    public void setSizeSampling(boolean sizeSampling) {
+        this.sizeSampling = sizeSampling;
+    }
+    
+    public boolean isIncrementalPostprocessing() {
+        return incrementalPostprocessing;
+    }
+    
+    public void setIncrementalPostprocessing(boolean incrementalPostprocessing) {
+        this.incrementalPostprocessing = incrementalPostprocessing;
+    }
+    
+    public long getAsyncResponseTimeoutPadding() {
+        return asyncResponseTimeoutPadding;
+    }
+    
+    public long getAsyncResponseTimeoutPaddingMillis() {
+        return asyncResponseTimeoutPaddingUnit.toMillis(asyncResponseTimeoutPadding);
+    }
+    
+    public void setAsyncResponseTimeoutPadding(long asyncResponseTimeoutPadding) {
+        this.asyncResponseTimeoutPadding = asyncResponseTimeoutPadding;
+    }
+    
+    public TimeUnit getAsyncResponseTimeoutPaddingUnit() {
+        return asyncResponseTimeoutPaddingUnit;
+    }
+    
+    public void setAsyncResponseTimeoutPaddingUnit(TimeUnit asyncResponseTimeoutPaddingUnit) {
+        this.asyncResponseTimeoutPaddingUnit = asyncResponseTimeoutPaddingUnit;
+    }
+    
+    public boolean isParallelTransform() {
+        return parallelTransform;
+    }
+    
+    public void setParallelTransform(boolean parallelTransform) {
+        this.parallelTransform = parallelTransform;
+    }
+    
+    public int getParallelTransformMinPageSize() {
+        return parallelTransformMinPageSize;
+    }
+    
+    public void setParallelTransformMinPageSize(int parallelTransformMinPageSize) {
+        this.parallelTransformMinPageSize = parallelTransformMinPageSize;
+    }
+    
+    public int getParallelTransformParallelism() {
+        return parallelTransformParallelism;
+    }
+    
+    public void setParallelTransformParallelism(int parallelTransformParallelism) {
+        this.parallelTransformParallelism = parallelTransformParallelism;
+    }
+    
+    public Set<String> getParallelTransformQueryLogics() {
+        return parallelTransformQueryLogics;
+    }
+    
+    public void setParallelTransformQueryLogics(Set<String> parallelTransformQueryLogics) {
+        this.parallelTransformQueryLogics = parallelTransformQueryLogics;
+    }
+}
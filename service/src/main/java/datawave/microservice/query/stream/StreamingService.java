@@ -4,17 +4,22 @@ import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MultiValueMap;
 
 import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.DnNameCache;
 import datawave.microservice.query.QueryManagementService;
+import datawave.microservice.query.runner.UserConcurrencyLimiter;
+import datawave.microservice.query.stream.config.StreamingPipelineProperties;
 import datawave.microservice.query.stream.listener.StreamingResponseListener;
 import datawave.microservice.query.stream.runner.StreamingCall;
 import datawave.microservice.querymetric.QueryMetricClient;
 import datawave.security.util.ProxiedEntityUtils;
 import datawave.webservice.query.exception.BadRequestQueryException;
+import datawave.webservice.query.exception.DatawaveErrorCode;
 import datawave.webservice.query.exception.NoResultsQueryException;
 import datawave.webservice.query.exception.QueryException;
 import datawave.webservice.query.exception.UnauthorizedQueryException;
@@ -26,12 +31,18 @@ public class StreamingService {
     private final QueryManagementService queryManagementService;
     private final QueryMetricClient queryMetricClient;
     
-    private final ThreadPoolTaskExecutor streamingCallExecutor;
+    private final AsyncTaskExecutor streamingCallExecutor;
+    private final UserConcurrencyLimiter streamingCallLimiter;
     
-    public StreamingService(QueryManagementService queryManagementService, QueryMetricClient queryMetricClient, ThreadPoolTaskExecutor streamingCallExecutor) {
+    private final StreamingPipelineProperties streamingPipelineProperties;
+    
+    public StreamingService(QueryManagementService queryManagementService, QueryMetricClient queryMetricClient, AsyncTaskExecutor streamingCallExecutor,
+                    UserConcurrencyLimiter streamingCallLimiter, StreamingPipelineProperties streamingPipelineProperties) {
         this.queryManagementService = queryManagementService;
         this.queryMetricClient = queryMetricClient;
         this.streamingCallExecutor = streamingCallExecutor;
+        this.streamingCallLimiter = streamingCallLimiter;
+        this.streamingPipelineProperties = streamingPipelineProperties;
     }
     
     /**
@@ -70,10 +81,43 @@ public class StreamingService {
      * @throws NoResultsQueryException
      *             if no query results are found
      * @throws QueryException
+     *             if the streaming call is rejected by the executor, in which case the created query is canceled
+     * @throws QueryException
      *             if there is an unknown error
      */
     public String createAndExecute(String queryLogicName, MultiValueMap<String,String> parameters, String pool, DatawaveUserDetails currentUser,
                     DatawaveUserDetails serverUser, StreamingResponseListener listener) throws QueryException {
+        return createAndExecute(queryLogicName, parameters, pool, currentUser, serverUser, listener, null);
+    }
+    
+    /**
+     * Creates a query using the given query logic and parameters, and streams all pages of results to the configured listener, then runs the given callback.
+     * <p>
+     * The callback runs on the streaming call's thread once the call has completed, successfully or not, and no longer counts against the user's limit of
+     * concurrent streaming calls. This lets a caller which streams several queries in turn start the next one without it being rejected by the call that it
+     * follows. The callback is not run if the streaming call is rejected.
+     *
+     * @param queryLogicName
+     *            the requested query logic, not null
+     * @param parameters
+     *            the query parameters, not null
+     * @param pool
+     *            the pool to target, may be null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @param serverUser
+     *            the server user, not null
+     * @param listener
+     *            the listener which will handle the result pages, not null
+     * @param onComplete
+     *            the callback to run once the streaming call has completed, may be null
+     * @return the query id
+     * @throws QueryException
+     *             if the query can't be created, or if the streaming call is rejected by the executor, in which case the created query is canceled
+     * @see #createAndExecute(String, MultiValueMap, String, DatawaveUserDetails, DatawaveUserDetails, StreamingResponseListener)
+     */
+    public String createAndExecute(String queryLogicName, MultiValueMap<String,String> parameters, String pool, DatawaveUserDetails currentUser,
+                    DatawaveUserDetails serverUser, StreamingResponseListener listener, Runnable onComplete) throws QueryException {
         String user = ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName());
         if (log.isDebugEnabled()) {
             log.info("Request: {}/createAndExecute from {} with params: {}", queryLogicName, user, parameters);
@@ -82,7 +126,13 @@ public class StreamingService {
         }
         
         String queryId = queryManagementService.create(queryLogicName, parameters, pool, currentUser).getResult();
-        submitStreamingCall(queryId, currentUser, serverUser, listener);
+        try {
+            submitStreamingCall(queryId, currentUser, serverUser, listener, onComplete);
+        } catch (TaskRejectedException e) {
+            // the query is already running, so stop it rather than leaving it for the query monitor to find
+            cancel(queryId, currentUser);
+            throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, "Streaming task rejected by the executor for query " + queryId);
+        }
         return queryId;
     }
     
@@ -105,12 +155,34 @@ public class StreamingService {
     public void execute(String queryId, DatawaveUserDetails currentUser, DatawaveUserDetails serverUser, StreamingResponseListener listener) {
         log.info("Request: {}/execute from {}", queryId, ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()));
         
-        submitStreamingCall(queryId, currentUser, serverUser, listener);
+        submitStreamingCall(queryId, currentUser, serverUser, listener, null);
+    }
+    
+    /**
+     * Cancels a query which was created for streaming, but which will never be streamed.
+     * <p>
+     * This is best effort, since the caller is already failing. If the query can't be canceled, the query monitor will eventually clean it up.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param currentUser
+     *            the user who created the query, not null
+     */
+    public void cancel(String queryId, DatawaveUserDetails currentUser) {
+        log.debug("Canceling query {} which will not be streamed", queryId);
+        try {
+            queryManagementService.cancel(queryId, currentUser);
+        } catch (QueryException e) {
+            log.warn("Unable to cancel query {}", queryId, e);
+        }
     }
     
-    private void submitStreamingCall(String queryId, DatawaveUserDetails currentUser, DatawaveUserDetails serverUser, StreamingResponseListener listener) {
+    private void submitStreamingCall(String queryId, DatawaveUserDetails currentUser, DatawaveUserDetails serverUser, StreamingResponseListener listener,
+                    Runnable onComplete) {
         // @formatter:off
-        streamingCallExecutor.submit(
+        streamingCallLimiter.submit(
+                streamingCallExecutor,
+                DnNameCache.getOwner(currentUser.getPrimaryUser().getDn().subjectDN()),
                 new StreamingCall.Builder()
                         .setQueryManagementService(queryManagementService)
                         .setQueryMetricClient(queryMetricClient)
@@ -118,7 +190,9 @@ public class StreamingService {
                         .setCurrentUser(currentUser)
                         .setServerUser(serverUser)
                         .setListener(listener)
-                        .build());
+                        .setPipelineProperties(streamingPipelineProperties)
+                        .build(),
+                onComplete);
         // @formatter:on
     }
 }
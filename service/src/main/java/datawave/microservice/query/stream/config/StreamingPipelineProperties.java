@@ -0,0 +1,58 @@
+package datawave.microservice.query.stream.config;
+
+import javax.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.streaming.pipeline")
+public class StreamingPipelineProperties {
+    // When enabled, streaming calls request the next page(s) of results before writing the current page, so that results are collected while pages are
+    // being written to the client
+    private boolean enabled = false;
+    // The maximum number of pages which may be requested ahead of the page being written. Since pages are only requested while there is room in the
+    // pipeline, this also bounds the number of pages held in memory. Each prefetched page is an outstanding next call, so the prefetch depth is capped at
+    // the next call concurrency (datawave.query.next-call.concurrency).
+    @Positive
+    private int prefetchDepth = 1;
+    // When enabled, results are written to the client in small chunks as they come off of the results queue, rather than a page at a time. This takes
+    // precedence over page prefetching. Results are only written before the page is complete when the query logic's result postprocessor is applied
+    // incrementally and the results aren't being reduced. Otherwise, each page is written as a single chunk once it is complete.
+    private boolean resultStreaming = false;
+    // The number of results written per chunk when result streaming. Partial chunks are written whenever the results queue is drained.
+    @Positive
+    private int resultChunkSize = 10;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+    
+    public void setPrefetchDepth(int prefetchDepth) {
+        this.prefetchDepth = prefetchDepth;
+    }
+    
+    public boolean isResultStreaming() {
+        return resultStreaming;
+    }
+    
+    public void setResultStreaming(boolean resultStreaming) {
+        this.resultStreaming = resultStreaming;
+    }
+    
+    public int getResultChunkSize() {
+        return resultChunkSize;
+    }
+    
+    public void setResultChunkSize(int resultChunkSize) {
+        this.resultChunkSize = resultChunkSize;
+    }
+}
@@ -7,7 +7,7 @@ import org.springframework.http.MediaType;
 import datawave.microservice.query.web.filter.CountingResponseBodyEmitter;
 import datawave.webservice.result.BaseQueryResponse;
 
-public class CountingResponseBodyEmitterListener implements StreamingResponseListener {
+public class CountingResponseBodyEmitterListener implements StreamingResultListener {
     private final CountingResponseBodyEmitter countingEmitter;
     private final MediaType mediaType;
     
@@ -21,6 +21,11 @@ public class CountingResponseBodyEmitterListener implements StreamingResponseLis
         countingEmitter.send(response, mediaType);
     }
     
+    @Override
+    public void onResults(BaseQueryResponse results) throws IOException {
+        countingEmitter.send(results, mediaType);
+    }
+    
     @Override
     public void close() {
         countingEmitter.complete();
@@ -0,0 +1,222 @@
+package datawave.microservice.query.stream.listener;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.webservice.result.BaseQueryResponse;
+
+/**
+ * Fans in several concurrent streams of responses (e.g. one streaming call per content lookup batch) to a single listener.
+ * <p>
+ * Each stream gets its own listener from {@link #newStream()}. Responses from all of the streams are written to the delegate listener one at a time, and the
+ * responses from any one stream are written in the order that they were received. Responses are buffered in a bounded queue, and are written by whichever
+ * stream thread gets to them first, so a slow client holds off all of the streams once the buffer fills up rather than causing responses to pile up in
+ * memory.
+ * <p>
+ * The delegate listener is closed once every stream has been closed and all of the buffered responses have been written. If any stream is closed with an
+ * error, or a response can't be written, the delegate listener is closed with that error, any buffered responses are dropped, and any further responses
+ * from the other streams are rejected with an {@link IOException} so that their streaming calls stop.
+ */
+public class MultiplexingStreamingResponseListener {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final StreamingResponseListener delegate;
+    private final int numStreams;
+    
+    private final BlockingQueue<Message> buffer;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    
+    private final AtomicInteger numStreamsCreated = new AtomicInteger();
+    private final AtomicInteger numStreamsOpen;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    
+    /**
+     * @param delegate
+     *            the listener to write all of the responses to, not null
+     * @param numStreams
+     *            the number of streams which will be multiplexed, must be positive
+     * @param bufferCapacity
+     *            the maximum number of responses which may be buffered before the streams are held off, must be positive
+     */
+    public MultiplexingStreamingResponseListener(StreamingResponseListener delegate, int numStreams, int bufferCapacity) {
+        this.delegate = delegate;
+        this.numStreams = numStreams;
+        this.numStreamsOpen = new AtomicInteger(numStreams);
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+    }
+    
+    /**
+     * Creates the listener for the next stream.
+     * <p>
+     * If the delegate listener can receive results as they are collected, so can the stream listener.
+     *
+     * @return a listener for one of the multiplexed streams
+     * @throws IllegalStateException
+     *             if all of the streams have already been created
+     */
+    public StreamingResponseListener newStream() {
+        int streamIndex = numStreamsCreated.getAndIncrement();
+        if (streamIndex >= numStreams) {
+            throw new IllegalStateException("All " + numStreams + " streams have already been created");
+        }
+        return (delegate instanceof StreamingResultListener) ? new ResultStream(streamIndex) : new Stream(streamIndex);
+    }
+    
+    /**
+     * Closes the delegate listener with an error, regardless of the state of the streams.
+     * <p>
+     * This is used when one or more of the streams could not be started, and so will never be closed.
+     *
+     * @param t
+     *            the error, not null
+     */
+    public void closeWithError(Throwable t) {
+        fail(t);
+    }
+    
+    public boolean isClosed() {
+        return closed.get();
+    }
+    
+    public int getNumStreamsOpen() {
+        return numStreamsOpen.get();
+    }
+    
+    private void send(Message message) throws IOException {
+        checkFailure();
+        try {
+            buffer.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while buffering a response for stream " + message.streamIndex);
+        }
+        drain();
+        checkFailure();
+    }
+    
+    private void checkFailure() throws IOException {
+        Throwable t = failure.get();
+        if (t != null) {
+            throw new IOException("Multiplexed stream failed", t);
+        }
+    }
+    
+    // writes the buffered responses to the delegate, unless another stream is already doing so
+    private void drain() {
+        do {
+            if (!writeLock.tryLock()) {
+                return;
+            }
+            try {
+                Message message;
+                while (failure.get() == null && (message = buffer.poll()) != null) {
+                    write(message);
+                }
+                
+                if (failure.get() == null && numStreamsOpen.get() == 0 && buffer.isEmpty() && closed.compareAndSet(false, true)) {
+                    delegate.close();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            // a response may have been buffered, or the last stream closed, after we finished draining but before we released the lock
+        } while (failure.get() == null && (!buffer.isEmpty() || (numStreamsOpen.get() == 0 && !closed.get())));
+    }
+    
+    private void write(Message message) {
+        try {
+            if (message.results) {
+                ((StreamingResultListener) delegate).onResults(message.response);
+            } else {
+                delegate.onResponse(message.response);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to write response for stream {}", message.streamIndex, e);
+            fail(e);
+        }
+    }
+    
+    private void fail(Throwable t) {
+        if (failure.compareAndSet(null, t)) {
+            // unblock any streams which are waiting on the buffer
+            buffer.clear();
+            writeLock.lock();
+            try {
+                if (closed.compareAndSet(false, true)) {
+                    delegate.closeWithError(t);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+    
+    private class Stream implements StreamingResponseListener {
+        private final int streamIndex;
+        private final AtomicBoolean streamClosed = new AtomicBoolean();
+        
+        private Stream(int streamIndex) {
+            this.streamIndex = streamIndex;
+        }
+        
+        @Override
+        public void onResponse(BaseQueryResponse response) throws IOException {
+            send(new Message(streamIndex, response, false));
+        }
+        
+        @Override
+        public void close() {
+            if (streamClosed.compareAndSet(false, true)) {
+                log.debug("Stream {} of {} closed", streamIndex, numStreams);
+                numStreamsOpen.decrementAndGet();
+                drain();
+            }
+        }
+        
+        @Override
+        public void closeWithError(Throwable t) {
+            if (streamClosed.compareAndSet(false, true)) {
+                log.debug("Stream {} of {} closed with an error", streamIndex, numStreams);
+                numStreamsOpen.decrementAndGet();
+                fail(t);
+            }
+        }
+        
+        protected int getStreamIndex() {
+            return streamIndex;
+        }
+    }
+    
+    private class ResultStream extends Stream implements StreamingResultListener {
+        private ResultStream(int streamIndex) {
+            super(streamIndex);
+        }
+        
+        @Override
+        public void onResults(BaseQueryResponse results) throws IOException {
+            send(new Message(getStreamIndex(), results, true));
+        }
+    }
+    
+    private static class Message {
+        private final int streamIndex;
+        private final BaseQueryResponse response;
+        private final boolean results;
+        
+        public Message(int streamIndex, BaseQueryResponse response, boolean results) {
+            this.streamIndex = streamIndex;
+            this.response = response;
+            this.results = results;
+        }
+    }
+}
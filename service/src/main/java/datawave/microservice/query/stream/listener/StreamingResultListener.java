@@ -0,0 +1,22 @@
+package datawave.microservice.query.stream.listener;
+
+import java.io.IOException;
+
+import datawave.webservice.result.BaseQueryResponse;
+
+/**
+ * A streaming listener which can receive results as soon as they come off of the results queue, rather than a page at a time.
+ * <p>
+ * When result streaming is enabled, each chunk of results is passed to {@link #onResults} as it is collected, and {@link #onResponse} is not called for
+ * the pages made up of those results.
+ */
+public interface StreamingResultListener extends StreamingResponseListener {
+    
+    /**
+     * @param results
+     *            a response containing the next chunk of results for the current page
+     * @throws IOException
+     *             if the results could not be written
+     */
+    void onResults(BaseQueryResponse results) throws IOException;
+}
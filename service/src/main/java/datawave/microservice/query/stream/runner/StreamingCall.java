@@ -1,16 +1,22 @@
 package datawave.microservice.query.stream.runner;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.microservice.query.QueryManagementService;
+import datawave.microservice.query.stream.config.StreamingPipelineProperties;
 import datawave.microservice.query.stream.listener.CountingResponseBodyEmitterListener;
 import datawave.microservice.query.stream.listener.StreamingResponseListener;
+import datawave.microservice.query.stream.listener.StreamingResultListener;
 import datawave.microservice.querymetric.BaseQueryMetric;
 import datawave.microservice.querymetric.QueryMetricClient;
 import datawave.microservice.querymetric.QueryMetricType;
@@ -32,6 +38,9 @@ public class StreamingCall implements Callable<Void> {
     
     final private StreamingResponseListener listener;
     
+    final private StreamingPipelineProperties pipelineProperties;
+    final private PipelineStats pipelineStats = new PipelineStats();
+    
     private StreamingCall(Builder builder) {
         this.queryManagementService = builder.queryManagementService;
         this.queryMetricClient = builder.queryMetricClient;
@@ -42,6 +51,8 @@ public class StreamingCall implements Callable<Void> {
         this.queryId = builder.queryId;
         
         this.listener = builder.listener;
+        
+        this.pipelineProperties = (builder.pipelineProperties != null) ? builder.pipelineProperties : new StreamingPipelineProperties();
     }
     
     @Override
@@ -51,16 +62,13 @@ public class StreamingCall implements Callable<Void> {
         baseQueryMetricOverride.set(baseQueryMetric);
         
         try {
-            boolean isFinished = false;
-            do {
-                final BaseQueryResponse nextResponse = next(queryId, currentUser);
-                if (nextResponse != null) {
-                    onResponse(nextResponse);
-                    updateMetrics();
-                } else {
-                    isFinished = true;
-                }
-            } while (!isFinished);
+            if (pipelineProperties.isResultStreaming() && listener instanceof StreamingResultListener) {
+                streamResults();
+            } else if (pipelineProperties.isEnabled()) {
+                streamPipelined();
+            } else {
+                stream();
+            }
             
             listener.close();
             return null;
@@ -73,11 +81,138 @@ public class StreamingCall implements Callable<Void> {
         }
     }
     
+    private void stream() throws QueryException {
+        boolean isFinished = false;
+        do {
+            final BaseQueryResponse nextResponse = next(queryId, currentUser);
+            if (nextResponse != null) {
+                onResponse(nextResponse, getLastPageMetric());
+                updateMetrics();
+            } else {
+                isFinished = true;
+            }
+        } while (!isFinished);
+    }
+    
+    /**
+     * Streams the results as they are collected, rather than a page at a time.
+     * <p>
+     * The results are written to the listener in chunks by the next call itself, so by the time a page is returned all of its results have already been
+     * written. Since writing is interleaved with collection, the time spent writing results is included in the page call time rather than the serialization
+     * time.
+     */
+    private void streamResults() {
+        final StreamingResultListener resultListener = (StreamingResultListener) listener;
+        boolean isFinished = false;
+        do {
+            long startBytesWritten = getBytesWritten();
+            final BaseQueryResponse nextResponse = next(queryId, currentUser, resultListener);
+            if (nextResponse != null) {
+                BaseQueryMetric.PageMetric pageMetric = getLastPageMetric();
+                if (pageMetric != null) {
+                    pageMetric.setBytesWritten(getBytesWritten() - startBytesWritten);
+                }
+                updateMetrics();
+            } else {
+                isFinished = true;
+            }
+        } while (!isFinished);
+    }
+    
+    /**
+     * Streams the results using a pipeline of next calls.
+     * <p>
+     * Before each page is written to the listener, the following page(s) are requested so that results are collected while the current page is being
+     * written. New pages are only requested while there is room in the pipeline, so a slow client will hold off further next calls rather than causing pages
+     * to pile up in memory.
+     * <p>
+     * Every prefetched page is an outstanding next call, so the prefetch depth is capped at the number of next calls which may run concurrently for a query.
+     * <p>
+     * Note that with a prefetch depth greater than 1, the page metric updated for each page is the most recently completed page metric, which may not
+     * correspond exactly to the page being written.
+     *
+     * @throws QueryException
+     *             if there is an error getting or writing a page
+     */
+    private void streamPipelined() throws QueryException {
+        final int prefetchDepth = getPrefetchDepth();
+        final Deque<PendingPage> pipeline = new ArrayDeque<>(prefetchDepth);
+        boolean isFinished = false;
+        
+        pipeline.add(nextAsync());
+        try {
+            while (!pipeline.isEmpty()) {
+                final PendingPage pendingPage = pipeline.poll();
+                final BaseQueryResponse nextResponse = pendingPage.await();
+                if (nextResponse == null) {
+                    // stop requesting pages, but write any pages which are already in the pipeline
+                    isFinished = true;
+                    continue;
+                }
+                
+                BaseQueryMetric.PageMetric pageMetric = getLastPageMetric();
+                if (pageMetric != null) {
+                    pageMetric.setCallTime(pendingPage.getCallTimeMillis());
+                }
+                
+                // request the following page(s) before writing this one, so that they are collected while this page is being written
+                while (!isFinished && pipeline.size() < prefetchDepth) {
+                    pipeline.add(nextAsync());
+                }
+                
+                long writeStartTimeMillis = System.currentTimeMillis();
+                onResponse(nextResponse, pageMetric);
+                long writeStopTimeMillis = System.currentTimeMillis();
+                
+                // determine how much of the write overlapped with the collection of the following page
+                long overlapTimeMillis = 0L;
+                PendingPage followingPage = pipeline.peek();
+                if (followingPage != null) {
+                    long collectionStopTimeMillis = followingPage.isDone() ? followingPage.getCompleteTimeMillis() : writeStopTimeMillis;
+                    overlapTimeMillis = Math.max(0L, Math.min(collectionStopTimeMillis, writeStopTimeMillis) - writeStartTimeMillis);
+                }
+                pipelineStats.update(writeStopTimeMillis - writeStartTimeMillis, overlapTimeMillis, pendingPage.getWaitTimeMillis());
+                
+                updateMetrics();
+            }
+        } finally {
+            // if we failed, give up on any pages which are still being collected so that their results are returned to the queue
+            pipeline.forEach(PendingPage::cancel);
+        }
+        
+        log.info("Query {}: Streamed with prefetch depth {}. {}", queryId, prefetchDepth, pipelineStats);
+    }
+    
+    private int getPrefetchDepth() {
+        int prefetchDepth = pipelineProperties.getPrefetchDepth();
+        int maxConcurrentNextCalls = Math.max(1, queryManagementService.getMaxConcurrentNextCalls());
+        if (prefetchDepth > maxConcurrentNextCalls) {
+            log.warn("Query {}: Prefetch depth {} exceeds the next call concurrency of {}. Using a prefetch depth of {}.", queryId, prefetchDepth,
+                            maxConcurrentNextCalls, maxConcurrentNextCalls);
+            prefetchDepth = maxConcurrentNextCalls;
+        }
+        return prefetchDepth;
+    }
+    
+    private PendingPage nextAsync() {
+        CompletableFuture<BaseQueryResponse> future;
+        try {
+            future = queryManagementService.nextAsync(queryId, currentUser);
+        } catch (QueryException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return new PendingPage(future);
+    }
+    
     private BaseQueryResponse next(String queryId, DatawaveUserDetails currentUser) {
+        return next(queryId, currentUser, null);
+    }
+    
+    private BaseQueryResponse next(String queryId, DatawaveUserDetails currentUser, StreamingResultListener resultListener) {
         BaseQueryResponse nextResponse = null;
         try {
             long startTimeMillis = System.currentTimeMillis();
-            nextResponse = queryManagementService.next(queryId, currentUser);
+            nextResponse = queryManagementService.next(queryId, currentUser, resultListener, pipelineProperties.getResultChunkSize());
             long nextCallTimeMillis = System.currentTimeMillis() - startTimeMillis;
             
             BaseQueryMetric.PageMetric lastPageMetric = getLastPageMetric();
@@ -92,17 +227,16 @@ public class StreamingCall implements Callable<Void> {
         return nextResponse;
     }
     
-    private void onResponse(BaseQueryResponse nextResponse) throws QueryException {
+    private void onResponse(BaseQueryResponse nextResponse, BaseQueryMetric.PageMetric pageMetric) throws QueryException {
         try {
             long startBytesWritten = getBytesWritten();
             long startTimeMillis = System.currentTimeMillis();
             listener.onResponse(nextResponse);
             long serializationTimeMillis = System.currentTimeMillis() - startTimeMillis;
             
-            BaseQueryMetric.PageMetric lastPageMetric = getLastPageMetric();
-            if (lastPageMetric != null) {
-                lastPageMetric.setSerializationTime(serializationTimeMillis);
-                lastPageMetric.setBytesWritten(getBytesWritten() - startBytesWritten);
+            if (pageMetric != null) {
+                pageMetric.setSerializationTime(serializationTimeMillis);
+                pageMetric.setBytesWritten(getBytesWritten() - startBytesWritten);
             }
         } catch (IOException e) {
             throw new QueryException(DatawaveErrorCode.UNKNOWN_SERVER_ERROR, e, "Unknown error sending next page for query " + queryId);
@@ -120,11 +254,17 @@ public class StreamingCall implements Callable<Void> {
     private void updateMetrics() {
         // send out the metrics
         try {
+            BaseQueryMetric metric;
+            // Note: pipelined next calls may be updating the metric concurrently
+            synchronized (baseQueryMetric) {
+                metric = baseQueryMetric.duplicate();
+            }
+            
             // @formatter:off
             queryMetricClient.submit(
                     new QueryMetricClient.Request.Builder()
                             .withUser(serverUser)
-                            .withMetric(baseQueryMetric.duplicate())
+                            .withMetric(metric)
                             .withMetricType(QueryMetricType.DISTRIBUTED)
                             .build());
             // @formatter:on
@@ -135,13 +275,131 @@ public class StreamingCall implements Callable<Void> {
     
     private BaseQueryMetric.PageMetric getLastPageMetric() {
         BaseQueryMetric.PageMetric pageMetric = null;
-        List<BaseQueryMetric.PageMetric> pageTimes = baseQueryMetric.getPageTimes();
-        if (!pageTimes.isEmpty()) {
-            pageMetric = pageTimes.get(pageTimes.size() - 1);
+        synchronized (baseQueryMetric) {
+            List<BaseQueryMetric.PageMetric> pageTimes = baseQueryMetric.getPageTimes();
+            if (!pageTimes.isEmpty()) {
+                pageMetric = pageTimes.get(pageTimes.size() - 1);
+            }
         }
         return pageMetric;
     }
     
+    public PipelineStats getPipelineStats() {
+        return pipelineStats;
+    }
+    
+    /**
+     * A page which has been requested from the pipeline, but may not have been collected yet.
+     */
+    private class PendingPage {
+        private final long startTimeMillis = System.currentTimeMillis();
+        private volatile long completeTimeMillis = -1L;
+        private long waitTimeMillis = 0L;
+        private final CompletableFuture<BaseQueryResponse> future;
+        
+        public PendingPage(CompletableFuture<BaseQueryResponse> future) {
+            this.future = future.whenComplete((response, throwable) -> completeTimeMillis = System.currentTimeMillis());
+        }
+        
+        /**
+         * Waits for the page to be collected.
+         *
+         * @return the page, or null if there are no more results
+         * @throws QueryException
+         *             if the page could not be collected
+         */
+        public BaseQueryResponse await() throws QueryException {
+            BaseQueryResponse response = null;
+            long waitStartTimeMillis = System.currentTimeMillis();
+            try {
+                response = future.get();
+            } catch (InterruptedException e) {
+                log.info("Interrupted while getting results for query '{}'", queryId);
+                Thread.currentThread().interrupt();
+                throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, "Interrupted while getting results for query " + queryId);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof NoResultsQueryException) {
+                    log.debug("No results found for query '{}'", queryId);
+                } else {
+                    log.info("Encountered error while getting results for query '{}'", queryId);
+                    if (e.getCause() instanceof QueryException) {
+                        throw (QueryException) e.getCause();
+                    }
+                    throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e.getCause(), "Unknown error getting results for query " + queryId);
+                }
+            } finally {
+                waitTimeMillis = System.currentTimeMillis() - waitStartTimeMillis;
+            }
+            return response;
+        }
+        
+        public void cancel() {
+            future.cancel(false);
+        }
+        
+        public boolean isDone() {
+            return future.isDone();
+        }
+        
+        public long getCallTimeMillis() {
+            return completeTimeMillis - startTimeMillis;
+        }
+        
+        public long getCompleteTimeMillis() {
+            return completeTimeMillis;
+        }
+        
+        public long getWaitTimeMillis() {
+            return waitTimeMillis;
+        }
+    }
+    
+    /**
+     * Statistics describing how well the collection of results overlapped with the writing of pages for a pipelined streaming call.
+     */
+    public static class PipelineStats {
+        private int numPages;
+        private long writeTimeMillis;
+        private long overlapTimeMillis;
+        private long waitTimeMillis;
+        
+        private synchronized void update(long pageWriteTimeMillis, long pageOverlapTimeMillis, long pageWaitTimeMillis) {
+            numPages++;
+            writeTimeMillis += pageWriteTimeMillis;
+            overlapTimeMillis += pageOverlapTimeMillis;
+            waitTimeMillis += pageWaitTimeMillis;
+        }
+        
+        public synchronized int getNumPages() {
+            return numPages;
+        }
+        
+        // the total amount of time spent writing pages
+        public synchronized long getWriteTimeMillis() {
+            return writeTimeMillis;
+        }
+        
+        // the amount of write time during which the following page was being collected
+        public synchronized long getOverlapTimeMillis() {
+            return overlapTimeMillis;
+        }
+        
+        // the total amount of time spent waiting for pages to be collected
+        public synchronized long getWaitTimeMillis() {
+            return waitTimeMillis;
+        }
+        
+        public synchronized double getOverlapRatio() {
+            return (writeTimeMillis > 0) ? (double) overlapTimeMillis / writeTimeMillis : 0.0;
+        }
+        
+        @Override
+        public synchronized String toString() {
+            return "Pages: " + numPages + ", write time: " + writeTimeMillis + "ms, overlapped write time: " + overlapTimeMillis + "ms ("
+                            + Math.round(100 * getOverlapRatio()) + "%), wait time: " + waitTimeMillis + "ms";
+        }
+    }
+    
     public static class Builder {
         private QueryManagementService queryManagementService;
         private QueryMetricClient queryMetricClient;
@@ -152,6 +410,8 @@ public class StreamingCall implements Callable<Void> {
         
         private StreamingResponseListener listener;
         
+        private StreamingPipelineProperties pipelineProperties;
+        
         public Builder setQueryManagementService(QueryManagementService queryManagementService) {
             this.queryManagementService = queryManagementService;
             return this;
@@ -182,6 +442,11 @@ public class StreamingCall implements Callable<Void> {
             return this;
         }
         
+        public Builder setPipelineProperties(StreamingPipelineProperties pipelineProperties) {
+            this.pipelineProperties = pipelineProperties;
+            return this;
+        }
+        
         public StreamingCall build() {
             return new StreamingCall(this);
         }
@@ -0,0 +1,37 @@
+package datawave.microservice.query.util;
+
+import datawave.webservice.result.EventQueryResponseBase;
+
+/**
+ * Helpers for working with event query responses.
+ */
+public class EventQueryResponseUtil {
+    
+    private EventQueryResponseUtil() {}
+    
+    /**
+     * Merges the next response into the merged response.
+     *
+     * @param mergedResponse
+     *            the response merged so far, may be null
+     * @param nextResponse
+     *            the response to merge, may be null
+     * @return the merged response, or the next response if nothing has been merged yet
+     */
+    public static EventQueryResponseBase merge(EventQueryResponseBase mergedResponse, EventQueryResponseBase nextResponse) {
+        if (nextResponse != null) {
+            // Prevent NPE due to attempted merge when total events is null
+            if (nextResponse.getTotalEvents() == null) {
+                final Long totalEvents = nextResponse.getReturnedEvents();
+                nextResponse.setTotalEvents((totalEvents != null) ? totalEvents : 0L);
+            }
+            
+            if (mergedResponse == null) {
+                mergedResponse = nextResponse;
+            } else {
+                mergedResponse.merge(nextResponse);
+            }
+        }
+        return mergedResponse;
+    }
+}
@@ -103,9 +103,26 @@ public abstract class BaseMethodStatsFilter extends OncePerRequestFilter {
         }
     }
     
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // deferred responses are post processed during the async dispatch
+        return false;
+    }
+    
     @Override
     public void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain chain)
                     throws IOException, ServletException {
+        if (isAsyncDispatch(request)) {
+            if (baseMethodStatsContext.isDeferredResponse() && baseMethodStatsContext.getCountingHttpServletResponseWrapper() != null) {
+                CountingHttpServletResponseWrapper countingResponse = baseMethodStatsContext.getCountingHttpServletResponseWrapper();
+                chain.doFilter(request, countingResponse);
+                postProcess(request, countingResponse);
+            } else {
+                chain.doFilter(request, response);
+            }
+            return;
+        }
+        
         preProcess(request, response);
         
         if (!(response instanceof CountingHttpServletResponseWrapper)) {
@@ -116,7 +133,11 @@ public abstract class BaseMethodStatsFilter extends OncePerRequestFilter {
         }
         
         chain.doFilter(request, response);
-        postProcess(request, response);
+        
+        // a deferred response is not complete until the async dispatch
+        if (!(baseMethodStatsContext.isDeferredResponse() && isAsyncStarted(request))) {
+            postProcess(request, response);
+        }
     }
     
     public void preProcess(HttpServletRequest request, HttpServletResponse response) {
@@ -281,6 +302,7 @@ public abstract class BaseMethodStatsFilter extends OncePerRequestFilter {
         private RequestMethodStats requestStats;
         private ResponseMethodStats responseStats;
         private CountingHttpServletResponseWrapper countingHttpServletResponseWrapper;
+        private boolean deferredResponse;
         
         public RequestMethodStats getRequestStats() {
             return requestStats;
@@ -306,6 +328,21 @@ public abstract class BaseMethodStatsFilter extends OncePerRequestFilter {
             this.countingHttpServletResponseWrapper = countingHttpServletResponseWrapper;
         }
         
+        public boolean isDeferredResponse() {
+            return deferredResponse;
+        }
+        
+        /**
+         * Indicates that the response will be produced asynchronously (e.g. via a {@link org.springframework.web.context.request.async.DeferredResult}), and
+         * that the response stats should be computed when the async dispatch completes rather than when the request thread returns.
+         *
+         * @param deferredResponse
+         *            whether the response is deferred
+         */
+        public void setDeferredResponse(boolean deferredResponse) {
+            this.deferredResponse = deferredResponse;
+        }
+        
         public CountingResponseBodyEmitter createCountingResponseBodyEmitter(Long timeout) {
             return new CountingResponseBodyEmitter(timeout, countingHttpServletResponseWrapper);
         }
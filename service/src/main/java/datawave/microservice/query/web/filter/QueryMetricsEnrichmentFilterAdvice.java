@@ -1,6 +1,5 @@
 package datawave.microservice.query.web.filter;
 
-import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
@@ -22,8 +21,8 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 import datawave.core.query.logic.QueryLogic;
 import datawave.core.query.logic.QueryLogicFactory;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.LocalQueryStatusCache;
 import datawave.microservice.query.storage.QueryStatus;
-import datawave.microservice.query.storage.QueryStorageCache;
 import datawave.microservice.query.web.annotation.EnrichQueryMetrics;
 import datawave.microservice.querymetric.BaseQueryMetric;
 import datawave.microservice.querymetric.QueryMetricClient;
@@ -38,7 +37,7 @@ public class QueryMetricsEnrichmentFilterAdvice extends BaseMethodStatsFilter im
     
     private final QueryLogicFactory queryLogicFactory;
     
-    private final QueryStorageCache queryStorageCache;
+    private final LocalQueryStatusCache queryStatusCache;
     
     private final QueryMetricClient queryMetricClient;
     
@@ -48,10 +47,10 @@ public class QueryMetricsEnrichmentFilterAdvice extends BaseMethodStatsFilter im
     // Note: QueryMetricsEnrichmentContext needs to be request scoped
     private final QueryMetricsEnrichmentContext queryMetricsEnrichmentContext;
     
-    public QueryMetricsEnrichmentFilterAdvice(QueryLogicFactory queryLogicFactory, QueryStorageCache queryStorageCache, QueryMetricClient queryMetricClient,
+    public QueryMetricsEnrichmentFilterAdvice(QueryLogicFactory queryLogicFactory, LocalQueryStatusCache queryStatusCache, QueryMetricClient queryMetricClient,
                     BaseQueryMetric baseQueryMetric, QueryMetricsEnrichmentContext queryMetricsEnrichmentContext) {
         this.queryLogicFactory = queryLogicFactory;
-        this.queryStorageCache = queryStorageCache;
+        this.queryStatusCache = queryStatusCache;
         this.queryMetricClient = queryMetricClient;
         this.baseQueryMetric = baseQueryMetric;
         this.queryMetricsEnrichmentContext = queryMetricsEnrichmentContext;
@@ -60,11 +59,11 @@ public class QueryMetricsEnrichmentFilterAdvice extends BaseMethodStatsFilter im
     @Override
     public boolean supports(MethodParameter returnType, @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
         boolean supports = false;
-        EnrichQueryMetrics annotation = (EnrichQueryMetrics) Arrays.stream(returnType.getMethodAnnotations()).filter(EnrichQueryMetrics.class::isInstance)
-                        .findAny().orElse(null);
+        // Note: for deferred results, the return type will reflect the async result, and the annotation will be that of the original handler method
+        EnrichQueryMetrics annotation = returnType.getMethodAnnotation(EnrichQueryMetrics.class);
         if (annotation != null) {
             try {
-                Class<?> returnClass = Objects.requireNonNull(returnType.getMethod()).getReturnType();
+                Class<?> returnClass = Objects.requireNonNull(returnType.getParameterType());
                 if (GenericResponse.class.isAssignableFrom(returnClass)) {
                     supports = true;
                     queryMetricsEnrichmentContext.setMethodType(annotation.methodType());
@@ -110,7 +109,7 @@ public class QueryMetricsEnrichmentFilterAdvice extends BaseMethodStatsFilter im
             if (baseQueryMetric.getQueryLogic() != null) {
                 queryLogic = baseQueryMetric.getQueryLogic();
             } else {
-                QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+                QueryStatus queryStatus = queryStatusCache.getQueryStatus(queryId);
                 if (queryStatus != null) {
                     queryLogic = queryStatus.getQuery().getQueryLogicName();
                 }
@@ -18,6 +18,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +27,7 @@ import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.apache.http.NameValuePair;
@@ -74,6 +77,7 @@ import datawave.marking.ColumnVisibilitySecurityMarking;
 import datawave.microservice.audit.AuditClient;
 import datawave.microservice.authorization.jwt.JWTRestTemplate;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.config.BulkOperationProperties;
 import datawave.microservice.query.config.QueryProperties;
 import datawave.microservice.query.messaging.QueryResultsManager;
 import datawave.microservice.query.messaging.QueryResultsPublisher;
@@ -133,12 +137,20 @@ public abstract class AbstractQueryServiceTest {
     @Autowired
     protected QueryProperties queryProperties;
     
+    @Autowired
+    protected BulkOperationProperties bulkOperationProperties;
+    
     @Autowired
     protected LinkedList<RemoteQueryRequestEvent> queryRequestEvents;
     
+    @Autowired
+    protected LinkedList<Consumer<RemoteQueryRequestEvent>> queryRequestEventHandlers;
+    
     protected List<String> auditIds;
     protected MockRestServiceServer mockServer;
     
+    private int bulkOperationParallelism;
+    
     @BeforeEach
     public void setup() {
         auditIds = new ArrayList<>();
@@ -152,12 +164,18 @@ public abstract class AbstractQueryServiceTest {
         mockServer = MockRestServiceServer.createServer(auditorRestTemplate);
         
         queryRequestEvents.clear();
+        queryRequestEventHandlers.clear();
+        
+        bulkOperationParallelism = bulkOperationProperties.getParallelism();
     }
     
     @AfterEach
     public void teardown() throws Exception {
         queryStorageCache.clear();
         queryRequestEvents.clear();
+        queryRequestEventHandlers.clear();
+        
+        bulkOperationProperties.setParallelism(bulkOperationParallelism);
     }
     
     protected void publishEventsToQueue(String queryId, int numEvents, MultiValueMap<String,String> fieldValues, String visibility) throws Exception {
@@ -197,13 +215,33 @@ public abstract class AbstractQueryServiceTest {
     }
     
     protected Future<ResponseEntity<DefaultEventQueryResponse>> nextQuery(DatawaveUserDetails authUser, String queryId) {
-        UriComponents uri = createUri(queryId + "/next");
+        return nextQuery(authUser, queryId, "next");
+    }
+    
+    protected Future<ResponseEntity<DefaultEventQueryResponse>> nextQueryAsync(DatawaveUserDetails authUser, String queryId) {
+        return nextQuery(authUser, queryId, "nextAsync");
+    }
+    
+    protected Future<ResponseEntity<DefaultEventQueryResponse>> nextQuery(DatawaveUserDetails authUser, String queryId, String nextMethod) {
+        UriComponents uri = createUri(queryId + "/" + nextMethod);
         RequestEntity requestEntity = jwtRestTemplate.createRequestEntity(authUser, null, null, HttpMethod.GET, uri);
         
         // make the next call asynchronously
         return Executors.newSingleThreadExecutor().submit(() -> jwtRestTemplate.exchange(requestEntity, DefaultEventQueryResponse.class));
     }
     
+    protected Future<ResponseEntity<DefaultEventQueryResponse>> createAndNextQueryAsync(DatawaveUserDetails authUser, MultiValueMap<String,String> map) {
+        UriComponents uri = createUri("EventQuery/createAndNextAsync");
+        
+        // not testing audit with this method
+        auditIgnoreSetup();
+        
+        RequestEntity<MultiValueMap<String,String>> requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, uri);
+        
+        // make the create and next call asynchronously
+        return Executors.newSingleThreadExecutor().submit(() -> jwtRestTemplate.exchange(requestEntity, DefaultEventQueryResponse.class));
+    }
+    
     protected Future<ResponseEntity<VoidResponse>> adminCloseQuery(DatawaveUserDetails authUser, String queryId) {
         return stopQuery(authUser, queryId, "adminClose");
     }
@@ -295,6 +333,23 @@ public abstract class AbstractQueryServiceTest {
     }
     
     protected Future<ResponseEntity<QueryImplListResponse>> listQueries(DatawaveUserDetails authUser, String queryId, String queryName) {
+        return listQueries(authUser, queryId, queryName, null, null);
+    }
+    
+    protected Future<ResponseEntity<QueryImplListResponse>> listQueries(DatawaveUserDetails authUser, String queryId, String queryName, Integer pageNumber,
+                    Integer pageSize) {
+        MultiValueMap<String,String> listParams = new LinkedMultiValueMap<>();
+        if (pageNumber != null) {
+            listParams.set("pageNumber", String.valueOf(pageNumber));
+        }
+        if (pageSize != null) {
+            listParams.set("pageSize", String.valueOf(pageSize));
+        }
+        return listQueries(authUser, queryId, queryName, listParams);
+    }
+    
+    protected Future<ResponseEntity<QueryImplListResponse>> listQueries(DatawaveUserDetails authUser, String queryId, String queryName,
+                    MultiValueMap<String,String> listParams) {
         UriComponentsBuilder uriBuilder = uriBuilder("/list");
         if (queryId != null) {
             uriBuilder.queryParam("queryId", queryId);
@@ -302,6 +357,7 @@ public abstract class AbstractQueryServiceTest {
         if (queryName != null) {
             uriBuilder.queryParam("queryName", queryName);
         }
+        uriBuilder.queryParams(listParams);
         UriComponents uri = uriBuilder.build();
         
         RequestEntity requestEntity = jwtRestTemplate.createRequestEntity(authUser, null, null, HttpMethod.GET, uri);
@@ -414,6 +470,21 @@ public abstract class AbstractQueryServiceTest {
         Assertions.assertEquals(method, queryRequestEvent.getRequest().getMethod());
     }
     
+    // the events published by a parallel bulk operation can arrive in any order, so this removes every event with the given destination and method, and
+    // verifies that there is exactly one for each of the given queries
+    protected void assertQueryRequestEvents(String destination, QueryRequest.Method method, Collection<String> queryIds) {
+        List<String> eventQueryIds = new ArrayList<>();
+        for (Iterator<RemoteQueryRequestEvent> iter = queryRequestEvents.iterator(); iter.hasNext();) {
+            RemoteQueryRequestEvent queryRequestEvent = iter.next();
+            if (destination.equals(queryRequestEvent.getDestinationService()) && method == queryRequestEvent.getRequest().getMethod()) {
+                eventQueryIds.add(queryRequestEvent.getRequest().getQueryId());
+                iter.remove();
+            }
+        }
+        Assertions.assertEquals(queryIds.size(), eventQueryIds.size());
+        Assertions.assertEquals(new HashSet<>(queryIds), new HashSet<>(eventQueryIds));
+    }
+    
     protected void assertQueryStatus(QueryStatus.QUERY_STATE queryState, long numResultsReturned, long numResultsGenerated, long activeNextCalls,
                     long lastPageNumber, long lastCallTimeMillis, QueryStatus queryStatus) {
         Assertions.assertEquals(queryState, queryStatus.getQueryState());
@@ -547,6 +618,12 @@ public abstract class AbstractQueryServiceTest {
             return new LinkedList<>();
         }
         
+        // lets a test react to a query request synchronously, the way the executor service would
+        @Bean
+        public LinkedList<Consumer<RemoteQueryRequestEvent>> queryRequestEventHandlers() {
+            return new LinkedList<>();
+        }
+        
         @Bean
         @Primary
         public ApplicationEventPublisher eventPublisher(@Lazy QueryManagementService queryManagementService, ServiceMatcher serviceMatcher) {
@@ -565,7 +642,11 @@ public abstract class AbstractQueryServiceTest {
                 
                 private void saveEvent(Object event) {
                     if (event instanceof RemoteQueryRequestEvent) {
-                        queryRequestEvents().push(((RemoteQueryRequestEvent) event));
+                        // bulk admin operations can publish events from several threads at once
+                        synchronized (queryRequestEvents()) {
+                            queryRequestEvents().push(((RemoteQueryRequestEvent) event));
+                        }
+                        queryRequestEventHandlers().forEach(handler -> handler.accept((RemoteQueryRequestEvent) event));
                     }
                 }
                 
@@ -0,0 +1,89 @@
+package datawave.microservice.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.query.config.BulkOperationProperties;
+
+public class BulkQueryOperationTest {
+    
+    private static final List<String> QUERY_IDS = Arrays.asList("query0", "query1", "query2", "query3", "query4", "query5", "query6", "query7");
+    
+    private final Set<String> appliedQueryIds = ConcurrentHashMap.newKeySet();
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    
+    @Test
+    public void testSerial() throws Exception {
+        BulkQueryOperation bulkQueryOperation = new BulkQueryOperation("test", createProperties(1), QUERY_IDS);
+        
+        // odd queries are skipped
+        List<String> queryIds = bulkQueryOperation.run(queryId -> apply(queryId, Collections.emptyList()));
+        
+        Assertions.assertEquals(Arrays.asList("query0", "query2", "query4", "query6"), queryIds);
+        Assertions.assertEquals(Collections.singleton(Thread.currentThread()), threads);
+        Assertions.assertEquals(8, bulkQueryOperation.getNumSucceeded());
+        Assertions.assertEquals(0, bulkQueryOperation.getNumFailed());
+    }
+    
+    @Test
+    public void testParallel() throws Exception {
+        BulkQueryOperation bulkQueryOperation = new BulkQueryOperation("test", createProperties(4), QUERY_IDS);
+        
+        List<String> queryIds = bulkQueryOperation.run(queryId -> apply(queryId, Collections.emptyList()));
+        
+        // the applied queries come back in query order regardless of which thread handled them
+        Assertions.assertEquals(Arrays.asList("query0", "query2", "query4", "query6"), queryIds);
+        Assertions.assertFalse(threads.contains(Thread.currentThread()));
+        Assertions.assertEquals(8, bulkQueryOperation.getNumCompleted());
+    }
+    
+    @Test
+    public void testSerialFailure() {
+        assertFailure(new BulkQueryOperation("test", createProperties(1), QUERY_IDS));
+    }
+    
+    @Test
+    public void testParallelFailure() {
+        assertFailure(new BulkQueryOperation("test", createProperties(4), QUERY_IDS));
+    }
+    
+    private void assertFailure(BulkQueryOperation bulkQueryOperation) {
+        Exception e = Assertions.assertThrows(IllegalStateException.class,
+                        () -> bulkQueryOperation.run(queryId -> apply(queryId, Arrays.asList("query5", "query2"))));
+        
+        // a failure doesn't stop the operation, and the first failure in query order is the one that is rethrown
+        Assertions.assertEquals("query2", e.getMessage());
+        Assertions.assertEquals(QUERY_IDS, sorted(appliedQueryIds));
+        Assertions.assertEquals(6, bulkQueryOperation.getNumSucceeded());
+        Assertions.assertEquals(2, bulkQueryOperation.getNumFailed());
+        Assertions.assertEquals(8, bulkQueryOperation.getNumCompleted());
+    }
+    
+    private boolean apply(String queryId, List<String> failedQueryIds) {
+        appliedQueryIds.add(queryId);
+        threads.add(Thread.currentThread());
+        if (failedQueryIds.contains(queryId)) {
+            throw new IllegalStateException(queryId);
+        }
+        return QUERY_IDS.indexOf(queryId) % 2 == 0;
+    }
+    
+    private static List<String> sorted(Set<String> queryIds) {
+        List<String> sortedQueryIds = new ArrayList<>(queryIds);
+        Collections.sort(sortedQueryIds);
+        return sortedQueryIds;
+    }
+    
+    private static BulkOperationProperties createProperties(int parallelism) {
+        BulkOperationProperties bulkOperationProperties = new BulkOperationProperties();
+        bulkOperationProperties.setParallelism(parallelism);
+        return bulkOperationProperties;
+    }
+}
@@ -0,0 +1,209 @@
+package datawave.microservice.query;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.google.common.base.Ticker;
+
+import datawave.microservice.query.config.QueryStatusCacheProperties;
+import datawave.microservice.query.storage.QueryKey;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.storage.QueryStorageCache;
+
+public class LocalQueryStatusCacheTest {
+    
+    private final Map<String,QueryStatus> storage = new HashMap<>();
+    private final AtomicInteger numStorageReads = new AtomicInteger();
+    private final AtomicLong nanos = new AtomicLong();
+    private ExecutorService executor;
+    
+    @BeforeEach
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+        storage.put("query", createStatus("query", QueryStatus.QUERY_STATE.CREATE));
+    }
+    
+    @AfterEach
+    public void teardown() {
+        RequestContextHolder.resetRequestAttributes();
+        executor.shutdownNow();
+    }
+    
+    @Test
+    public void testMemoSharedWithAsyncThreads() throws Exception {
+        LocalQueryStatusCache queryStatusCache = createQueryStatusCache(0);
+        RequestAttributes requestAttributes = bindRequest();
+        
+        QueryStatus queryStatus = queryStatusCache.getQueryStatus("query");
+        Assertions.assertEquals(1, numStorageReads.get());
+        
+        // an async thread working on behalf of the same request sees the memoized status
+        // @formatter:off
+        QueryStatus asyncQueryStatus = CompletableFuture.supplyAsync(() -> {
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                return queryStatusCache.getQueryStatus("query");
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        }, executor).get();
+        // @formatter:on
+        
+        Assertions.assertSame(queryStatus, asyncQueryStatus);
+        Assertions.assertEquals(1, numStorageReads.get());
+        Assertions.assertEquals(1, queryStatusCache.getNumMemoHits());
+        Assertions.assertEquals(0, queryStatusCache.getNumCacheHits());
+        Assertions.assertEquals(1, queryStatusCache.getNumMisses());
+        
+        // but another request has a memo of its own
+        bindRequest();
+        queryStatusCache.getQueryStatus("query");
+        Assertions.assertEquals(2, numStorageReads.get());
+        Assertions.assertEquals(2, queryStatusCache.getNumMisses());
+    }
+    
+    @Test
+    public void testNoMemoWithoutRequest() {
+        LocalQueryStatusCache queryStatusCache = createQueryStatusCache(0);
+        
+        queryStatusCache.getQueryStatus("query");
+        queryStatusCache.getQueryStatus("query");
+        
+        Assertions.assertEquals(2, numStorageReads.get());
+        Assertions.assertEquals(0, queryStatusCache.getNumMemoHits());
+        Assertions.assertEquals(2, queryStatusCache.getNumMisses());
+    }
+    
+    @Test
+    public void testMissingQueryNotCached() {
+        LocalQueryStatusCache queryStatusCache = createQueryStatusCache(10);
+        bindRequest();
+        
+        Assertions.assertNull(queryStatusCache.getQueryStatus("unknown"));
+        Assertions.assertNull(queryStatusCache.getQueryStatus("unknown"));
+        
+        Assertions.assertEquals(2, numStorageReads.get());
+        Assertions.assertEquals(0, queryStatusCache.getSize());
+    }
+    
+    @Test
+    public void testUpdate() {
+        LocalQueryStatusCache queryStatusCache = createQueryStatusCache(10);
+        bindRequest();
+        queryStatusCache.getQueryStatus("query");
+        
+        // the status returned by a locked update replaces the cached status in both the memo and the cache
+        QueryStatus updatedStatus = createStatus("query", QueryStatus.QUERY_STATE.CLOSE);
+        queryStatusCache.update(updatedStatus);
+        Assertions.assertSame(updatedStatus, queryStatusCache.getQueryStatus("query"));
+        
+        RequestContextHolder.resetRequestAttributes();
+        Assertions.assertSame(updatedStatus, queryStatusCache.getQueryStatus("query"));
+        
+        Assertions.assertEquals(1, numStorageReads.get());
+        Assertions.assertEquals(1, queryStatusCache.getNumMemoHits());
+        Assertions.assertEquals(1, queryStatusCache.getNumCacheHits());
+    }
+    
+    @Test
+    public void testInvalidate() {
+        LocalQueryStatusCache queryStatusCache = createQueryStatusCache(10);
+        bindRequest();
+        queryStatusCache.getQueryStatus("query");
+        
+        // another service changes the query, and then sends a query request event for it
+        storage.put("query", createStatus("query", QueryStatus.QUERY_STATE.FAIL));
+        Assertions.assertEquals(QueryStatus.QUERY_STATE.CREATE, queryStatusCache.getQueryStatus("query").getQueryState());
+        queryStatusCache.invalidate("query");
+        
+        // the next read comes from storage, for this request and for any other request
+        Assertions.assertEquals(QueryStatus.QUERY_STATE.FAIL, queryStatusCache.getQueryStatus("query").getQueryState());
+        Assertions.assertEquals(2, numStorageReads.get());
+        
+        bindRequest();
+        Assertions.assertEquals(QueryStatus.QUERY_STATE.FAIL, queryStatusCache.getQueryStatus("query").getQueryState());
+        Assertions.assertEquals(2, numStorageReads.get());
+        Assertions.assertEquals(1, queryStatusCache.getNumCacheHits());
+    }
+    
+    @Test
+    public void testTimeToLive() {
+        LocalQueryStatusCache queryStatusCache = createQueryStatusCache(10);
+        
+        queryStatusCache.getQueryStatus("query");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1) - 1);
+        queryStatusCache.getQueryStatus("query");
+        Assertions.assertEquals(1, numStorageReads.get());
+        Assertions.assertEquals(1, queryStatusCache.getNumCacheHits());
+        
+        // once the time to live has passed, the status is read from storage again
+        nanos.incrementAndGet();
+        queryStatusCache.getQueryStatus("query");
+        Assertions.assertEquals(2, numStorageReads.get());
+        Assertions.assertEquals(2, queryStatusCache.getNumMisses());
+    }
+    
+    @Test
+    public void testMaxSize() {
+        LocalQueryStatusCache queryStatusCache = createQueryStatusCache(1);
+        storage.put("other", createStatus("other", QueryStatus.QUERY_STATE.CREATE));
+        
+        queryStatusCache.getQueryStatus("query");
+        queryStatusCache.getQueryStatus("other");
+        
+        Assertions.assertEquals(1, queryStatusCache.getSize());
+    }
+    
+    private LocalQueryStatusCache createQueryStatusCache(int maxSize) {
+        QueryStatusCacheProperties queryStatusCacheProperties = new QueryStatusCacheProperties();
+        queryStatusCacheProperties.setMaxSize(maxSize);
+        queryStatusCacheProperties.setTimeToLive(1);
+        queryStatusCacheProperties.setTimeToLiveUnit(TimeUnit.SECONDS);
+        
+        Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+        return new LocalQueryStatusCache(createQueryStorageCache(), queryStatusCacheProperties, ticker);
+    }
+    
+    private QueryStorageCache createQueryStorageCache() {
+        return (QueryStorageCache) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {QueryStorageCache.class}, (proxy, method, args) -> {
+            if (method.getName().equals("getQueryStatus") && args != null && args.length == 1) {
+                numStorageReads.incrementAndGet();
+                return storage.get((String) args[0]);
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+    
+    private static RequestAttributes bindRequest() {
+        RequestAttributes requestAttributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        return requestAttributes;
+    }
+    
+    private static QueryStatus createStatus(String queryId, QueryStatus.QUERY_STATE queryState) {
+        QueryStatus queryStatus = new QueryStatus(new QueryKey("default", queryId, "EventQuery"));
+        queryStatus.setQueryState(queryState);
+        return queryStatus;
+    }
+}
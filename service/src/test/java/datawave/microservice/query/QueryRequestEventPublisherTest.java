@@ -0,0 +1,78 @@
+package datawave.microservice.query;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.bus.event.RemoteQueryRequestEvent;
+
+import datawave.microservice.query.config.BusEventProperties;
+import datawave.microservice.query.remote.QueryRequest;
+
+public class QueryRequestEventPublisherTest {
+    
+    @Test
+    public void testPublishImmediatelyByDefault() {
+        List<Object> events = new CopyOnWriteArrayList<>();
+        QueryRequestEventPublisher publisher = new QueryRequestEventPublisher(events::add, new BusEventProperties());
+        
+        publisher.publish(createEvent("executor-pool1", QueryRequest.next("query1")));
+        publisher.publish(createEvent("executor-pool1", QueryRequest.next("query1")));
+        
+        Assertions.assertEquals(2, events.size());
+        Assertions.assertEquals(0, publisher.getNumEventsCoalesced());
+        publisher.shutdown();
+    }
+    
+    @Test
+    public void testCoalesceDuplicateRequests() throws Exception {
+        List<Object> events = new CopyOnWriteArrayList<>();
+        BusEventProperties busEventProperties = new BusEventProperties();
+        busEventProperties.setCoalesceWindow(1);
+        busEventProperties.setCoalesceWindowUnit(TimeUnit.HOURS);
+        QueryRequestEventPublisher publisher = new QueryRequestEventPublisher(events::add, busEventProperties);
+        
+        publisher.publish(createEvent("executor-pool1", QueryRequest.next("query1")));
+        publisher.publish(createEvent("executor-pool1", QueryRequest.next("query2")));
+        publisher.publish(createEvent("executor-pool1", QueryRequest.next("query1")));
+        publisher.publish(createEvent("executor-pool2", QueryRequest.next("query1")));
+        publisher.publish(createEvent("executor-pool1", QueryRequest.next("query1")));
+        
+        // cancel and create requests are never held
+        publisher.publish(createEvent("executor-pool1", QueryRequest.cancel("query1")));
+        publisher.publish(createEvent("executor-pool1", QueryRequest.create("query3")));
+        Assertions.assertEquals(2, events.size());
+        
+        publisher.flush();
+        
+        Assertions.assertEquals(5, events.size());
+        Assertions.assertEquals(7, publisher.getNumRequests());
+        Assertions.assertEquals(5, publisher.getNumEventsPublished());
+        Assertions.assertEquals(2, publisher.getNumEventsCoalesced());
+        
+        // held events are published in the order that they were first requested
+        assertEvent("executor-pool1", QueryRequest.Method.CANCEL, "query1", events.get(0));
+        assertEvent("executor-pool1", QueryRequest.Method.CREATE, "query3", events.get(1));
+        assertEvent("executor-pool1", QueryRequest.Method.NEXT, "query1", events.get(2));
+        assertEvent("executor-pool1", QueryRequest.Method.NEXT, "query2", events.get(3));
+        assertEvent("executor-pool2", QueryRequest.Method.NEXT, "query1", events.get(4));
+        
+        // once flushed, the same request can be published again
+        publisher.publish(createEvent("executor-pool1", QueryRequest.next("query1")));
+        publisher.shutdown();
+        Assertions.assertEquals(6, events.size());
+    }
+    
+    private RemoteQueryRequestEvent createEvent(String destination, QueryRequest queryRequest) {
+        return new RemoteQueryRequestEvent(this, "query:test", destination, queryRequest);
+    }
+    
+    private void assertEvent(String destination, QueryRequest.Method method, String queryId, Object event) {
+        RemoteQueryRequestEvent queryRequestEvent = (RemoteQueryRequestEvent) event;
+        Assertions.assertEquals(destination, queryRequestEvent.getDestinationService());
+        Assertions.assertEquals(method, queryRequestEvent.getRequest().getMethod());
+        Assertions.assertEquals(queryId, queryRequestEvent.getRequest().getQueryId());
+    }
+}
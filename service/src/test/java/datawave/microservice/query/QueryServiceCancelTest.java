@@ -192,7 +192,7 @@ public class QueryServiceCancelTest extends AbstractQueryServiceTest {
                 "404-1",
                 Iterables.getOnlyElement(cancelResponse.getBody().getExceptions()));
         // @formatter:on
-        
+    
     }
     
     @Test
@@ -434,6 +434,61 @@ public class QueryServiceCancelTest extends AbstractQueryServiceTest {
         Assertions.assertEquals(0, queryRequestEvents.size());
     }
     
+    @Test
+    public void testAdminCancelAllSuccess_parallel() throws Exception {
+        DatawaveUserDetails adminUser = createUserDetails(Arrays.asList("AuthorizedUser", "Administrator"), null);
+        
+        // create a bunch of queries
+        List<String> queryIds = new ArrayList<>();
+        long currentTimeMillis = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            String queryId = createQuery(adminUser, createParams());
+            mockServer.reset();
+            
+            queryIds.add(queryId);
+        }
+        assertQueryRequestEvents("executor-unassigned:**", QueryRequest.Method.CREATE, queryIds);
+        
+        // cancel the queries on several threads at once
+        bulkOperationProperties.setParallelism(4);
+        
+        // cancel all queries as the admin user
+        Future<ResponseEntity<VoidResponse>> cancelFuture = adminCancelAllQueries(adminUser);
+        
+        // the response should come back right away
+        ResponseEntity<VoidResponse> cancelResponse = cancelFuture.get();
+        
+        Assertions.assertEquals(200, cancelResponse.getStatusCodeValue());
+        Assertions.assertEquals(10, cancelResponse.getBody().getMessages().size());
+        
+        // verify that query status was created correctly
+        List<QueryStatus> queryStatusList = queryStorageCache.getQueryStatus();
+        
+        Assertions.assertEquals(10, queryStatusList.size());
+        for (QueryStatus queryStatus : queryStatusList) {
+            // @formatter:off
+            assertQueryStatus(
+                    QueryStatus.QUERY_STATE.CANCEL,
+                    0,
+                    0,
+                    0,
+                    0,
+                    currentTimeMillis,
+                    queryStatus);
+            // @formatter:on
+            
+            // verify that the query tasks are still present
+            assertTasksCreated(queryStatus.getQueryKey().getQueryId());
+        }
+        
+        // verify that the cancel events were published for every query, in no particular order
+        assertQueryRequestEvents("query:**", QueryRequest.Method.CANCEL, queryIds);
+        assertQueryRequestEvents("executor-unassigned:**", QueryRequest.Method.CANCEL, queryIds);
+        
+        // verify that there are no more events
+        Assertions.assertEquals(0, queryRequestEvents.size());
+    }
+    
     @Test
     public void testAdminCancelAllFailure_notAdminUser() throws Exception {
         DatawaveUserDetails authUser = createUserDetails();
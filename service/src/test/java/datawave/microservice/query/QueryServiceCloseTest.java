@@ -197,7 +197,7 @@ public class QueryServiceCloseTest extends AbstractQueryServiceTest {
                 "404-1",
                 Iterables.getOnlyElement(closeResponse.getBody().getExceptions()));
         // @formatter:on
-        
+    
     }
     
     @Test
@@ -422,6 +422,60 @@ public class QueryServiceCloseTest extends AbstractQueryServiceTest {
         Assertions.assertEquals(0, queryRequestEvents.size());
     }
     
+    @Test
+    public void testAdminCloseAllSuccess_parallel() throws Exception {
+        DatawaveUserDetails adminUser = createUserDetails(Arrays.asList("AuthorizedUser", "Administrator"), null);
+        
+        // create a bunch of queries
+        List<String> queryIds = new ArrayList<>();
+        long currentTimeMillis = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            String queryId = createQuery(adminUser, createParams());
+            mockServer.reset();
+            
+            queryIds.add(queryId);
+        }
+        assertQueryRequestEvents("executor-unassigned:**", QueryRequest.Method.CREATE, queryIds);
+        
+        // close the queries on several threads at once
+        bulkOperationProperties.setParallelism(4);
+        
+        // close all queries as the admin user
+        Future<ResponseEntity<VoidResponse>> closeFuture = adminCloseAllQueries(adminUser);
+        
+        // the response should come back right away
+        ResponseEntity<VoidResponse> closeResponse = closeFuture.get();
+        
+        Assertions.assertEquals(200, closeResponse.getStatusCodeValue());
+        Assertions.assertEquals(10, closeResponse.getBody().getMessages().size());
+        
+        // verify that query status was created correctly
+        List<QueryStatus> queryStatusList = queryStorageCache.getQueryStatus();
+        
+        Assertions.assertEquals(10, queryStatusList.size());
+        for (QueryStatus queryStatus : queryStatusList) {
+            // @formatter:off
+            assertQueryStatus(
+                    QueryStatus.QUERY_STATE.CLOSE,
+                    0,
+                    0,
+                    0,
+                    0,
+                    currentTimeMillis,
+                    queryStatus);
+            // @formatter:on
+            
+            // verify that the query tasks are still present
+            assertTasksCreated(queryStatus.getQueryKey().getQueryId());
+        }
+        
+        // verify that the close events were published for every query, in no particular order
+        assertQueryRequestEvents("executor-unassigned:**", QueryRequest.Method.CLOSE, queryIds);
+        
+        // verify that there are no more events
+        Assertions.assertEquals(0, queryRequestEvents.size());
+    }
+    
     @Test
     public void testAdminCloseAllFailure_notAdminUser() throws Exception {
         DatawaveUserDetails authUser = createUserDetails();
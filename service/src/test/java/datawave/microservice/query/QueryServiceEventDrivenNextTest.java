@@ -0,0 +1,162 @@
+package datawave.microservice.query;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import datawave.core.query.configuration.GenericQueryConfiguration;
+import datawave.microservice.authorization.service.RemoteAuthorizationServiceUserDetailsService;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.remote.QueryRequest;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.storage.TaskStates;
+import datawave.webservice.result.DefaultEventQueryResponse;
+import datawave.webservice.result.VoidResponse;
+
+/**
+ * Verifies that event-driven next calls are woken up by cancel, close, and remote requests.
+ * <p>
+ * The max result wait and the status update interval are both set well beyond the test timeouts, so a next call which isn't woken up by the signal will
+ * never return in time.
+ */
+@ExtendWith(SpringExtension.class)
+// @formatter:off
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "datawave.query.next-call.runner.event-driven=true",
+                "datawave.query.next-call.runner.max-result-wait=600000",
+                "datawave.query.nextCall.statusUpdateInterval=600000"})
+// @formatter:on
+@ActiveProfiles({"QueryStarterDefaults", "QueryStarterOverrides", "QueryServiceTest", RemoteAuthorizationServiceUserDetailsService.ACTIVATION_PROFILE})
+@ContextConfiguration(classes = {QueryService.class})
+public class QueryServiceEventDrivenNextTest extends AbstractQueryServiceTest {
+    private static final long WAKEUP_TIMEOUT_SECONDS = 10;
+    
+    @Autowired
+    private QueryManagementService queryManagementService;
+    
+    @Test
+    public void testNextWakesOnCancel() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        String queryId = createQuery(authUser, createParams());
+        addConfig(queryId);
+        
+        Future<ResponseEntity<DefaultEventQueryResponse>> nextFuture = nextQuery(authUser, queryId);
+        waitForActiveNextCall(queryId, nextFuture);
+        
+        ResponseEntity<VoidResponse> cancelResponse = cancelQuery(authUser, queryId).get();
+        Assertions.assertEquals(200, cancelResponse.getStatusCodeValue());
+        
+        // the canceled next call should drop out without waiting for a result
+        ResponseEntity<DefaultEventQueryResponse> nextResponse = nextFuture.get(WAKEUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Assertions.assertNotEquals(200, nextResponse.getStatusCodeValue());
+    }
+    
+    @Test
+    public void testNextWakesOnClose() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        String queryId = createQuery(authUser, createParams());
+        addConfig(queryId);
+        
+        Future<ResponseEntity<DefaultEventQueryResponse>> nextFuture = nextQuery(authUser, queryId);
+        waitForActiveNextCall(queryId, nextFuture);
+        
+        // finish the query behind the next call's back, the way the executor would
+        completeTasks(queryId);
+        
+        // the close should make the next call re-read the query status, and find that there is nothing left to wait for
+        ResponseEntity<VoidResponse> closeResponse = closeQuery(authUser, queryId).get();
+        Assertions.assertEquals(200, closeResponse.getStatusCodeValue());
+        
+        ResponseEntity<DefaultEventQueryResponse> nextResponse = nextFuture.get(WAKEUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Assertions.assertEquals(204, nextResponse.getStatusCodeValue());
+    }
+    
+    @Test
+    public void testNextWakesOnRemoteRequest() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        String queryId = createQuery(authUser, createParams());
+        addConfig(queryId);
+        
+        Future<ResponseEntity<DefaultEventQueryResponse>> nextFuture = nextQuery(authUser, queryId);
+        waitForActiveNextCall(queryId, nextFuture);
+        
+        completeTasks(queryId);
+        
+        // a request for the query from another service should make the next call re-read the query status
+        queryManagementService.handleRemoteRequest(QueryRequest.next(queryId), "executor", "query");
+        
+        ResponseEntity<DefaultEventQueryResponse> nextResponse = nextFuture.get(WAKEUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Assertions.assertEquals(204, nextResponse.getStatusCodeValue());
+    }
+    
+    @Test
+    public void testNextSeesFailureOnRemoteRequest() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        String queryId = createQuery(authUser, createParams());
+        addConfig(queryId);
+        
+        Future<ResponseEntity<DefaultEventQueryResponse>> nextFuture = nextQuery(authUser, queryId);
+        waitForActiveNextCall(queryId, nextFuture);
+        
+        // fail the query, the way the executor would
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        queryStatus.setQueryState(QueryStatus.QUERY_STATE.FAIL);
+        queryStatus.setFailureMessage("the executor failed");
+        queryStorageCache.updateQueryStatus(queryStatus);
+        
+        queryManagementService.handleRemoteRequest(QueryRequest.next(queryId), "executor", "query");
+        
+        ResponseEntity<DefaultEventQueryResponse> nextResponse = nextFuture.get(WAKEUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Assertions.assertEquals(HttpStatus.Series.SERVER_ERROR, nextResponse.getStatusCode().series());
+    }
+    
+    private void addConfig(String queryId) {
+        // add a config object to the query status, which would normally be added by the executor service
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        queryStatus.setConfig(new GenericQueryConfiguration());
+        queryStorageCache.updateQueryStatus(queryStatus);
+    }
+    
+    private void completeTasks(String queryId) {
+        // mark the task states as complete, and mark task creation as complete to make it appear that the executor has finished
+        TaskStates taskStates = queryStorageCache.getTaskStates(queryId);
+        for (int i = 0; i < taskStates.getNextTaskId(); i++) {
+            taskStates.setState(i, TaskStates.TASK_STATE.COMPLETED);
+        }
+        queryStorageCache.updateTaskStates(taskStates);
+        queryStorageCache.updateCreateStage(queryId, QueryStatus.CREATE_STAGE.RESULTS);
+    }
+    
+    private void waitForActiveNextCall(String queryId, Future<?> nextFuture) throws Exception {
+        long startTimeMillis = System.currentTimeMillis();
+        boolean nextCallActive = queryStorageCache.getQueryStatus(queryId).getActiveNextCalls() > 0;
+        while (!nextCallActive) {
+            try {
+                nextFuture.get(500, TimeUnit.MILLISECONDS);
+                Assertions.fail("The next call returned before it was signaled");
+            } catch (TimeoutException e) {
+                nextCallActive = queryStorageCache.getQueryStatus(queryId).getActiveNextCalls() > 0;
+                if ((System.currentTimeMillis() - startTimeMillis) > TEST_WAIT_TIME_MILLIS) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package datawave.microservice.query;
+
+import static datawave.microservice.query.QueryParameters.QUERY_NAME;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import datawave.microservice.authorization.service.RemoteAuthorizationServiceUserDetailsService;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.listing.QueryListingIndex;
+import datawave.webservice.result.GenericResponse;
+import datawave.webservice.result.QueryImplListResponse;
+import datawave.webservice.result.VoidResponse;
+
+/**
+ * Runs the listing tests with the owner and query name indexes enabled, along with some tests of the index bookkeeping.
+ * <p>
+ * The index is built before each test, so that listings by owner or query name go through the index rather than falling back to a scan of storage.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {"datawave.query.listing.index-enabled=true"})
+@ActiveProfiles({"QueryStarterDefaults", "QueryStarterOverrides", "QueryServiceTest", RemoteAuthorizationServiceUserDetailsService.ACTIVATION_PROFILE})
+@ContextConfiguration(classes = {QueryService.class})
+public class QueryServiceListIndexTest extends QueryServiceListTest {
+    
+    @Autowired
+    private QueryListingIndex queryListingIndex;
+    
+    @BeforeEach
+    public void buildListingIndex() throws Exception {
+        // the index may already be being built by the scheduled rebuild
+        long startTimeMillis = System.currentTimeMillis();
+        queryListingIndex.rebuildIfDue();
+        while (!queryListingIndex.isBuilt() && (System.currentTimeMillis() - startTimeMillis) < TEST_WAIT_TIME_MILLIS) {
+            Thread.sleep(100);
+        }
+        Assertions.assertTrue(queryListingIndex.isBuilt());
+    }
+    
+    @Test
+    public void testListSuccess_indexedOnCreate() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        String queryName = "Indexed Query " + UUID.randomUUID();
+        String queryId = createQuery(authUser, createParams(queryName));
+        
+        // the query was indexed when it was created, so the index can answer for its name
+        Assertions.assertEquals(Collections.singletonList(queryId), getQueryIds(queryListingIndex.find(null, queryName)));
+        Assertions.assertEquals(Collections.singletonList(queryId), listQueryIds(authUser, queryName));
+    }
+    
+    @Test
+    public void testListSuccess_renamedQuery() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        String queryName = "Original Query " + UUID.randomUUID();
+        String queryId = defineQuery(authUser, createParams(queryName));
+        
+        // rename the query
+        String newQueryName = "Renamed Query " + UUID.randomUUID();
+        MultiValueMap<String,String> updateParams = new LinkedMultiValueMap<>();
+        updateParams.set(QUERY_NAME, newQueryName);
+        ResponseEntity<GenericResponse> updateResponse = updateQuery(authUser, queryId, updateParams).get();
+        Assertions.assertEquals(200, updateResponse.getStatusCodeValue());
+        
+        // the query is found under its new name, and is no longer found under its old name
+        Assertions.assertEquals(Collections.singletonList(queryId), listQueryIds(authUser, newQueryName));
+        Assertions.assertTrue(listQueryIds(authUser, queryName).isEmpty());
+    }
+    
+    @Test
+    public void testListSuccess_removedQuery() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        String queryName = "Removed Query " + UUID.randomUUID();
+        String queryId = defineQuery(authUser, createParams(queryName));
+        
+        ResponseEntity<VoidResponse> removeResponse = removeQuery(authUser, queryId).get();
+        Assertions.assertEquals(200, removeResponse.getStatusCodeValue());
+        
+        // the query was removed from the index along with the query
+        Assertions.assertTrue(queryListingIndex.find(null, queryName).isEmpty());
+        Assertions.assertTrue(listQueryIds(authUser, queryName).isEmpty());
+    }
+    
+    @Test
+    public void testListSuccess_prunedQuery() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        String queryName = "Pruned Query " + UUID.randomUUID();
+        String queryId = defineQuery(authUser, createParams(queryName));
+        
+        // delete the query from storage without going through the index, the way the query monitor would
+        queryStorageCache.deleteQuery(queryId);
+        
+        // the listing doesn't return the missing query, and prunes it from the index
+        Assertions.assertTrue(listQueryIds(authUser, queryName).isEmpty());
+        Assertions.assertTrue(queryListingIndex.find(null, queryName).isEmpty());
+    }
+    
+    private MultiValueMap<String,String> createParams(String queryName) {
+        MultiValueMap<String,String> params = createParams();
+        params.set(QUERY_NAME, queryName);
+        return params;
+    }
+    
+    private List<String> listQueryIds(DatawaveUserDetails authUser, String queryName) throws Exception {
+        ResponseEntity<QueryImplListResponse> listResponse = listQueries(authUser, null, queryName).get();
+        Assertions.assertEquals(200, listResponse.getStatusCodeValue());
+        return getQueryIds(listResponse.getBody().getQuery());
+    }
+    
+    private static List<String> getQueryIds(List<Query> queries) {
+        if (queries == null) {
+            return Collections.emptyList();
+        }
+        return queries.stream().map(Query::getId).map(UUID::toString).collect(Collectors.toList());
+    }
+}
@@ -15,12 +15,14 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -81,6 +83,132 @@ public class QueryServiceListTest extends AbstractQueryServiceTest {
         Assertions.assertEquals(queryIds, actualQueryIds);
     }
     
+    @Test
+    public void testListSuccess_paged() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        // define a bunch of queries as the original user
+        List<String> queryIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String queryId = defineQuery(authUser, createParams());
+            mockServer.reset();
+            
+            queryIds.add(queryId);
+        }
+        Collections.sort(queryIds);
+        
+        // page through the queries, which should be sorted by query id
+        List<String> actualQueryIds = new ArrayList<>();
+        for (int pageNumber = 1; pageNumber <= 3; pageNumber++) {
+            ResponseEntity<QueryImplListResponse> listResponse = listQueries(authUser, null, null, pageNumber, 2).get();
+            
+            Assertions.assertEquals(200, listResponse.getStatusCodeValue());
+            
+            QueryImplListResponse result = listResponse.getBody();
+            
+            Assertions.assertEquals((pageNumber < 3) ? 2 : 1, result.getNumResults());
+            
+            result.getQuery().stream().map(Query::getId).map(UUID::toString).forEach(actualQueryIds::add);
+        }
+        
+        Assertions.assertEquals(queryIds, actualQueryIds);
+        
+        // a page past the end should be empty
+        ResponseEntity<QueryImplListResponse> listResponse = listQueries(authUser, null, null, 4, 2).get();
+        
+        Assertions.assertEquals(200, listResponse.getStatusCodeValue());
+        Assertions.assertEquals(0, listResponse.getBody().getNumResults());
+    }
+    
+    @Test
+    public void testListSuccess_cursorAndProjection() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        // define a bunch of queries as the original user
+        List<String> queryIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String queryId = defineQuery(authUser, createParams());
+            mockServer.reset();
+            
+            queryIds.add(queryId);
+        }
+        Collections.sort(queryIds);
+        
+        // page through the queries using the last query id of each page as the cursor
+        List<String> actualQueryIds = new ArrayList<>();
+        String afterQueryId = null;
+        do {
+            MultiValueMap<String,String> listParams = new LinkedMultiValueMap<>();
+            listParams.set("pageSize", "2");
+            listParams.set("fields", "summary");
+            if (afterQueryId != null) {
+                listParams.set("afterQueryId", afterQueryId);
+            }
+            
+            ResponseEntity<QueryImplListResponse> listResponse = listQueries(authUser, null, null, listParams).get();
+            
+            Assertions.assertEquals(200, listResponse.getStatusCodeValue());
+            
+            List<Query> queries = listResponse.getBody().getQuery();
+            afterQueryId = null;
+            if (queries != null && !queries.isEmpty()) {
+                for (Query query : queries) {
+                    // the summary should include the query name, but not the query string or parameters
+                    Assertions.assertEquals(TEST_QUERY_NAME, query.getQueryName());
+                    Assertions.assertNull(query.getQuery());
+                    Assertions.assertTrue(query.getParameters() == null || query.getParameters().isEmpty());
+                    
+                    actualQueryIds.add(query.getId().toString());
+                }
+                afterQueryId = actualQueryIds.get(actualQueryIds.size() - 1);
+            }
+        } while (afterQueryId != null);
+        
+        Assertions.assertEquals(queryIds, actualQueryIds);
+    }
+    
+    @Test
+    public void testListFailure_unknownField() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        UriComponentsBuilder uriBuilder = uriBuilder("/list");
+        uriBuilder.queryParam("fields", "notAField");
+        UriComponents uri = uriBuilder.build();
+        
+        RequestEntity requestEntity = jwtRestTemplate.createRequestEntity(authUser, null, null, HttpMethod.GET, uri);
+        
+        // make the next call asynchronously
+        Future<ResponseEntity<String>> listFuture = Executors.newSingleThreadExecutor().submit(() -> jwtRestTemplate.exchange(requestEntity, String.class));
+        
+        ResponseEntity<String> listResponse = listFuture.get();
+        
+        Assertions.assertEquals(400, listResponse.getStatusCodeValue());
+    }
+    
+    @Test
+    public void testListFailure_protostuffProjection() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        defineQuery(authUser, createParams());
+        
+        UriComponentsBuilder uriBuilder = uriBuilder("/list");
+        uriBuilder.queryParam("fields", "summary");
+        UriComponents uri = uriBuilder.build();
+        
+        // the summary is missing fields which protostuff requires, so it can't be returned as protostuff
+        MultiValueMap<String,String> headers = new LinkedMultiValueMap<>();
+        headers.set(HttpHeaders.ACCEPT, "application/x-protostuff, application/json;q=0.5");
+        
+        RequestEntity requestEntity = jwtRestTemplate.createRequestEntity(authUser, null, headers, HttpMethod.GET, uri);
+        
+        // make the next call asynchronously
+        Future<ResponseEntity<String>> listFuture = Executors.newSingleThreadExecutor().submit(() -> jwtRestTemplate.exchange(requestEntity, String.class));
+        
+        ResponseEntity<String> listResponse = listFuture.get();
+        
+        Assertions.assertEquals(400, listResponse.getStatusCodeValue());
+    }
+    
     @Test
     public void testListSuccess_filterOnQueryId() throws Exception {
         DatawaveUserDetails authUser = createUserDetails();
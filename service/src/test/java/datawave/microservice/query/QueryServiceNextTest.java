@@ -4,11 +4,14 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.DirtiesContext;
@@ -26,7 +29,9 @@ import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.microservice.query.remote.QueryRequest;
 import datawave.microservice.query.storage.QueryStatus;
 import datawave.microservice.query.storage.TaskStates;
+import datawave.microservice.querymetric.QueryMetric;
 import datawave.webservice.query.result.event.DefaultEvent;
+import datawave.webservice.result.BaseQueryResponse;
 import datawave.webservice.result.DefaultEventQueryResponse;
 import datawave.webservice.result.VoidResponse;
 
@@ -36,6 +41,9 @@ import datawave.webservice.result.VoidResponse;
 @ContextConfiguration(classes = {QueryService.class})
 public class QueryServiceNextTest extends AbstractQueryServiceTest {
     
+    @Autowired
+    private QueryManagementService queryManagementService;
+    
     @Test
     public void testNextSuccess() throws Exception {
         DatawaveUserDetails authUser = createUserDetails();
@@ -118,6 +126,219 @@ public class QueryServiceNextTest extends AbstractQueryServiceTest {
         // @formatter:on
     }
     
+    @Test
+    public void testNextAsyncSuccess() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        // create a valid query
+        String queryId = createQuery(authUser, createParams());
+        
+        // pump enough results into the queue to trigger a complete page
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        int pageSize = queryStatus.getQuery().getPagesize();
+        
+        // test field value pairings
+        MultiValueMap<String,String> fieldValues = new LinkedMultiValueMap<>();
+        fieldValues.add("LOKI", "ALLIGATOR");
+        fieldValues.add("LOKI", "CLASSIC");
+        
+        // add a config object to the query status, which would normally be added by the executor service
+        queryStatus.setConfig(new GenericQueryConfiguration());
+        queryStorageCache.updateQueryStatus(queryStatus);
+        
+        // @formatter:off
+        publishEventsToQueue(
+                queryId,
+                (int) (1.5 * pageSize),
+                fieldValues,
+                "ALL");
+        // @formatter:on
+        
+        // make the async next call asynchronously
+        Future<ResponseEntity<DefaultEventQueryResponse>> future = nextQueryAsync(authUser, queryId);
+        
+        // the response should come back right away
+        ResponseEntity<DefaultEventQueryResponse> response = future.get();
+        
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        
+        // verify some headers
+        Assertions.assertEquals("1", Iterables.getOnlyElement(Objects.requireNonNull(response.getHeaders().get("X-query-page-number"))));
+        Assertions.assertEquals("false", Iterables.getOnlyElement(Objects.requireNonNull(response.getHeaders().get("X-Partial-Results"))));
+        Assertions.assertEquals("false", Iterables.getOnlyElement(Objects.requireNonNull(response.getHeaders().get("X-query-last-page"))));
+        
+        DefaultEventQueryResponse queryResponse = (DefaultEventQueryResponse) response.getBody();
+        
+        // verify the query response
+        // @formatter:off
+        assertQueryResponse(
+                queryId,
+                "EventQuery",
+                1,
+                false,
+                Long.parseLong(Iterables.getOnlyElement(Objects.requireNonNull(response.getHeaders().get("X-OperationTimeInMS")))),
+                1,
+                Collections.singletonList("LOKI"),
+                pageSize,
+                Objects.requireNonNull(queryResponse));
+        // @formatter:on
+        
+        // validate one of the events
+        DefaultEvent event = (DefaultEvent) queryResponse.getEvents().get(0);
+        // @formatter:off
+        assertDefaultEvent(
+                Arrays.asList("LOKI", "LOKI"),
+                Arrays.asList("ALLIGATOR", "CLASSIC"),
+                event);
+        // @formatter:on
+        
+        // verify that the next event was published
+        Assertions.assertEquals(2, queryRequestEvents.size());
+        // @formatter:off
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.CREATE,
+                queryId,
+                queryRequestEvents.removeLast());
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.NEXT,
+                queryId,
+                queryRequestEvents.removeLast());
+        // @formatter:on
+    }
+    
+    @Test
+    public void testCreateAndNextAsyncSuccess() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        // test field value pairings
+        MultiValueMap<String,String> fieldValues = new LinkedMultiValueMap<>();
+        fieldValues.add("LOKI", "ALLIGATOR");
+        fieldValues.add("LOKI", "CLASSIC");
+        
+        // when the query is created, add a config object and pump enough results into the queue to trigger a complete page, as the executor service would
+        queryRequestEventHandlers.add(event -> {
+            if (event.getRequest().getMethod() == QueryRequest.Method.CREATE) {
+                String createdQueryId = event.getRequest().getQueryId();
+                QueryStatus queryStatus = queryStorageCache.getQueryStatus(createdQueryId);
+                queryStatus.setConfig(new GenericQueryConfiguration());
+                queryStorageCache.updateQueryStatus(queryStatus);
+                try {
+                    publishEventsToQueue(createdQueryId, (int) (1.5 * TEST_PAGESIZE), fieldValues, "ALL");
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        
+        // make the create and next call asynchronously
+        Future<ResponseEntity<DefaultEventQueryResponse>> future = createAndNextQueryAsync(authUser, createParams());
+        
+        // the response should come back right away
+        ResponseEntity<DefaultEventQueryResponse> response = future.get();
+        
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        
+        // verify some headers
+        Assertions.assertEquals("1", Iterables.getOnlyElement(Objects.requireNonNull(response.getHeaders().get("X-query-page-number"))));
+        Assertions.assertEquals("false", Iterables.getOnlyElement(Objects.requireNonNull(response.getHeaders().get("X-Partial-Results"))));
+        Assertions.assertEquals("false", Iterables.getOnlyElement(Objects.requireNonNull(response.getHeaders().get("X-query-last-page"))));
+        
+        DefaultEventQueryResponse queryResponse = Objects.requireNonNull(response.getBody());
+        String queryId = queryResponse.getQueryId();
+        
+        // verify the query response
+        // @formatter:off
+        assertQueryResponse(
+                queryId,
+                "EventQuery",
+                1,
+                false,
+                Long.parseLong(Iterables.getOnlyElement(Objects.requireNonNull(response.getHeaders().get("X-OperationTimeInMS")))),
+                1,
+                Collections.singletonList("LOKI"),
+                (int) TEST_PAGESIZE,
+                queryResponse);
+        // @formatter:on
+        
+        // the remaining results should still be on the queue for the next page
+        Assertions.assertEquals(TEST_PAGESIZE, queryStorageCache.getQueryStatus(queryId).getNumResultsConsumed());
+        
+        // verify that the create and next events were published
+        Assertions.assertEquals(2, queryRequestEvents.size());
+        // @formatter:off
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.CREATE,
+                queryId,
+                queryRequestEvents.removeLast());
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.NEXT,
+                queryId,
+                queryRequestEvents.removeLast());
+        // @formatter:on
+    }
+    
+    @Test
+    public void testNextAsyncAbandoned() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        // create a valid query
+        String queryId = createQuery(authUser, createParams());
+        
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        int pageSize = queryStatus.getQuery().getPagesize();
+        
+        // test field value pairings
+        MultiValueMap<String,String> fieldValues = new LinkedMultiValueMap<>();
+        fieldValues.add("LOKI", "ALLIGATOR");
+        fieldValues.add("LOKI", "CLASSIC");
+        
+        // add a config object to the query status, which would normally be added by the executor service
+        queryStatus.setConfig(new GenericQueryConfiguration());
+        queryStorageCache.updateQueryStatus(queryStatus);
+        
+        // pump half a page of results into the queue, so that the next call collects them and keeps waiting for more
+        publishEventsToQueue(queryId, pageSize / 2, fieldValues, "ALL");
+        
+        // there is no request here, so supply the query metric that the request would have
+        CompletableFuture<BaseQueryResponse> future;
+        queryManagementService.getBaseQueryMetricOverride().set(new QueryMetric());
+        try {
+            future = queryManagementService.nextAsync(queryId, authUser);
+        } finally {
+            queryManagementService.getBaseQueryMetricOverride().remove();
+        }
+        waitForActiveNextCalls(queryId, 1);
+        
+        // give up on the response, the way the controller does when the request times out or the client disconnects
+        Assertions.assertTrue(future.cancel(false));
+        Assertions.assertThrows(CancellationException.class, future::get);
+        
+        // the abandoned next call should be released without returning a page
+        waitForActiveNextCalls(queryId, 0);
+        Assertions.assertEquals(0, queryStorageCache.getQueryStatus(queryId).getLastPageNumber());
+        Assertions.assertEquals(0, queryStorageCache.getQueryStatus(queryId).getNumResultsReturned());
+        
+        // pump the rest of the page into the queue
+        publishEventsToQueue(queryId, pageSize - (pageSize / 2), fieldValues, "ALL");
+        
+        // the next call should get a full first page, including the results collected by the abandoned call
+        ResponseEntity<DefaultEventQueryResponse> response = nextQuery(authUser, queryId).get();
+        
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        Assertions.assertEquals("1", Iterables.getOnlyElement(Objects.requireNonNull(response.getHeaders().get("X-query-page-number"))));
+        Assertions.assertEquals("false", Iterables.getOnlyElement(Objects.requireNonNull(response.getHeaders().get("X-Partial-Results"))));
+        Assertions.assertEquals(pageSize, Objects.requireNonNull(response.getBody()).getEvents().size());
+        
+        // the results collected by the abandoned call are only counted once
+        queryStatus = queryStorageCache.getQueryStatus(queryId);
+        Assertions.assertEquals(pageSize, queryStatus.getNumResultsReturned());
+        Assertions.assertEquals(pageSize, queryStatus.getNumResultsConsumed());
+    }
+    
     @Test
     public void testNextSuccess_multiplePages() throws Exception {
         DatawaveUserDetails authUser = createUserDetails();
@@ -773,4 +994,14 @@ public class QueryServiceNextTest extends AbstractQueryServiceTest {
                 queryRequestEvents.removeLast());
         // @formatter:on
     }
+    
+    private void waitForActiveNextCalls(String queryId, int activeNextCalls) throws InterruptedException {
+        long startTimeMillis = System.currentTimeMillis();
+        while (queryStorageCache.getQueryStatus(queryId).getActiveNextCalls() != activeNextCalls) {
+            if ((System.currentTimeMillis() - startTimeMillis) > TEST_WAIT_TIME_MILLIS) {
+                Assertions.fail("Timed out waiting for " + activeNextCalls + " active next calls");
+            }
+            Thread.sleep(100);
+        }
+    }
 }
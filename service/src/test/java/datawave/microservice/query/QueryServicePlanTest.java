@@ -5,6 +5,7 @@ import java.text.ParseException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,7 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -27,6 +29,7 @@ import datawave.microservice.authorization.service.RemoteAuthorizationServiceUse
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.microservice.query.remote.QueryRequest;
 import datawave.microservice.query.storage.QueryStatus;
+import datawave.webservice.result.BaseResponse;
 import datawave.webservice.result.GenericResponse;
 
 @ExtendWith(SpringExtension.class)
@@ -100,4 +103,86 @@ public class QueryServicePlanTest extends AbstractQueryServiceTest {
         queryStatus = queryStorageCache.getQueryStatus(queryId);
         Assertions.assertNull(queryStatus);
     }
+    
+    @DirtiesContext
+    @Test
+    public void testPlanFailure_noResponse() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        UriComponents uri = createUri("EventQuery/plan");
+        MultiValueMap<String,String> map = createParams();
+        
+        // check the query status frequently, and never time out
+        queryProperties.getExpiration().setCallTimeoutInterval(100);
+        queryProperties.getExpiration().setCallTimeoutIntervalUnit(TimeUnit.MILLISECONDS);
+        
+        // when the plan request is published, fail the query without sending a response, the way a crashed executor would
+        queryRequestEventHandlers.add(event -> {
+            if (event.getRequest().getMethod() == QueryRequest.Method.PLAN) {
+                QueryStatus queryStatus = queryStorageCache.getQueryStatus(event.getRequest().getQueryId());
+                queryStatus.setQueryState(QueryStatus.QUERY_STATE.FAIL);
+                queryStatus.setFailureMessage("the executor failed");
+                queryStorageCache.updateQueryStatus(queryStatus);
+            }
+        });
+        
+        RequestEntity<MultiValueMap<String,String>> requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, uri);
+        
+        // setup a mock audit service
+        auditIgnoreSetup();
+        
+        // the failure should be found by the periodic status check, well before the call timeout
+        long startTime = System.currentTimeMillis();
+        ResponseEntity<GenericResponse> resp = Executors.newSingleThreadExecutor().submit(() -> jwtRestTemplate.exchange(requestEntity, GenericResponse.class))
+                        .get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(System.currentTimeMillis() - startTime < queryProperties.getExpiration().getCallTimeoutMillis());
+        
+        // @formatter:off
+        BaseResponse baseResponse = assertBaseResponse(
+                false,
+                HttpStatus.Series.SERVER_ERROR,
+                resp);
+        // @formatter:on
+        
+        // verify that the failure was returned
+        Assertions.assertEquals(1, baseResponse.getExceptions().size());
+        Assertions.assertTrue(baseResponse.getExceptions().get(0).getCause().contains("the executor failed"));
+        
+        // verify that the plan event was published
+        Assertions.assertEquals(1, queryRequestEvents.size());
+        Assertions.assertEquals(QueryRequest.Method.PLAN, queryRequestEvents.removeLast().getRequest().getMethod());
+    }
+    
+    @DirtiesContext
+    @Test
+    public void testPlanTimeout() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        UriComponents uri = createUri("EventQuery/plan");
+        MultiValueMap<String,String> map = createParams();
+        
+        // override the call timeout for this test
+        queryProperties.getExpiration().setCallTimeout(0);
+        
+        RequestEntity<MultiValueMap<String,String>> requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, uri);
+        
+        // setup a mock audit service
+        auditIgnoreSetup();
+        
+        // the executor never responds, so the wait should end quietly at the call timeout
+        ResponseEntity<GenericResponse> resp = Executors.newSingleThreadExecutor().submit(() -> jwtRestTemplate.exchange(requestEntity, GenericResponse.class))
+                        .get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+        
+        // @formatter:off
+        GenericResponse<String> genericResponse = assertGenericResponse(
+                true,
+                HttpStatus.Series.SUCCESSFUL,
+                resp);
+        // @formatter:on
+        
+        // there is no plan, since the executor never saved one
+        Assertions.assertNull(genericResponse.getResult());
+        
+        // verify that the plan event was published
+        Assertions.assertEquals(1, queryRequestEvents.size());
+        Assertions.assertEquals(QueryRequest.Method.PLAN, queryRequestEvents.removeLast().getRequest().getMethod());
+    }
 }
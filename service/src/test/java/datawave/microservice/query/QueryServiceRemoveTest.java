@@ -388,6 +388,36 @@ public class QueryServiceRemoveTest extends AbstractQueryServiceTest {
         Assertions.assertEquals(0, queryRequestEvents.size());
     }
     
+    @Test
+    public void testAdminRemoveAllSuccess_parallel() throws Exception {
+        DatawaveUserDetails adminUser = createUserDetails(Arrays.asList("AuthorizedUser", "Administrator"), null);
+        
+        // define a bunch of queries
+        for (int i = 0; i < 10; i++) {
+            defineQuery(adminUser, createParams());
+        }
+        
+        // remove the queries on several threads at once
+        bulkOperationProperties.setParallelism(4);
+        
+        // remove all queries as the admin user
+        Future<ResponseEntity<VoidResponse>> removeFuture = adminRemoveAllQueries(adminUser);
+        
+        // the response should come back right away
+        ResponseEntity<VoidResponse> removeResponse = removeFuture.get();
+        
+        Assertions.assertEquals(200, removeResponse.getStatusCodeValue());
+        Assertions.assertEquals(10, removeResponse.getBody().getMessages().size());
+        
+        // verify that query status was created correctly
+        List<QueryStatus> queryStatusList = queryStorageCache.getQueryStatus();
+        
+        Assertions.assertEquals(0, queryStatusList.size());
+        
+        // verify that there are no events
+        Assertions.assertEquals(0, queryRequestEvents.size());
+    }
+    
     @Test
     public void testAdminRemoveAllFailure_notAdminUser() throws Exception {
         DatawaveUserDetails authUser = createUserDetails();
@@ -0,0 +1,83 @@
+package datawave.microservice.query;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import datawave.microservice.authorization.service.RemoteAuthorizationServiceUserDetailsService;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.remote.QueryRequest;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.webservice.result.VoidResponse;
+
+/**
+ * Verifies that the node-local query status cache is kept up to date by this query service's own updates, and by query request events from other services.
+ * <p>
+ * The time to live is set well beyond the test timeouts, so a status which isn't refreshed or invalidated will still be served from the cache.
+ */
+@ExtendWith(SpringExtension.class)
+// @formatter:off
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "datawave.query.status-cache.max-size=100",
+                "datawave.query.status-cache.time-to-live=10",
+                "datawave.query.status-cache.time-to-live-unit=MINUTES"})
+// @formatter:on
+@ActiveProfiles({"QueryStarterDefaults", "QueryStarterOverrides", "QueryServiceTest", RemoteAuthorizationServiceUserDetailsService.ACTIVATION_PROFILE})
+@ContextConfiguration(classes = {QueryService.class})
+public class QueryServiceStatusCacheTest extends AbstractQueryServiceTest {
+    
+    @Autowired
+    private QueryManagementService queryManagementService;
+    
+    @Autowired
+    private LocalQueryStatusCache queryStatusCache;
+    
+    @Test
+    public void testLocalUpdateRefreshesCachedStatus() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        String queryId = createQuery(authUser, createParams());
+        Assertions.assertEquals(QueryStatus.QUERY_STATE.CREATE, queryStatusCache.getQueryStatus(queryId).getQueryState());
+        
+        ResponseEntity<VoidResponse> cancelResponse = cancelQuery(authUser, queryId).get();
+        Assertions.assertEquals(200, cancelResponse.getStatusCodeValue());
+        
+        // the cancel replaced the cached status with the one that it wrote, so there's no need to go to storage
+        long numMisses = queryStatusCache.getNumMisses();
+        Assertions.assertEquals(QueryStatus.QUERY_STATE.CANCEL, queryStatusCache.getQueryStatus(queryId).getQueryState());
+        Assertions.assertEquals(numMisses, queryStatusCache.getNumMisses());
+    }
+    
+    @Test
+    public void testRemoteRequestInvalidatesCachedStatus() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        String queryId = createQuery(authUser, createParams());
+        Assertions.assertEquals(QueryStatus.QUERY_STATE.CREATE, queryStatusCache.getQueryStatus(queryId).getQueryState());
+        
+        // fail the query behind this query service's back, the way the executor would
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        queryStatus.setQueryState(QueryStatus.QUERY_STATE.FAIL);
+        queryStorageCache.updateQueryStatus(queryStatus);
+        
+        // until this query service hears about it, the cached status is served
+        long numCacheHits = queryStatusCache.getNumCacheHits();
+        Assertions.assertEquals(QueryStatus.QUERY_STATE.CREATE, queryStatusCache.getQueryStatus(queryId).getQueryState());
+        Assertions.assertEquals(numCacheHits + 1, queryStatusCache.getNumCacheHits());
+        
+        // a request for the query from another service invalidates the cached status
+        queryManagementService.handleRemoteRequest(QueryRequest.next(queryId), "executor", "query");
+        
+        long numMisses = queryStatusCache.getNumMisses();
+        Assertions.assertEquals(QueryStatus.QUERY_STATE.FAIL, queryStatusCache.getQueryStatus(queryId).getQueryState());
+        Assertions.assertEquals(numMisses + 1, queryStatusCache.getNumMisses());
+    }
+}
@@ -0,0 +1,22 @@
+package datawave.microservice.query.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CallExecutorPropertiesTest {
+    
+    @Test
+    public void testThreadPerTaskRequiresPerUserLimit() {
+        CallExecutorProperties.ExecutorMode executorMode = new CallExecutorProperties.ExecutorMode();
+        
+        // the bounded thread pool doesn't need a per-user limit
+        Assertions.assertTrue(executorMode.isConcurrencyBounded());
+        
+        // but a thread per task executor does
+        executorMode.setThreadPerTask(true);
+        Assertions.assertFalse(executorMode.isConcurrencyBounded());
+        
+        executorMode.setMaxConcurrentCallsPerUser(5);
+        Assertions.assertTrue(executorMode.isConcurrencyBounded());
+    }
+}
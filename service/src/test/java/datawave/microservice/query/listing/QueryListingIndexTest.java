@@ -0,0 +1,231 @@
+package datawave.microservice.query.listing;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import datawave.microservice.cached.LockableCacheInspector;
+import datawave.microservice.query.Query;
+import datawave.microservice.query.QueryImpl;
+import datawave.microservice.query.listing.config.QueryListingProperties;
+import datawave.microservice.query.storage.QueryKey;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.storage.QueryStorageCache;
+
+public class QueryListingIndexTest {
+    
+    private final Map<String,QueryStatus> storage = new LinkedHashMap<>();
+    private final AtomicInteger numStorageScans = new AtomicInteger();
+    private final AtomicBoolean locked = new AtomicBoolean();
+    private final Cache cache = new ConcurrentMapCache(QueryListingIndex.CACHE_NAME);
+    
+    private QueryListingIndex listingIndex;
+    
+    @BeforeEach
+    public void setup() {
+        QueryListingProperties queryListingProperties = new QueryListingProperties();
+        queryListingProperties.setIndexChunkSize(2);
+        listingIndex = new QueryListingIndex(cache, createCacheInspector(), createQueryStorageCache(), queryListingProperties);
+    }
+    
+    @Test
+    public void testNotUsedUntilBuilt() {
+        Query query = store("alice", "name");
+        listingIndex.add(query);
+        
+        // until the index has been rebuilt once, it may be missing queries, so listings can't use it
+        Assertions.assertFalse(listingIndex.isBuilt());
+        Assertions.assertNull(listingIndex.find("alice", null));
+        
+        listingIndex.rebuildIfDue();
+        Assertions.assertTrue(listingIndex.isBuilt());
+        Assertions.assertEquals(Collections.singletonList(query), listingIndex.find("alice", null));
+        
+        // and it is never usable without an owner or query name
+        Assertions.assertNull(listingIndex.find(null, null));
+    }
+    
+    @Test
+    public void testFindByOwnerAndQueryName() {
+        listingIndex.rebuildIfDue();
+        
+        Query first = addQuery("alice", "name");
+        Query second = addQuery("alice", null);
+        Query third = addQuery("bob", "name");
+        
+        Assertions.assertEquals(sorted(Arrays.asList(first, second)), sorted(listingIndex.find("alice", null)));
+        Assertions.assertEquals(sorted(Arrays.asList(first, third)), sorted(listingIndex.find(null, "name")));
+        Assertions.assertEquals(Collections.singletonList(first), listingIndex.find("alice", "name"));
+        Assertions.assertTrue(listingIndex.find("carol", null).isEmpty());
+    }
+    
+    @Test
+    public void testRenamedQuery() {
+        listingIndex.rebuildIfDue();
+        
+        Query query = addQuery("alice", "before");
+        query.setQueryName("after");
+        listingIndex.add(query);
+        
+        // the old entry is still indexed, but the query no longer matches it
+        Assertions.assertTrue(listingIndex.find(null, "before").isEmpty());
+        Assertions.assertEquals(Collections.singletonList(query), listingIndex.find(null, "after"));
+        Assertions.assertEquals(Collections.singletonList(query), listingIndex.find("alice", null));
+    }
+    
+    @Test
+    public void testChunks() {
+        listingIndex.rebuildIfDue();
+        
+        List<Query> queries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            queries.add(addQuery("alice", null));
+        }
+        
+        // adding a query only touches the last chunk
+        Assertions.assertEquals(3, getNumChunks("alice"));
+        Assertions.assertEquals(sorted(queries), sorted(listingIndex.find("alice", null)));
+        
+        // emptying a chunk moves the last chunk into its place
+        listingIndex.remove(queries.get(0));
+        listingIndex.remove(queries.get(1));
+        Assertions.assertEquals(2, getNumChunks("alice"));
+        Assertions.assertEquals(sorted(queries.subList(2, 5)), sorted(listingIndex.find("alice", null)));
+        
+        // removing every query removes the owner's entries altogether
+        queries.subList(2, 5).forEach(listingIndex::remove);
+        Assertions.assertEquals(0, getNumChunks("alice"));
+        Assertions.assertTrue(listingIndex.find("alice", null).isEmpty());
+    }
+    
+    @Test
+    public void testReaddedQuery() {
+        listingIndex.rebuildIfDue();
+        
+        Query query = addQuery("alice", null);
+        addQuery("alice", null);
+        addQuery("alice", null);
+        
+        // a query which is added again (e.g. on update) may be indexed twice, but is only listed once, and is fully removed
+        listingIndex.add(query);
+        Assertions.assertEquals(1, listingIndex.find("alice", null).stream().filter(query::equals).count());
+        
+        listingIndex.remove(query);
+        Assertions.assertFalse(listingIndex.find("alice", null).contains(query));
+    }
+    
+    @Test
+    public void testPruneMissingQueries() {
+        listingIndex.rebuildIfDue();
+        
+        Query removed = addQuery("alice", null);
+        Query kept = addQuery("alice", null);
+        Query alsoRemoved = addQuery("alice", null);
+        
+        // queries removed from storage behind the index's back are pruned by the next listing
+        storage.remove(removed.getId().toString());
+        storage.remove(alsoRemoved.getId().toString());
+        Assertions.assertEquals(Collections.singletonList(kept), listingIndex.find("alice", null));
+        Assertions.assertEquals(1, getNumChunks("alice"));
+    }
+    
+    @Test
+    public void testRebuild() {
+        // queries which were stored without being indexed are found once the index is rebuilt
+        List<Query> queries = Arrays.asList(store("alice", null), store("alice", null), store("alice", null));
+        listingIndex.add(queries.get(0));
+        
+        listingIndex.rebuildIfDue();
+        Assertions.assertEquals(1, numStorageScans.get());
+        Assertions.assertEquals(sorted(queries), sorted(listingIndex.find("alice", null)));
+        
+        // rebuilding doesn't index a query twice
+        Assertions.assertEquals(2, getNumChunks("alice"));
+        
+        // the index isn't rebuilt again until the rebuild interval has passed
+        store("alice", null);
+        listingIndex.rebuildIfDue();
+        Assertions.assertEquals(1, numStorageScans.get());
+        Assertions.assertEquals(3, listingIndex.find("alice", null).size());
+    }
+    
+    @Test
+    public void testRebuildSkippedWhileLocked() {
+        // another query service is rebuilding the index
+        locked.set(true);
+        listingIndex.rebuildIfDue();
+        
+        Assertions.assertEquals(0, numStorageScans.get());
+        Assertions.assertNull(listingIndex.find("alice", null));
+    }
+    
+    private Query addQuery(String owner, String queryName) {
+        Query query = store(owner, queryName);
+        listingIndex.add(query);
+        return query;
+    }
+    
+    private Query store(String owner, String queryName) {
+        QueryImpl query = new QueryImpl();
+        query.setId(UUID.randomUUID());
+        query.setOwner(owner);
+        query.setQueryName(queryName);
+        
+        QueryStatus queryStatus = new QueryStatus(new QueryKey("default", query.getId().toString(), "EventQuery"));
+        queryStatus.setQuery(query);
+        storage.put(query.getId().toString(), queryStatus);
+        return query;
+    }
+    
+    private int getNumChunks(String owner) {
+        Integer numChunks = cache.get("owner:" + owner, Integer.class);
+        return (numChunks != null) ? numChunks : 0;
+    }
+    
+    private static List<Query> sorted(List<Query> queries) {
+        return queries.stream().sorted((a, b) -> a.getId().compareTo(b.getId())).collect(Collectors.toList());
+    }
+    
+    private QueryStorageCache createQueryStorageCache() {
+        return (QueryStorageCache) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {QueryStorageCache.class}, (proxy, method, args) -> {
+            if (method.getName().equals("getQueryStatus")) {
+                if (args == null || args.length == 0) {
+                    numStorageScans.incrementAndGet();
+                    return new ArrayList<>(storage.values());
+                }
+                return storage.get((String) args[0]);
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+    
+    // a cache inspector whose locks always succeed, except for tryLock when another query service is pretending to hold the lock
+    private LockableCacheInspector createCacheInspector() {
+        Class<?>[] interfaces = new Class<?>[] {LockableCacheInspector.class};
+        return (LockableCacheInspector) Proxy.newProxyInstance(getClass().getClassLoader(), interfaces, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "lock":
+                case "unlock":
+                    return null;
+                case "tryLock":
+                    return !locked.get();
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
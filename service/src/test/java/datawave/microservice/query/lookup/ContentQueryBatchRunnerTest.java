@@ -0,0 +1,202 @@
+package datawave.microservice.query.lookup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ContentQueryBatchRunnerTest {
+    
+    private static final long TEST_WAIT_TIME_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    
+    private final Set<Integer> startedBatches = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> stoppedBatches = ConcurrentHashMap.newKeySet();
+    private final List<Integer> completedBatches = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger numRunning = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private ExecutorService executor;
+    
+    @BeforeEach
+    public void setup() {
+        executor = Executors.newCachedThreadPool();
+    }
+    
+    @AfterEach
+    public void teardown() {
+        executor.shutdownNow();
+        Thread.interrupted();
+    }
+    
+    @Test
+    public void testConcurrentBatches() throws Exception {
+        // the first two batches can only get past the barrier if they are running at the same time
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        List<TestBatch> batches = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            batches.add(new TestBatch(i, (i < 2) ? stopped -> barrier.await(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS) : stopped -> {}));
+        }
+        
+        List<Integer> response = createRunner(2).run(batches);
+        
+        // every batch is merged, no more than two batches ran at a time, and every batch was completed on the calling thread
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), sorted(response));
+        Assertions.assertEquals(2, maxRunning.get());
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), sorted(completedBatches));
+        batches.forEach(batch -> Assertions.assertSame(Thread.currentThread(), batch.completedThread));
+    }
+    
+    @Test
+    public void testMergeOrder() throws Exception {
+        // batch 1 completes first, then batch 0, then batch 2
+        List<TestBatch> batches = new ArrayList<>();
+        batches.add(new TestBatch(0, stopped -> awaitCompleted(1)));
+        batches.add(new TestBatch(1, stopped -> {}));
+        batches.add(new TestBatch(2, stopped -> awaitCompleted(0)));
+        
+        List<Integer> response = createRunner(2).run(batches);
+        
+        // the responses are merged in the order that the batches complete
+        Assertions.assertEquals(Arrays.asList(1, 0, 2), response);
+        Assertions.assertEquals(Arrays.asList(1, 0, 2), completedBatches);
+    }
+    
+    @Test
+    public void testNoBatches() throws Exception {
+        Assertions.assertNull(createRunner(2).run(Collections.emptyList()));
+    }
+    
+    @Test
+    public void testFailure() throws Exception {
+        List<TestBatch> batches = new ArrayList<>();
+        batches.add(new TestBatch(0, stopped -> {
+            throw new IllegalStateException("batch 0 failed");
+        }));
+        batches.add(new TestBatch(1, this::awaitStopped));
+        batches.add(new TestBatch(2, this::awaitStopped));
+        batches.add(new TestBatch(3, stopped -> {}));
+        batches.add(new TestBatch(4, stopped -> {}));
+        
+        ContentQueryBatchRunner<List<Integer>> runner = createRunner(2);
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> runner.run(batches));
+        
+        Assertions.assertEquals("batch 0 failed", e.getCause().getMessage());
+        Assertions.assertTrue(runner.isStopped());
+        
+        // the failed batch is still completed, so that its query metric is kept
+        Assertions.assertEquals(Collections.singletonList(0), completedBatches);
+        
+        // the running batches are asked to stop, and the remaining batches are never started
+        awaitStoppedBatches(batches.get(1), batches.get(2));
+        Assertions.assertFalse(startedBatches.contains(3));
+        Assertions.assertFalse(startedBatches.contains(4));
+    }
+    
+    @Test
+    public void testInterrupted() throws Exception {
+        List<TestBatch> batches = Arrays.asList(new TestBatch(0, this::awaitStopped), new TestBatch(1, this::awaitStopped), new TestBatch(2, stopped -> {}));
+        
+        ContentQueryBatchRunner<List<Integer>> runner = createRunner(2);
+        Thread.currentThread().interrupt();
+        Assertions.assertThrows(InterruptedException.class, () -> runner.run(batches));
+        
+        // the running batches are asked to stop, and the remaining batch is never started
+        Assertions.assertTrue(runner.isStopped());
+        awaitStoppedBatches(batches.get(0), batches.get(1));
+        Assertions.assertFalse(startedBatches.contains(2));
+        Assertions.assertTrue(completedBatches.isEmpty());
+    }
+    
+    private ContentQueryBatchRunner<List<Integer>> createRunner(int parallelism) {
+        return new ContentQueryBatchRunner<>(executor, parallelism, (merged, response) -> {
+            if (merged == null) {
+                return response;
+            }
+            merged.addAll(response);
+            return merged;
+        });
+    }
+    
+    private void awaitCompleted(int batch) throws InterruptedException {
+        long startTimeMillis = System.currentTimeMillis();
+        while (!completedBatches.contains(batch) && (System.currentTimeMillis() - startTimeMillis) < TEST_WAIT_TIME_MILLIS) {
+            Thread.sleep(10);
+        }
+    }
+    
+    private void awaitStopped(BooleanSupplier stopped) throws InterruptedException {
+        long startTimeMillis = System.currentTimeMillis();
+        while (!stopped.getAsBoolean() && (System.currentTimeMillis() - startTimeMillis) < TEST_WAIT_TIME_MILLIS) {
+            Thread.sleep(10);
+        }
+    }
+    
+    private void awaitStoppedBatches(TestBatch... batches) throws InterruptedException {
+        for (TestBatch batch : batches) {
+            // a batch which was cancelled before it started will never stop
+            if (startedBatches.contains(batch.id)) {
+                Assertions.assertTrue(batch.finished.await(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS));
+                Assertions.assertTrue(stoppedBatches.contains(batch.id));
+            }
+        }
+    }
+    
+    private static List<Integer> sorted(List<Integer> batches) {
+        List<Integer> sortedBatches = new ArrayList<>(batches);
+        Collections.sort(sortedBatches);
+        return sortedBatches;
+    }
+    
+    @FunctionalInterface
+    private interface BatchWork {
+        void run(BooleanSupplier stopped) throws Exception;
+    }
+    
+    private class TestBatch implements ContentQueryBatchRunner.Batch<List<Integer>> {
+        private final int id;
+        private final BatchWork work;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile Thread completedThread;
+        
+        private TestBatch(int id, BatchWork work) {
+            this.id = id;
+            this.work = work;
+        }
+        
+        @Override
+        public List<Integer> run(BooleanSupplier stopped) throws Exception {
+            startedBatches.add(id);
+            maxRunning.accumulateAndGet(numRunning.incrementAndGet(), Math::max);
+            try {
+                work.run(stopped);
+                if (stopped.getAsBoolean()) {
+                    stoppedBatches.add(id);
+                }
+                return new ArrayList<>(Collections.singletonList(id));
+            } finally {
+                numRunning.decrementAndGet();
+                finished.countDown();
+            }
+        }
+        
+        @Override
+        public void completed() {
+            completedThread = Thread.currentThread();
+            completedBatches.add(id);
+        }
+    }
+}
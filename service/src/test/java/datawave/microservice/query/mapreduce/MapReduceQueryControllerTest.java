@@ -0,0 +1,170 @@
+package datawave.microservice.query.mapreduce;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.mapreduce.config.MapReduceFileProperties;
+import datawave.microservice.query.mapreduce.config.MapReduceQueryProperties;
+
+public class MapReduceQueryControllerTest {
+    
+    private static final String ID = "some-query-id";
+    private static final String CONTENTS = "0123456789abcdefghij";
+    
+    @TempDir
+    java.nio.file.Path resultsDir;
+    
+    private MapReduceQueryController controller;
+    
+    @BeforeEach
+    public void setup() throws Exception {
+        Files.write(resultsDir.resolve("part-m-00000"), CONTENTS.getBytes(StandardCharsets.UTF_8));
+        Files.write(resultsDir.resolve("empty"), new byte[0]);
+        
+        FileSystem fileSystem = FileSystem.getLocal(new Configuration());
+        
+        // use a small buffer so that the files are copied in several chunks
+        MapReduceFileProperties fileProperties = new MapReduceFileProperties();
+        fileProperties.setCopyBufferSize(3);
+        
+        // serve the result files straight from the local filesystem
+        MapReduceQueryManagementService managementService = new MapReduceQueryManagementService(null, new MapReduceQueryProperties(), fileProperties, null,
+                        null, null, null, null) {
+            @Override
+            public Map.Entry<FileStatus,FSDataInputStream> getFile(String id, String fileName, DatawaveUserDetails currentUser) {
+                try {
+                    Path filePath = new Path(resultsDir.resolve(fileName).toUri());
+                    return new AbstractMap.SimpleEntry<>(fileSystem.getFileStatus(filePath), fileSystem.open(filePath));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        controller = new MapReduceQueryController(managementService);
+    }
+    
+    @Test
+    public void testParseRange() {
+        Assertions.assertNull(MapReduceQueryController.parseRange(null));
+        
+        HttpRange range = MapReduceQueryController.parseRange("bytes=2-5");
+        Assertions.assertEquals(2, range.getRangeStart(20));
+        Assertions.assertEquals(5, range.getRangeEnd(20));
+        
+        HttpRange openEndedRange = MapReduceQueryController.parseRange("bytes=5-");
+        Assertions.assertEquals(5, openEndedRange.getRangeStart(20));
+        Assertions.assertEquals(19, openEndedRange.getRangeEnd(20));
+        
+        HttpRange suffixRange = MapReduceQueryController.parseRange("bytes=-4");
+        Assertions.assertEquals(16, suffixRange.getRangeStart(20));
+        Assertions.assertEquals(19, suffixRange.getRangeEnd(20));
+        
+        // multiple ranges and invalid ranges are ignored, so that the whole file is returned
+        Assertions.assertNull(MapReduceQueryController.parseRange("bytes=0-1,4-5"));
+        Assertions.assertNull(MapReduceQueryController.parseRange("bytes=5-2"));
+        Assertions.assertNull(MapReduceQueryController.parseRange("lines=0-1"));
+        Assertions.assertNull(MapReduceQueryController.parseRange("not a range"));
+    }
+    
+    @Test
+    public void testWholeFile() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.getFile(ID, "part-m-00000", null, null);
+        
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        Assertions.assertEquals(CONTENTS.length(), response.getHeaders().getContentLength());
+        Assertions.assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        Assertions.assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        Assertions.assertEquals(CONTENTS, writeBody(response));
+    }
+    
+    @Test
+    public void testIgnoredRange() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.getFile(ID, "part-m-00000", "bytes=0-1,4-5", null);
+        
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        Assertions.assertEquals(CONTENTS, writeBody(response));
+    }
+    
+    @Test
+    public void testRange() throws Exception {
+        assertPartialContent("bytes=2-9", 2, 9);
+        
+        // the end of the range is limited to the end of the file
+        assertPartialContent("bytes=15-100", 15, 19);
+    }
+    
+    @Test
+    public void testOpenEndedRange() throws Exception {
+        assertPartialContent("bytes=5-", 5, 19);
+        assertPartialContent("bytes=19-", 19, 19);
+    }
+    
+    @Test
+    public void testSuffixRange() throws Exception {
+        assertPartialContent("bytes=-4", 16, 19);
+        
+        // a suffix which is longer than the file returns the whole file
+        assertPartialContent("bytes=-100", 0, 19);
+    }
+    
+    @Test
+    public void testUnsatisfiableRange() throws Exception {
+        assertRangeNotSatisfiable("part-m-00000", "bytes=20-", CONTENTS.length());
+        assertRangeNotSatisfiable("part-m-00000", "bytes=100-200", CONTENTS.length());
+    }
+    
+    @Test
+    public void testEmptyFile() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.getFile(ID, "empty", null, null);
+        
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        Assertions.assertEquals(0, response.getHeaders().getContentLength());
+        Assertions.assertEquals("", writeBody(response));
+        
+        // no range of an empty file can be satisfied
+        assertRangeNotSatisfiable("empty", "bytes=0-", 0);
+        assertRangeNotSatisfiable("empty", "bytes=-5", 0);
+    }
+    
+    private void assertPartialContent(String range, int start, int end) throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.getFile(ID, "part-m-00000", range, null);
+        
+        Assertions.assertEquals(206, response.getStatusCodeValue(), range);
+        Assertions.assertEquals(end - start + 1, response.getHeaders().getContentLength(), range);
+        Assertions.assertEquals("bytes " + start + "-" + end + "/" + CONTENTS.length(), response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE), range);
+        Assertions.assertEquals(CONTENTS.substring(start, end + 1), writeBody(response), range);
+    }
+    
+    private void assertRangeNotSatisfiable(String fileName, String range, long fileLength) throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.getFile(ID, fileName, range, null);
+        
+        Assertions.assertEquals(416, response.getStatusCodeValue(), range);
+        Assertions.assertEquals("bytes */" + fileLength, response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE), range);
+        Assertions.assertNull(response.getBody(), range);
+    }
+    
+    private static String writeBody(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
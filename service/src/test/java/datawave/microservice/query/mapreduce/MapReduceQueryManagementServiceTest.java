@@ -0,0 +1,83 @@
+package datawave.microservice.query.mapreduce;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MapReduceQueryManagementServiceTest {
+    
+    private static final String CONTENTS = "0123456789abcdefghij";
+    
+    @TempDir
+    java.nio.file.Path resultsDir;
+    
+    private FileSystem fileSystem;
+    
+    @BeforeEach
+    public void setup() throws IOException {
+        Files.write(resultsDir.resolve("part-m-00000"), CONTENTS.getBytes(StandardCharsets.UTF_8));
+        Files.write(resultsDir.resolve("empty"), new byte[0]);
+        
+        fileSystem = FileSystem.getLocal(new Configuration());
+    }
+    
+    @Test
+    public void testCopyWholeFile() throws IOException {
+        assertCopy("part-m-00000", 0, -1, CONTENTS);
+    }
+    
+    @Test
+    public void testCopyRange() throws IOException {
+        assertCopy("part-m-00000", 0, 5, "01234");
+        assertCopy("part-m-00000", 7, 6, "789abc");
+        assertCopy("part-m-00000", 19, 1, "j");
+    }
+    
+    @Test
+    public void testCopyToEndOfFile() throws IOException {
+        assertCopy("part-m-00000", 15, -1, "fghij");
+        
+        // asking for more than the rest of the file copies the rest of the file
+        assertCopy("part-m-00000", 15, 100, "fghij");
+    }
+    
+    @Test
+    public void testCopyEmptyFile() throws IOException {
+        assertCopy("empty", 0, -1, "");
+    }
+    
+    @Test
+    public void testCopyWithoutReadAhead() throws IOException {
+        try (FSDataInputStream inputStream = open("part-m-00000")) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            Assertions.assertEquals(4, MapReduceQueryManagementService.copyFile(inputStream, outputStream, 3, 4, new byte[64], 0));
+            Assertions.assertEquals("3456", new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+    
+    private void assertCopy(String fileName, long offset, long length, String expected) throws IOException {
+        try (FSDataInputStream inputStream = open(fileName)) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            
+            // use a small buffer so that the range is copied in several chunks, and ask for read-ahead, which the local filesystem may not support
+            long numCopied = MapReduceQueryManagementService.copyFile(inputStream, outputStream, offset, length, new byte[3], 1024);
+            
+            Assertions.assertEquals(expected.length(), numCopied);
+            Assertions.assertEquals(expected, new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+    
+    private FSDataInputStream open(String fileName) throws IOException {
+        return fileSystem.open(new Path(resultsDir.resolve(fileName).toUri()));
+    }
+}
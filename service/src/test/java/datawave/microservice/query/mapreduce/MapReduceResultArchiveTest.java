@@ -0,0 +1,123 @@
+package datawave.microservice.query.mapreduce;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import datawave.microservice.query.mapreduce.MapReduceResultArchive.Compression;
+import datawave.microservice.query.mapreduce.config.MapReduceFileProperties;
+
+public class MapReduceResultArchiveTest {
+    
+    private static final String ID = "some-query-id";
+    
+    // the expected entries, in the order that they should be written
+    private static final List<String> EXPECTED_ENTRIES = Arrays.asList(ID + "/_SUCCESS", ID + "/nested/part-m-00000", ID + "/part-m-00000",
+                    ID + "/part-m-00001", ID + "/part-m-00010");
+    
+    @TempDir
+    java.nio.file.Path resultsDir;
+    
+    private FileSystem fileSystem;
+    private MapReduceFileProperties fileProperties;
+    
+    @BeforeEach
+    public void setup() throws IOException {
+        // write the files out of order, to make sure that the archive doesn't depend on the listing order
+        for (String fileName : Arrays.asList("part-m-00010", "part-m-00001", "_SUCCESS", "nested/part-m-00000", "part-m-00000")) {
+            java.nio.file.Path file = resultsDir.resolve(fileName);
+            Files.createDirectories(file.getParent());
+            Files.write(file, contents(fileName).getBytes(StandardCharsets.UTF_8));
+        }
+        
+        fileSystem = FileSystem.getLocal(new Configuration());
+        
+        // use a small buffer so that the files are copied in several chunks
+        fileProperties = new MapReduceFileProperties();
+        fileProperties.setCopyBufferSize(7);
+    }
+    
+    @Test
+    public void testTar() throws IOException {
+        byte[] archive = writeArchive(Compression.NONE, null);
+        assertEntries(new ByteArrayInputStream(archive));
+        
+        // the same results should always produce the same archive
+        Assertions.assertArrayEquals(archive, writeArchive(Compression.NONE, null));
+    }
+    
+    @Test
+    public void testGzip() throws IOException {
+        assertEntries(new GzipCompressorInputStream(new ByteArrayInputStream(writeArchive(Compression.GZIP, null))));
+        assertEntries(new GzipCompressorInputStream(new ByteArrayInputStream(writeArchive(Compression.GZIP, 9))));
+    }
+    
+    @Test
+    public void testZstd() throws IOException {
+        Assumptions.assumeTrue(Compression.ZSTD.isAvailable(), "zstd is not available");
+        assertEntries(new ZstdCompressorInputStream(new ByteArrayInputStream(writeArchive(Compression.ZSTD, 3))));
+    }
+    
+    @Test
+    public void testFileName() {
+        Assertions.assertEquals(ID + ".tar", createArchive(Compression.NONE, null).getFileName());
+        Assertions.assertEquals(ID + ".tar.gz", createArchive(Compression.GZIP, null).getFileName());
+        Assertions.assertEquals(ID + ".tar.zst", createArchive(Compression.ZSTD, null).getFileName());
+    }
+    
+    @Test
+    public void testCompressionFromString() {
+        Assertions.assertEquals(Compression.NONE, Compression.fromString(null));
+        Assertions.assertEquals(Compression.NONE, Compression.fromString(""));
+        Assertions.assertEquals(Compression.GZIP, Compression.fromString("gzip"));
+        Assertions.assertEquals(Compression.ZSTD, Compression.fromString("ZSTD"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Compression.fromString("bzip2"));
+    }
+    
+    private MapReduceResultArchive createArchive(Compression compression, Integer compressionLevel) {
+        return new MapReduceResultArchive(fileSystem, new Path(resultsDir.toUri()), ID, compression, compressionLevel, fileProperties);
+    }
+    
+    private byte[] writeArchive(Compression compression, Integer compressionLevel) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        createArchive(compression, compressionLevel).writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+    
+    private static void assertEntries(InputStream inputStream) throws IOException {
+        List<String> entryNames = new ArrayList<>();
+        try (TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(inputStream)) {
+            TarArchiveEntry entry;
+            while ((entry = tarArchiveInputStream.getNextTarEntry()) != null) {
+                entryNames.add(entry.getName());
+                String fileName = entry.getName().substring(ID.length() + 1);
+                Assertions.assertEquals(contents(fileName), new String(IOUtils.toByteArray(tarArchiveInputStream), StandardCharsets.UTF_8));
+            }
+        }
+        Assertions.assertEquals(EXPECTED_ENTRIES, entryNames);
+    }
+    
+    private static String contents(String fileName) {
+        return "the contents of " + fileName + "\n";
+    }
+}
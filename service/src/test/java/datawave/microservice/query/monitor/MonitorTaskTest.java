@@ -0,0 +1,267 @@
+package datawave.microservice.query.monitor;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.query.config.QueryExpirationProperties;
+import datawave.microservice.query.messaging.QueryResultsManager;
+import datawave.microservice.query.monitor.cache.MonitorStatus;
+import datawave.microservice.query.monitor.cache.MonitorStatusCache;
+import datawave.microservice.query.monitor.config.MonitorProperties;
+import datawave.microservice.query.storage.QueryKey;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.storage.QueryStorageCache;
+
+public class MonitorTaskTest {
+    
+    private static final int NUM_SHARDS = 4;
+    
+    private final MonitorProperties monitorProperties = new MonitorProperties();
+    private final InMemoryMonitorStatusCache monitorStatusCache = new InMemoryMonitorStatusCache();
+    private final Map<String,QueryStatus> queryStatuses = new ConcurrentHashMap<>();
+    private final Set<String> monitoredQueryIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> failingQueryIds = ConcurrentHashMap.newKeySet();
+    private ExecutorService sweepExecutor;
+    
+    @BeforeEach
+    public void setup() {
+        monitorProperties.setNumShards(NUM_SHARDS);
+        monitorProperties.setSweepParallelism(2);
+        monitorProperties.setMonitorInterval(1);
+        monitorProperties.setMonitorIntervalUnit(TimeUnit.MINUTES);
+        sweepExecutor = Executors.newFixedThreadPool(monitorProperties.getSweepParallelism());
+    }
+    
+    @AfterEach
+    public void teardown() {
+        sweepExecutor.shutdownNow();
+    }
+    
+    @Test
+    public void testGetShard() {
+        // a single shard holds everything
+        Assertions.assertEquals(0, MonitorTask.getShard(UUID.randomUUID().toString(), 1));
+        
+        // query ids should be spread evenly across the shards, and always land on the same shard
+        int numShards = 8;
+        int numQueries = 8000;
+        int[] counts = new int[numShards];
+        for (int i = 0; i < numQueries; i++) {
+            String queryId = UUID.randomUUID().toString();
+            int shard = MonitorTask.getShard(queryId, numShards);
+            Assertions.assertTrue(shard >= 0 && shard < numShards);
+            Assertions.assertEquals(shard, MonitorTask.getShard(queryId, numShards));
+            counts[shard]++;
+        }
+        for (int count : counts) {
+            Assertions.assertTrue(count > (numQueries / numShards) / 2, "Uneven shard distribution: " + Arrays.toString(counts));
+            Assertions.assertTrue(count < (numQueries / numShards) * 2, "Uneven shard distribution: " + Arrays.toString(counts));
+        }
+        
+        // negative hash codes still map to a valid shard
+        Assertions.assertEquals(Math.floorMod("polygenelubricants".hashCode(), numShards), MonitorTask.getShard("polygenelubricants", numShards));
+    }
+    
+    @Test
+    public void testShardKey() {
+        // a single shard uses the original, unsharded key so that existing deployments keep their status and lock
+        Assertions.assertEquals(MonitorStatusCache.CACHE_KEY, MonitorStatusCache.getShardKey(0, 1));
+        
+        Set<String> keys = new HashSet<>();
+        for (int shard = 0; shard < NUM_SHARDS; shard++) {
+            keys.add(MonitorStatusCache.getShardKey(shard, NUM_SHARDS));
+        }
+        Assertions.assertEquals(NUM_SHARDS, keys.size());
+        Assertions.assertFalse(keys.contains(MonitorStatusCache.CACHE_KEY));
+    }
+    
+    @Test
+    public void testMonitorAllShards() throws Exception {
+        Map<Integer,List<String>> shardQueryIds = createQueries(5);
+        
+        long startTimeMillis = System.currentTimeMillis();
+        createMonitorTask().call();
+        
+        // every query is monitored, and every shard is renewed and released
+        Assertions.assertEquals(queryStatuses.keySet(), monitoredQueryIds);
+        for (int shard : shardQueryIds.keySet()) {
+            Assertions.assertTrue(monitorStatusCache.getStatus(shard, NUM_SHARDS).getLastCheckedMillis() >= startTimeMillis);
+        }
+        Assertions.assertTrue(monitorStatusCache.lockedKeys.isEmpty());
+        
+        // the shards were just renewed, so none of them are due
+        monitoredQueryIds.clear();
+        createMonitorTask().call();
+        Assertions.assertTrue(monitoredQueryIds.isEmpty());
+        Assertions.assertTrue(monitorStatusCache.lockedKeys.isEmpty());
+    }
+    
+    @Test
+    public void testLeaseOnlyDueAndUnlockedShards() throws Exception {
+        Map<Integer,List<String>> shardQueryIds = createQueries(5);
+        
+        // shard 1 was recently monitored, and shard 2 is leased by another query service
+        long recentlyCheckedMillis = System.currentTimeMillis();
+        MonitorStatus recentStatus = new MonitorStatus();
+        recentStatus.setLastChecked(recentlyCheckedMillis);
+        monitorStatusCache.setStatus(1, NUM_SHARDS, recentStatus);
+        String foreignLock = MonitorStatusCache.getShardKey(2, NUM_SHARDS);
+        monitorStatusCache.lockedKeys.add(foreignLock);
+        
+        createMonitorTask().call();
+        
+        Set<String> expectedQueryIds = new HashSet<>();
+        expectedQueryIds.addAll(shardQueryIds.get(0));
+        expectedQueryIds.addAll(shardQueryIds.get(3));
+        Assertions.assertEquals(expectedQueryIds, monitoredQueryIds);
+        
+        // the skipped shards are untouched, and only the foreign lock is still held
+        Assertions.assertEquals(recentlyCheckedMillis, monitorStatusCache.getStatus(1, NUM_SHARDS).getLastCheckedMillis());
+        Assertions.assertEquals(0L, monitorStatusCache.getStatus(2, NUM_SHARDS).getLastCheckedMillis());
+        Assertions.assertEquals(Collections.singleton(foreignLock), monitorStatusCache.lockedKeys);
+    }
+    
+    @Test
+    public void testMaxShardsPerSweep() throws Exception {
+        createQueries(5);
+        monitorProperties.setMaxShardsPerSweep(2);
+        
+        // each sweep leases at most 2 shards, until every shard has been monitored
+        Set<Integer> monitoredShards = new HashSet<>();
+        for (int sweep = 0; sweep < 2; sweep++) {
+            monitoredQueryIds.clear();
+            createMonitorTask().call();
+            
+            Set<Integer> sweepShards = monitoredQueryIds.stream().map(queryId -> MonitorTask.getShard(queryId, NUM_SHARDS)).collect(Collectors.toSet());
+            Assertions.assertEquals(2, sweepShards.size());
+            Assertions.assertTrue(Collections.disjoint(monitoredShards, sweepShards));
+            monitoredShards.addAll(sweepShards);
+            Assertions.assertTrue(monitorStatusCache.lockedKeys.isEmpty());
+        }
+        Assertions.assertEquals(NUM_SHARDS, monitoredShards.size());
+        
+        monitoredQueryIds.clear();
+        createMonitorTask().call();
+        Assertions.assertTrue(monitoredQueryIds.isEmpty());
+    }
+    
+    @Test
+    public void testFailedShardNotRenewed() throws Exception {
+        Map<Integer,List<String>> shardQueryIds = createQueries(5);
+        failingQueryIds.add(shardQueryIds.get(2).get(0));
+        
+        long startTimeMillis = System.currentTimeMillis();
+        createMonitorTask().call();
+        
+        // the failed shard is released without being renewed, so that it will be retried on the next sweep
+        for (int shard = 0; shard < NUM_SHARDS; shard++) {
+            long lastCheckedMillis = monitorStatusCache.getStatus(shard, NUM_SHARDS).getLastCheckedMillis();
+            Assertions.assertEquals(shard != 2, lastCheckedMillis >= startTimeMillis);
+        }
+        Assertions.assertTrue(monitorStatusCache.lockedKeys.isEmpty());
+        
+        failingQueryIds.clear();
+        monitoredQueryIds.clear();
+        createMonitorTask().call();
+        Assertions.assertEquals(new HashSet<>(shardQueryIds.get(2)), monitoredQueryIds);
+    }
+    
+    private MonitorTask createMonitorTask() {
+        return new MonitorTask(monitorProperties, new QueryExpirationProperties(), monitorStatusCache, createQueryStorageCache(), createQueryResultsManager(),
+                        null, sweepExecutor, null);
+    }
+    
+    // creates closed, recently used queries in every shard, which the monitor will only clean up the results queue for
+    private Map<Integer,List<String>> createQueries(int numQueriesPerShard) {
+        Map<Integer,List<String>> shardQueryIds = new HashMap<>();
+        while (shardQueryIds.size() < NUM_SHARDS || shardQueryIds.values().stream().anyMatch(queryIds -> queryIds.size() < numQueriesPerShard)) {
+            String queryId = UUID.randomUUID().toString();
+            List<String> queryIds = shardQueryIds.computeIfAbsent(MonitorTask.getShard(queryId, NUM_SHARDS), shard -> new ArrayList<>());
+            if (queryIds.size() < numQueriesPerShard) {
+                queryIds.add(queryId);
+                
+                QueryStatus queryStatus = new QueryStatus(new QueryKey("default", queryId, "EventQuery"));
+                queryStatus.setQueryState(QueryStatus.QUERY_STATE.CLOSE);
+                queryStatus.setLastUsedMillis(System.currentTimeMillis());
+                queryStatus.setLastUpdatedMillis(System.currentTimeMillis());
+                queryStatuses.put(queryId, queryStatus);
+            }
+        }
+        return shardQueryIds;
+    }
+    
+    private QueryStorageCache createQueryStorageCache() {
+        Class<?>[] interfaces = new Class<?>[] {QueryStorageCache.class};
+        return (QueryStorageCache) Proxy.newProxyInstance(getClass().getClassLoader(), interfaces, (proxy, method, args) -> {
+            if (method.getName().equals("getQueryStatus")) {
+                return (args == null || args.length == 0) ? new ArrayList<>(queryStatuses.values()) : queryStatuses.get((String) args[0]);
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+    
+    // a results manager which records the queries whose results queue the monitor cleaned up
+    private QueryResultsManager createQueryResultsManager() {
+        Class<?>[] interfaces = new Class<?>[] {QueryResultsManager.class};
+        return (QueryResultsManager) Proxy.newProxyInstance(getClass().getClassLoader(), interfaces, (proxy, method, args) -> {
+            if (method.getName().equals("deleteQuery")) {
+                String queryId = (String) args[0];
+                if (failingQueryIds.contains(queryId)) {
+                    throw new IllegalStateException("Unable to delete results queue for " + queryId);
+                }
+                monitoredQueryIds.add(queryId);
+                return null;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+    
+    // a monitor status cache which keeps the shard statuses and locks in memory, in place of the cache and its distributed locks
+    private static class InMemoryMonitorStatusCache extends MonitorStatusCache {
+        private final Map<String,MonitorStatus> statuses = new ConcurrentHashMap<>();
+        private final Set<String> lockedKeys = ConcurrentHashMap.newKeySet();
+        
+        private InMemoryMonitorStatusCache() {
+            super(null);
+        }
+        
+        @Override
+        public MonitorStatus getStatus(int shard, int numShards) {
+            return statuses.computeIfAbsent(getShardKey(shard, numShards), key -> new MonitorStatus());
+        }
+        
+        @Override
+        public MonitorStatus setStatus(int shard, int numShards, MonitorStatus monitorStatus) {
+            statuses.put(getShardKey(shard, numShards), monitorStatus);
+            return monitorStatus;
+        }
+        
+        @Override
+        public boolean tryLock(int shard, int numShards, long waitTime, TimeUnit waitTimeUnit, long leaseTime, TimeUnit leaseTimeUnit) {
+            return lockedKeys.add(getShardKey(shard, numShards));
+        }
+        
+        @Override
+        public void unlock(int shard, int numShards) {
+            Assertions.assertTrue(lockedKeys.remove(getShardKey(shard, numShards)));
+        }
+    }
+}
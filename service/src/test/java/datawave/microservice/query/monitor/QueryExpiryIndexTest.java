@@ -0,0 +1,177 @@
+package datawave.microservice.query.monitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.query.config.QueryExpirationProperties;
+import datawave.microservice.query.monitor.config.MonitorProperties;
+import datawave.microservice.query.storage.QueryKey;
+import datawave.microservice.query.storage.QueryStatus;
+
+public class QueryExpiryIndexTest {
+    
+    private static final long NOW = TimeUnit.DAYS.toMillis(100);
+    private static final long MONITOR_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+    private static final long PROGRESS_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+    private static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(15);
+    private static final long INACTIVE_TTL = TimeUnit.DAYS.toMillis(1);
+    private static final long REBUILD_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+    
+    private QueryExpiryIndex expiryIndex;
+    
+    @BeforeEach
+    public void setup() {
+        MonitorProperties monitorProperties = new MonitorProperties();
+        monitorProperties.setMonitorInterval(MONITOR_INTERVAL);
+        monitorProperties.setMonitorIntervalUnit(TimeUnit.MILLISECONDS);
+        monitorProperties.setInactiveQueryTimeToLive(INACTIVE_TTL);
+        monitorProperties.setInactiveQueryTimeToLiveUnit(TimeUnit.MILLISECONDS);
+        monitorProperties.setExpiryIndexRebuildInterval(REBUILD_INTERVAL);
+        monitorProperties.setExpiryIndexRebuildIntervalUnit(TimeUnit.MILLISECONDS);
+        
+        QueryExpirationProperties expirationProperties = new QueryExpirationProperties();
+        expirationProperties.setProgressTimeout(PROGRESS_TIMEOUT);
+        expirationProperties.setProgressTimeoutUnit(TimeUnit.MILLISECONDS);
+        expirationProperties.setIdleTimeout(IDLE_TIMEOUT);
+        expirationProperties.setIdleTimeoutUnit(TimeUnit.MILLISECONDS);
+        
+        expiryIndex = new QueryExpiryIndex(monitorProperties, expirationProperties);
+    }
+    
+    @Test
+    public void testRunningQueryProgressDeadline() {
+        expiryIndex.update(createStatus("query", QueryStatus.QUERY_STATE.CREATE, NOW, NOW), NOW);
+        
+        // the query isn't due until its progress goes idle
+        Assertions.assertTrue(expiryIndex.pollExpired(NOW + PROGRESS_TIMEOUT - 1, queryId -> true).isEmpty());
+        Assertions.assertEquals(Collections.singletonList("query"), expiryIndex.pollExpired(NOW + PROGRESS_TIMEOUT, queryId -> true));
+        
+        // once polled, the query is no longer queued, but it is still indexed until it is updated or removed
+        Assertions.assertTrue(expiryIndex.pollExpired(NOW + PROGRESS_TIMEOUT, queryId -> true).isEmpty());
+        Assertions.assertEquals(1, expiryIndex.size());
+    }
+    
+    @Test
+    public void testRunningQueryUserIdleDeadline() {
+        // the user went idle long enough ago that the idle timeout comes before the progress timeout
+        long lastUsedMillis = NOW - IDLE_TIMEOUT + TimeUnit.MINUTES.toMillis(1);
+        expiryIndex.update(createStatus("query", QueryStatus.QUERY_STATE.CREATE, lastUsedMillis, NOW), NOW);
+        
+        Assertions.assertTrue(expiryIndex.pollExpired(lastUsedMillis + IDLE_TIMEOUT - 1, queryId -> true).isEmpty());
+        Assertions.assertEquals(Collections.singletonList("query"), expiryIndex.pollExpired(lastUsedMillis + IDLE_TIMEOUT, queryId -> true));
+    }
+    
+    @Test
+    public void testDeadlineOrder() {
+        expiryIndex.update(createStatus("third", QueryStatus.QUERY_STATE.CREATE, NOW, NOW + 2000), NOW);
+        expiryIndex.update(createStatus("first", QueryStatus.QUERY_STATE.CREATE, NOW, NOW), NOW);
+        expiryIndex.update(createStatus("second", QueryStatus.QUERY_STATE.CREATE, NOW, NOW + 1000), NOW);
+        
+        Assertions.assertEquals(Collections.singletonList("first"), expiryIndex.pollExpired(NOW + PROGRESS_TIMEOUT, queryId -> true));
+        Assertions.assertEquals(Arrays.asList("second", "third"), expiryIndex.pollExpired(NOW + PROGRESS_TIMEOUT + 2000, queryId -> true));
+    }
+    
+    @Test
+    public void testUpdateReplacesDeadline() {
+        expiryIndex.update(createStatus("query", QueryStatus.QUERY_STATE.CREATE, NOW, NOW), NOW);
+        
+        // progress was made, so the deadline moves back
+        long lastUpdatedMillis = NOW + TimeUnit.MINUTES.toMillis(1);
+        expiryIndex.update(createStatus("query", QueryStatus.QUERY_STATE.CREATE, NOW, lastUpdatedMillis), lastUpdatedMillis);
+        
+        Assertions.assertEquals(1, expiryIndex.size());
+        Assertions.assertTrue(expiryIndex.pollExpired(NOW + PROGRESS_TIMEOUT, queryId -> true).isEmpty());
+        Assertions.assertEquals(Collections.singletonList("query"), expiryIndex.pollExpired(lastUpdatedMillis + PROGRESS_TIMEOUT, queryId -> true));
+    }
+    
+    @Test
+    public void testStoppedQueryDeadline() {
+        expiryIndex.update(createStatus("query", QueryStatus.QUERY_STATE.CREATE, NOW, NOW), NOW);
+        
+        // the first time that the query is seen stopped, it is due right away so that its results queue can be deleted
+        long closedMillis = NOW + 1000;
+        expiryIndex.update(createStatus("query", QueryStatus.QUERY_STATE.CLOSE, NOW, closedMillis), closedMillis);
+        Assertions.assertEquals(Collections.singletonList("query"), expiryIndex.pollExpired(closedMillis, queryId -> true));
+        
+        // after that, it isn't due until it becomes inactive
+        expiryIndex.update(createStatus("query", QueryStatus.QUERY_STATE.CLOSE, NOW, closedMillis), closedMillis);
+        Assertions.assertTrue(expiryIndex.pollExpired(closedMillis + INACTIVE_TTL - 1, queryId -> true).isEmpty());
+        Assertions.assertEquals(Collections.singletonList("query"), expiryIndex.pollExpired(closedMillis + INACTIVE_TTL, queryId -> true));
+    }
+    
+    @Test
+    public void testMinimumDeadline() {
+        // an overdue query which hasn't been acted upon is only looked at once per monitor interval
+        long lastUpdatedMillis = NOW - TimeUnit.HOURS.toMillis(1);
+        expiryIndex.update(createStatus("query", QueryStatus.QUERY_STATE.CREATE, NOW, lastUpdatedMillis), NOW);
+        
+        Assertions.assertTrue(expiryIndex.pollExpired(NOW, queryId -> true).isEmpty());
+        Assertions.assertEquals(Collections.singletonList("query"), expiryIndex.pollExpired(NOW + MONITOR_INTERVAL, queryId -> true));
+    }
+    
+    @Test
+    public void testPollExpiredFilter() {
+        expiryIndex.update(createStatus("mine", QueryStatus.QUERY_STATE.CREATE, NOW, NOW), NOW);
+        expiryIndex.update(createStatus("theirs", QueryStatus.QUERY_STATE.CREATE, NOW, NOW), NOW);
+        
+        // queries which are filtered out stay queued
+        long dueMillis = NOW + PROGRESS_TIMEOUT;
+        Assertions.assertEquals(Collections.singletonList("mine"), expiryIndex.pollExpired(dueMillis, "mine"::equals));
+        Assertions.assertEquals(Collections.singletonList("theirs"), expiryIndex.pollExpired(dueMillis, queryId -> true));
+    }
+    
+    @Test
+    public void testRemove() {
+        expiryIndex.update(createStatus("query", QueryStatus.QUERY_STATE.CREATE, NOW, NOW), NOW);
+        expiryIndex.remove("query");
+        expiryIndex.remove("unknown");
+        
+        Assertions.assertEquals(0, expiryIndex.size());
+        Assertions.assertTrue(expiryIndex.pollExpired(Long.MAX_VALUE, queryId -> true).isEmpty());
+    }
+    
+    @Test
+    public void testRebuild() {
+        Assertions.assertTrue(expiryIndex.isRebuildDue(NOW));
+        
+        // a queued query, a polled query, and a query which has since been deleted from storage
+        expiryIndex.update(createStatus("queued", QueryStatus.QUERY_STATE.CREATE, NOW, NOW), NOW);
+        expiryIndex.update(createStatus("polled", QueryStatus.QUERY_STATE.CREATE, NOW, NOW), NOW);
+        expiryIndex.update(createStatus("deleted", QueryStatus.QUERY_STATE.CREATE, NOW, NOW), NOW);
+        Assertions.assertEquals(Collections.singletonList("polled"), expiryIndex.pollExpired(NOW + PROGRESS_TIMEOUT, "polled"::equals));
+        
+        // storage also has a query which was created on another query service
+        long rebuildMillis = NOW + PROGRESS_TIMEOUT;
+        // @formatter:off
+        expiryIndex.rebuild(Arrays.asList(
+                createStatus("queued", QueryStatus.QUERY_STATE.CREATE, NOW, NOW - PROGRESS_TIMEOUT),
+                createStatus("polled", QueryStatus.QUERY_STATE.CREATE, NOW, rebuildMillis),
+                createStatus("remote", QueryStatus.QUERY_STATE.CREATE, rebuildMillis, rebuildMillis)),
+                rebuildMillis);
+        // @formatter:on
+        
+        Assertions.assertEquals(3, expiryIndex.size());
+        Assertions.assertFalse(expiryIndex.isRebuildDue(rebuildMillis));
+        Assertions.assertTrue(expiryIndex.isRebuildDue(rebuildMillis + REBUILD_INTERVAL));
+        
+        // the queued query keeps its deadline rather than taking the (older) status from the scan
+        Assertions.assertEquals(Collections.singletonList("queued"), expiryIndex.pollExpired(rebuildMillis, queryId -> true));
+        
+        // the polled and remote queries are indexed using the scanned statuses, and the deleted query is gone
+        Assertions.assertEquals(Arrays.asList("polled", "remote"), expiryIndex.pollExpired(rebuildMillis + PROGRESS_TIMEOUT, queryId -> true));
+        Assertions.assertTrue(expiryIndex.pollExpired(Long.MAX_VALUE, queryId -> true).isEmpty());
+    }
+    
+    private static QueryStatus createStatus(String queryId, QueryStatus.QUERY_STATE queryState, long lastUsedMillis, long lastUpdatedMillis) {
+        QueryStatus queryStatus = new QueryStatus(new QueryKey("default", queryId, "EventQuery"));
+        queryStatus.setQueryState(queryState);
+        queryStatus.setLastUsedMillis(lastUsedMillis);
+        queryStatus.setLastUpdatedMillis(lastUpdatedMillis);
+        return queryStatus;
+    }
+}
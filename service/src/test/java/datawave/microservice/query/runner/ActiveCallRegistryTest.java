@@ -0,0 +1,178 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ActiveCallRegistryTest {
+    // a small number of queries, so that registration and cancels for the same query contend with each other
+    private static final int NUM_QUERIES = 64;
+    private static final int NUM_NEXT_THREADS = 12;
+    private static final int NUM_CANCEL_THREADS = 4;
+    private static final int CALLS_PER_THREAD = 1000;
+    
+    @Test
+    public void testRegisterCancelUnregister() {
+        ActiveCallRegistry<TestCall> registry = new ActiveCallRegistry<>();
+        
+        TestCall call1 = new TestCall();
+        TestCall call2 = new TestCall();
+        registry.register("query1", call1);
+        registry.register("query1", call2);
+        
+        Assertions.assertEquals(2, registry.getNumActiveCalls("query1"));
+        Assertions.assertEquals(0, registry.forEach("query2", TestCall::cancel));
+        Assertions.assertEquals(2, registry.forEach("query1", TestCall::cancel));
+        Assertions.assertTrue(call1.isCanceled());
+        Assertions.assertTrue(call2.isCanceled());
+        
+        registry.unregister("query1", call1);
+        Assertions.assertEquals(1, registry.getNumActiveCalls("query1"));
+        registry.unregister("query1", call2);
+        Assertions.assertEquals(0, registry.getNumActiveCalls("query1"));
+        Assertions.assertEquals(0, registry.getNumActiveQueries());
+    }
+    
+    @Test
+    public void testSlowBroadcastDoesNotBlockRegistration() throws Exception {
+        ActiveCallRegistry<TestCall> registry = new ActiveCallRegistry<>();
+        TestCall call1 = new TestCall();
+        registry.register("query1", call1);
+        
+        CountDownLatch broadcastStarted = new CountDownLatch(1);
+        CountDownLatch releaseBroadcast = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // a slow cancel, which also calls back into the registry
+            Future<Integer> broadcast = executor.submit(() -> registry.forEach("query1", call -> {
+                broadcastStarted.countDown();
+                try {
+                    releaseBroadcast.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                call.cancel();
+                registry.unregister("query1", call);
+            }));
+            Assertions.assertTrue(broadcastStarted.await(30, TimeUnit.SECONDS));
+            
+            // registration for the same query isn't held up by the running broadcast
+            TestCall call2 = new TestCall();
+            registry.register("query1", call2);
+            Assertions.assertEquals(2, registry.getNumActiveCalls("query1"));
+            
+            releaseBroadcast.countDown();
+            Assertions.assertEquals(1, broadcast.get(30, TimeUnit.SECONDS).intValue());
+            
+            // the broadcast only saw the calls which were registered before it started
+            Assertions.assertTrue(call1.isCanceled());
+            Assertions.assertFalse(call2.isCanceled());
+            Assertions.assertEquals(1, registry.getNumActiveCalls("query1"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void testConcurrentNextAndCancel() throws Exception {
+        ActiveCallRegistry<TestCall> registry = new ActiveCallRegistry<>();
+        AtomicLongArray cancelsStarted = new AtomicLongArray(NUM_QUERIES);
+        AtomicLongArray cancelsCompleted = new AtomicLongArray(NUM_QUERIES);
+        List<TestCall> calls = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean nextCallsDone = new AtomicBoolean();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_NEXT_THREADS + NUM_CANCEL_THREADS);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<?>> nextFutures = new ArrayList<>();
+        List<Future<?>> cancelFutures = new ArrayList<>();
+        try {
+            // the cancels are broadcast by other threads, the way that cancel requests for a query arrive while its next calls are running
+            for (int thread = 0; thread < NUM_CANCEL_THREADS; thread++) {
+                cancelFutures.add(executor.submit(() -> {
+                    startLatch.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (!nextCallsDone.get()) {
+                        int query = random.nextInt(NUM_QUERIES);
+                        long cancelId = cancelsStarted.incrementAndGet(query);
+                        registry.forEach("query" + query, TestCall::cancel);
+                        cancelsCompleted.accumulateAndGet(query, cancelId, Math::max);
+                    }
+                    return null;
+                }));
+            }
+            
+            for (int thread = 0; thread < NUM_NEXT_THREADS; thread++) {
+                nextFutures.add(executor.submit(() -> {
+                    startLatch.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                        int query = random.nextInt(NUM_QUERIES);
+                        TestCall call = new TestCall();
+                        registry.register("query" + query, call);
+                        calls.add(call);
+                        
+                        // any cancel which starts after we registered must reach us
+                        long registeredAfter = cancelsStarted.get(query);
+                        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+                        while (cancelsCompleted.get(query) <= registeredAfter) {
+                            if (System.nanoTime() > deadline) {
+                                throw new IllegalStateException("Timed out waiting for a cancel of query" + query);
+                            }
+                            Thread.yield();
+                        }
+                        if (!call.isCanceled()) {
+                            throw new IllegalStateException("Lost cancel for query" + query);
+                        }
+                        
+                        registry.unregister("query" + query, call);
+                        call.unregistered = true;
+                    }
+                    return null;
+                }));
+            }
+            
+            startLatch.countDown();
+            for (Future<?> future : nextFutures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+            nextCallsDone.set(true);
+            for (Future<?> future : cancelFutures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        // every registered call was canceled by another thread, and then unregistered
+        Assertions.assertEquals(NUM_NEXT_THREADS * CALLS_PER_THREAD, calls.size());
+        for (TestCall call : calls) {
+            Assertions.assertTrue(call.isCanceled());
+            Assertions.assertTrue(call.unregistered);
+        }
+        Assertions.assertEquals(0, registry.getNumActiveQueries());
+    }
+    
+    private static class TestCall {
+        private volatile boolean canceled = false;
+        private volatile boolean unregistered = false;
+        
+        public void cancel() {
+            canceled = true;
+        }
+        
+        public boolean isCanceled() {
+            return canceled;
+        }
+    }
+}
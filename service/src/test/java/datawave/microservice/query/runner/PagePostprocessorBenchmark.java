@@ -0,0 +1,89 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.core.query.logic.ResultPostprocessor;
+
+/**
+ * Compares the time it takes to build a page of 1k, 10k, and 100k results when the postprocessor is re-applied to the entire page for every result, when it
+ * is deferred until the page is complete, and when it is applied incrementally.
+ * <p>
+ * The postprocessor scans the page, like a postprocessor which dedupes or tallies results would. The results depend on timing, so this only logs them and is
+ * not part of the unit test suite. Run it explicitly with {@code mvn test -Dtest=PagePostprocessorBenchmark}.
+ */
+public class PagePostprocessorBenchmark {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private static final int[] PAGE_SIZES = {1000, 10000, 100000};
+    
+    @Test
+    public void benchmarkPageBuild() {
+        // warm up each mode before timing them
+        for (int i = 0; i < 3; i++) {
+            buildPage(new ScanningPostprocessor(), false, PAGE_SIZES[0]);
+            buildPage(new ScanningPostprocessor(), true, PAGE_SIZES[1]);
+            buildPage(new IncrementalScanningPostprocessor(), true, PAGE_SIZES[1]);
+        }
+        
+        for (int pageSize : PAGE_SIZES) {
+            long perResultMillis = buildPage(new ScanningPostprocessor(), false, pageSize);
+            long deferredMillis = buildPage(new ScanningPostprocessor(), true, pageSize);
+            long incrementalMillis = buildPage(new IncrementalScanningPostprocessor(), true, pageSize);
+            
+            log.info("Page of {} results: applied per result {}ms, deferred {}ms, incremental {}ms", pageSize, perResultMillis, deferredMillis,
+                            incrementalMillis);
+        }
+    }
+    
+    private long buildPage(ScanningPostprocessor resultPostprocessor, boolean incrementalPostprocessing, int pageSize) {
+        PagePostprocessor pagePostprocessor = new PagePostprocessor(resultPostprocessor, incrementalPostprocessing);
+        List<Object> results = new ArrayList<>(pageSize);
+        long expectedLength = 0L;
+        
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < pageSize; i++) {
+            String result = "result" + i;
+            expectedLength += result.length();
+            
+            int fromIndex = results.size();
+            results.add(result);
+            pagePostprocessor.apply(results, fromIndex);
+        }
+        pagePostprocessor.finish(results);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        
+        // every mode should end up with the same tally
+        Assertions.assertEquals(pageSize, results.size());
+        Assertions.assertEquals(expectedLength, resultPostprocessor.totalLength);
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+    
+    // tallies the length of every result in the page
+    private static class ScanningPostprocessor implements ResultPostprocessor {
+        protected long totalLength;
+        
+        @Override
+        public void apply(List<Object> results) {
+            totalLength = 0L;
+            for (Object result : results) {
+                totalLength += ((String) result).length();
+            }
+        }
+    }
+    
+    private static class IncrementalScanningPostprocessor extends ScanningPostprocessor implements IncrementalResultPostprocessor {
+        @Override
+        public void apply(List<Object> results, int fromIndex) {
+            for (int i = fromIndex; i < results.size(); i++) {
+                totalLength += ((String) results.get(i)).length();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import datawave.core.query.logic.ResultPostprocessor;
+
+public class PagePostprocessorTest {
+    
+    private final List<String> calls = new ArrayList<>();
+    
+    @Test
+    public void testFullPostprocessorPerResult() {
+        PagePostprocessor pagePostprocessor = new PagePostprocessor(new RecordingPostprocessor(), false);
+        Assertions.assertFalse(pagePostprocessor.isIncremental());
+        
+        fillPage(pagePostprocessor, 3);
+        
+        // the entire page is re-processed as each result is added
+        Assertions.assertEquals(Arrays.asList("add(0)", "apply[1]", "add(1)", "apply[2]", "add(2)", "apply[3]", "finish"), calls);
+    }
+    
+    @Test
+    public void testIncrementalPostprocessorWithIncrementalPostprocessingDisabled() {
+        PagePostprocessor pagePostprocessor = new PagePostprocessor(new RecordingIncrementalPostprocessor(), false);
+        Assertions.assertFalse(pagePostprocessor.isIncremental());
+        
+        fillPage(pagePostprocessor, 2);
+        
+        // without incremental postprocessing, even an incremental postprocessor sees the entire page each time
+        Assertions.assertEquals(Arrays.asList("add(0)", "apply[1]", "add(1)", "apply[2]", "finish"), calls);
+    }
+    
+    @Test
+    public void testIncrementalPostprocessor() {
+        PagePostprocessor pagePostprocessor = new PagePostprocessor(new RecordingIncrementalPostprocessor(), true);
+        Assertions.assertTrue(pagePostprocessor.isIncremental());
+        
+        fillPage(pagePostprocessor, 3);
+        
+        // each result is seen once as it is added, and the postprocessor is finished exactly once at the end of the page
+        Assertions.assertEquals(Arrays.asList("add(0)", "apply[1] from 0", "add(1)", "apply[2] from 1", "add(2)", "apply[3] from 2", "finish",
+                        "finish[3]"), calls);
+    }
+    
+    @Test
+    public void testNonIncrementalPostprocessorIsDeferred() {
+        PagePostprocessor pagePostprocessor = new PagePostprocessor(new RecordingPostprocessor(), true);
+        Assertions.assertFalse(pagePostprocessor.isIncremental());
+        
+        fillPage(pagePostprocessor, 3);
+        
+        // nothing is applied while the page fills, and the postprocessor is applied to the complete page exactly once
+        Assertions.assertEquals(Arrays.asList("add(0)", "add(1)", "add(2)", "finish", "apply[3]"), calls);
+    }
+    
+    @Test
+    public void testDeferredPostprocessorSeesCompletePage() {
+        // a postprocessor which reduces the page to a single result
+        ResultPostprocessor reducer = results -> {
+            List<Object> reduced = Collections.singletonList(results.size());
+            results.clear();
+            results.addAll(reduced);
+        };
+        
+        List<Object> results = new ArrayList<>();
+        PagePostprocessor pagePostprocessor = new PagePostprocessor(reducer, true);
+        for (int i = 0; i < 5; i++) {
+            results.add("result" + i);
+            pagePostprocessor.apply(results, i);
+        }
+        Assertions.assertEquals(5, results.size());
+        
+        pagePostprocessor.finish(results);
+        Assertions.assertEquals(Collections.singletonList(5), results);
+    }
+    
+    private void fillPage(PagePostprocessor pagePostprocessor, int numResults) {
+        List<Object> results = new ArrayList<>();
+        for (int i = 0; i < numResults; i++) {
+            int fromIndex = results.size();
+            results.add("result" + i);
+            calls.add("add(" + i + ")");
+            pagePostprocessor.apply(results, fromIndex);
+        }
+        calls.add("finish");
+        pagePostprocessor.finish(results);
+    }
+    
+    private class RecordingPostprocessor implements ResultPostprocessor {
+        @Override
+        public void apply(List<Object> results) {
+            calls.add("apply[" + results.size() + "]");
+        }
+    }
+    
+    private class RecordingIncrementalPostprocessor extends RecordingPostprocessor implements IncrementalResultPostprocessor {
+        @Override
+        public void apply(List<Object> results, int fromIndex) {
+            calls.add("apply[" + results.size() + "] from " + fromIndex);
+        }
+        
+        @Override
+        public void finish(List<Object> results) {
+            calls.add("finish[" + results.size() + "]");
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package datawave.microservice.query.runner;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import datawave.core.query.cache.ResultsPage;
+import datawave.core.query.logic.QueryLogic;
+import datawave.core.query.logic.QueryLogicTransformer;
+import datawave.microservice.query.QueryImpl;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.webservice.query.result.event.DefaultEvent;
+import datawave.webservice.query.result.event.DefaultField;
+import datawave.webservice.result.BaseQueryResponse;
+import datawave.webservice.result.DefaultEventQueryResponse;
+
+public class ParallelPageTransformerTest {
+    private static final String LOGIC_NAME = "EventQuery";
+    
+    private final AtomicInteger numTransformers = new AtomicInteger();
+    private ParallelPageTransformer pageTransformer;
+    
+    @AfterEach
+    public void teardown() {
+        if (pageTransformer != null) {
+            pageTransformer.shutdown();
+        }
+    }
+    
+    @Test
+    public void testSerialByDefault() {
+        pageTransformer = new ParallelPageTransformer(new NextCallRunnerProperties());
+        Assertions.assertFalse(pageTransformer.isParallel());
+        
+        BaseQueryResponse response = pageTransformer.createResponse(createQueryLogic(LOGIC_NAME, true), new QueryImpl(), createResultsPage(10));
+        
+        Assertions.assertEquals(1, numTransformers.get());
+        assertEvents(10, response);
+    }
+    
+    @Test
+    public void testSmallPageTransformedSerially() {
+        pageTransformer = new ParallelPageTransformer(createRunnerProperties(4, 100));
+        Assertions.assertTrue(pageTransformer.isParallel());
+        
+        BaseQueryResponse response = pageTransformer.createResponse(createQueryLogic(LOGIC_NAME, true), new QueryImpl(), createResultsPage(99));
+        
+        Assertions.assertEquals(1, numTransformers.get());
+        assertEvents(99, response);
+    }
+    
+    @Test
+    public void testLargePageTransformedInChunks() {
+        pageTransformer = new ParallelPageTransformer(createRunnerProperties(4, 100));
+        QueryLogic<?> queryLogic = createQueryLogic(LOGIC_NAME, true);
+        
+        // the first page is transformed serially, to find out whether the logic's responses can be merged
+        assertEvents(102, pageTransformer.createResponse(queryLogic, new QueryImpl(), createResultsPage(102)));
+        Assertions.assertEquals(1, numTransformers.getAndSet(0));
+        
+        BaseQueryResponse response = pageTransformer.createResponse(queryLogic, new QueryImpl(), createResultsPage(102));
+        
+        // each chunk gets its own transformer, and the merged response has every result in the order that it was collected
+        Assertions.assertEquals(4, numTransformers.get());
+        assertEvents(102, response);
+        Assertions.assertEquals(102L, ((DefaultEventQueryResponse) response).getReturnedEvents());
+        Assertions.assertEquals(102L, ((DefaultEventQueryResponse) response).getTotalEvents());
+    }
+    
+    @Test
+    public void testMorePartitionsThanResults() {
+        pageTransformer = new ParallelPageTransformer(createRunnerProperties(8, 1));
+        QueryLogic<?> queryLogic = createQueryLogic(LOGIC_NAME, true);
+        pageTransformer.createResponse(queryLogic, new QueryImpl(), createResultsPage(3));
+        numTransformers.set(0);
+        
+        BaseQueryResponse response = pageTransformer.createResponse(queryLogic, new QueryImpl(), createResultsPage(3));
+        
+        // the page is never split into empty chunks
+        Assertions.assertEquals(3, numTransformers.get());
+        assertEvents(3, response);
+    }
+    
+    @Test
+    public void testQueryLogicNotOptedIn() {
+        pageTransformer = new ParallelPageTransformer(createRunnerProperties(4, 100));
+        QueryLogic<?> queryLogic = createQueryLogic("CountQuery", true);
+        
+        for (int i = 0; i < 3; i++) {
+            assertEvents(102, pageTransformer.createResponse(queryLogic, new QueryImpl(), createResultsPage(102)));
+        }
+        
+        // logics which haven't opted in may reduce the whole page, so they are never split
+        Assertions.assertEquals(3, numTransformers.get());
+    }
+    
+    @Test
+    public void testUnmergeableResponseTransformedOnce() {
+        pageTransformer = new ParallelPageTransformer(createRunnerProperties(4, 100));
+        QueryLogic<?> queryLogic = createQueryLogic(LOGIC_NAME, false);
+        
+        for (int i = 0; i < 3; i++) {
+            BaseQueryResponse response = pageTransformer.createResponse(queryLogic, new QueryImpl(), createResultsPage(102));
+            Assertions.assertFalse(response instanceof DefaultEventQueryResponse);
+        }
+        
+        // once the logic is known to produce responses which can't be merged, its pages are never split, so each page is only transformed once
+        Assertions.assertEquals(3, numTransformers.get());
+    }
+    
+    private static NextCallRunnerProperties createRunnerProperties(int parallelism, int minPageSize) {
+        NextCallRunnerProperties runnerProperties = new NextCallRunnerProperties();
+        runnerProperties.setParallelTransform(true);
+        runnerProperties.setParallelTransformParallelism(parallelism);
+        runnerProperties.setParallelTransformMinPageSize(minPageSize);
+        runnerProperties.setParallelTransformQueryLogics(Collections.singleton(LOGIC_NAME));
+        return runnerProperties;
+    }
+    
+    private static ResultsPage<Object> createResultsPage(int numResults) {
+        List<Object> results = new ArrayList<>();
+        for (int i = 0; i < numResults; i++) {
+            results.add("result" + i);
+        }
+        return new ResultsPage<>(results, ResultsPage.Status.COMPLETE);
+    }
+    
+    private static void assertEvents(int numResults, BaseQueryResponse response) {
+        List<String> expectedValues = createResultsPage(numResults).getResults().stream().map(Object::toString).collect(Collectors.toList());
+        // @formatter:off
+        List<String> values = ((DefaultEventQueryResponse) response).getEvents().stream()
+                .map(event -> ((DefaultEvent) event).getFields().get(0).getValueString())
+                .collect(Collectors.toList());
+        // @formatter:on
+        Assertions.assertEquals(expectedValues, values);
+    }
+    
+    // a query logic which hands out a new transformer each time, and each transformer may only be used once since transformers aren't thread safe
+    private QueryLogic<?> createQueryLogic(String logicName, boolean eventResponses) {
+        return (QueryLogic<?>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {QueryLogic.class}, (proxy, method, args) -> {
+            if (method.getName().equals("getLogicName")) {
+                return logicName;
+            }
+            if (method.getName().equals("getTransformer")) {
+                numTransformers.incrementAndGet();
+                return createTransformer(eventResponses);
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+    
+    private QueryLogicTransformer<?,?> createTransformer(boolean eventResponses) {
+        AtomicInteger numCalls = new AtomicInteger();
+        return (QueryLogicTransformer<?,?>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {QueryLogicTransformer.class},
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("createResponse")) {
+                                Assertions.assertEquals(1, numCalls.incrementAndGet());
+                                return eventResponses ? createResponse((ResultsPage<?>) args[0]) : new SummaryResponse();
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                        });
+    }
+    
+    private static BaseQueryResponse createResponse(ResultsPage<?> resultsPage) {
+        List<DefaultEvent> events = new ArrayList<>();
+        for (Object result : resultsPage.getResults()) {
+            DefaultEvent event = new DefaultEvent();
+            event.setFields(Collections.singletonList(new DefaultField("RESULT", "ALL", new HashMap<>(), 0L, result.toString())));
+            events.add(event);
+        }
+        
+        DefaultEventQueryResponse response = new DefaultEventQueryResponse();
+        response.setEvents(new ArrayList<>(events));
+        response.setReturnedEvents((long) events.size());
+        return response;
+    }
+    
+    // a response which summarizes the whole page, like a count, and so can't be merged
+    private static class SummaryResponse extends BaseQueryResponse {}
+}
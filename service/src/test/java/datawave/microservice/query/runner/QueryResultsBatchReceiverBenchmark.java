@@ -0,0 +1,142 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.microservice.query.messaging.AcknowledgementCallback;
+import datawave.microservice.query.messaging.Result;
+
+/**
+ * Compares the results/sec that a next call can drain from a broker when it receives and acknowledges one result at a time, with receiving and acknowledging
+ * in bulk.
+ * <p>
+ * The broker is simulated by a queue where every receive and every acknowledgement costs a fixed round trip. Each next call fills a page the same way that
+ * {@link NextCall} does. The results depend on timing, so this only logs them and is not part of the unit test suite. Run it explicitly with
+ * {@code mvn test -Dtest=QueryResultsBatchReceiverBenchmark}.
+ */
+public class QueryResultsBatchReceiverBenchmark {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private static final int PAGE_SIZE = 10000;
+    private static final int NUM_NEXT_CALLS = 5;
+    private static final int BATCH_SIZE = 1000;
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+    
+    @Test
+    public void benchmarkNextCall() {
+        // warm up both paths before timing them
+        runNextCalls(new SingleResultBroker(), 1);
+        runNextCalls(new BatchBroker(), BATCH_SIZE);
+        
+        SingleResultBroker singleResultBroker = new SingleResultBroker();
+        long singleResultNanos = runNextCalls(singleResultBroker, 1);
+        
+        BatchBroker batchBroker = new BatchBroker();
+        long batchNanos = runNextCalls(batchBroker, BATCH_SIZE);
+        
+        log.info("Per-result receive and acknowledge: {} results/sec per next call, {} broker round trips", resultsPerSecond(singleResultNanos),
+                        singleResultBroker.numRoundTrips.get());
+        log.info("Bulk receive and cumulative acknowledge of {} results: {} results/sec per next call, {} broker round trips", BATCH_SIZE,
+                        resultsPerSecond(batchNanos), batchBroker.numRoundTrips.get());
+    }
+    
+    private long runNextCalls(Broker broker, int batchSize) {
+        long elapsedNanos = 0L;
+        for (int call = 0; call < NUM_NEXT_CALLS; call++) {
+            broker.publish(PAGE_SIZE);
+            
+            QueryResultsBatchReceiver receiver = new QueryResultsBatchReceiver(broker);
+            List<Object> page = new ArrayList<>(PAGE_SIZE);
+            long startNanos = System.nanoTime();
+            while (page.size() < PAGE_SIZE) {
+                try (QueryResultsBatchReceiver.Batch batch = receiver.receive(Math.min(batchSize, PAGE_SIZE - page.size()), 1L, TimeUnit.SECONDS)) {
+                    while (batch.hasNext()) {
+                        page.add(batch.next().getPayload());
+                    }
+                }
+            }
+            elapsedNanos += System.nanoTime() - startNanos;
+            
+            Assertions.assertEquals(PAGE_SIZE, page.size());
+        }
+        return elapsedNanos / NUM_NEXT_CALLS;
+    }
+    
+    private static long resultsPerSecond(long nextCallNanos) {
+        return PAGE_SIZE * TimeUnit.SECONDS.toNanos(1) / Math.max(1L, nextCallNanos);
+    }
+    
+    // spin rather than sleep, since sleeps are far coarser than a broker round trip
+    private static void roundTrip(AtomicLong numRoundTrips) {
+        numRoundTrips.incrementAndGet();
+        long endNanos = System.nanoTime() + ROUND_TRIP_NANOS;
+        while (System.nanoTime() < endNanos) {
+            Thread.onSpinWait();
+        }
+    }
+    
+    private abstract static class Broker implements QueryResultsBatchListener {
+        protected final List<Result> queue = new ArrayList<>();
+        protected final AtomicLong numRoundTrips = new AtomicLong();
+        
+        void publish(int numResults) {
+            queue.clear();
+            for (int i = 0; i < numResults; i++) {
+                String id = "result" + i;
+                queue.add(new Result(id, id) {
+                    @Override
+                    public void acknowledge(AcknowledgementCallback.Status status) {
+                        roundTrip(numRoundTrips);
+                    }
+                });
+            }
+        }
+        
+        protected List<Result> take(int maxResults) {
+            List<Result> batch = new ArrayList<>(queue.subList(0, Math.min(maxResults, queue.size())));
+            queue.subList(0, batch.size()).clear();
+            return batch;
+        }
+    }
+    
+    // a broker which is adapted from a single result listener, which costs a round trip for every receive and every acknowledgement
+    private static class SingleResultBroker extends Broker {
+        @Override
+        public List<Result> receive(int maxResults, long waitTime, TimeUnit waitTimeUnit) {
+            List<Result> batch = new ArrayList<>(maxResults);
+            for (int i = 0; i < maxResults && !queue.isEmpty(); i++) {
+                roundTrip(numRoundTrips);
+                batch.addAll(take(1));
+            }
+            return batch;
+        }
+        
+        @Override
+        public void acknowledge(List<Result> results, AcknowledgementCallback.Status status) {
+            for (Result result : results) {
+                result.acknowledge(status);
+            }
+        }
+    }
+    
+    // a broker which costs a single round trip for each bulk receive and each cumulative acknowledgement
+    private static class BatchBroker extends Broker {
+        @Override
+        public List<Result> receive(int maxResults, long waitTime, TimeUnit waitTimeUnit) {
+            roundTrip(numRoundTrips);
+            return take(maxResults);
+        }
+        
+        @Override
+        public void acknowledge(List<Result> results, AcknowledgementCallback.Status status) {
+            roundTrip(numRoundTrips);
+        }
+    }
+}
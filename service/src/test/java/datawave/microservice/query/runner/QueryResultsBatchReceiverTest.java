@@ -0,0 +1,191 @@
+package datawave.microservice.query.runner;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.query.messaging.AcknowledgementCallback;
+import datawave.microservice.query.messaging.QueryResultsListener;
+import datawave.microservice.query.messaging.Result;
+
+public class QueryResultsBatchReceiverTest {
+    
+    private final LinkedList<Result> queue = new LinkedList<>();
+    private final List<Long> waitTimes = new ArrayList<>();
+    private final List<String> acknowledgements = new ArrayList<>();
+    
+    @Test
+    public void testReceiveBatch() {
+        publish(5);
+        
+        QueryResultsBatchReceiver receiver = new QueryResultsBatchReceiver(QueryResultsBatchListener.of(createListener()));
+        try (QueryResultsBatchReceiver.Batch batch = receiver.receive(3, 100L, TimeUnit.MILLISECONDS)) {
+            Assertions.assertEquals(3, batch.size());
+            for (int i = 0; i < 3; i++) {
+                Assertions.assertEquals("result" + i, batch.next().getPayload());
+            }
+            Assertions.assertFalse(batch.hasNext());
+            Assertions.assertThrows(NoSuchElementException.class, batch::next);
+        }
+        
+        // only the first receive should block
+        Assertions.assertEquals(Arrays.asList(100L, 0L, 0L), waitTimes);
+        Assertions.assertEquals(Arrays.asList("result0:ACK", "result1:ACK", "result2:ACK"), acknowledgements);
+        Assertions.assertEquals(2, queue.size());
+    }
+    
+    @Test
+    public void testReceiveDrainedQueue() {
+        publish(2);
+        
+        QueryResultsBatchReceiver receiver = new QueryResultsBatchReceiver(QueryResultsBatchListener.of(createListener()));
+        try (QueryResultsBatchReceiver.Batch batch = receiver.receive(10, 100L, TimeUnit.MILLISECONDS)) {
+            Assertions.assertEquals(2, batch.size());
+        }
+        
+        try (QueryResultsBatchReceiver.Batch batch = receiver.receive(10, 100L, TimeUnit.MILLISECONDS)) {
+            Assertions.assertTrue(batch.isEmpty());
+            Assertions.assertFalse(batch.hasNext());
+        }
+        
+        // the results which weren't consumed are returned to the queue
+        Assertions.assertEquals(Arrays.asList("result0:NACK", "result1:NACK"), acknowledgements);
+    }
+    
+    @Test
+    public void testPartialBatchNack() {
+        publish(5);
+        
+        QueryResultsBatchReceiver receiver = new QueryResultsBatchReceiver(QueryResultsBatchListener.of(createListener()));
+        try (QueryResultsBatchReceiver.Batch batch = receiver.receive(5, 100L, TimeUnit.MILLISECONDS)) {
+            batch.next();
+            batch.next();
+            Assertions.assertEquals(2, batch.getNumConsumed());
+        }
+        
+        Assertions.assertEquals(Arrays.asList("result0:ACK", "result1:ACK", "result2:NACK", "result3:NACK", "result4:NACK"), acknowledgements);
+    }
+    
+    @Test
+    public void testPartialBatchNackOnFailure() {
+        publish(4);
+        
+        QueryResultsBatchReceiver receiver = new QueryResultsBatchReceiver(QueryResultsBatchListener.of(createListener()));
+        Assertions.assertThrows(IllegalStateException.class, () -> {
+            try (QueryResultsBatchReceiver.Batch batch = receiver.receive(4, 100L, TimeUnit.MILLISECONDS)) {
+                batch.next();
+                // e.g. the query failed, or the postprocessor threw
+                throw new IllegalStateException("failed while processing the batch");
+            }
+        });
+        
+        // the result that was consumed is acknowledged, and the rest go back to the queue
+        Assertions.assertEquals(Arrays.asList("result0:ACK", "result1:NACK", "result2:NACK", "result3:NACK"), acknowledgements);
+    }
+    
+    @Test
+    public void testCloseIsIdempotent() {
+        publish(2);
+        
+        QueryResultsBatchReceiver receiver = new QueryResultsBatchReceiver(QueryResultsBatchListener.of(createListener()));
+        QueryResultsBatchReceiver.Batch batch = receiver.receive(2, 100L, TimeUnit.MILLISECONDS);
+        batch.next();
+        batch.close();
+        batch.close();
+        
+        Assertions.assertEquals(Arrays.asList("result0:ACK", "result1:NACK"), acknowledgements);
+    }
+    
+    @Test
+    public void testBulkReceiveAndAcknowledge() {
+        publish(5);
+        
+        List<String> calls = new ArrayList<>();
+        QueryResultsListener listener = createBatchListener(calls);
+        Assertions.assertSame(listener, QueryResultsBatchListener.of(listener));
+        
+        QueryResultsBatchReceiver receiver = new QueryResultsBatchReceiver(QueryResultsBatchListener.of(listener));
+        try (QueryResultsBatchReceiver.Batch batch = receiver.receive(4, 100L, TimeUnit.MILLISECONDS)) {
+            Assertions.assertEquals(4, batch.size());
+            batch.next();
+            batch.next();
+            batch.next();
+        }
+        
+        // the batch is drained with one receive, and settled with one acknowledgement for the consumed results and one for the rest
+        Assertions.assertEquals(Arrays.asList("receive:4", "ACK:3", "NACK:1"), calls);
+        Assertions.assertTrue(acknowledgements.isEmpty());
+        Assertions.assertEquals(1, queue.size());
+    }
+    
+    @Test
+    public void testBulkAcknowledgeFullyConsumedBatch() {
+        publish(2);
+        
+        List<String> calls = new ArrayList<>();
+        QueryResultsBatchReceiver receiver = new QueryResultsBatchReceiver(QueryResultsBatchListener.of(createBatchListener(calls)));
+        try (QueryResultsBatchReceiver.Batch batch = receiver.receive(10, 100L, TimeUnit.MILLISECONDS)) {
+            while (batch.hasNext()) {
+                batch.next();
+            }
+        }
+        
+        // there is nothing to return to the queue, so there is only one acknowledgement
+        Assertions.assertEquals(Arrays.asList("receive:10", "ACK:2"), calls);
+    }
+    
+    private void publish(int numResults) {
+        for (int i = 0; i < numResults; i++) {
+            String id = "result" + i;
+            queue.add(new Result(id, id) {
+                @Override
+                public void acknowledge(AcknowledgementCallback.Status status) {
+                    acknowledgements.add(getPayload() + ":" + status);
+                }
+            });
+        }
+    }
+    
+    // a listener which hands out the queued results, and records how long each receive was allowed to wait
+    private QueryResultsListener createListener() {
+        Class<?>[] interfaces = new Class<?>[] {QueryResultsListener.class};
+        return (QueryResultsListener) Proxy.newProxyInstance(getClass().getClassLoader(), interfaces, (proxy, method, args) -> {
+            if (method.getName().equals("receive") && args != null && args.length == 2) {
+                waitTimes.add(((TimeUnit) args[1]).toMillis((Long) args[0]));
+                return queue.poll();
+            } else if (method.getName().equals("close")) {
+                return null;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+    
+    // a listener which receives and acknowledges results in bulk, and records each bulk call
+    private QueryResultsListener createBatchListener(List<String> calls) {
+        Class<?>[] interfaces = new Class<?>[] {QueryResultsListener.class, QueryResultsBatchListener.class};
+        return (QueryResultsListener) Proxy.newProxyInstance(getClass().getClassLoader(), interfaces, (proxy, method, args) -> {
+            if (method.getName().equals("receive") && args != null && args.length == 3) {
+                int maxResults = (Integer) args[0];
+                calls.add("receive:" + maxResults);
+                List<Result> results = new ArrayList<>();
+                while (results.size() < maxResults && !queue.isEmpty()) {
+                    results.add(queue.poll());
+                }
+                return results;
+            } else if (method.getName().equals("acknowledge")) {
+                calls.add(args[1] + ":" + ((List<?>) args[0]).size());
+                return null;
+            } else if (method.getName().equals("close")) {
+                return null;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
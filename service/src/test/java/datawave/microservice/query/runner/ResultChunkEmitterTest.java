@@ -0,0 +1,88 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ResultChunkEmitterTest {
+    
+    private final List<List<Object>> chunks = new ArrayList<>();
+    
+    @Test
+    public void testFullChunks() throws Exception {
+        ResultChunkEmitter emitter = new ResultChunkEmitter(chunks::add, 2, true);
+        Assertions.assertTrue(emitter.isChunked());
+        
+        List<Object> results = fillPage(emitter, 5, false);
+        
+        // only full chunks are emitted while the page fills
+        Assertions.assertEquals(Arrays.asList(Arrays.asList("result0", "result1"), Arrays.asList("result2", "result3")), chunks);
+        Assertions.assertEquals(4, emitter.getNumResultsEmitted());
+        
+        // and the remainder is emitted when the page is finished
+        emitter.finish(results);
+        Assertions.assertEquals(Arrays.asList(Arrays.asList("result0", "result1"), Arrays.asList("result2", "result3"), Collections.singletonList("result4")),
+                        chunks);
+        Assertions.assertEquals(5, emitter.getNumResultsEmitted());
+    }
+    
+    @Test
+    public void testFlush() throws Exception {
+        ResultChunkEmitter emitter = new ResultChunkEmitter(chunks::add, 10, true);
+        
+        List<Object> results = new ArrayList<>(Arrays.asList("result0", "result1"));
+        emitter.emit(results, false);
+        Assertions.assertTrue(chunks.isEmpty());
+        
+        // a flush emits a partial chunk
+        emitter.emit(results, true);
+        Assertions.assertEquals(Collections.singletonList(Arrays.asList("result0", "result1")), chunks);
+        
+        // but never emits an empty chunk
+        emitter.emit(results, true);
+        emitter.finish(results);
+        Assertions.assertEquals(1, chunks.size());
+    }
+    
+    @Test
+    public void testNotChunked() throws Exception {
+        ResultChunkEmitter emitter = new ResultChunkEmitter(chunks::add, 1, false);
+        Assertions.assertFalse(emitter.isChunked());
+        
+        List<Object> results = fillPage(emitter, 3, true);
+        Assertions.assertTrue(chunks.isEmpty());
+        
+        // the whole page is emitted at once when it is finished
+        emitter.finish(results);
+        Assertions.assertEquals(Collections.singletonList(Arrays.asList("result0", "result1", "result2")), chunks);
+    }
+    
+    @Test
+    public void testEmptyPage() throws Exception {
+        ResultChunkEmitter emitter = new ResultChunkEmitter(chunks::add, 1, true);
+        emitter.finish(new ArrayList<>());
+        Assertions.assertTrue(chunks.isEmpty());
+    }
+    
+    @Test
+    public void testNoListener() throws Exception {
+        ResultChunkEmitter emitter = new ResultChunkEmitter(null, 1, true);
+        
+        List<Object> results = fillPage(emitter, 3, true);
+        emitter.finish(results);
+        Assertions.assertEquals(0, emitter.getNumResultsEmitted());
+    }
+    
+    private List<Object> fillPage(ResultChunkEmitter emitter, int numResults, boolean flush) throws Exception {
+        List<Object> results = new ArrayList<>();
+        for (int i = 0; i < numResults; i++) {
+            results.add("result" + i);
+            emitter.emit(results, flush);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,108 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import datawave.webservice.query.data.ObjectSizeOf;
+
+public class ResultsPageAccumulatorTest {
+    
+    @Test
+    public void testNoSizeTracking() {
+        ResultsPageAccumulator page = new ResultsPageAccumulator(10, false, false);
+        page.add("result");
+        page.add(new SizedResult(1000L));
+        
+        Assertions.assertEquals(2, page.getResults().size());
+        Assertions.assertEquals(0L, page.getSizeBytes());
+    }
+    
+    @Test
+    public void testEveryResultSizedByDefault() {
+        List<Object> results = createResults();
+        
+        ResultsPageAccumulator page = new ResultsPageAccumulator(results.size(), true, false);
+        long expectedSizeBytes = 0L;
+        for (Object result : results) {
+            page.add(result);
+            expectedSizeBytes += ObjectSizeOf.Sizer.getObjectSize(result);
+            Assertions.assertEquals(expectedSizeBytes, page.getSizeBytes());
+        }
+        Assertions.assertEquals(results, page.getResults());
+    }
+    
+    @Test
+    public void testSampledSizes() {
+        List<Object> results = createResults();
+        
+        ResultsPageAccumulator page = new ResultsPageAccumulator(results.size(), true, true);
+        results.forEach(page::add);
+        
+        // the small results are sampled, and the large results are assumed to be the average size of the sample
+        long sampledSizeBytes = 0L;
+        for (int i = 0; i < ResultsPageAccumulator.NUM_SIZE_SAMPLES; i++) {
+            sampledSizeBytes += ObjectSizeOf.Sizer.getObjectSize(results.get(i));
+        }
+        long numEstimated = results.size() - ResultsPageAccumulator.NUM_SIZE_SAMPLES;
+        long expectedSizeBytes = sampledSizeBytes + numEstimated * (sampledSizeBytes / ResultsPageAccumulator.NUM_SIZE_SAMPLES);
+        Assertions.assertEquals(expectedSizeBytes, page.getSizeBytes());
+        
+        // which underestimates the size of the page
+        ResultsPageAccumulator unsampled = new ResultsPageAccumulator(results.size(), true, false);
+        results.forEach(unsampled::add);
+        Assertions.assertTrue(page.getSizeBytes() < unsampled.getSizeBytes());
+    }
+    
+    @Test
+    public void testSampledSizesUseSizeHint() {
+        ResultsPageAccumulator page = new ResultsPageAccumulator(10, true, true);
+        page.add(new SizedResult(1000L));
+        page.add(new SizedResult(24L));
+        
+        Assertions.assertEquals(1024L, page.getSizeBytes());
+    }
+    
+    @Test
+    public void testInitialCapacity() {
+        // a huge page size should neither fail, nor allocate a huge list up front
+        ResultsPageAccumulator page = new ResultsPageAccumulator(Long.MAX_VALUE, false, false);
+        page.add("result");
+        Assertions.assertEquals(1, page.getResults().size());
+        
+        page = new ResultsPageAccumulator(0L, false, false);
+        page.add("result");
+        Assertions.assertEquals(1, page.getResults().size());
+    }
+    
+    // small results which will be sampled, followed by much larger results
+    private static List<Object> createResults() {
+        List<Object> results = new ArrayList<>();
+        for (int i = 0; i < ResultsPageAccumulator.NUM_SIZE_SAMPLES; i++) {
+            results.add("small" + i);
+        }
+        for (int i = 0; i < 4; i++) {
+            StringBuilder builder = new StringBuilder();
+            for (int j = 0; j < 1000; j++) {
+                builder.append("large");
+            }
+            results.add(builder.append(i).toString());
+        }
+        return results;
+    }
+    
+    private static class SizedResult implements ObjectSizeOf {
+        private final long sizeInBytes;
+        
+        private SizedResult(long sizeInBytes) {
+            this.sizeInBytes = sizeInBytes;
+        }
+        
+        @Override
+        public long sizeInBytes() {
+            return sizeInBytes;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Compares the pooled executor with the thread per task executor under a load of blocking next calls.
+ * <p>
+ * The results depend on timing, so this only logs them and is not part of the unit test suite. Run it explicitly with
+ * {@code mvn test -Dtest=UserConcurrencyLimiterBenchmark}.
+ */
+public class UserConcurrencyLimiterBenchmark {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private static final int NUM_USERS = 10;
+    private static final int CALLS_PER_USER = 20;
+    private static final long CALL_MILLIS = 100;
+    private static final int POOL_SIZE = 20;
+    private static final int QUEUE_CAPACITY = 50;
+    
+    @Test
+    public void benchmarkLoad() throws Exception {
+        ThreadPoolTaskExecutor pooledExecutor = new ThreadPoolTaskExecutor();
+        pooledExecutor.setCorePoolSize(POOL_SIZE);
+        pooledExecutor.setMaxPoolSize(POOL_SIZE);
+        pooledExecutor.setQueueCapacity(QUEUE_CAPACITY);
+        pooledExecutor.setThreadNamePrefix("pooled-");
+        pooledExecutor.initialize();
+        
+        LoadResult pooled;
+        try {
+            pooled = runLoad(pooledExecutor, new UserConcurrencyLimiter(0));
+        } finally {
+            pooledExecutor.shutdown();
+        }
+        
+        LoadResult threadPerTask = runLoad(new SimpleAsyncTaskExecutor("per-task-"), new UserConcurrencyLimiter(CALLS_PER_USER));
+        
+        log.info("Pooled executor: {}", pooled);
+        log.info("Thread per task executor: {}", threadPerTask);
+    }
+    
+    private LoadResult runLoad(AsyncTaskExecutor executor, UserConcurrencyLimiter limiter) throws InterruptedException {
+        AtomicInteger activeCalls = new AtomicInteger();
+        AtomicInteger maxActiveCalls = new AtomicInteger();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch completed = new CountDownLatch(NUM_USERS * CALLS_PER_USER);
+        
+        int numRejected = 0;
+        for (int call = 0; call < CALLS_PER_USER; call++) {
+            for (int user = 0; user < NUM_USERS; user++) {
+                long submitTimeMillis = System.currentTimeMillis();
+                try {
+                    limiter.submit(executor, "user" + user, () -> {
+                        maxActiveCalls.accumulateAndGet(activeCalls.incrementAndGet(), Math::max);
+                        try {
+                            // simulate a next call which is waiting on results
+                            Thread.sleep(CALL_MILLIS);
+                        } finally {
+                            activeCalls.decrementAndGet();
+                            latencies.add(System.currentTimeMillis() - submitTimeMillis);
+                            completed.countDown();
+                        }
+                        return null;
+                    });
+                } catch (TaskRejectedException e) {
+                    numRejected++;
+                    completed.countDown();
+                }
+            }
+        }
+        
+        Assertions.assertTrue(completed.await(1, TimeUnit.MINUTES));
+        
+        List<Long> sortedLatencies = new ArrayList<>(latencies);
+        Collections.sort(sortedLatencies);
+        long p99LatencyMillis = sortedLatencies.isEmpty() ? 0 : sortedLatencies.get((int) Math.ceil(0.99 * sortedLatencies.size()) - 1);
+        return new LoadResult(maxActiveCalls.get(), numRejected, p99LatencyMillis);
+    }
+    
+    private static class LoadResult {
+        private final int maxConcurrentCalls;
+        private final int numRejected;
+        private final long p99LatencyMillis;
+        
+        public LoadResult(int maxConcurrentCalls, int numRejected, long p99LatencyMillis) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            this.numRejected = numRejected;
+            this.p99LatencyMillis = p99LatencyMillis;
+        }
+        
+        @Override
+        public String toString() {
+            return "max concurrent calls: " + maxConcurrentCalls + ", rejected calls: " + numRejected + ", p99 latency: " + p99LatencyMillis + "ms";
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+public class UserConcurrencyLimiterTest {
+    private static final int NUM_USERS = 10;
+    private static final int CALLS_PER_USER = 20;
+    private static final int MAX_CALLS_PER_USER = 3;
+    
+    @Test
+    public void testPerUserLimit() throws Exception {
+        UserConcurrencyLimiter limiter = new UserConcurrencyLimiter(2);
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("limiter-test-");
+        CountDownLatch release = new CountDownLatch(1);
+        
+        List<Future<Boolean>> futures = new ArrayList<>();
+        futures.add(limiter.submit(executor, "user1", () -> release.await(10, TimeUnit.SECONDS)));
+        futures.add(limiter.submit(executor, "user1", () -> release.await(10, TimeUnit.SECONDS)));
+        Assertions.assertEquals(2, limiter.getNumActiveCalls("user1"));
+        
+        // user1 is at their limit, but user2 is not
+        Assertions.assertThrows(TaskRejectedException.class, () -> limiter.submit(executor, "user1", () -> true));
+        futures.add(limiter.submit(executor, "user2", () -> release.await(10, TimeUnit.SECONDS)));
+        Assertions.assertEquals(1, limiter.getNumActiveCalls("user2"));
+        
+        release.countDown();
+        for (Future<Boolean> future : futures) {
+            Assertions.assertTrue(future.get());
+        }
+        
+        // once the calls complete, the users should be back under their limits
+        Assertions.assertEquals(0, limiter.getNumActiveCalls("user1"));
+        Assertions.assertEquals(0, limiter.getNumActiveCalls("user2"));
+        Assertions.assertTrue(limiter.submit(executor, "user1", () -> true).get());
+    }
+    
+    @Test
+    public void testExecutorRejectionReleasesPermit() {
+        UserConcurrencyLimiter limiter = new UserConcurrencyLimiter(1);
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("limiter-test-") {
+            @Override
+            public void execute(Runnable task, long startTimeout) {
+                throw new TaskRejectedException("rejected");
+            }
+        };
+        
+        Assertions.assertThrows(TaskRejectedException.class, () -> limiter.execute(executor, "user1", () -> {}));
+        Assertions.assertEquals(0, limiter.getNumActiveCalls("user1"));
+    }
+    
+    @Test
+    public void testUserEvictedWhenCallsComplete() throws Exception {
+        UserConcurrencyLimiter limiter = new UserConcurrencyLimiter(2);
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("limiter-test-");
+        CountDownLatch release = new CountDownLatch(1);
+        
+        Future<Boolean> first = limiter.submit(executor, "user1", () -> release.await(10, TimeUnit.SECONDS));
+        Future<Boolean> second = limiter.submit(executor, "user1", () -> release.await(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, limiter.getNumActiveUsers());
+        
+        // a rejected call should not leave anything behind
+        Assertions.assertThrows(TaskRejectedException.class, () -> limiter.submit(executor, "user1", () -> true));
+        Assertions.assertEquals(2, limiter.getNumActiveCalls("user1"));
+        
+        release.countDown();
+        Assertions.assertTrue(first.get());
+        Assertions.assertTrue(second.get());
+        
+        // once the user's last call completes, they are no longer tracked
+        Assertions.assertEquals(0, limiter.getNumActiveUsers());
+        
+        // and calls for many distinct users don't accumulate
+        for (int user = 0; user < NUM_USERS; user++) {
+            limiter.submit(executor, "user" + user, () -> true).get();
+        }
+        Assertions.assertEquals(0, limiter.getNumActiveUsers());
+    }
+    
+    @Test
+    public void testFollowOnCallAfterRelease() throws Exception {
+        UserConcurrencyLimiter limiter = new UserConcurrencyLimiter(1);
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("limiter-test-");
+        CountDownLatch followOnDone = new CountDownLatch(1);
+        List<Future<Boolean>> followOn = new ArrayList<>();
+        
+        // the user is at their limit while the first call runs, but the callback can still start the next call once the first one has been released
+        limiter.submit(executor, "user1", () -> true, () -> {
+            followOn.add(limiter.submit(executor, "user1", () -> true, followOnDone::countDown));
+        });
+        
+        Assertions.assertTrue(followOnDone.await(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, followOn.size());
+        Assertions.assertTrue(followOn.get(0).get());
+        Assertions.assertEquals(0, limiter.getNumActiveUsers());
+    }
+    
+    @Test
+    public void testUnlimited() throws Exception {
+        UserConcurrencyLimiter limiter = new UserConcurrencyLimiter(0);
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("limiter-test-");
+        CountDownLatch release = new CountDownLatch(1);
+        
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int call = 0; call < CALLS_PER_USER; call++) {
+            futures.add(limiter.submit(executor, "user1", () -> release.await(10, TimeUnit.SECONDS)));
+        }
+        
+        // without a limit, nothing is tracked
+        Assertions.assertEquals(0, limiter.getNumActiveCalls("user1"));
+        Assertions.assertEquals(0, limiter.getNumActiveUsers());
+        
+        release.countDown();
+        for (Future<Boolean> future : futures) {
+            Assertions.assertTrue(future.get());
+        }
+    }
+    
+    @Test
+    public void testThreadPerTaskLoad() throws Exception {
+        UserConcurrencyLimiter limiter = new UserConcurrencyLimiter(MAX_CALLS_PER_USER);
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("per-task-");
+        CountDownLatch started = new CountDownLatch(NUM_USERS * MAX_CALLS_PER_USER);
+        CountDownLatch release = new CountDownLatch(1);
+        
+        List<Future<Boolean>> futures = new ArrayList<>();
+        int numRejected = 0;
+        for (int call = 0; call < CALLS_PER_USER; call++) {
+            for (int user = 0; user < NUM_USERS; user++) {
+                try {
+                    futures.add(limiter.submit(executor, "user" + user, () -> {
+                        started.countDown();
+                        // simulate a next call which is waiting on results
+                        return release.await(1, TimeUnit.MINUTES);
+                    }));
+                } catch (TaskRejectedException e) {
+                    numRejected++;
+                }
+            }
+        }
+        
+        // every user gets exactly their limit, no matter how many calls other users are running
+        Assertions.assertEquals(NUM_USERS * (CALLS_PER_USER - MAX_CALLS_PER_USER), numRejected);
+        for (int user = 0; user < NUM_USERS; user++) {
+            Assertions.assertEquals(MAX_CALLS_PER_USER, limiter.getNumActiveCalls("user" + user));
+        }
+        
+        // and since there is no pool, all of the accepted calls are running at once
+        Assertions.assertTrue(started.await(1, TimeUnit.MINUTES));
+        
+        release.countDown();
+        for (Future<Boolean> future : futures) {
+            Assertions.assertTrue(future.get());
+        }
+        Assertions.assertEquals(0, limiter.getNumActiveUsers());
+    }
+}
@@ -6,8 +6,11 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -16,7 +19,9 @@ import javax.xml.bind.Unmarshaller;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
@@ -38,9 +43,18 @@ import datawave.microservice.authorization.service.RemoteAuthorizationServiceUse
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.microservice.query.AbstractQueryServiceTest;
 import datawave.microservice.query.DefaultQueryParameters;
+import datawave.microservice.query.DnNameCache;
+import datawave.microservice.query.QueryManagementService;
 import datawave.microservice.query.remote.QueryRequest;
+import datawave.microservice.query.runner.UserConcurrencyLimiter;
 import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.stream.config.StreamingPipelineProperties;
+import datawave.microservice.query.stream.listener.StreamingResponseListener;
+import datawave.microservice.querymetric.QueryMetric;
+import datawave.webservice.query.exception.NoResultsQueryException;
+import datawave.webservice.query.exception.QueryException;
 import datawave.webservice.query.result.event.DefaultEvent;
+import datawave.webservice.result.BaseQueryResponse;
 import datawave.webservice.result.DefaultEventQueryResponse;
 
 @ExtendWith(SpringExtension.class)
@@ -48,6 +62,15 @@ import datawave.webservice.result.DefaultEventQueryResponse;
 @ActiveProfiles({"QueryStarterDefaults", "QueryStarterOverrides", "QueryServiceTest", RemoteAuthorizationServiceUserDetailsService.ACTIVATION_PROFILE})
 public class StreamingServiceTest extends AbstractQueryServiceTest {
     
+    @Autowired
+    private StreamingPipelineProperties streamingPipelineProperties;
+    
+    @Autowired
+    private StreamingService streamingService;
+    
+    @Autowired
+    private QueryManagementService queryManagementService;
+    
     @Test
     public void testExecuteSuccess() throws Throwable {
         DatawaveUserDetails authUser = createUserDetails();
@@ -151,6 +174,330 @@ public class StreamingServiceTest extends AbstractQueryServiceTest {
         // @formatter:on
     }
     
+    @Test
+    public void testExecuteSuccess_pipelined() throws Throwable {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        // create a valid query
+        String queryId = createQuery(authUser, createParams());
+        
+        // pump enough results into the queue to trigger a complete page
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        int pageSize = queryStatus.getQuery().getPagesize();
+        
+        // test field value pairings
+        MultiValueMap<String,String> fieldValues = new LinkedMultiValueMap<>();
+        fieldValues.add("LOKI", "ALLIGATOR");
+        fieldValues.add("LOKI", "CLASSIC");
+        
+        // add a config object to the query status, which would normally be added by the executor service
+        queryStatus.setConfig(new GenericQueryConfiguration());
+        queryStorageCache.updateQueryStatus(queryStatus);
+        
+        // @formatter:off
+        publishEventsToQueue(
+                queryId,
+                (int)TEST_MAX_RESULTS_OVERRIDE,
+                fieldValues,
+                "ALL");
+        // @formatter:on
+        
+        // make the execute call asynchronously, collecting the next page while each page is written
+        ResponseEntity<String> response;
+        streamingPipelineProperties.setEnabled(true);
+        try {
+            Future<ResponseEntity<String>> future = execute(authUser, queryId);
+            
+            // the response should come back right away
+            response = future.get();
+        } finally {
+            streamingPipelineProperties.setEnabled(false);
+        }
+        
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        
+        // verify some headers
+        Assertions.assertEquals(MediaType.APPLICATION_XML, response.getHeaders().getContentType());
+        
+        int pageNumber = 1;
+        
+        List<DefaultEventQueryResponse> queryResponses = parseXMLBaseQueryResponses(response.getBody());
+        for (DefaultEventQueryResponse queryResponse : queryResponses) {
+            // verify the query response
+            // @formatter:off
+            assertQueryResponse(
+                    queryId,
+                    "EventQuery",
+                    pageNumber++,
+                    false,
+                    queryResponse.getOperationTimeMS(),
+                    1,
+                    Collections.singletonList("LOKI"),
+                    pageSize,
+                    Objects.requireNonNull(queryResponse));
+            // @formatter:on
+            
+            // validate one of the events
+            DefaultEvent event = (DefaultEvent) queryResponse.getEvents().get(0);
+            // @formatter:off
+            assertDefaultEvent(
+                    Arrays.asList("LOKI", "LOKI"),
+                    Arrays.asList("ALLIGATOR", "CLASSIC"),
+                    event);
+            // @formatter:on
+        }
+        
+        // verify that the next event was published
+        Assertions.assertEquals(6, queryRequestEvents.size());
+        // @formatter:off
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.CREATE,
+                queryId,
+                queryRequestEvents.removeLast());
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.NEXT,
+                queryId,
+                queryRequestEvents.removeLast());
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.NEXT,
+                queryId,
+                queryRequestEvents.removeLast());
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.NEXT,
+                queryId,
+                queryRequestEvents.removeLast());
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.NEXT,
+                queryId,
+                queryRequestEvents.removeLast());
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.CLOSE,
+                queryId,
+                queryRequestEvents.removeLast());
+        // @formatter:on
+    }
+    
+    @Test
+    public void testExecuteSuccess_prefetchExceedsConcurrency() throws Throwable {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        // create a valid query
+        String queryId = createQuery(authUser, createParams());
+        
+        // pump enough results into the queue to trigger a complete page
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        int pageSize = queryStatus.getQuery().getPagesize();
+        
+        // test field value pairings
+        MultiValueMap<String,String> fieldValues = new LinkedMultiValueMap<>();
+        fieldValues.add("LOKI", "ALLIGATOR");
+        fieldValues.add("LOKI", "CLASSIC");
+        
+        // add a config object to the query status, which would normally be added by the executor service
+        queryStatus.setConfig(new GenericQueryConfiguration());
+        queryStorageCache.updateQueryStatus(queryStatus);
+        
+        // @formatter:off
+        publishEventsToQueue(
+                queryId,
+                (int)TEST_MAX_RESULTS_OVERRIDE,
+                fieldValues,
+                "ALL");
+        // @formatter:on
+        
+        // ask for more pages ahead than the query allows next calls to run at once
+        int prefetchDepth = streamingPipelineProperties.getPrefetchDepth();
+        ResponseEntity<String> response;
+        streamingPipelineProperties.setEnabled(true);
+        streamingPipelineProperties.setPrefetchDepth(queryManagementService.getMaxConcurrentNextCalls() + 3);
+        try {
+            Future<ResponseEntity<String>> future = execute(authUser, queryId);
+            
+            // the response should come back right away
+            response = future.get();
+        } finally {
+            streamingPipelineProperties.setEnabled(false);
+            streamingPipelineProperties.setPrefetchDepth(prefetchDepth);
+        }
+        
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        
+        // the prefetch depth should have been capped, rather than the extra next calls being rejected and cutting the stream short
+        List<DefaultEventQueryResponse> queryResponses = parseXMLBaseQueryResponses(response.getBody());
+        Assertions.assertEquals(TEST_MAX_RESULTS_OVERRIDE / pageSize, queryResponses.size());
+        
+        int pageNumber = 1;
+        for (DefaultEventQueryResponse queryResponse : queryResponses) {
+            // @formatter:off
+            assertQueryResponse(
+                    queryId,
+                    "EventQuery",
+                    pageNumber++,
+                    false,
+                    queryResponse.getOperationTimeMS(),
+                    1,
+                    Collections.singletonList("LOKI"),
+                    pageSize,
+                    Objects.requireNonNull(queryResponse));
+            // @formatter:on
+        }
+    }
+    
+    @Test
+    public void testExecuteFailure_pipelined() throws Throwable {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        // create a valid query
+        String queryId = createQuery(authUser, createParams());
+        
+        // fail the query, the way the executor would
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        queryStatus.setConfig(new GenericQueryConfiguration());
+        queryStatus.setQueryState(QueryStatus.QUERY_STATE.FAIL);
+        queryStatus.setFailureMessage("the executor failed");
+        queryStorageCache.updateQueryStatus(queryStatus);
+        
+        // a listener which records the pages written, and how it was closed
+        List<BaseQueryResponse> responses = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Throwable> closed = new CompletableFuture<>();
+        StreamingResponseListener listener = new StreamingResponseListener() {
+            @Override
+            public void onResponse(BaseQueryResponse response) {
+                responses.add(response);
+            }
+            
+            @Override
+            public void close() {
+                closed.complete(null);
+            }
+            
+            @Override
+            public void closeWithError(Throwable t) {
+                closed.complete(t);
+            }
+        };
+        
+        // there is no request here, so supply the query metric that the request would have
+        streamingPipelineProperties.setEnabled(true);
+        queryManagementService.getBaseQueryMetricOverride().set(new QueryMetric());
+        try {
+            streamingService.execute(queryId, authUser, authUser, listener);
+        } finally {
+            queryManagementService.getBaseQueryMetricOverride().remove();
+            streamingPipelineProperties.setEnabled(false);
+        }
+        
+        // the failure should be passed on to the listener, rather than looking like the end of the results
+        Throwable error = closed.get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertNotNull(error);
+        Assertions.assertTrue(error instanceof QueryException);
+        Assertions.assertFalse(error instanceof NoResultsQueryException);
+        Assertions.assertTrue(responses.isEmpty());
+    }
+    
+    @Test
+    public void testExecuteSuccess_resultStreaming() throws Throwable {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        // create a valid query
+        String queryId = createQuery(authUser, createParams());
+        
+        // pump enough results into the queue to trigger a complete page
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        
+        // test field value pairings
+        MultiValueMap<String,String> fieldValues = new LinkedMultiValueMap<>();
+        fieldValues.add("LOKI", "ALLIGATOR");
+        fieldValues.add("LOKI", "CLASSIC");
+        
+        // add a config object to the query status, which would normally be added by the executor service
+        queryStatus.setConfig(new GenericQueryConfiguration());
+        queryStorageCache.updateQueryStatus(queryStatus);
+        
+        // @formatter:off
+        publishEventsToQueue(
+                queryId,
+                (int)TEST_MAX_RESULTS_OVERRIDE,
+                fieldValues,
+                "ALL");
+        // @formatter:on
+        
+        // make the execute call asynchronously, writing the results in chunks as they are collected
+        int resultChunkSize = streamingPipelineProperties.getResultChunkSize();
+        ResponseEntity<String> response;
+        streamingPipelineProperties.setResultStreaming(true);
+        streamingPipelineProperties.setResultChunkSize(3);
+        try {
+            Future<ResponseEntity<String>> future = execute(authUser, queryId);
+            
+            // the response should come back right away
+            response = future.get();
+        } finally {
+            streamingPipelineProperties.setResultStreaming(false);
+            streamingPipelineProperties.setResultChunkSize(resultChunkSize);
+        }
+        
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        
+        // verify some headers
+        Assertions.assertEquals(MediaType.APPLICATION_XML, response.getHeaders().getContentType());
+        
+        int pageSize = queryStatus.getQuery().getPagesize();
+        int numEvents = 0;
+        long expectedPageNumber = 1;
+        
+        List<DefaultEventQueryResponse> queryResponses = parseXMLBaseQueryResponses(response.getBody());
+        for (DefaultEventQueryResponse queryResponse : queryResponses) {
+            // the test logic's postprocessor is not incremental, so each page should be written as a single chunk
+            Assertions.assertEquals(queryId, queryResponse.getQueryId());
+            Assertions.assertEquals("EventQuery", queryResponse.getLogicName());
+            Assertions.assertEquals(expectedPageNumber++, queryResponse.getPageNumber());
+            Assertions.assertEquals(pageSize, queryResponse.getEvents().size());
+            numEvents += queryResponse.getEvents().size();
+            
+            // validate one of the events
+            DefaultEvent event = (DefaultEvent) queryResponse.getEvents().get(0);
+            // @formatter:off
+            assertDefaultEvent(
+                    Arrays.asList("LOKI", "LOKI"),
+                    Arrays.asList("ALLIGATOR", "CLASSIC"),
+                    event);
+            // @formatter:on
+        }
+        
+        // every result should have been written exactly once, and each page number should have been claimed exactly once
+        Assertions.assertEquals(TEST_MAX_RESULTS_OVERRIDE, numEvents);
+        Assertions.assertEquals(queryStorageCache.getQueryStatus(queryId).getLastPageNumber(), queryResponses.size());
+        
+        // verify that the same events were published as for page streaming
+        Assertions.assertEquals(6, queryRequestEvents.size());
+        // @formatter:off
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.CREATE,
+                queryId,
+                queryRequestEvents.removeLast());
+        for (int i = 0; i < 4; i++) {
+            assertQueryRequestEvent(
+                    "executor-unassigned:**",
+                    QueryRequest.Method.NEXT,
+                    queryId,
+                    queryRequestEvents.removeLast());
+        }
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.CLOSE,
+                queryId,
+                queryRequestEvents.removeLast());
+        // @formatter:on
+    }
+    
     @Test
     public void testCreateAndExecuteSuccess() throws Throwable {
         DatawaveUserDetails authUser = createUserDetails();
@@ -266,6 +613,43 @@ public class StreamingServiceTest extends AbstractQueryServiceTest {
         // @formatter:on
     }
     
+    @Test
+    public void testCreateAndExecuteFailure_rejected() throws Throwable {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        final String query = TEST_QUERY_STRING + " CREATE_AND_EXECUTE:REJECTED";
+        
+        MultiValueMap<String,String> params = createParams();
+        params.set(DefaultQueryParameters.QUERY_STRING, query);
+        
+        // a streaming service which only allows one streaming call per user, where the user's call is already running
+        SimpleAsyncTaskExecutor streamingCallExecutor = new SimpleAsyncTaskExecutor("streaming-call-");
+        UserConcurrencyLimiter streamingCallLimiter = new UserConcurrencyLimiter(1);
+        CountDownLatch runningCall = new CountDownLatch(1);
+        streamingCallLimiter.submit(streamingCallExecutor, DnNameCache.getOwner(authUser.getPrimaryUser().getDn().subjectDN()),
+                        () -> runningCall.await(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS));
+        StreamingService limitedStreamingService = new StreamingService(queryManagementService, null, streamingCallExecutor, streamingCallLimiter,
+                        streamingPipelineProperties);
+        
+        // not testing audit with this method
+        auditIgnoreSetup();
+        
+        // there is no request here, so supply the query metric that the request would have
+        queryManagementService.getBaseQueryMetricOverride().set(new QueryMetric());
+        try {
+            Assertions.assertThrows(QueryException.class,
+                            () -> limitedStreamingService.createAndExecute("EventQuery", params, null, authUser, authUser, response -> {}));
+        } finally {
+            queryManagementService.getBaseQueryMetricOverride().remove();
+            runningCall.countDown();
+        }
+        
+        // the query was created before the streaming call was rejected, so it should have been canceled rather than left running
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus().stream().filter(x -> x.getQuery().getQuery().equals(query)).findAny().orElse(null);
+        Assertions.assertNotNull(queryStatus);
+        Assertions.assertEquals(QueryStatus.QUERY_STATE.CANCEL, queryStatus.getQueryState());
+    }
+    
     protected Future<ResponseEntity<String>> createAndExecute(DatawaveUserDetails authUser, MultiValueMap<String,String> map) {
         UriComponents uri = createUri("EventQuery/createAndExecute");
         
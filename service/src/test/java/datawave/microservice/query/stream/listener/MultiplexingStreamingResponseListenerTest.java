@@ -0,0 +1,231 @@
+package datawave.microservice.query.stream.listener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import datawave.webservice.result.BaseQueryResponse;
+import datawave.webservice.result.DefaultEventQueryResponse;
+
+public class MultiplexingStreamingResponseListenerTest {
+    
+    private static final int NUM_STREAMS = 8;
+    private static final int RESPONSES_PER_STREAM = 50;
+    
+    @Test
+    public void testClosesOnlyWhenAllStreamsClose() throws Exception {
+        RecordingListener delegate = new RecordingListener();
+        MultiplexingStreamingResponseListener multiplexer = new MultiplexingStreamingResponseListener(delegate, 2, 10);
+        
+        StreamingResponseListener stream1 = multiplexer.newStream();
+        StreamingResponseListener stream2 = multiplexer.newStream();
+        Assertions.assertThrows(IllegalStateException.class, multiplexer::newStream);
+        
+        stream1.onResponse(createResponse("1-0"));
+        stream1.close();
+        Assertions.assertEquals(0, delegate.numCloses.get());
+        
+        stream2.onResponse(createResponse("2-0"));
+        stream2.close();
+        Assertions.assertEquals(1, delegate.numCloses.get());
+        Assertions.assertEquals(2, delegate.queryIds.size());
+        Assertions.assertTrue(multiplexer.isClosed());
+        
+        // closing a stream twice should have no effect
+        stream2.close();
+        Assertions.assertEquals(1, delegate.numCloses.get());
+    }
+    
+    @Test
+    public void testConcurrentStreams() throws Exception {
+        SlowListener delegate = new SlowListener();
+        MultiplexingStreamingResponseListener multiplexer = new MultiplexingStreamingResponseListener(delegate, NUM_STREAMS, 4);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_STREAMS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < NUM_STREAMS; i++) {
+                final int streamIndex = i;
+                final StreamingResponseListener stream = multiplexer.newStream();
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < RESPONSES_PER_STREAM; j++) {
+                        stream.onResponse(createResponse(streamIndex + "-" + j));
+                    }
+                    stream.close();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        Assertions.assertEquals(1, delegate.numCloses.get());
+        Assertions.assertEquals(0, delegate.numErrors.get());
+        Assertions.assertEquals(NUM_STREAMS * RESPONSES_PER_STREAM, delegate.queryIds.size());
+        
+        // responses are never written concurrently, and the responses from each stream are written in order
+        Assertions.assertEquals(1, delegate.maxConcurrentWrites.get());
+        for (int i = 0; i < NUM_STREAMS; i++) {
+            int expected = 0;
+            for (String queryId : delegate.queryIds) {
+                if (queryId.startsWith(i + "-")) {
+                    Assertions.assertEquals(i + "-" + expected++, queryId);
+                }
+            }
+            Assertions.assertEquals(RESPONSES_PER_STREAM, expected);
+        }
+    }
+    
+    @Test
+    public void testStreamErrorStopsOtherStreams() throws Exception {
+        RecordingListener delegate = new RecordingListener();
+        MultiplexingStreamingResponseListener multiplexer = new MultiplexingStreamingResponseListener(delegate, 2, 10);
+        
+        StreamingResponseListener stream1 = multiplexer.newStream();
+        StreamingResponseListener stream2 = multiplexer.newStream();
+        
+        stream1.onResponse(createResponse("1-0"));
+        stream1.closeWithError(new IllegalStateException("batch failed"));
+        Assertions.assertEquals(1, delegate.numErrors.get());
+        
+        // the other stream should be rejected, and closing it should not close the delegate again
+        Assertions.assertThrows(IOException.class, () -> stream2.onResponse(createResponse("2-0")));
+        stream2.closeWithError(new IOException("stream failed"));
+        stream2.close();
+        Assertions.assertEquals(1, delegate.numErrors.get());
+        Assertions.assertEquals(0, delegate.numCloses.get());
+        Assertions.assertEquals(Collections.singletonList("1-0"), delegate.queryIds);
+    }
+    
+    @Test
+    public void testWriteErrorStopsStreams() throws Exception {
+        RecordingListener delegate = new RecordingListener() {
+            @Override
+            public void onResponse(BaseQueryResponse response) throws IOException {
+                throw new IOException("client went away");
+            }
+        };
+        MultiplexingStreamingResponseListener multiplexer = new MultiplexingStreamingResponseListener(delegate, 2, 10);
+        
+        StreamingResponseListener stream1 = multiplexer.newStream();
+        StreamingResponseListener stream2 = multiplexer.newStream();
+        
+        Assertions.assertThrows(IOException.class, () -> stream1.onResponse(createResponse("1-0")));
+        Assertions.assertThrows(IOException.class, () -> stream2.onResponse(createResponse("2-0")));
+        stream1.close();
+        stream2.close();
+        Assertions.assertEquals(1, delegate.numErrors.get());
+        Assertions.assertEquals(0, delegate.numCloses.get());
+    }
+    
+    @Test
+    public void testErrorUnblocksFullBuffer() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener delegate = new RecordingListener() {
+            @Override
+            public void onResponse(BaseQueryResponse response) throws IOException {
+                writing.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onResponse(response);
+            }
+        };
+        MultiplexingStreamingResponseListener multiplexer = new MultiplexingStreamingResponseListener(delegate, 2, 1);
+        
+        StreamingResponseListener stream1 = multiplexer.newStream();
+        StreamingResponseListener stream2 = multiplexer.newStream();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // the first stream holds the write lock while the delegate is blocked, and the second stream fills the buffer and then blocks
+            Future<?> writer = executor.submit(() -> {
+                stream1.onResponse(createResponse("1-0"));
+                return null;
+            });
+            Assertions.assertTrue(writing.await(10, TimeUnit.SECONDS));
+            Future<?> blocked = executor.submit(() -> {
+                stream2.onResponse(createResponse("2-0"));
+                stream2.onResponse(createResponse("2-1"));
+                return null;
+            });
+            
+            // the error clears the buffer right away, but has to wait for the current write to finish before closing the delegate
+            Future<?> failing = executor.submit(() -> multiplexer.closeWithError(new IllegalStateException("lookup failed")));
+            Assertions.assertThrows(ExecutionException.class, () -> blocked.get(10, TimeUnit.SECONDS));
+            Assertions.assertFalse(failing.isDone());
+            
+            release.countDown();
+            failing.get(10, TimeUnit.SECONDS);
+            Assertions.assertThrows(ExecutionException.class, () -> writer.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        
+        Assertions.assertEquals(1, delegate.numErrors.get());
+        Assertions.assertEquals(0, delegate.numCloses.get());
+    }
+    
+    private static BaseQueryResponse createResponse(String queryId) {
+        DefaultEventQueryResponse response = new DefaultEventQueryResponse();
+        response.setQueryId(queryId);
+        return response;
+    }
+    
+    private static class RecordingListener implements StreamingResponseListener {
+        protected final List<String> queryIds = Collections.synchronizedList(new ArrayList<>());
+        protected final AtomicInteger numCloses = new AtomicInteger();
+        protected final AtomicInteger numErrors = new AtomicInteger();
+        
+        @Override
+        public void onResponse(BaseQueryResponse response) throws IOException {
+            queryIds.add(response.getQueryId());
+        }
+        
+        @Override
+        public void close() {
+            numCloses.incrementAndGet();
+        }
+        
+        @Override
+        public void closeWithError(Throwable t) {
+            numErrors.incrementAndGet();
+        }
+    }
+    
+    private static class SlowListener extends RecordingListener {
+        private final AtomicInteger concurrentWrites = new AtomicInteger();
+        private final AtomicInteger maxConcurrentWrites = new AtomicInteger();
+        
+        @Override
+        public void onResponse(BaseQueryResponse response) throws IOException {
+            maxConcurrentWrites.accumulateAndGet(concurrentWrites.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrentWrites.decrementAndGet();
+            }
+            super.onResponse(response);
+        }
+    }
+}